@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+/**
+ * A benchmark of one operation of the code generator, run by a {@link BenchmarkRunner}.
+ *
+ * <p>
+ * The life-cycle mirrors that of JMH benchmarks: {@link #setUp()} is invoked once, then
+ * {@link #setUpIteration()} and {@link #measure()} are invoked for each warm-up and measurement iteration,
+ * and finally {@link #tearDown()} is invoked. Only the time reported by {@link #measure()} is recorded, so
+ * that each benchmark measures its operation in isolation from the preparation of its inputs.
+ */
+public abstract class Benchmark {
+
+	/** The name of the benchmark. */
+	private final String name;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name
+	 *            - The name of the benchmark.
+	 */
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return A description of the parameters of the benchmark, of the form {@code key=value;key=value}.
+	 */
+	public abstract String getParameters();
+
+	/**
+	 * Prepare the inputs shared by all the iterations.
+	 *
+	 * @throws Exception
+	 *             if the benchmark cannot be prepared.
+	 */
+	public void setUp() throws Exception {
+		// Nothing to prepare by default
+	}
+
+	/**
+	 * Prepare the inputs of the next iteration. This is not measured.
+	 *
+	 * @throws Exception
+	 *             if the iteration cannot be prepared.
+	 */
+	public void setUpIteration() throws Exception {
+		// Nothing to prepare by default
+	}
+
+	/**
+	 * Run the measured operation once.
+	 *
+	 * @return The elapsed time of the operation, in nanoseconds.
+	 * @throws Exception
+	 *             if the operation fails.
+	 */
+	public abstract long measure() throws Exception;
+
+	/**
+	 * Release the resources of the benchmark.
+	 *
+	 * @throws Exception
+	 *             if the resources cannot be released.
+	 */
+	public void tearDown() throws Exception {
+		// Nothing to release by default
+	}
+
+}
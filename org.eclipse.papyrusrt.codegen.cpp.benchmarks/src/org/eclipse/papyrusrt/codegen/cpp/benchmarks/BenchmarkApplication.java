@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * Headless application running the code generator benchmarks, so that performance regressions can be
+ * detected in a build before upgrading the generator.
+ *
+ * <p>
+ * Run as {@code eclipse -application org.eclipse.papyrusrt.codegen.cpp.benchmarks.run [options]}, with the
+ * options:
+ * <ul>
+ * <li>{@code -benchmarks generate,write,capsuleInstance,prune,parallelGenerate}: the benchmarks to run
+ * (default: all);
+ * <li>{@code -capsules}, {@code -ports}, {@code -signals}, {@code -states}, {@code -multiplicity}: the
+ * comma-separated values of the parameters of the synthetic models; every combination is run;
+ * <li>{@code -warmup n}, {@code -iterations n}: the number of warm-up and measurement iterations;
+ * <li>{@code -parallelism n}: the number of threads of the {@code parallelGenerate} benchmark, which fails
+ * if the files differ from those of a sequential generation (default: the number of processors, at least 2);
+ * <li>{@code -model file.uml}, {@code -top name}: the UML-RT model and top capsule for the {@code prune}
+ * benchmark, which is skipped without a model;
+ * <li>{@code -output file.csv}: where to write the results;
+ * <li>{@code -baseline file.csv}, {@code -tolerance 0.1}: the results to compare with, and the accepted
+ * relative increase of the median time. The application exits with code 1 if a benchmark regressed.
+ * </ul>
+ */
+public class BenchmarkApplication implements IApplication {
+
+	/** The exit code when a benchmark regressed compared to the baseline. */
+	public static final Integer EXIT_REGRESSION = Integer.valueOf(1);
+
+	/** The names of all the benchmarks. */
+	private static final List<String> ALL_BENCHMARKS = Arrays.asList(GenerateBenchmark.NAME, WriteBenchmark.NAME,
+			CapsuleInstanceBenchmark.NAME, PruneBenchmark.NAME, ParallelGenerateBenchmark.NAME);
+
+	@Override
+	public Object start(IApplicationContext context) throws Exception {
+		Map<String, String> options = parse((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS));
+		List<String> names = split(options, "benchmarks", null);
+		if (names.isEmpty()) {
+			names = ALL_BENCHMARKS;
+		}
+
+		BenchmarkRunner runner = new BenchmarkRunner();
+		runner.setWarmupIterations(Integer.parseInt(get(options, "warmup", "3")));
+		runner.setMeasurementIterations(Integer.parseInt(get(options, "iterations", "10")));
+
+		List<BenchmarkResult> results = new ArrayList<>();
+		for (Benchmark benchmark : createBenchmarks(names, options)) {
+			BenchmarkResult result = runner.run(benchmark);
+			System.out.println(result);
+			results.add(result);
+		}
+
+		String output = options.get("output");
+		if (output != null) {
+			BenchmarkResult.write(results, new File(output));
+		}
+
+		String baseline = options.get("baseline");
+		if (baseline != null) {
+			double tolerance = Double.parseDouble(get(options, "tolerance", "0.1"));
+			List<String> regressions = BenchmarkRunner.findRegressions(results,
+					BenchmarkResult.readMedians(new File(baseline)), tolerance);
+			for (String regression : regressions) {
+				System.err.println("Regression: " + regression);
+			}
+			if (!regressions.isEmpty()) {
+				return EXIT_REGRESSION;
+			}
+		}
+		return IApplication.EXIT_OK;
+	}
+
+	@Override
+	public void stop() {
+		// Benchmarks run to completion
+	}
+
+	/**
+	 * @param names
+	 *            - The names of the benchmarks to run.
+	 * @param options
+	 *            - The options.
+	 * @return The {@link Benchmark}s, one per benchmark and combination of parameters.
+	 */
+	private static List<Benchmark> createBenchmarks(List<String> names, Map<String, String> options) {
+		List<SyntheticModel> models = new ArrayList<>();
+		for (String capsules : split(options, "capsules", "10")) {
+			for (String ports : split(options, "ports", "2")) {
+				for (String signals : split(options, "signals", "4")) {
+					for (String states : split(options, "states", "4")) {
+						for (String multiplicity : split(options, "multiplicity", "1")) {
+							SyntheticModel model = new SyntheticModel();
+							model.setCapsules(Integer.parseInt(capsules));
+							model.setPorts(Integer.parseInt(ports));
+							model.setSignals(Integer.parseInt(signals));
+							model.setStates(Integer.parseInt(states));
+							model.setMultiplicity(Integer.parseInt(multiplicity));
+							models.add(model);
+						}
+					}
+				}
+			}
+		}
+
+		List<Benchmark> benchmarks = new ArrayList<>();
+		for (String name : names) {
+			if (PruneBenchmark.NAME.equals(name)) {
+				String model = options.get("model");
+				if (model == null) {
+					System.out.println("Skipping " + name + ": no -model given");
+				} else {
+					String top = get(options, "top", SyntheticModel.TOP);
+					benchmarks.add(new PruneBenchmark(new File(model), top, false));
+					benchmarks.add(new PruneBenchmark(new File(model), top, true));
+				}
+				continue;
+			}
+			for (SyntheticModel model : models) {
+				if (GenerateBenchmark.NAME.equals(name)) {
+					benchmarks.add(new GenerateBenchmark(model));
+				} else if (WriteBenchmark.NAME.equals(name)) {
+					benchmarks.add(new WriteBenchmark(model));
+				} else if (CapsuleInstanceBenchmark.NAME.equals(name)) {
+					benchmarks.add(new CapsuleInstanceBenchmark(model, false));
+					benchmarks.add(new CapsuleInstanceBenchmark(model, true));
+				} else if (ParallelGenerateBenchmark.NAME.equals(name)) {
+					int parallelism = Integer.parseInt(get(options, "parallelism",
+							Integer.toString(Math.max(2, Runtime.getRuntime().availableProcessors()))));
+					benchmarks.add(new ParallelGenerateBenchmark(model, parallelism));
+				} else {
+					throw new IllegalArgumentException("Unknown benchmark " + name + ", expected one of " + ALL_BENCHMARKS);
+				}
+			}
+		}
+		return benchmarks;
+	}
+
+	/**
+	 * @param args
+	 *            - The application arguments, of the form {@code -key value}.
+	 * @return The options, indexed by key without the leading {@code '-'}.
+	 */
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; args != null && i + 1 < args.length; ++i) {
+			if (args[i].startsWith("-")) {
+				options.put(args[i].substring(1), args[++i]);
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * @param options
+	 *            - The options.
+	 * @param key
+	 *            - The key of an option.
+	 * @param defaultValue
+	 *            - The value if the option is not given.
+	 * @return The value of the option.
+	 */
+	private static String get(Map<String, String> options, String key, String defaultValue) {
+		String value = options.get(key);
+		return value == null ? defaultValue : value;
+	}
+
+	/**
+	 * @param options
+	 *            - The options.
+	 * @param key
+	 *            - The key of an option with comma-separated values.
+	 * @param defaultValue
+	 *            - The value if the option is not given, or {@code null} for none.
+	 * @return The values of the option.
+	 */
+	private static List<String> split(Map<String, String> options, String key, String defaultValue) {
+		String value = get(options, key, defaultValue);
+		List<String> values = new ArrayList<>();
+		if (value != null) {
+			for (String item : value.split(",")) {
+				if (!item.trim().isEmpty()) {
+					values.add(item.trim());
+				}
+			}
+		}
+		return values;
+	}
+
+}
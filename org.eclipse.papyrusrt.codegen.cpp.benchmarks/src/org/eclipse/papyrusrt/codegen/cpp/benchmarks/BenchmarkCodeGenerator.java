@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.io.File;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.papyrusrt.codegen.cpp.AbstractUMLRT2CppCodeGenerator;
+import org.eclipse.papyrusrt.codegen.cpp.XTUMLRT2CppCodeGenerator;
+
+/**
+ * A code generator for the benchmarks, generating into a given folder instead of a CDT project.
+ */
+public class BenchmarkCodeGenerator extends AbstractUMLRT2CppCodeGenerator {
+
+	/** The output folder. */
+	private final File outputFolder;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param outputFolder
+	 *            - The output folder.
+	 */
+	public BenchmarkCodeGenerator(File outputFolder) {
+		this.outputFolder = outputFolder;
+		setStandalone(false);
+	}
+
+	@Override
+	protected File getModelFolder(EObject context) {
+		URI uri = context.eResource() == null ? null : context.eResource().getURI();
+		if (uri != null && uri.isFile()) {
+			return new File(uri.toFileString()).getAbsoluteFile().getParentFile();
+		}
+		return outputFolder;
+	}
+
+	@Override
+	protected File getOutputFolder(EObject context, XTUMLRT2CppCodeGenerator codeGen) {
+		return outputFolder;
+	}
+
+}
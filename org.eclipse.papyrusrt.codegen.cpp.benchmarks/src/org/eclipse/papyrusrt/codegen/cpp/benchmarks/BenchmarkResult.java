@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The samples measured for one {@link Benchmark} and their statistics.
+ */
+public class BenchmarkResult {
+
+	/** The header of the CSV reports. */
+	public static final String CSV_HEADER = "benchmark,parameters,iterations,medianNanos,meanNanos,minNanos,maxNanos,stddevNanos";
+
+	/** The name of the benchmark. */
+	private final String name;
+
+	/** The parameters of the benchmark. */
+	private final String parameters;
+
+	/** The measured samples, in nanoseconds, sorted. */
+	private final long[] samples;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name
+	 *            - The name of the benchmark.
+	 * @param parameters
+	 *            - The parameters of the benchmark.
+	 * @param samples
+	 *            - The measured samples, in nanoseconds.
+	 */
+	public BenchmarkResult(String name, String parameters, long[] samples) {
+		if (samples.length == 0) {
+			throw new IllegalArgumentException("No samples for benchmark " + name);
+		}
+		this.name = name;
+		this.parameters = parameters;
+		this.samples = samples.clone();
+		Arrays.sort(this.samples);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @return The key identifying the benchmark and its parameters in a baseline.
+	 */
+	public String getKey() {
+		return getKey(name, parameters);
+	}
+
+	public int getIterations() {
+		return samples.length;
+	}
+
+	public long getMedian() {
+		int middle = samples.length / 2;
+		return samples.length % 2 == 1 ? samples[middle] : (samples[middle - 1] + samples[middle]) / 2;
+	}
+
+	public long getMean() {
+		long sum = 0;
+		for (long sample : samples) {
+			sum += sample;
+		}
+		return sum / samples.length;
+	}
+
+	public long getMin() {
+		return samples[0];
+	}
+
+	public long getMax() {
+		return samples[samples.length - 1];
+	}
+
+	public long getStandardDeviation() {
+		double mean = getMean();
+		double sum = 0;
+		for (long sample : samples) {
+			sum += (sample - mean) * (sample - mean);
+		}
+		return (long) Math.sqrt(sum / samples.length);
+	}
+
+	/**
+	 * @return The result as a line of a CSV report, without line terminator.
+	 */
+	public String toCsv() {
+		return name + ',' + parameters + ',' + samples.length + ',' + getMedian() + ',' + getMean() + ','
+				+ getMin() + ',' + getMax() + ',' + getStandardDeviation();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-16s %-60s %12.3f ms/op (median, min %.3f, max %.3f, n=%d)", name, parameters,
+				getMedian() / 1e6, getMin() / 1e6, getMax() / 1e6, samples.length);
+	}
+
+	/**
+	 * Write a CSV report.
+	 *
+	 * @param results
+	 *            - The {@link BenchmarkResult}s.
+	 * @param file
+	 *            - The report {@link File}.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public static void write(List<BenchmarkResult> results, File file) throws IOException {
+		StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+		for (BenchmarkResult result : results) {
+			csv.append(result.toCsv()).append('\n');
+		}
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			Files.createDirectories(parent.toPath());
+		}
+		Files.write(file.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Read the medians of a CSV report written by {@link #write(List, File)}, to be used as baseline.
+	 *
+	 * @param file
+	 *            - The report {@link File}.
+	 * @return A {@link Map} from benchmark keys (see {@link #getKey()}) to median times, in nanoseconds.
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	public static Map<String, Long> readMedians(File file) throws IOException {
+		Map<String, Long> medians = new HashMap<>();
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			String[] fields = line.split(",");
+			if (fields.length < 4) {
+				continue;
+			}
+			try {
+				medians.put(getKey(fields[0], fields[1]), Long.valueOf(fields[3]));
+			} catch (NumberFormatException e) {
+				// The header, or not a result line
+			}
+		}
+		return medians;
+	}
+
+	/**
+	 * @param name
+	 *            - The name of a benchmark.
+	 * @param parameters
+	 *            - Its parameters.
+	 * @return The key identifying the benchmark and its parameters in a baseline.
+	 */
+	private static String getKey(String name, String parameters) {
+		return name + '[' + parameters + ']';
+	}
+
+}
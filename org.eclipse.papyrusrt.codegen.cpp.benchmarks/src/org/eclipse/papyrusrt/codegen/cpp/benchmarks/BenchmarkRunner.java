@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@link Benchmark}s with warm-up and measurement iterations, and compares their results with a baseline.
+ */
+public class BenchmarkRunner {
+
+	/** The number of warm-up iterations, whose samples are discarded. */
+	private int warmupIterations = 3;
+
+	/** The number of measurement iterations. */
+	private int measurementIterations = 10;
+
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = Math.max(0, warmupIterations);
+	}
+
+	public int getMeasurementIterations() {
+		return measurementIterations;
+	}
+
+	public void setMeasurementIterations(int measurementIterations) {
+		this.measurementIterations = Math.max(1, measurementIterations);
+	}
+
+	/**
+	 * Run a benchmark.
+	 *
+	 * @param benchmark
+	 *            - The {@link Benchmark}.
+	 * @return The {@link BenchmarkResult}.
+	 * @throws Exception
+	 *             if the benchmark fails.
+	 */
+	public BenchmarkResult run(Benchmark benchmark) throws Exception {
+		long[] samples = new long[measurementIterations];
+		benchmark.setUp();
+		try {
+			for (int i = 0; i < warmupIterations; ++i) {
+				benchmark.setUpIteration();
+				benchmark.measure();
+			}
+			for (int i = 0; i < measurementIterations; ++i) {
+				benchmark.setUpIteration();
+				samples[i] = benchmark.measure();
+			}
+		} finally {
+			benchmark.tearDown();
+		}
+		return new BenchmarkResult(benchmark.getName(), benchmark.getParameters(), samples);
+	}
+
+	/**
+	 * Compare results with a baseline.
+	 *
+	 * @param results
+	 *            - The {@link BenchmarkResult}s.
+	 * @param baseline
+	 *            - The baseline medians, as read by {@link BenchmarkResult#readMedians(java.io.File)}.
+	 * @param tolerance
+	 *            - The accepted relative increase of the median, e.g. {@code 0.1} for 10%.
+	 * @return A description of each result whose median exceeds the baseline by more than the tolerance.
+	 *         Results without baseline are not regressions.
+	 */
+	public static List<String> findRegressions(List<BenchmarkResult> results, Map<String, Long> baseline, double tolerance) {
+		List<String> regressions = new ArrayList<>();
+		for (BenchmarkResult result : results) {
+			Long reference = baseline.get(result.getKey());
+			if (reference != null && result.getMedian() > reference * (1 + tolerance)) {
+				regressions.add(String.format("%s: median %.3f ms/op, baseline %.3f ms/op (+%.1f%%)", result.getKey(),
+						result.getMedian() / 1e6, reference / 1e6, 100.0 * (result.getMedian() - reference) / reference));
+			}
+		}
+		return regressions;
+	}
+
+}
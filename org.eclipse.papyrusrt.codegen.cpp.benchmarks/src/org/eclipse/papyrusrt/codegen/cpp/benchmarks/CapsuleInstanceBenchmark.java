@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import org.eclipse.papyrusrt.codegen.cpp.BoundsEvaluator;
+import org.eclipse.papyrusrt.codegen.instance.model.CapsuleInstance;
+import org.eclipse.papyrusrt.codegen.instance.model.CompactInstanceModel;
+import org.eclipse.papyrusrt.codegen.instance.model.ICapsuleInstance;
+import org.eclipse.papyrusrt.codegen.instance.model.InstanceModels;
+import org.eclipse.papyrusrt.xtumlrt.trans.from.uml.UML2xtumlrtModelTranslator;
+
+/**
+ * Measures the construction of the {@link CapsuleInstance} tree of the top capsule of a synthetic model and
+ * the creation of its connections, as done for the structural generation, or of its
+ * {@link CompactInstanceModel}.
+ */
+public class CapsuleInstanceBenchmark extends SyntheticModelBenchmark {
+
+	/** The name of the benchmark. */
+	public static final String NAME = "capsuleInstance";
+
+	/** Whether the {@link CompactInstanceModel} is measured. */
+	private final boolean compact;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param synthetic
+	 *            - The parameters of the model.
+	 * @param compact
+	 *            - Whether the {@link CompactInstanceModel} is measured.
+	 */
+	public CapsuleInstanceBenchmark(SyntheticModel synthetic, boolean compact) {
+		super(NAME, synthetic);
+		this.compact = compact;
+	}
+
+	@Override
+	public String getParameters() {
+		return super.getParameters() + ";instances=" + (compact ? "compact" : "objects");
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		BoundsEvaluator.setTranslator(new UML2xtumlrtModelTranslator());
+	}
+
+	@Override
+	public long measure() throws Exception {
+		long start = System.nanoTime();
+		ICapsuleInstance instance = InstanceModels.createTopInstance(SyntheticModel.getTop(getModel()), false, compact ? 1 : Integer.MAX_VALUE);
+		InstanceModels.connect(instance, null, false);
+		return System.nanoTime() - start;
+	}
+
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import org.eclipse.papyrusrt.codegen.cpp.GenerationSession;
+import org.eclipse.papyrusrt.codegen.cpp.XTUMLRT2CppCodeGenerator;
+
+/**
+ * Measures a full run of {@link XTUMLRT2CppCodeGenerator#generate(java.util.List)} on a synthetic model, in a
+ * fresh {@link GenerationSession}. Files are not written.
+ */
+public class GenerateBenchmark extends SyntheticModelBenchmark {
+
+	/** The name of the benchmark. */
+	public static final String NAME = "generate";
+
+	/** The session of the next iteration. */
+	private GenerationSession session;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param synthetic
+	 *            - The parameters of the model.
+	 */
+	public GenerateBenchmark(SyntheticModel synthetic) {
+		super(NAME, synthetic);
+	}
+
+	@Override
+	public void setUpIteration() throws Exception {
+		session = beginSession(getOutputFolder());
+	}
+
+	@Override
+	public long measure() throws Exception {
+		long start = System.nanoTime();
+		check(session.getCodeGenerator().generate(getElements()));
+		return System.nanoTime() - start;
+	}
+
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.eclipse.papyrusrt.codegen.cpp.CppCodePattern;
+import org.eclipse.papyrusrt.codegen.cpp.GeneratedFiles;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationManifest;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationSession;
+import org.eclipse.papyrusrt.codegen.cpp.XTUMLRT2CppCodeGenerator;
+
+/**
+ * Measures {@link XTUMLRT2CppCodeGenerator#generate(java.util.List)} on a synthetic model with parallel
+ * element generators, and checks that it produces the same files, byte for byte, as a sequential
+ * generation. The benchmark fails if the files differ. The files are written and compared after the
+ * measurement.
+ */
+public class ParallelGenerateBenchmark extends SyntheticModelBenchmark {
+
+	/** The name of the benchmark. */
+	public static final String NAME = "parallelGenerate";
+
+	/** The number of threads running the element generators. */
+	private final int parallelism;
+
+	/** The folder of the files of the sequential generation. */
+	private File sequentialFolder;
+
+	/** The session of the next iteration. */
+	private GenerationSession session;
+
+	/** The number of iterations prepared so far, used to name their output folders. */
+	private int iteration;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param synthetic
+	 *            - The parameters of the model.
+	 * @param parallelism
+	 *            - The number of threads running the element generators.
+	 */
+	public ParallelGenerateBenchmark(SyntheticModel synthetic, int parallelism) {
+		super(NAME, synthetic);
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public String getParameters() {
+		return super.getParameters() + ";parallelism=" + parallelism;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		sequentialFolder = new File(getOutputFolder(), "sequential");
+		GenerationSession sequential = beginSession(sequentialFolder);
+		sequential.getCodeGenerator().setParallelism(1);
+		check(sequential.getCodeGenerator().generate(getElements()));
+		write(sequential.getCppCodePattern());
+	}
+
+	@Override
+	public void setUpIteration() throws Exception {
+		session = beginSession(new File(getOutputFolder(), "iteration" + iteration++));
+		session.getCodeGenerator().setParallelism(parallelism);
+	}
+
+	@Override
+	public long measure() throws Exception {
+		long start = System.nanoTime();
+		check(session.getCodeGenerator().generate(getElements()));
+		long elapsed = System.nanoTime() - start;
+		CppCodePattern cpp = session.getCppCodePattern();
+		write(cpp);
+		compare(sequentialFolder.toPath(), cpp.getOutputFolder().toPath());
+		return elapsed;
+	}
+
+	/**
+	 * @param cpp
+	 *            - The {@link CppCodePattern} of a generation.
+	 * @throws IllegalStateException
+	 *             if the generated files cannot be written.
+	 */
+	private static void write(CppCodePattern cpp) {
+		if (!cpp.write()) {
+			throw new IllegalStateException("Failed to write the generated files to " + cpp.getOutputFolder());
+		}
+	}
+
+	/**
+	 * Compare the files generated in two folders, except the {@link GenerationManifest}, which records
+	 * the modification time of the files.
+	 *
+	 * @param expected
+	 *            - The folder of the sequential generation.
+	 * @param actual
+	 *            - The folder of the parallel generation.
+	 * @throws IOException
+	 *             if a file cannot be read.
+	 * @throws IllegalStateException
+	 *             if the folders do not contain the same files with the same content.
+	 */
+	private static void compare(Path expected, Path actual) throws IOException {
+		Set<Path> expectedFiles = list(expected);
+		Set<Path> actualFiles = list(actual);
+		if (!expectedFiles.equals(actualFiles)) {
+			throw new IllegalStateException("Parallel generation produced the files " + actualFiles
+					+ " instead of " + expectedFiles);
+		}
+		for (Path file : expectedFiles) {
+			if (!GeneratedFiles.sameContent(expected.resolve(file), actual.resolve(file))) {
+				throw new IllegalStateException("Parallel generation produced a different " + file);
+			}
+		}
+	}
+
+	/**
+	 * @param folder
+	 *            - A folder.
+	 * @return The paths, relative to the folder, of the files it contains, except the
+	 *         {@link GenerationManifest}.
+	 * @throws IOException
+	 *             if the folder cannot be listed.
+	 */
+	private static Set<Path> list(Path folder) throws IOException {
+		Set<Path> files = new TreeSet<>();
+		try (Stream<Path> paths = Files.walk(folder)) {
+			for (Iterator<Path> iterator = paths.iterator(); iterator.hasNext();) {
+				Path path = iterator.next();
+				if (Files.isRegularFile(path) && !GenerationManifest.FILENAME.equals(path.getFileName().toString())) {
+					files.add(folder.relativize(path));
+				}
+			}
+		}
+		return files;
+	}
+
+}
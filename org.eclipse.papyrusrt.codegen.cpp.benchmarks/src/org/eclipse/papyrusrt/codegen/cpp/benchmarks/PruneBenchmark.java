@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.papyrusrt.codegen.cpp.GeneratedFiles;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationListener;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationProfile;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationProfile.PhaseStatistics;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationProfiler;
+import org.eclipse.papyrusrt.codegen.cpp.UMLChangeTracker;
+
+/**
+ * Measures {@link UMLChangeTracker#prune(java.util.Map)} when regenerating an unchanged UML-RT model, whose
+ * generators are all pruned.
+ *
+ * <p>
+ * The change tracker only prunes the generators of UML elements, and synthesizing stereotyped UML-RT models
+ * requires the whole UML-RT profile tooling, so this benchmark runs on an existing UML-RT model. The model
+ * is generated once; each iteration then regenerates it and records the time of the
+ * {@link GenerationProfiler#PRUNE prune} phase only. With a fresh session, as after a restart, pruning relies
+ * on the generation manifest; with a reused session, on the elements already generated in the session.
+ */
+public class PruneBenchmark extends Benchmark {
+
+	/** The name of the benchmark. */
+	public static final String NAME = "prune";
+
+	/** The UML model file. */
+	private final File modelFile;
+
+	/** The name of the top capsule. */
+	private final String top;
+
+	/** Whether the generation session is reused between iterations. */
+	private final boolean reuseSession;
+
+	/** The elements to generate: the root of the model. */
+	private List<EObject> elements;
+
+	/** The temporary folder where code is generated. */
+	private File outputFolder;
+
+	/** The code generator of the next iteration. */
+	private BenchmarkCodeGenerator generator;
+
+	/** The profile of the last generation. */
+	private GenerationProfile profile;
+
+	/** The listener recording the profile of each generation. */
+	private final GenerationListener listener = new GenerationListener() {
+		@Override
+		public void phaseCompleted(String phase, long nanos, long allocatedBytes) {
+			// Only the profile of the whole generation is used
+		}
+
+		@Override
+		public void generationCompleted(GenerationProfile generationProfile) {
+			profile = generationProfile;
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param modelFile
+	 *            - The UML model file.
+	 * @param top
+	 *            - The name of the top capsule.
+	 * @param reuseSession
+	 *            - Whether the generation session is reused between iterations.
+	 */
+	public PruneBenchmark(File modelFile, String top, boolean reuseSession) {
+		super(NAME);
+		this.modelFile = modelFile;
+		this.top = top;
+		this.reuseSession = reuseSession;
+	}
+
+	@Override
+	public String getParameters() {
+		return "model=" + modelFile.getName() + ";top=" + top + ";session=" + (reuseSession ? "reused" : "fresh");
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = resourceSet.getResource(URI.createFileURI(modelFile.getAbsolutePath()), true);
+		elements = Collections.singletonList(resource.getContents().get(0));
+		outputFolder = Files.createTempDirectory("papyrusrt-codegen-benchmark").toFile();
+		generator = createGenerator();
+		generate();
+	}
+
+	@Override
+	public void setUpIteration() throws Exception {
+		if (!reuseSession) {
+			generator = createGenerator();
+		}
+	}
+
+	@Override
+	public long measure() throws Exception {
+		generate();
+		PhaseStatistics prune = profile.getPhase(GenerationProfiler.PRUNE);
+		if (prune == null) {
+			throw new IllegalStateException("The generation of " + modelFile + " did not prune");
+		}
+		return prune.getNanos();
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		if (outputFolder != null) {
+			GeneratedFiles.deleteRecursively(outputFolder.toPath());
+		}
+		generator = null;
+		elements = null;
+	}
+
+	/**
+	 * @return A new {@link BenchmarkCodeGenerator} recording the profile of its generations.
+	 */
+	private BenchmarkCodeGenerator createGenerator() {
+		BenchmarkCodeGenerator codeGenerator = new BenchmarkCodeGenerator(outputFolder);
+		codeGenerator.setReuseSession(reuseSession);
+		codeGenerator.addGenerationListener(listener);
+		return codeGenerator;
+	}
+
+	/**
+	 * Generate the model.
+	 *
+	 * @throws IllegalStateException
+	 *             if the generation fails.
+	 */
+	private void generate() {
+		IStatus status = generator.generate(elements, top, true);
+		if (status.getSeverity() >= IStatus.ERROR) {
+			throw new IllegalStateException("Generation of " + modelFile + " failed: " + status.getMessage(), status.getException());
+		}
+	}
+
+}
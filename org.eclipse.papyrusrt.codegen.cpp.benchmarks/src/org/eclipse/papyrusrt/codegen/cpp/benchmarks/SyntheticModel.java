@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.eclipse.papyrusrt.xtumlrt.common.Capsule;
+import org.eclipse.papyrusrt.xtumlrt.common.CapsuleKind;
+import org.eclipse.papyrusrt.xtumlrt.common.CapsulePart;
+import org.eclipse.papyrusrt.xtumlrt.common.CommonFactory;
+import org.eclipse.papyrusrt.xtumlrt.common.Connector;
+import org.eclipse.papyrusrt.xtumlrt.common.ConnectorEnd;
+import org.eclipse.papyrusrt.xtumlrt.common.LiteralInteger;
+import org.eclipse.papyrusrt.xtumlrt.common.Model;
+import org.eclipse.papyrusrt.xtumlrt.common.Port;
+import org.eclipse.papyrusrt.xtumlrt.common.Protocol;
+import org.eclipse.papyrusrt.xtumlrt.common.ProtocolBehaviourFeatureKind;
+import org.eclipse.papyrusrt.xtumlrt.common.Signal;
+import org.eclipse.papyrusrt.xtumlrt.statemach.CompositeState;
+import org.eclipse.papyrusrt.xtumlrt.statemach.InitialPoint;
+import org.eclipse.papyrusrt.xtumlrt.statemach.SimpleState;
+import org.eclipse.papyrusrt.xtumlrt.statemach.StateMachine;
+import org.eclipse.papyrusrt.xtumlrt.statemach.StatemachFactory;
+import org.eclipse.papyrusrt.xtumlrt.statemach.Transition;
+import org.eclipse.papyrusrt.xtumlrt.statemach.Vertex;
+import org.eclipse.papyrusrt.xtumlrt.trans.preproc.ModelPreprocessor;
+import org.eclipse.papyrusrt.xtumlrt.umlrt.RTTrigger;
+import org.eclipse.papyrusrt.xtumlrt.umlrt.UmlrtFactory;
+
+/**
+ * Builds synthetic xtUML-RT models of parameterised size for the benchmarks.
+ *
+ * <p>
+ * A model has one protocol per port, each with the given number of symmetric signals, and the given number of
+ * capsules, each with one port per protocol and a state machine whose states form a ring of transitions
+ * triggered by the signals of the first port. The top capsule has one part per capsule, with the given
+ * multiplicity, and connects the ports of consecutive pairs of parts.
+ */
+public class SyntheticModel {
+
+	/** The name of the top capsule. */
+	public static final String TOP = "Top";
+
+	/** The number of capsules, besides the top capsule. */
+	private int capsules = 10;
+
+	/** The number of ports per capsule, which is also the number of protocols. */
+	private int ports = 2;
+
+	/** The number of signals per protocol. */
+	private int signals = 4;
+
+	/** The number of states of each state machine. */
+	private int states = 4;
+
+	/** The multiplicity of the parts of the top capsule. */
+	private int multiplicity = 1;
+
+	public int getCapsules() {
+		return capsules;
+	}
+
+	public void setCapsules(int capsules) {
+		this.capsules = capsules;
+	}
+
+	public int getPorts() {
+		return ports;
+	}
+
+	public void setPorts(int ports) {
+		this.ports = ports;
+	}
+
+	public int getSignals() {
+		return signals;
+	}
+
+	public void setSignals(int signals) {
+		this.signals = signals;
+	}
+
+	public int getStates() {
+		return states;
+	}
+
+	public void setStates(int states) {
+		this.states = states;
+	}
+
+	public int getMultiplicity() {
+		return multiplicity;
+	}
+
+	public void setMultiplicity(int multiplicity) {
+		this.multiplicity = multiplicity;
+	}
+
+	/**
+	 * @return A description of the parameters of the model, of the form {@code key=value;key=value}.
+	 */
+	public String getParameters() {
+		return "capsules=" + capsules + ";ports=" + ports + ";signals=" + signals + ";states=" + states
+				+ ";multiplicity=" + multiplicity;
+	}
+
+	/**
+	 * Build a model in a new resource of the given resource set, and preprocess it as the generator does
+	 * before generation.
+	 *
+	 * @param resourceSet
+	 *            - The {@link ResourceSet}.
+	 * @return The {@link Model}.
+	 */
+	public Model build(ResourceSet resourceSet) {
+		CommonFactory factory = CommonFactory.eINSTANCE;
+		Model model = factory.createModel();
+		model.setName("Synthetic");
+
+		List<Protocol> protocols = new ArrayList<>(ports);
+		for (int i = 0; i < ports; ++i) {
+			Protocol protocol = factory.createProtocol();
+			protocol.setName("Protocol" + i);
+			for (int j = 0; j < signals; ++j) {
+				Signal signal = factory.createSignal();
+				signal.setName("signal" + j);
+				signal.setKind(ProtocolBehaviourFeatureKind.INOUT);
+				protocol.getProtocolBehaviourFeatures().add(signal);
+			}
+			protocols.add(protocol);
+			model.getProtocols().add(protocol);
+		}
+
+		Capsule top = factory.createCapsule();
+		top.setName(TOP);
+		model.getEntities().add(top);
+
+		List<CapsulePart> parts = new ArrayList<>(capsules);
+		for (int i = 0; i < capsules; ++i) {
+			Capsule capsule = factory.createCapsule();
+			capsule.setName("Capsule" + i);
+			for (int j = 0; j < ports; ++j) {
+				Port port = factory.createPort();
+				port.setName("port" + j);
+				port.setType(protocols.get(j));
+				port.setConjugate(i % 2 == 1);
+				capsule.getPorts().add(port);
+			}
+			if (states > 0) {
+				capsule.setBehaviour(createStateMachine(capsule));
+			}
+			model.getEntities().add(capsule);
+
+			CapsulePart part = factory.createCapsulePart();
+			part.setName("part" + i);
+			part.setType(capsule);
+			part.setKind(CapsuleKind.FIXED);
+			part.setLowerBound(createInteger(multiplicity));
+			part.setUpperBound(createInteger(multiplicity));
+			top.getParts().add(part);
+			parts.add(part);
+		}
+
+		for (int i = 0; i + 1 < capsules; i += 2) {
+			CapsulePart first = parts.get(i);
+			CapsulePart second = parts.get(i + 1);
+			for (int j = 0; j < ports; ++j) {
+				Connector connector = factory.createConnector();
+				connector.setName("connector" + i + '_' + j);
+				connector.getEnds().add(createEnd(first, j));
+				connector.getEnds().add(createEnd(second, j));
+				top.getConnectors().add(connector);
+			}
+		}
+
+		Resource resource = new XMIResourceImpl(URI.createURI("synthetic:/" + getParameters() + ".xtumlrt"));
+		resource.getContents().add(model);
+		resourceSet.getResources().add(resource);
+		new ModelPreprocessor().preprocess(model);
+		return model;
+	}
+
+	/**
+	 * @param model
+	 *            - A {@link Model} built by {@link #build(ResourceSet)}.
+	 * @return Its top {@link Capsule}.
+	 */
+	public static Capsule getTop(Model model) {
+		return (Capsule) model.getEntities().get(0);
+	}
+
+	/**
+	 * @param capsule
+	 *            - A {@link Capsule}.
+	 * @return A {@link StateMachine} whose states form a ring of transitions triggered by the signals of the
+	 *         first port of the capsule.
+	 */
+	private StateMachine createStateMachine(Capsule capsule) {
+		StatemachFactory factory = StatemachFactory.eINSTANCE;
+		StateMachine stateMachine = factory.createStateMachine();
+		stateMachine.setName("StateMachine");
+		CompositeState topState = factory.createCompositeState();
+		topState.setName("top");
+		stateMachine.setTop(topState);
+
+		InitialPoint initial = factory.createInitialPoint();
+		initial.setName("initial");
+		topState.setInitial(initial);
+
+		List<SimpleState> substates = new ArrayList<>(states);
+		for (int i = 0; i < states; ++i) {
+			SimpleState state = factory.createSimpleState();
+			state.setName("State" + i);
+			topState.getSubstates().add(state);
+			substates.add(state);
+		}
+		topState.getTransitions().add(createTransition("initialTransition", initial, substates.get(0)));
+
+		Port port = capsule.getPorts().isEmpty() ? null : capsule.getPorts().get(0);
+		for (int i = 0; port != null && signals > 0 && i < states; ++i) {
+			Transition transition = createTransition("transition" + i, substates.get(i), substates.get((i + 1) % states));
+			RTTrigger trigger = UmlrtFactory.eINSTANCE.createRTTrigger();
+			trigger.setName("trigger" + i);
+			trigger.setSignal((Signal) port.getType().getProtocolBehaviourFeatures().get(i % signals));
+			trigger.getPorts().add(port);
+			transition.getTriggers().add(trigger);
+			topState.getTransitions().add(transition);
+		}
+		return stateMachine;
+	}
+
+	/**
+	 * @param name
+	 *            - The name of the transition.
+	 * @param source
+	 *            - The source {@link Vertex}.
+	 * @param target
+	 *            - The target {@link Vertex}.
+	 * @return A new {@link Transition}.
+	 */
+	private static Transition createTransition(String name, Vertex source, Vertex target) {
+		Transition transition = StatemachFactory.eINSTANCE.createTransition();
+		transition.setName(name);
+		transition.setSourceVertex(source);
+		transition.setTargetVertex(target);
+		return transition;
+	}
+
+	/**
+	 * @param part
+	 *            - A {@link CapsulePart} of the top capsule.
+	 * @param index
+	 *            - The index of a port of the type of the part.
+	 * @return A new {@link ConnectorEnd} for the port of the part.
+	 */
+	private static ConnectorEnd createEnd(CapsulePart part, int index) {
+		ConnectorEnd end = CommonFactory.eINSTANCE.createConnectorEnd();
+		end.setPartWithPort(part);
+		end.setRole(part.getType().getPorts().get(index));
+		return end;
+	}
+
+	/**
+	 * @param value
+	 *            - An integer.
+	 * @return A new {@link LiteralInteger} with the value.
+	 */
+	private static LiteralInteger createInteger(int value) {
+		LiteralInteger literal = CommonFactory.eINSTANCE.createLiteralInteger();
+		literal.setValue(value);
+		return literal;
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.papyrusrt.codegen.cpp.BoundsEvaluator;
+import org.eclipse.papyrusrt.codegen.cpp.CppCodePattern;
+import org.eclipse.papyrusrt.codegen.cpp.GeneratedFiles;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationSession;
+import org.eclipse.papyrusrt.xtumlrt.common.Capsule;
+import org.eclipse.papyrusrt.xtumlrt.common.Model;
+
+/**
+ * Base class of the benchmarks run on a {@link SyntheticModel}, with a temporary output folder.
+ */
+public abstract class SyntheticModelBenchmark extends Benchmark {
+
+	/** The parameters of the model. */
+	private final SyntheticModel synthetic;
+
+	/** The model, built by {@link #setUp()}. */
+	private Model model;
+
+	/** The temporary folder where code is generated. */
+	private File outputFolder;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name
+	 *            - The name of the benchmark.
+	 * @param synthetic
+	 *            - The parameters of the model.
+	 */
+	protected SyntheticModelBenchmark(String name, SyntheticModel synthetic) {
+		super(name);
+		this.synthetic = synthetic;
+	}
+
+	@Override
+	public String getParameters() {
+		return synthetic.getParameters();
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		model = synthetic.build(new ResourceSetImpl());
+		outputFolder = Files.createTempDirectory("papyrusrt-codegen-benchmark").toFile();
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		if (outputFolder != null) {
+			GeneratedFiles.deleteRecursively(outputFolder.toPath());
+		}
+		if (model != null && model.eResource() != null) {
+			model.eResource().getResourceSet().getResources().clear();
+		}
+		model = null;
+	}
+
+	protected Model getModel() {
+		return model;
+	}
+
+	protected File getOutputFolder() {
+		return outputFolder;
+	}
+
+	/**
+	 * Create a fresh {@link GenerationSession} for the model, generating into the given folder, as the code
+	 * generator does for a full generation.
+	 *
+	 * @param folder
+	 *            - The output folder.
+	 * @return The {@link GenerationSession}, ready to generate.
+	 */
+	protected GenerationSession beginSession(File folder) {
+		GenerationSession session = new GenerationSession(false);
+		BoundsEvaluator.setTranslator(session.getTranslator());
+		Capsule top = SyntheticModel.getTop(model);
+		CppCodePattern cpp = session.getCppCodePattern();
+		cpp.setTop(top);
+		cpp.setOutputFolder(folder);
+		cpp.setModelFolder(folder);
+		session.getCodeGenerator().setTop(top);
+		session.begin(getElements(), SyntheticModel.TOP);
+		return session;
+	}
+
+	/**
+	 * @return The elements to generate: the model.
+	 */
+	protected List<EObject> getElements() {
+		return Collections.<EObject> singletonList(model);
+	}
+
+	/**
+	 * @param status
+	 *            - The {@link IStatus} of a generation.
+	 * @throws IllegalStateException
+	 *             if the status is an error, since the benchmark would not measure a complete generation.
+	 */
+	protected static void check(IStatus status) {
+		if (status != null && status.getSeverity() >= IStatus.ERROR) {
+			throw new IllegalStateException("Generation failed: " + status.getMessage(), status.getException());
+		}
+	}
+
+}
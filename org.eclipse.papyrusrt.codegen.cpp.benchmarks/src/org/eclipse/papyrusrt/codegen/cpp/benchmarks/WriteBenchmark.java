@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.benchmarks;
+
+import java.io.File;
+
+import org.eclipse.papyrusrt.codegen.cpp.CppCodePattern;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationSession;
+
+/**
+ * Measures {@link CppCodePattern#write()} of the code generated for a synthetic model into an empty output
+ * folder. The generation itself is not measured.
+ */
+public class WriteBenchmark extends SyntheticModelBenchmark {
+
+	/** The name of the benchmark. */
+	public static final String NAME = "write";
+
+	/** The code pattern of the next iteration, with the generated code. */
+	private CppCodePattern cpp;
+
+	/** The number of iterations prepared so far, used to name their output folders. */
+	private int iteration;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param synthetic
+	 *            - The parameters of the model.
+	 */
+	public WriteBenchmark(SyntheticModel synthetic) {
+		super(NAME, synthetic);
+	}
+
+	@Override
+	public void setUpIteration() throws Exception {
+		File folder = new File(getOutputFolder(), "iteration" + iteration++);
+		GenerationSession session = beginSession(folder);
+		check(session.getCodeGenerator().generate(getElements()));
+		cpp = session.getCppCodePattern();
+	}
+
+	@Override
+	public long measure() throws Exception {
+		long start = System.nanoTime();
+		boolean written = cpp.write();
+		long elapsed = System.nanoTime() - start;
+		if (!written) {
+			throw new IllegalStateException("Failed to write the generated files to " + cpp.getOutputFolder());
+		}
+		return elapsed;
+	}
+
+}
@@ -70,6 +70,7 @@ public final class UMLRTRuntime {
 	private static final ExternalHeaderFile umlrtprotocol_hh = new ExternalHeaderFile("umlrtprotocol.hh");
 	private static final ExternalHeaderFile umlrtrtsinterface_hh = new ExternalHeaderFile("umlrtrtsinterface.hh");
 	private static final ExternalHeaderFile umlrtsignal_hh = new ExternalHeaderFile("umlrtsignal.hh");
+	private static final ExternalHeaderFile umlrtsignalelementpool_hh = new ExternalHeaderFile("umlrtsignalelementpool.hh");
 	private static final ExternalHeaderFile umlrtslot_hh = new ExternalHeaderFile("umlrtslot.hh");
 	private static final ExternalHeaderFile umlrttimerid_hh = new ExternalHeaderFile("umlrttimerid.hh");
 	private static final ExternalHeaderFile umlrttimerprotocol_hh = new ExternalHeaderFile("umlrttimerprotocol.hh");
@@ -750,6 +751,26 @@ public final class UMLRTRuntime {
 		}
 	}
 
+	public static class UMLRTSignalElementPool {
+		public static final ExternalElement Element = new ExternalFwdDeclarable(umlrtsignalelementpool_hh, "UMLRTSignalElementPool", "class UMLRTSignalElementPool");
+
+		public static Type getType() {
+			return Element.getType();
+		}
+
+		private static final MemberFunction addPayloadSize_f = new MemberFunction(PrimitiveType.BOOL, "addPayloadSize");
+
+		static {
+			addPayloadSize_f.add(new Parameter(UMLRTObject.getObjectType().constPtr(), "payload"));
+		}
+
+		public static AbstractFunctionCall addPayloadSize(Expression payload) {
+			AbstractFunctionCall call = new MemberFunctionCall(Element, addPayloadSize_f);
+			call.addArgument(payload);
+			return call;
+		}
+	}
+
 	public static class UMLRTSlot {
 		public static final ExternalElement Element = new ExternalFwdDeclarable(umlrtslot_hh, "UMLRTSlot", "struct UMLRTSlot");
 
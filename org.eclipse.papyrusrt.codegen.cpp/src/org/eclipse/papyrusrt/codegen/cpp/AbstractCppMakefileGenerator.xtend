@@ -13,9 +13,7 @@
 
 package org.eclipse.papyrusrt.codegen.cpp
 
-import java.io.BufferedWriter
 import java.io.File
-import java.io.FileWriter
 import java.util.List
 import org.eclipse.papyrusrt.codegen.cpp.rts.UMLRTSUtil
 import org.eclipse.papyrusrt.codegen.lang.cpp.name.FileName
@@ -24,12 +22,23 @@ abstract class AbstractCppMakefileGenerator {
 
     def String formatFilename(String component);
 
-    def generate(String path, List<FileName> files, String main)
+    /**
+     * Generates the file, unless it already exists with the same content.
+     *
+     * @return {@code true} if the file was written.
+     */
+    def boolean generate(String path, List<FileName> files, String main)
     {
-        val file = new File(path);
-        val writer = new BufferedWriter(new FileWriter(file));
-        writer.write(doGenerate(files, main, UMLRTSUtil.getRTSRootPath ).toString)
-        writer.close
+        GeneratedFiles.update(new File(path), doGenerate(files, main, UMLRTSUtil.getRTSRootPath).toString) [ normalize(it) ]
+    }
+
+    /**
+     * The content used to decide whether the generated file changed. Subclasses may remove the parts of
+     * the content, like time stamps, that change on every generation.
+     */
+    def protected String normalize(String content)
+    {
+        content
     }
 
     def protected String doGenerate(List<FileName> files, String main, String rtsPath)
@@ -8,11 +8,17 @@
 package org.eclipse.papyrusrt.codegen.cpp;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IStatus;
@@ -29,12 +35,10 @@ import org.eclipse.papyrus.designer.languages.common.base.codesync.ChangeObject;
 import org.eclipse.papyrus.designer.languages.common.base.codesync.ManageChangeEvents;
 import org.eclipse.papyrusrt.codegen.CodeGenPlugin;
 import org.eclipse.papyrusrt.codegen.UMLRTCodeGenerator;
-import org.eclipse.papyrusrt.codegen.config.CodeGenProvider;
 import org.eclipse.papyrusrt.codegen.cpp.profile.facade.RTCppPropertiesProfileMetadata;
 import org.eclipse.papyrusrt.codegen.cpp.validation.PostUML2xtumlrtValidator;
 import org.eclipse.papyrusrt.codegen.cpp.validation.PreUML2xtumlrtValidator;
 import org.eclipse.papyrusrt.codegen.utils.CodeGenUtils;
-import org.eclipse.papyrusrt.xtumlrt.aexpr.uml.XTUMLRTBoundsEvaluator;
 import org.eclipse.papyrusrt.xtumlrt.common.NamedElement;
 import org.eclipse.papyrusrt.xtumlrt.external.ExternalPackageManager;
 import org.eclipse.papyrusrt.xtumlrt.external.ExternalPackageMetadata;
@@ -44,8 +48,6 @@ import org.eclipse.papyrusrt.xtumlrt.trans.preproc.ModelPreprocessor;
 import org.eclipse.papyrusrt.xtumlrt.trans.to.dot.ui.handlers.TranslateToDotHandler;
 import org.eclipse.uml2.uml.Element;
 
-import com.google.inject.Injector;
-
 /**
  * Abstract base generator. This is the generation "director". It executes the overall workflow of generation.
  * 
@@ -56,6 +58,27 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	/** Flag for debugging. Must be false in production. */
 	public static final boolean DEBUG = false;
 
+	/** System property enabling the reuse of the generation session between generations. */
+	public static final String REUSE_SESSION_PROPERTY = CppCodeGenPlugin.ID + ".reuseSession";
+
+	/**
+	 * System property giving a file where the {@link GenerationProfile} of each generation is written, as CSV if
+	 * its name ends with {@code .csv} and as JSON otherwise.
+	 */
+	public static final String PROFILE_FILE_PROPERTY = CppCodeGenPlugin.ID + ".profileFile";
+
+	/**
+	 * System property forcing the external packages to be reset and set up again on each generation, instead
+	 * of reusing the previous setup for the same resource set (see {@link ExternalPackageCache}).
+	 */
+	public static final String FORCE_EXTERNAL_PACKAGE_RESET_PROPERTY = CppCodeGenPlugin.ID + ".forceExternalPackageReset";
+
+	/**
+	 * System property giving the default maximum number of model folders generated concurrently (see
+	 * {@link #setTargetParallelism(int)}).
+	 */
+	public static final String TARGET_PARALLELISM_PROPERTY = CppCodeGenPlugin.ID + ".targetParallelism";
+
 	/** The collection of 'known' packages that must be loaded and registered. */
 	private static final ExternalPackageMetadata[] REQUIRED_PACKAGES = {
 			RTCppPropertiesProfileMetadata.INSTANCE,
@@ -84,11 +107,29 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	private boolean regenerate = false;
 
 	/** Whether the external package manager should be reset on each generation. */
-	private boolean forceExternalPackageReset = true;
+	private boolean forceExternalPackageReset = Boolean.getBoolean(FORCE_EXTERNAL_PACKAGE_RESET_PROPERTY);
 
 	/** Whether the source model is a UML model ({@code true}) or an XTUMLRT model ({@code false}). */
 	private boolean sourceIsUML = true;
 
+	/** Whether the generation session is kept between generations of the same model. */
+	private boolean reuseSession = Boolean.getBoolean(REUSE_SESSION_PROPERTY);
+
+	/** The generation session which owns the translator, code pattern, change tracker and core generator. */
+	private GenerationSession session;
+
+	/** The maximum number of model folders generated concurrently. */
+	private int targetParallelism = Math.max(1, Integer.getInteger(TARGET_PARALLELISM_PROPERTY, 1));
+
+	/** The generation session of each input model folder, when model folders are generated concurrently. */
+	private Map<File, GenerationSession> targetSessions;
+
+	/** The top capsule of the current generation. */
+	private EObject topCapsule;
+
+	/** The profiler measuring the phases of generation. */
+	private final GenerationProfiler profiler = new GenerationProfiler();
+
 	/** The translator from UML to XTUMLRT. */
 	private UML2xtumlrtTranslator translator;
 
@@ -118,16 +159,79 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 * Reset the state of the generator to a clean slate.
 	 */
 	private void reset() {
-		Injector injector = CodeGenProvider.getDefault().getInjector();
-		translator = new UML2xtumlrtModelTranslator();
-		cpp = injector.getInstance(CppCodePattern.class);
-		cpp.setTranslator(translator);
-
-		changeTracker = sourceIsUML ? new UMLChangeTracker(cpp) : new XTUMLRTChangeTracker(cpp);
-		codegen = new XTUMLRT2CppCodeGenerator(cpp, changeTracker);
+		session = new GenerationSession(sourceIsUML);
+		translator = session.getTranslator();
+		cpp = session.getCppCodePattern();
+		changeTracker = session.getChangeTracker();
+		codegen = session.getCodeGenerator();
 		targets = new HashMap<>();
 		outputFolders = new HashMap<>();
-		XTUMLRTBoundsEvaluator.setTranslator(translator);
+		targetSessions = new HashMap<>();
+		BoundsEvaluator.setTranslator(translator);
+	}
+
+	/**
+	 * Prepare the generator for a new generation, either reusing the current {@link GenerationSession} or
+	 * starting from a clean slate.
+	 * 
+	 * @param elements
+	 *            - The list of input model elements to be generated
+	 * @param top
+	 *            - The name of the top capsule
+	 */
+	private void prepare(List<EObject> elements, String top) {
+		if (reuseSession && !regenerate && session.isReusableFor(elements, top, sourceIsUML)) {
+			targets = new HashMap<>();
+			outputFolders = new HashMap<>();
+			BoundsEvaluator.setTranslator(translator);
+		} else {
+			reset();
+		}
+		session.begin(elements, top);
+	}
+
+	/**
+	 * @return {@code true} iff the generation session is kept between generations of the same model.
+	 */
+	public boolean isReuseSession() {
+		return reuseSession;
+	}
+
+	/**
+	 * Keep the {@link GenerationSession} between generations of the same model, so that the translation to
+	 * xtUML-RT and the Cpp model of the elements that did not change are not rebuilt on each generation.
+	 * 
+	 * @param reuseSession
+	 *            - Whether the generation session should be kept between generations.
+	 */
+	public void setReuseSession(boolean reuseSession) {
+		this.reuseSession = reuseSession;
+	}
+
+	/**
+	 * @return The maximum number of model folders generated concurrently.
+	 */
+	public int getTargetParallelism() {
+		return targetParallelism;
+	}
+
+	/**
+	 * Generate the elements of independent model folders concurrently, at most the given number at a time.
+	 * Each model folder then has its own {@link GenerationSession}, whose {@link CppCodePattern},
+	 * {@link ChangeTracker} and {@link XTUMLRT2CppCodeGenerator} are created with their default settings.
+	 * 
+	 * <p>
+	 * The models are still translated to xtUML-RT one after the other, by the translator of this generator,
+	 * since the {@link BoundsEvaluator} evaluates bounds with a single translator. The generation of
+	 * the C++ model and the writing of the files run concurrently.
+	 * 
+	 * @param targetParallelism
+	 *            - The maximum number of model folders generated concurrently, 1 to generate them one after
+	 *            the other with a single pipeline. Defaults to the {@link #TARGET_PARALLELISM_PROPERTY} system
+	 *            property, or 1.
+	 */
+	public void setTargetParallelism(int targetParallelism) {
+		this.targetParallelism = Math.max(1, targetParallelism);
 	}
 
 	/**
@@ -146,6 +250,22 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 		this.standalone = standalone;
 	}
 
+	/**
+	 * @return {@code true} iff the external packages are reset and set up again on each generation.
+	 */
+	public boolean isForceExternalPackageReset() {
+		return forceExternalPackageReset;
+	}
+
+	/**
+	 * @param forceExternalPackageReset
+	 *            - Whether the external packages are reset and set up again on each generation, instead of
+	 *            reusing the previous setup for the same resource set.
+	 */
+	public void setForceExternalPackageReset(boolean forceExternalPackageReset) {
+		this.forceExternalPackageReset = forceExternalPackageReset;
+	}
+
 	@Override
 	public void setRegenerate(boolean flag) {
 		regenerate = flag;
@@ -168,6 +288,10 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 * <li>Performs custom setups for each package as required.
 	 * </ol>
 	 * 
+	 * <p>
+	 * These tasks are skipped if the previous setup was for the same resource set and packages, unless
+	 * {@link #setForceExternalPackageReset(boolean) forced}.
+	 * 
 	 * @param resourceSet
 	 *            - The {@link ResourceSet}.
 	 * @return An {@link IStatus}
@@ -175,15 +299,17 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	public IStatus setupExternalPackageManagement(ResourceSet resourceSet) {
 		IStatus success = OK_STATUS;
 		externalPackageManager = ExternalPackageManager.getInstance();
-		if (forceExternalPackageReset) {
-			externalPackageManager.reset();
-		}
-		externalPackageManager.setResourceSet(resourceSet);
-		externalPackageManager.setStandalone(standalone);
-		for (ExternalPackageMetadata metadata : REQUIRED_PACKAGES) {
-			externalPackageManager.addRequiredPackage(metadata);
+		ExternalPackageCache cache = ExternalPackageCache.getInstance();
+		long saved = cache.getSavedNanos();
+		GenerationProfiler.Timer timer = profiler.start(GenerationProfiler.EXTERNAL_PACKAGES);
+		IStatus status = cache.setup(externalPackageManager, resourceSet, standalone, REQUIRED_PACKAGES, forceExternalPackageReset);
+		timer.stop();
+		if (status != null) {
+			success = status;
+		} else {
+			CodeGenPlugin.getLogger().log(Level.FINE, "Reused the external package setup, saving about "
+					+ (cache.getSavedNanos() - saved) / 1000000 + "ms");
 		}
-		success = externalPackageManager.setup();
 		return success;
 	}
 
@@ -191,7 +317,8 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 * Executes the generation workflow.
 	 * 
 	 * <ol>
-	 * <li>Creates the necessary components:
+	 * <li>Creates the necessary components, or reuses those of the previous generation's {@link GenerationSession}
+	 * if {@link #setReuseSession(boolean) enabled}:
 	 * <ul>
 	 * <li>{@link XTUMLRT2CppCodeGenerator}: the "core" that executes element-specific generators for each element to be generated.
 	 * <li>{@link CppCodePattern}: factory class for common C++ model elements which caches elements generated and invokes the model-to-text transformation.
@@ -206,6 +333,11 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 * <li>Invokes the model-to-text transformation that generates a CDT project and source files.
 	 * </ol>
 	 * 
+	 * <p>
+	 * When the elements belong to several model folders and {@link #setTargetParallelism(int) enabled}, the
+	 * last two steps run concurrently for the model folders, and the result holds a {@link MultiStatus} per
+	 * model folder.
+	 * 
 	 * @param elements
 	 *            - The list of input model elements to be generated
 	 * @param top
@@ -218,7 +350,9 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	public synchronized IStatus generate(List<EObject> elements, String top, boolean uml) {
 		IStatus success = OK_STATUS;
 		sourceIsUML = uml;
-		reset();
+		profiler.begin();
+		prepare(elements, top);
+		codegen.setProfiler(profiler);
 		success = preGenerationTasks(elements, top);
 		if (isOk(success)) {
 			MultiStatus accumulatedStatus = new MultiStatus(CodeGenPlugin.ID, IStatus.INFO, "UML-RT Code Generator Invoked", null);
@@ -228,10 +362,14 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 				accumulatedStatus.add(CodeGenPlugin.error("Selection must contain at least one model element"));
 			} else {
 				try {
-					for (Map.Entry<File, List<EObject>> entry : targets.entrySet()) {
-						File modelFolder = entry.getKey();
-						List<EObject> elementsToGenerate = entry.getValue();
-						doGenerate(elementsToGenerate, modelFolder, accumulatedStatus);
+					if (isParallelTargets()) {
+						generateTargetsInParallel(accumulatedStatus);
+					} else {
+						for (Map.Entry<File, List<EObject>> entry : targets.entrySet()) {
+							File modelFolder = entry.getKey();
+							List<EObject> elementsToGenerate = entry.getValue();
+							doGenerate(elementsToGenerate, modelFolder, accumulatedStatus);
+						}
 					}
 				} catch (Throwable t) {
 					CodeGenPlugin.error("Error during code generation.", t);
@@ -246,9 +384,57 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 			result.addAll(accumulatedStatus);
 			success = result;
 		}
+		if (success.getSeverity() >= IStatus.ERROR) {
+			session.discard();
+			targetSessions.clear();
+		}
+		writeProfile(profiler.finish());
 		return success;
 	}
 
+	/**
+	 * Write the profile of a generation to the file given by the {@link #PROFILE_FILE_PROPERTY} system
+	 * property, if set.
+	 * 
+	 * @param profile
+	 *            - The {@link GenerationProfile}.
+	 */
+	private void writeProfile(GenerationProfile profile) {
+		String profileFile = System.getProperty(PROFILE_FILE_PROPERTY);
+		if (profileFile != null && !profileFile.isEmpty()) {
+			try {
+				profile.write(new File(profileFile));
+			} catch (IOException e) {
+				CodeGenPlugin.getLogger().log(Level.WARNING, "Unable to write the generation profile to " + profileFile, e);
+			}
+		}
+	}
+
+	/**
+	 * @return The {@link GenerationProfiler} measuring the phases of generation.
+	 */
+	public GenerationProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Register a listener notified of the phases of each generation and of the {@link GenerationProfile} at its end.
+	 * 
+	 * @param listener
+	 *            - A {@link GenerationListener}.
+	 */
+	public void addGenerationListener(GenerationListener listener) {
+		profiler.addListener(listener);
+	}
+
+	/**
+	 * @param listener
+	 *            - A {@link GenerationListener} previously registered.
+	 */
+	public void removeGenerationListener(GenerationListener listener) {
+		profiler.removeListener(listener);
+	}
+
 	/**
 	 * Perform pre-generation tasks.
 	 * 
@@ -264,6 +450,7 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 		success = findTopCapsule(elements, top);
 		if (isOk(success)) {
 			collectFolders(elements);
+			prepareTargetSessions(top);
 			collectAllChangedElements(elements);
 		}
 		return success;
@@ -279,7 +466,7 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 * If the elements belong to different resource sets, a warning is issued, as it may result in generation errors.
 	 * 
 	 * <p>
-	 * If the chosen resource set is different than the previously chosen resource set, we initialize the external packages.
+	 * The external packages are then set up, unless their previous setup for the same resource set can be reused.
 	 * 
 	 * @see #setupExternalPackageManagement()
 	 * 
@@ -299,10 +486,10 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 				CodeGenPlugin.warning("Target elements belong to different resource sets. This may result in errors during generation.");
 			}
 		}
-		if (elementsResourceSet != resourceSet || forceExternalPackageReset) {
-			resourceSet = elementsResourceSet;
-			success = setupExternalPackageManagement(resourceSet);
-		}
+		// The external package manager is shared, so it is set up on each generation, which is cheap when its
+		// previous setup can be reused
+		resourceSet = elementsResourceSet;
+		success = setupExternalPackageManagement(resourceSet);
 		if (resourceSet == null) {
 			success = new Status(IStatus.ERROR, CodeGenPlugin.ID, "Unable to inizialize the resource set.");
 		}
@@ -327,7 +514,7 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 */
 	private IStatus findTopCapsule(List<EObject> elements, String top) {
 		IStatus success = OK_STATUS;
-		EObject topCapsule = CodeGenUtils.findCapsule(elements.get(0), top);
+		topCapsule = CodeGenUtils.findCapsule(elements.get(0), top);
 		if (topCapsule != null) {
 			codegen.setTop(topCapsule);
 			cpp.setTop(topCapsule);
@@ -362,6 +549,53 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 		}
 	}
 
+	/**
+	 * @return {@code true} iff the model folders are generated concurrently, each with its own
+	 *         {@link GenerationSession}.
+	 */
+	private boolean isParallelTargets() {
+		return targetParallelism > 1 && targets.size() > 1;
+	}
+
+	/**
+	 * Create or reuse the {@link GenerationSession} of each model folder and start a new generation in it, if
+	 * model folders are generated concurrently. The sessions share the translator of this generator.
+	 * 
+	 * @param top
+	 *            - The name of the top capsule.
+	 */
+	private void prepareTargetSessions(String top) {
+		if (!isParallelTargets()) {
+			return;
+		}
+		for (Map.Entry<File, List<EObject>> entry : targets.entrySet()) {
+			GenerationSession targetSession = targetSessions.get(entry.getKey());
+			if (targetSession == null) {
+				targetSession = new GenerationSession(sourceIsUML, translator);
+				targetSessions.put(entry.getKey(), targetSession);
+			}
+			targetSession.getCodeGenerator().setTop(topCapsule);
+			targetSession.getCodeGenerator().setProfiler(profiler);
+			targetSession.getCppCodePattern().setTop(topCapsule);
+			targetSession.begin(entry.getValue(), top);
+		}
+	}
+
+	/**
+	 * @return The {@link ChangeTracker}s of the current generation: one per model folder if they are generated
+	 *         concurrently, and the one of the {@link #session} otherwise.
+	 */
+	private List<ChangeTracker> getChangeTrackers() {
+		if (!isParallelTargets()) {
+			return Collections.singletonList(changeTracker);
+		}
+		List<ChangeTracker> trackers = new ArrayList<>(targets.size());
+		for (File modelFolder : targets.keySet()) {
+			trackers.add(targetSessions.get(modelFolder).getChangeTracker());
+		}
+		return trackers;
+	}
+
 	/**
 	 * Collects the elements that changed since the last generation,
 	 * as well as those elements that depend on the changed elements.
@@ -371,13 +605,17 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 */
 	private void collectAllChangedElements(List<EObject> elements) {
 		final List<ChangeObject> changes = new ArrayList<>();
-		if (regenerate) {
-			changeTracker.resetAll();
-		}
 		for (EObject eobj : elements) {
 			getChanges(changes, eobj);
 		}
-		changeTracker.addChanges(changes);
+		List<ChangeTracker> trackers = getChangeTrackers();
+		if (regenerate) {
+			for (ChangeTracker tracker : trackers) {
+				tracker.resetAll();
+			}
+		}
+		// The trackers of the model folders share the record of changed elements: add the changes once.
+		trackers.get(0).addChanges(changes);
 	}
 
 	/**
@@ -415,22 +653,100 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 *            - The {@link MultiStatus} to accumulate the outcomes.
 	 */
 	protected void doGenerate(List<EObject> inputElements, File modelFolder, MultiStatus accumulatedStatus) {
+		List<EObject> elements = translate(session, inputElements, modelFolder, accumulatedStatus);
+		if (elements != null) {
+			generateCpp(session, elements, accumulatedStatus);
+		}
+	}
+
+	/**
+	 * Generate the elements of several model folders concurrently, each with its own {@link GenerationSession}
+	 * prepared by {@link #prepareTargetSessions(String)}. The models are translated one after the other, and
+	 * at most {@link #targetParallelism} of them are then generated at a time.
+	 * 
+	 * @param accumulatedStatus
+	 *            - The {@link MultiStatus} where a {@link MultiStatus} is added for each model folder, in the
+	 *            order of the model folders.
+	 */
+	private void generateTargetsInParallel(MultiStatus accumulatedStatus) {
+		final List<File> modelFolders = new ArrayList<>(targets.keySet());
+		final List<GenerationSession> pipelines = new ArrayList<>(modelFolders.size());
+		final List<List<EObject>> translated = new ArrayList<>(modelFolders.size());
+		final MultiStatus[] statuses = new MultiStatus[modelFolders.size()];
+		for (int i = 0; i < modelFolders.size(); ++i) {
+			File modelFolder = modelFolders.get(i);
+			statuses[i] = new MultiStatus(CodeGenPlugin.ID, IStatus.INFO, "Generation of " + modelFolder, null);
+			pipelines.add(targetSessions.get(modelFolder));
+			// The translator is shared, so its result is copied before the next model is translated
+			List<EObject> elements = translate(pipelines.get(i), targets.get(modelFolder), modelFolder, statuses[i]);
+			translated.add(elements == null ? null : new ArrayList<>(elements));
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(Math.min(targetParallelism, modelFolders.size()));
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(modelFolders.size());
+			for (int i = 0; i < modelFolders.size(); ++i) {
+				if (translated.get(i) == null) {
+					continue;
+				}
+				final int index = i;
+				tasks.add(pool.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							generateCpp(pipelines.get(index), translated.get(index), statuses[index]);
+						} catch (Throwable t) {
+							statuses[index].add(CodeGenPlugin.error("Error during generation of " + modelFolders.get(index), t));
+						}
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		for (MultiStatus status : statuses) {
+			accumulatedStatus.add(status);
+		}
+	}
+
+	/**
+	 * Translate the elements of a model folder to xtUML-RT, if necessary, and preprocess them.
+	 * 
+	 * @param pipeline
+	 *            - The {@link GenerationSession} generating the model folder.
+	 * @param inputElements
+	 *            - The {@link List} of {@link EObject} elements to generate.
+	 * @param modelFolder
+	 *            - The {@link File} handle to the input model folder.
+	 * @param accumulatedStatus
+	 *            - The {@link MultiStatus} to accumulate the outcomes.
+	 * @return The xtUML-RT elements to generate, or {@code null} if the translation failed.
+	 */
+	private List<EObject> translate(GenerationSession pipeline, List<EObject> inputElements, File modelFolder, MultiStatus accumulatedStatus) {
 		List<EObject> elements = inputElements;
 		File outputFolder = outputFolders.get(modelFolder);
-		cpp.setOutputFolder(outputFolder);
-		cpp.setModelFolder(modelFolder);
+		pipeline.getCppCodePattern().setOutputFolder(outputFolder);
+		pipeline.getCppCodePattern().setModelFolder(modelFolder);
 
 		NamedElement xtumlrtModelElement = null;
 		// 1. Translate elements from UML to XTUMLRT if necessary
 		if (sourceIsUML) {
 			try {
 				// pre validation
+				GenerationProfiler.Timer timer = profiler.start(GenerationProfiler.PRE_VALIDATION);
 				PreUML2xtumlrtValidator preValidator = new PreUML2xtumlrtValidator();
 				MultiStatus preResult = preValidator.validate(elements);
+				timer.stop();
 				handleValidationResult(preResult);
 
-				elements = translateFromUMLtoXTUMLRT(elements, modelFolder, accumulatedStatus);
-				xtumlrtModelElement = (NamedElement) translator.getGenerated((Element) inputElements.get(0));
+				timer = profiler.start(GenerationProfiler.TRANSLATION);
+				elements = translateFromUMLtoXTUMLRT(pipeline, elements, modelFolder, accumulatedStatus);
+				xtumlrtModelElement = (NamedElement) pipeline.getTranslator().getGenerated((Element) inputElements.get(0));
+				timer.stop();
 
 				if (DEBUG) {
 					org.eclipse.uml2.uml.Model umlModel = (org.eclipse.uml2.uml.Model) EcoreUtil.getRootContainer(inputElements.get(0));
@@ -439,38 +755,60 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 				}
 
 				// post validation
-				PostUML2xtumlrtValidator postValidator = new PostUML2xtumlrtValidator(translator);
+				timer = profiler.start(GenerationProfiler.POST_VALIDATION);
+				PostUML2xtumlrtValidator postValidator = new PostUML2xtumlrtValidator(pipeline.getTranslator());
 				MultiStatus postResult = postValidator.validate(xtumlrtModelElement);
+				timer.stop();
 				handleValidationResult(postResult);
 
 			} catch (Throwable t) {
 				accumulatedStatus.add(CodeGenPlugin.error("Error during translation from UML to XTUMLRT", t));
 				t.printStackTrace(System.err);
-				return;
+				return null;
 			}
 		} else {
 			xtumlrtModelElement = (NamedElement) inputElements.get(0);
 		}
 
 		if (xtumlrtModelElement != null) {
+			GenerationProfiler.Timer timer = profiler.start(GenerationProfiler.PREPROCESS);
 			MODEL_PREPROCESSOR.preprocess(xtumlrtModelElement);
+			timer.stop();
 		} else {
 			accumulatedStatus.add(CodeGenPlugin.error("Translation to xtumlrt yielded a null model."));
 		}
 
+		return elements;
+	}
+
+	/**
+	 * Generate the Cpp model of xtUML-RT elements and write the generated files.
+	 * 
+	 * @param pipeline
+	 *            - The {@link GenerationSession} generating the model folder of the elements.
+	 * @param elements
+	 *            - The {@link List} of xtUML-RT elements to generate.
+	 * @param accumulatedStatus
+	 *            - The {@link MultiStatus} to accumulate the outcomes.
+	 */
+	private void generateCpp(GenerationSession pipeline, List<EObject> elements, MultiStatus accumulatedStatus) {
+		CppCodePattern codePattern = pipeline.getCppCodePattern();
 		// 2. Translate elements from XTUMLRT to Cpp (the C++ subset meta-model)
 		try {
-			accumulatedStatus.addAll(codegen.generate(elements));
+			accumulatedStatus.addAll(pipeline.getCodeGenerator().generate(elements));
 		} catch (Throwable t) {
 			accumulatedStatus.add(CodeGenPlugin.error("Error during generation from XTUMLRT to Cpp", t));
 			t.printStackTrace(System.err);
 			return;
 		}
 		// 3. Translate from Cpp model elements to C++ source files (creates a CDT project).
-		long writeStart = System.currentTimeMillis();
-		if (cpp.write()) {
-			accumulatedStatus.add(CodeGenPlugin.info("Updated generated files "
-					+ (System.currentTimeMillis() - writeStart) + "ms"));
+		GenerationProfiler.Timer timer = profiler.start(GenerationProfiler.WRITE);
+		boolean written = codePattern.write();
+		long writeTime = timer.stop();
+		if (written) {
+			accumulatedStatus.add(CodeGenPlugin.info("Updated generated files (" + codePattern.getFilesWritten() + " written, "
+					+ codePattern.getFilesSkipped() + " unchanged, " + codePattern.getBytesWritten() + " bytes) "
+					+ writeTime + "ms"));
 		} else {
 			accumulatedStatus.add(CodeGenPlugin.error("Failed to write generated model to disk"));
 		}
@@ -491,6 +829,8 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	/**
 	 * Perform the translation from UML to XTUMLRT.
 	 * 
+	 * @param pipeline
+	 *            - The {@link GenerationSession} generating the elements.
 	 * @param elements
 	 *            - A {@link List} of {@link EObject} elements; either UML elements or XTUMLRT elements.
 	 * @param modelFolder
@@ -499,14 +839,17 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 	 *            - The {@link MultiStatus} to accumulate results.
 	 * @return The {@link List} of {@link EObject} XTUMLRT elements
 	 */
-	private List<EObject> translateFromUMLtoXTUMLRT(List<EObject> elements, File modelFolder, MultiStatus status) {
+	private List<EObject> translateFromUMLtoXTUMLRT(GenerationSession pipeline, List<EObject> elements, File modelFolder, MultiStatus status) {
 		Path path = modelFolder.toPath();
 		List<EObject> translated = null;
-		translator.setActionLanguage(ACTION_LANGUAGE);
-		translator.setChangeSet(codegen.getChangeTracker().getAllChanged());
+		UML2xtumlrtTranslator pipelineTranslator = pipeline.getTranslator();
+		Collection<EObject> changed = pipeline.getCodeGenerator().getChangeTracker().getAllChanged();
+		pipeline.invalidate(changed);
+		pipelineTranslator.setActionLanguage(ACTION_LANGUAGE);
+		pipelineTranslator.setChangeSet(changed);
 
-		status.addAll(translator.generate(elements, path));
-		translated = translator.getAllGenerated();
+		status.addAll(pipelineTranslator.generate(elements, path));
+		translated = pipelineTranslator.getAllGenerated();
 
 		if (translated == null || translated.isEmpty()) {
 			status.add(new Status(IStatus.WARNING, CodeGenPlugin.ID, "Unable to translate elements from UML to XTUMLRT"));
@@ -550,6 +893,22 @@ public abstract class AbstractUMLRT2CppCodeGenerator implements UMLRTCodeGenerat
 			Resource resource = context.eResource();
 			codeGen.getChangeTracker().closeResource(resource);
 		}
+		session.discard();
+		targetSessions.clear();
+	}
+
+	/**
+	 * Used before a resource is unloaded. The change tracker forgets the elements
+	 * of the resource, which it otherwise keeps, and the generation session, which
+	 * refers to them, is discarded.
+	 * 
+	 * @param resource
+	 *            - The {@link Resource} to be unloaded.
+	 */
+	protected void resetResource(Resource resource) {
+		changeTracker.closeResource(resource);
+		session.discard();
+		targetSessions.clear();
 	}
 
 }
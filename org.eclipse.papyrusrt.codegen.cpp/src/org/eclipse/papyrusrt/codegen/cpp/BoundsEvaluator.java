@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import org.eclipse.papyrusrt.xtumlrt.aexpr.uml.XTUMLRTBoundsEvaluator;
+import org.eclipse.papyrusrt.xtumlrt.common.CapsulePart;
+import org.eclipse.papyrusrt.xtumlrt.common.MultiplicityElement;
+import org.eclipse.papyrusrt.xtumlrt.common.NamedElement;
+import org.eclipse.papyrusrt.xtumlrt.common.Port;
+import org.eclipse.papyrusrt.xtumlrt.common.TypedMultiplicityElement;
+import org.eclipse.papyrusrt.xtumlrt.trans.from.uml.UML2xtumlrtTranslator;
+import org.eclipse.papyrusrt.xtumlrt.util.UndefinedValueException;
+
+/**
+ * Serialized access to the {@link XTUMLRTBoundsEvaluator}, which is static and evaluates bounds with a
+ * single shared translator. Element generators running concurrently (see
+ * {@link XTUMLRT2CppCodeGenerator#setParallelism(int)}), and model folders generated concurrently (see
+ * {@link AbstractUMLRT2CppCodeGenerator#setTargetParallelism(int)}), evaluate bounds through this class
+ * only, so that the evaluator is never used by two threads at a time.
+ */
+public final class BoundsEvaluator {
+
+	/**
+	 * Constructor. Not instantiated.
+	 */
+	private BoundsEvaluator() {
+	}
+
+	/**
+	 * @param translator
+	 *            - The {@link UML2xtumlrtTranslator} whose model bounds are evaluated.
+	 */
+	public static synchronized void setTranslator(UML2xtumlrtTranslator translator) {
+		XTUMLRTBoundsEvaluator.setTranslator(translator);
+	}
+
+	/**
+	 * @param part
+	 *            - A {@link CapsulePart}.
+	 * @return The lower bound of the part.
+	 */
+	public static synchronized int getLowerBound(CapsulePart part) {
+		return XTUMLRTBoundsEvaluator.getLowerBound(part);
+	}
+
+	/**
+	 * @param part
+	 *            - A {@link CapsulePart}.
+	 * @return The upper bound of the part.
+	 */
+	public static synchronized int getUpperBound(CapsulePart part) {
+		return XTUMLRTBoundsEvaluator.getUpperBound(part);
+	}
+
+	/**
+	 * @param port
+	 *            - A {@link Port}.
+	 * @return The upper bound of the port.
+	 */
+	public static synchronized int getUpperBound(Port port) {
+		return XTUMLRTBoundsEvaluator.getUpperBound(port);
+	}
+
+	/**
+	 * @param element
+	 *            - A {@link TypedMultiplicityElement}.
+	 * @return The bound of the element.
+	 * @throws UndefinedValueException
+	 *             if the bound cannot be evaluated.
+	 */
+	public static synchronized int getBound(TypedMultiplicityElement element) throws UndefinedValueException {
+		return XTUMLRTBoundsEvaluator.getBound(element);
+	}
+
+	/**
+	 * @param element
+	 *            - A {@link MultiplicityElement}.
+	 * @param <T>
+	 *            - The type of the element.
+	 * @return The bound of the element, as a C++ expression.
+	 */
+	public static synchronized <T extends MultiplicityElement & NamedElement> String getBoundString(T element) {
+		return XTUMLRTBoundsEvaluator.getBoundString(element);
+	}
+
+}
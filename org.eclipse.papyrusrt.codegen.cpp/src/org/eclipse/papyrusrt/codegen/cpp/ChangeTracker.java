@@ -66,6 +66,34 @@ public interface ChangeTracker {
 	 */
 	void addAlreadyGenerated(Kind kind, NamedElement object);
 
+	/**
+	 * Record the C++ symbols read by the generator of an element, so that the element is regenerated when
+	 * one of them changes.
+	 * 
+	 * @param kind
+	 *            - The {@link Kind} of element generator.
+	 * @param object
+	 *            - The {@link NamedElement} generated.
+	 * @param reads
+	 *            - The {@link CppCodePattern.Symbol}s read by the generator.
+	 */
+	void addDependencies(Kind kind, NamedElement object, Collection<CppCodePattern.Symbol> reads);
+
+	/**
+	 * Select the pruned generators that have to run after all, because a C++ symbol they read was changed by
+	 * the generators that just ran.
+	 * 
+	 * @param pruned
+	 *            - A {@link Map} from {@link GeneratorKey}s to the {@link AbstractElementGenerator}s pruned from
+	 *            this generation. The selected generators are removed from it.
+	 * @param generated
+	 *            - The {@link GeneratorKey}s of the generators that just ran.
+	 * @return A {@link Map} from {@link GeneratorKey}s to the selected {@link AbstractElementGenerator}s, in
+	 *         the order of {@code pruned}.
+	 */
+	Map<GeneratorKey, AbstractElementGenerator> getStaleDependents(Map<GeneratorKey, AbstractElementGenerator> pruned,
+			Collection<GeneratorKey> generated);
+
 	/**
 	 * @return The collection of all elements that have changed since the last generation.
 	 */
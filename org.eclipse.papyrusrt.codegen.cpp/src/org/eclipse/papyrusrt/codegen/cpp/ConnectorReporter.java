@@ -18,7 +18,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.papyrusrt.codegen.instance.model.ICapsuleInstance;
-import org.eclipse.papyrusrt.codegen.instance.model.PortInstance;
+import org.eclipse.papyrusrt.codegen.instance.model.IPortInstance;
 import org.eclipse.papyrusrt.xtumlrt.common.Connector;
 
 /**
@@ -47,17 +47,17 @@ public class ConnectorReporter {
 	}
 
 	/**
-	 * Adds a new {@link Connection} between the given {@link PortInstance.FarEnd}s to the list
+	 * Adds a new {@link Connection} between the given {@link IPortInstance.IFarEnd}s to the list
 	 * of connections of the given {@link Connector}.
 	 * 
 	 * @param conn
 	 *            - A {@link Connector}.
 	 * @param far0
-	 *            - First {@link PortInstance.FarEnd}.
+	 *            - First {@link IPortInstance.IFarEnd}.
 	 * @param far1
-	 *            - Second {@link PortInstance.FarEnd}.
+	 *            - Second {@link IPortInstance.IFarEnd}.
 	 */
-	public void record(Connector conn, PortInstance.FarEnd far0, PortInstance.FarEnd far1) {
+	public void record(Connector conn, IPortInstance.IFarEnd far0, IPortInstance.IFarEnd far1) {
 		List<Connection> conns = connections.get(conn);
 		if (conns == null) {
 			conns = new ArrayList<>();
@@ -134,21 +134,21 @@ public class ConnectorReporter {
 	 */
 	private static class Connection {
 
-		/** First {@link PortInstance.FarEnd} of the connection. */
-		public final PortInstance.FarEnd far0;
+		/** First {@link IPortInstance.IFarEnd} of the connection. */
+		public final IPortInstance.IFarEnd far0;
 
-		/** Second {@link PortInstance.FarEnd} of the connection. */
-		public final PortInstance.FarEnd far1;
+		/** Second {@link IPortInstance.IFarEnd} of the connection. */
+		public final IPortInstance.IFarEnd far1;
 
 		/**
 		 * Constructor.
 		 *
 		 * @param far0
-		 *            - First {@link PortInstance.FarEnd} of the connection.
+		 *            - First {@link IPortInstance.IFarEnd} of the connection.
 		 * @param far1
-		 *            - Second {@link PortInstance.FarEnd} of the connection.
+		 *            - Second {@link IPortInstance.IFarEnd} of the connection.
 		 */
-		Connection(PortInstance.FarEnd far0, PortInstance.FarEnd far1) {
+		Connection(IPortInstance.IFarEnd far0, IPortInstance.IFarEnd far1) {
 			this.far0 = far0;
 			this.far1 = far1;
 		}
@@ -20,6 +20,12 @@ import java.util.Date;
 
 class CppCMakeListsGenerator extends AbstractCppMakefileGenerator
 {
+    /** The time stamp line does not make the file change. */
+    override protected String normalize(String content)
+    {
+        content.replaceFirst("^# Generated [^\\n]*", "")
+    }
+
     override protected String doGenerate(List<FileName> files, String main, String rtsPath)
     {
         '''
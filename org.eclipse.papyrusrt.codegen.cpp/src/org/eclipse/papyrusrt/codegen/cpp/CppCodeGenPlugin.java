@@ -9,6 +9,8 @@ package org.eclipse.papyrusrt.codegen.cpp;
 
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.papyrusrt.codegen.config.CodeGenProvider;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 
 /**
  * Activator for this plugin.
@@ -28,5 +30,13 @@ public class CppCodeGenPlugin extends Plugin {
 		CodeGenProvider.getDefault().setModule(new CppCodeGenInjectionModule());
 	}
 
+	/**
+	 * @return The version of this plugin, or {@code "unknown"} when it is not run as a bundle.
+	 */
+	public static String getVersion() {
+		Bundle bundle = FrameworkUtil.getBundle(CppCodeGenPlugin.class);
+		return bundle == null ? "unknown" : bundle.getVersion().toString();
+	}
+
 }
 
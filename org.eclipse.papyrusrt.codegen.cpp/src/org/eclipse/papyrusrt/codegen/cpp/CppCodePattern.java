@@ -11,15 +11,22 @@ import java.io.File;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.papyrusrt.codegen.cpp.profile.facade.RTCppGenerationProperties;
 import org.eclipse.papyrusrt.codegen.cpp.rts.UMLRTRuntime;
-import org.eclipse.papyrusrt.codegen.lang.cpp.CppWriter;
 import org.eclipse.papyrusrt.codegen.lang.cpp.Element;
 import org.eclipse.papyrusrt.codegen.lang.cpp.Expression;
 import org.eclipse.papyrusrt.codegen.lang.cpp.HeaderFile;
@@ -66,9 +73,33 @@ import com.google.inject.Inject;
  * Note that the factory methods provided here return specific patterns intended for use with the
  * UML-RT runtime. For more general purpose generation, the abstract syntax of the C++ subset defined
  * in the {@link org.eclipse.papyrusrt.codegen.lang.cpp} package could be used directly.
+ * 
+ * <p>
+ * The factory methods are synchronized so that element generators can be run concurrently
+ * (see {@link XTUMLRT2CppCodeGenerator#setParallelism(int)}).
  */
 public class CppCodePattern {
 
+	/**
+	 * System property giving the number of threads used to write the generated files. Values greater than 1
+	 * enable parallel writing.
+	 */
+	public static final String WRITE_PARALLELISM_PROPERTY = CppCodeGenPlugin.ID + ".writeParallelism";
+
+	/**
+	 * System property enabling the {@link #setStreamingWrite(boolean) streaming write} of the generated files.
+	 */
+	public static final String STREAMING_WRITE_PROPERTY = CppCodeGenPlugin.ID + ".streamingWrite";
+
+	/**
+	 * System property enabling the {@link #setSplitCapsuleSources(boolean) split} of the generated capsule
+	 * sources.
+	 */
+	public static final String SPLIT_CAPSULE_SOURCES_PROPERTY = CppCodeGenPlugin.ID + ".splitCapsuleSources";
+
+	/** The suffix of the name of the files holding the RTS descriptor of a capsule, when capsule sources are split. */
+	public static final String CAPSULE_RTS_SUFFIX = "_rts";
+
 	/** The translator from UML to xtUMLrt. */
 	private UML2xtumlrtTranslator translator;
 
@@ -78,6 +109,9 @@ public class CppCodePattern {
 	/** The folder containing the model. */
 	private File modelFolder;
 
+	/** The {@link GenerationManifest} of the output folder, loaded on demand. */
+	private GenerationManifest manifest;
+
 	/** The top capsule. */
 	private EObject top;
 
@@ -114,8 +148,47 @@ public class CppCodePattern {
 	/** Map from model class/capsule elements to C++ destructors. */
 	private final Map<Key, Destructor> destructors = new HashMap<>();
 
-	/** List of all generated C++ {@link ElementList}s. */
-	private final List<ElementList> outputs = new ArrayList<>();
+	/** Reverse index of {@link #elementLists}, from each cached {@link ElementList} to its {@link Key}. */
+	private final Map<ElementList, Key> elementListKeys = new IdentityHashMap<>();
+
+	/** The {@link ElementList}s marked as writable, in the order they were marked, indexed by their {@link Key}. */
+	private final Map<Key, ElementList> outputs = new LinkedHashMap<>();
+
+	/** The number of files written by the last {@link #write()}. */
+	private int filesWritten;
+
+	/** The number of files left untouched by the last {@link #write()}. */
+	private int filesSkipped;
+
+	/** The number of bytes written by the last {@link #write()}. */
+	private long bytesWritten;
+
+	/** The number of threads used to write the generated files. */
+	private int writeParallelism = Math.max(1, Integer.getInteger(WRITE_PARALLELISM_PROPERTY, 1));
+
+	/** Whether element lists are written and released as soon as the generators writing to them complete. */
+	private boolean streamingWrite = Boolean.getBoolean(STREAMING_WRITE_PROPERTY);
+
+	/** Whether the RTS descriptor of each capsule is generated in its own source file. */
+	private boolean splitCapsuleSources = Boolean.getBoolean(SPLIT_CAPSULE_SOURCES_PROPERTY);
+
+	/** The keys of the element lists already written by {@link #flush(Collection)} in this generation. */
+	private final Set<Key> streamed = new HashSet<>();
+
+	/** The C++ symbols obtained by the generator running on each thread, while recorded. */
+	private final ThreadLocal<Set<Symbol>> reads = new ThreadLocal<>();
+
+	/** Whether all the element lists written by {@link #flush(Collection)} in this generation were successful. */
+	private boolean streamedSuccessfully = true;
+
+	/** The number of files written by {@link #flush(Collection)} in this generation. */
+	private int streamedFilesWritten;
+
+	/** The number of files left untouched by {@link #flush(Collection)} in this generation. */
+	private int streamedFilesSkipped;
+
+	/** The number of bytes written by {@link #flush(Collection)} in this generation. */
+	private long streamedBytesWritten;
 
 	/**
 	 * Describes the meaning of each type of "file" that can be produced by the generator.
@@ -143,6 +216,16 @@ public class CppCodePattern {
 		this.outputFolder = outputFolder;
 	}
 
+	/**
+	 * @return The {@link GenerationManifest} of the output folder.
+	 */
+	public synchronized GenerationManifest getManifest() {
+		if (manifest == null || !manifest.getFolder().equals(outputFolder)) {
+			manifest = GenerationManifest.load(outputFolder);
+		}
+		return manifest;
+	}
+
 	public void setModelFolder(File modelFolder) {
 		this.modelFolder = modelFolder;
 	}
@@ -161,10 +244,93 @@ public class CppCodePattern {
 	 * @param filenames
 	 *            - A collection of {@link FileName}s.
 	 */
-	public void setFilenames(Collection<FileName> filenames) {
+	public synchronized void setFilenames(Collection<FileName> filenames) {
 		sourceFiles.addAll(filenames);
 	}
 
+	/**
+	 * Prepare for a new generation. This clears the source files and outputs recorded by the previous
+	 * generation, but keeps the cached C++ elements.
+	 */
+	public synchronized void beginGeneration() {
+		sourceFiles.clear();
+		outputs.clear();
+		streamed.clear();
+		streamedSuccessfully = true;
+		streamedFilesWritten = 0;
+		streamedFilesSkipped = 0;
+		streamedBytesWritten = 0;
+	}
+
+	/**
+	 * Discard all the cached C++ elements generated for, or in the context of, the given model elements, so
+	 * that the next requests for them create new C++ elements.
+	 * 
+	 * @param elements
+	 *            - A {@link Set} of model {@link NamedElement}s.
+	 */
+	public synchronized void invalidate(Set<? extends NamedElement> elements) {
+		if (elements.isEmpty()) {
+			return;
+		}
+		discard(elements);
+	}
+
+	/**
+	 * Remove from the caches the C++ elements generated for, or in the context of, the given model elements.
+	 * 
+	 * @param elements
+	 *            - A {@link Set} of model {@link NamedElement}s.
+	 */
+	private void discard(Set<? extends NamedElement> elements) {
+		for (Map<Key, ?> cache : getCaches()) {
+			Iterator<? extends Map.Entry<Key, ?>> iterator = cache.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Key, ?> entry = iterator.next();
+				Key key = entry.getKey();
+				if (elements.contains(key.element) || (key.context != null && elements.contains(key.context))) {
+					if (cache == elementLists) {
+						elementListKeys.remove(entry.getValue());
+					}
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discard the cached {@link ElementList} of the given kind for the given model element.
+	 * 
+	 * @param output
+	 *            - The {@link Output} kind.
+	 * @param element
+	 *            - The model {@link NamedElement}.
+	 */
+	public synchronized void invalidate(Output output, NamedElement element) {
+		ElementList removed = elementLists.remove(new Key(output, element, null));
+		if (removed != null) {
+			elementListKeys.remove(removed);
+		}
+	}
+
+	/**
+	 * @return The caches of generated C++ elements.
+	 */
+	private List<Map<Key, ?>> getCaches() {
+		List<Map<Key, ?>> caches = new ArrayList<>();
+		caches.add(elementLists);
+		caches.add(artifacts);
+		caches.add(cppClasses);
+		caches.add(cppNamespaces);
+		caches.add(variables);
+		caches.add(cppEnums);
+		caches.add(enumerators);
+		caches.add(constructors);
+		caches.add(copyConstructors);
+		caches.add(destructors);
+		return caches;
+	}
+
 	/**
 	 * Mark the given element list as writable. Files that are not marked as writable
 	 * can be referenced but output should not be produced.
@@ -172,16 +338,40 @@ public class CppCodePattern {
 	 * @param elements
 	 *            - An {@link ElementList}.
 	 * @return {@code true} iff the element list is in the {@link #elementLists} list of
-	 *         {@link ElementLists} generated and it is added to the list of outputs.
+	 *         {@link ElementLists} generated and it is in the list of outputs. An element list marked
+	 *         several times appears once in the list of outputs, at the position it was first marked.
 	 */
-	public boolean markWritable(ElementList elements) {
-		if (!elementLists.containsValue(elements)) {
+	public synchronized boolean markWritable(ElementList elements) {
+		Key key = elementListKeys.get(elements);
+		if (key == null) {
 			return false;
 		}
-		outputs.add(elements);
+		// An element list recreated after its file was streamed only holds the symbols referenced since.
+		if (streamed.contains(key)) {
+			return true;
+		}
+		if (outputs.get(key) != elements) {
+			outputs.put(key, elements);
+		}
 		return true;
 	}
 
+	/**
+	 * Add an {@link ElementList} to the cache.
+	 * 
+	 * @param k
+	 *            - The {@link Key} of the element list.
+	 * @param elementList
+	 *            - The {@link ElementList}.
+	 */
+	private void putElementList(Key k, ElementList elementList) {
+		ElementList previous = elementLists.put(k, elementList);
+		if (previous != null) {
+			elementListKeys.remove(previous);
+		}
+		elementListKeys.put(elementList, k);
+	}
+
 	/**
 	 * Creates a {@link File} handle for the "<capsule>.controllers" file that specifies the allocation
 	 * of capsule parts to controllers.
@@ -205,7 +395,8 @@ public class CppCodePattern {
 	 *            - The {@link NamedElement}.
 	 * @return The {@link ElementList}.
 	 */
-	public ElementList getElementList(Output output, NamedElement element) {
+	public synchronized ElementList getElementList(Output output, NamedElement element) {
+		recordRead(output, element, null);
 		Key k = new Key(output, element, null);
 		ElementList elementList = null;
 		switch (output) {
@@ -213,14 +404,14 @@ public class CppCodePattern {
 			elementList = elementLists.get(k);
 			if (elementList == null) {
 				elementList = new ElementList(new FileName(element.getName() + "Controllers"));
-				elementLists.put(k, elementList);
+				putElementList(k, elementList);
 			}
 			return elementList;
 		case Artifact:
 			elementList = elementLists.get(k);
 			if (elementList == null) {
 				elementList = new ElementList(new FileName(element.getName()));
-				elementLists.put(k, elementList);
+				putElementList(k, elementList);
 			}
 			return elementList;
 		default:
@@ -228,6 +419,127 @@ public class CppCodePattern {
 		}
 	}
 
+	/**
+	 * Start recording the C++ symbols read by the generator running on the current thread: those it obtains
+	 * from this code pattern (classes, namespaces, enums, enumerators, variables and element lists, hence its
+	 * base classes and the IDs of signals, ports and parts) and the types it {@link TypesUtil#createCppType
+	 * converts}.
+	 */
+	public void beginRecordingReads() {
+		reads.set(new LinkedHashSet<Symbol>());
+	}
+
+	/**
+	 * Stop recording the C++ symbols read by the generator running on the current thread.
+	 * 
+	 * @return The symbols read since {@link #beginRecordingReads()}.
+	 */
+	public Set<Symbol> endRecordingReads() {
+		Set<Symbol> symbols = reads.get();
+		reads.remove();
+		return symbols == null ? Collections.<Symbol> emptySet() : symbols;
+	}
+
+	/**
+	 * Record that the generator running on the current thread read the C++ type of a model element, if it is
+	 * recorded.
+	 * 
+	 * @param element
+	 *            - A model {@link NamedElement}, or {@code null}.
+	 */
+	public void recordRead(NamedElement element) {
+		recordRead(null, element, null);
+	}
+
+	/**
+	 * Record that the generator running on the current thread read a C++ symbol, if it is recorded.
+	 * 
+	 * @param output
+	 *            - The {@link Output} kind, or {@code null} for a type.
+	 * @param element
+	 *            - The model {@link NamedElement}, or {@code null}.
+	 * @param context
+	 *            - The context model {@link NamedElement} of an enumerator, or {@code null}.
+	 */
+	private void recordRead(Output output, NamedElement element, NamedElement context) {
+		Set<Symbol> symbols = reads.get();
+		if (symbols != null && element != null) {
+			symbols.add(new Symbol(output, element, context));
+		}
+	}
+
+	/**
+	 * Compute the value of a C++ symbol from the model: what the generators that read it put into their code.
+	 * This is the name of the C++ element and the file declaring it, and for an enumerator, its name and
+	 * position. The members of classes are not covered. Two values are equal iff the symbol did not change.
+	 * 
+	 * @param symbol
+	 *            - A {@link Symbol}.
+	 * @return The value of the symbol.
+	 */
+	public String getSymbolValue(Symbol symbol) {
+		NamedElement element = symbol.element;
+		if (symbol.output == null) {
+			return element.getName();
+		}
+		if (symbol.context != null) {
+			String name = getName(symbol.output, element);
+			switch (symbol.output) {
+			case SignalId:
+				return symbol.context instanceof Protocol
+						? name + '=' + indexOf(getSortedSignals((Protocol) symbol.context), element)
+						: name;
+			case PortId:
+				return symbol.context instanceof Capsule
+						? name + '=' + indexOf(getSortedPorts((Capsule) symbol.context), element)
+						: name;
+			case PartId:
+				return symbol.context instanceof Capsule
+						? name + '=' + indexOf(getSortedParts((Capsule) symbol.context), element)
+						: name;
+			default:
+				// The border and internal port ids are only used by the generator of their capsule.
+				return name;
+			}
+		}
+		String fileName;
+		switch (symbol.output) {
+		case Deployment:
+			fileName = element.getName() + "Controllers";
+			break;
+		case Artifact:
+			fileName = element instanceof Artifact && !((Artifact) element).getFileName().isEmpty()
+					? ((Artifact) element).getFileName()
+					: element.getName();
+			break;
+		case UMLRTCapsuleClass:
+			fileName = splitCapsuleSources ? element.getName() + CAPSULE_RTS_SUFFIX : element.getName();
+			break;
+		default:
+			fileName = element.getName();
+			break;
+		}
+		return getName(symbol.output, element) + '@' + fileName;
+	}
+
+	/**
+	 * @param elements
+	 *            - A sorted {@link Map} of elements by name, such as the signals of a protocol.
+	 * @param element
+	 *            - A {@link NamedElement}.
+	 * @return The position of the name of the element in the map, or -1.
+	 */
+	private static int indexOf(Map<String, NamedElement> elements, NamedElement element) {
+		int index = 0;
+		for (String name : elements.keySet()) {
+			if (name.equals(element.getName())) {
+				return index;
+			}
+			++index;
+		}
+		return -1;
+	}
+
 	/**
 	 * Obtain a C++ "artifact", a simple header/implementation file pair, for a given model element.
 	 * 
@@ -237,7 +549,7 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link CppArtifact}.
 	 */
-	public CppArtifact getWritableCppArtifact(Output output, NamedElement element) {
+	public synchronized CppArtifact getWritableCppArtifact(Output output, NamedElement element) {
 		CppArtifact artifact = getArtifact(output, element);
 		HeaderFile header = artifact.getDefinedIn();
 		if (header instanceof ElementList) {
@@ -255,7 +567,7 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link CppClass}.
 	 */
-	public CppClass getWritableCppClass(Output output, NamedElement element) {
+	public synchronized CppClass getWritableCppClass(Output output, NamedElement element) {
 		CppClass cls = getCppClass(output, element);
 		HeaderFile header = cls.getDefinedIn();
 		if (header instanceof ElementList) {
@@ -273,7 +585,7 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link CppEnum}.
 	 */
-	public CppEnum getWritableCppEnum(Output output, NamedElement element) {
+	public synchronized CppEnum getWritableCppEnum(Output output, NamedElement element) {
 		CppEnum enm = getCppEnum(output, element);
 		HeaderFile header = enm.getDefinedIn();
 		if (header instanceof ElementList) {
@@ -291,7 +603,7 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link CppNamespace}.
 	 */
-	public CppNamespace getWritableCppNamespace(Output output, NamedElement element) {
+	public synchronized CppNamespace getWritableCppNamespace(Output output, NamedElement element) {
 		CppNamespace namespace = getCppNamespace(output, element);
 		HeaderFile header = namespace.getDefinedIn();
 		if (header instanceof ElementList) {
@@ -309,7 +621,8 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link CppClass}.
 	 */
-	public CppClass getCppClass(Output output, NamedElement element) {
+	public synchronized CppClass getCppClass(Output output, NamedElement element) {
+		recordRead(output, element, null);
 		Key k = new Key(output, element, null);
 		CppClass cls = cppClasses.get(k);
 		if (cls == null) {
@@ -345,7 +658,8 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link CppNamespace}.
 	 */
-	public CppNamespace getCppNamespace(Output output, NamedElement element) {
+	public synchronized CppNamespace getCppNamespace(Output output, NamedElement element) {
+		recordRead(output, element, null);
 		Key k = new Key(output, element, null);
 		CppNamespace namespace = cppNamespaces.get(k);
 		if (namespace == null) {
@@ -361,6 +675,15 @@ public class CppCodePattern {
 			}
 
 			cppNamespaces.put(k, namespace);
+
+			// The role classes and signal ids are also used by the generators of the capsules that use the
+			// protocol, which may run concurrently with the protocol generator. Create them here, in a fixed
+			// order, so that only the protocol generator modifies the namespace afterwards and its members do
+			// not depend on which generator used the protocol first. This changed the order of the members of
+			// the protocol headers: see GenerationManifest.FORMAT_VERSION.
+			getCppClass(Output.ProtocolBaseRole, element);
+			getCppClass(Output.ProtocolConjugateRole, element);
+			getIdEnum(Output.SignalId, element);
 		}
 
 		return namespace;
@@ -375,7 +698,7 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link Constructor}.
 	 */
-	public Constructor getConstructor(Output output, NamedElement element) {
+	public synchronized Constructor getConstructor(Output output, NamedElement element) {
 		Key k = new Key(output, element, null);
 		Constructor ctor = constructors.get(k);
 		if (ctor == null) {
@@ -406,7 +729,7 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link Constructor}.
 	 */
-	public Constructor getCopyConstructor(Output output, NamedElement element) {
+	public synchronized Constructor getCopyConstructor(Output output, NamedElement element) {
 		Key k = new Key(output, element, null);
 		Constructor ctor = copyConstructors.get(k);
 		if (ctor == null) {
@@ -435,7 +758,7 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link Destructor}.
 	 */
-	public Destructor getDestructor(Output output, NamedElement element) {
+	public synchronized Destructor getDestructor(Output output, NamedElement element) {
 		Key k = new Key(output, element, null);
 		Destructor dtor = destructors.get(k);
 		if (dtor == null) {
@@ -464,7 +787,8 @@ public class CppCodePattern {
 	 *            - The model {@link NamedElement}.
 	 * @return The {@link Variable}.
 	 */
-	public Variable getVariable(Output output, NamedElement element) {
+	public synchronized Variable getVariable(Output output, NamedElement element) {
+		recordRead(output, element, null);
 		Key k = new Key(output, element, null);
 		Variable var = variables.get(k);
 		if (var == null) {
@@ -494,7 +818,8 @@ public class CppCodePattern {
 	 *            - The {@link NamedElement}.
 	 * @return The {@link CppEnum}.
 	 */
-	public CppEnum getCppEnum(Output output, NamedElement element) {
+	public synchronized CppEnum getCppEnum(Output output, NamedElement element) {
+		recordRead(output, element, null);
 		Key k = new Key(output, element, null);
 		CppEnum enm = cppEnums.get(k);
 		if (enm == null) {
@@ -525,7 +850,7 @@ public class CppCodePattern {
 	 *            - The {@link NamedElement}.
 	 * @return The {@link CppArtifact}.
 	 */
-	public CppArtifact getArtifact(Output output, NamedElement element) {
+	public synchronized CppArtifact getArtifact(Output output, NamedElement element) {
 		Key k = new Key(output, element, null);
 		CppArtifact artifact = artifacts.get(k);
 		if (artifact == null) {
@@ -627,7 +952,8 @@ public class CppCodePattern {
 	 *            - The {@link NamedElement}.
 	 * @return The {@link CppEnum}.
 	 */
-	public CppEnum getIdEnum(Output output, NamedElement element) {
+	public synchronized CppEnum getIdEnum(Output output, NamedElement element) {
+		recordRead(output, element, null);
 		Key k = new Key(output, element, null);
 		CppEnum enm = cppEnums.get(k);
 		if (enm == null) {
@@ -696,7 +1022,8 @@ public class CppCodePattern {
 	 *            - The context {@link NamedElement}: either a {@link Protocol} for signal, or a {@link Capsule} for ports and parts
 	 * @return The C++ {@link Enumerator}.
 	 */
-	public Enumerator getEnumerator(Output output, NamedElement element, NamedElement context) {
+	public synchronized Enumerator getEnumerator(Output output, NamedElement element, NamedElement context) {
+		recordRead(output, element, context);
 		Key k = new Key(output, element, context);
 		Enumerator enumerator = enumerators.get(k);
 		if (enumerator == null) {
@@ -751,7 +1078,7 @@ public class CppCodePattern {
 	 *            - The context {@link NamedElement}: either a {@link Protocol} for signal, or a {@link Capsule} for ports and parts
 	 * @return The C++ {@link MemberAccess}.
 	 */
-	public Expression getEnumeratorAccess(Output output, NamedElement element, NamedElement context) {
+	public synchronized Expression getEnumeratorAccess(Output output, NamedElement element, NamedElement context) {
 		org.eclipse.papyrusrt.codegen.lang.cpp.element.NamedElement cppElement = null;
 		switch (output) {
 		case SignalId: {
@@ -821,7 +1148,7 @@ public class CppCodePattern {
 	 *            - A model {@link NamedElement}.
 	 * @return The corresponding C++ {@link Element}.
 	 */
-	public Element getCppElement(NamedElement element) {
+	public synchronized Element getCppElement(NamedElement element) {
 		if (RTSModelLibraryUtils.isSystemElement(element)) {
 			return UMLRTRuntime.getSystemElement(element);
 		}
@@ -883,12 +1210,16 @@ public class CppCodePattern {
 	 *            - The {@link NamedElement}.
 	 * @return The {@link ElementList}.
 	 */
-	private ElementList getElementList(Key k, NamedElement element) {
+	private synchronized ElementList getElementList(Key k, NamedElement element) {
 		ElementList elementList = elementLists.get(k);
 		if (elementList == null) {
 			switch (k.output) {
 			case UMLRTCapsuleClass:
-				return getElementList(Output.CapsuleClass, element);
+				if (!splitCapsuleSources) {
+					return getElementList(Output.CapsuleClass, element);
+				}
+				elementList = new ElementList(new FileName(element.getName() + CAPSULE_RTS_SUFFIX));
+				break;
 			case Artifact:
 				if (!(element instanceof Artifact)) {
 					throw new RuntimeException("code pattern for Artifact requires " + k.output.toString());
@@ -907,7 +1238,12 @@ public class CppCodePattern {
 				elementList = new ElementList(new FileName(element.getName()));
 				break;
 			}
-			elementLists.put(k, elementList);
+			putElementList(k, elementList);
+		}
+
+		// The RTS descriptor is written with the capsule class.
+		if (k.output == Output.UMLRTCapsuleClass && outputs.containsKey(new Key(Output.CapsuleClass, element, null))) {
+			markWritable(elementList);
 		}
 
 		return elementList;
@@ -921,45 +1257,213 @@ public class CppCodePattern {
 	 * transformation where the model is the intermediate C++ abstract syntax defined in
 	 * {@link org.eclipse.papyrusrt.codegen.lang.cpp}.
 	 * 
+	 * <p>
+	 * The files are written by an {@link OutputWriter}: only those whose content changed replace the
+	 * existing files, so that the modification time of unchanged files is preserved, and the files are
+	 * written concurrently if the {@link #setWriteParallelism(int) write parallelism} is greater than 1.
+	 * The makefiles are generated concurrently with the source files. In
+	 * {@link #setStreamingWrite(boolean) streaming mode}, the element lists already {@link #flush(Collection)
+	 * flushed} are not written again, but are included in the counts of files and bytes.
+	 * 
 	 * @return {@code true} if successful.
 	 */
 	public boolean write() {
 		String baseFolder = outputFolder.getAbsolutePath();
+		OutputWriter writer = new OutputWriter(outputFolder, writeParallelism);
+		writer.addElementLists(outputs.values());
 
-		boolean ret = true;
-		for (ElementList output : outputs) {
-			CppWriter out = CppWriter.create(baseFolder, output);
-			try {
-				if (!output.write(out)) {
-					ret = false;
-					System.err.println("Failure while writing '" + output.getName().getAbsolutePath() + "' to disk");
-				}
-			} finally {
-				out.close();
-			}
-		}
+		final String mainName = getMainName();
+		final List<FileName> files = new ArrayList<>(sourceFiles);
 
 		// Add main source file name
-		AbstractCppMakefileGenerator gen = new CppMakefileGenerator();
-		String makefile = gen.formatFilename(GeneralUtil.getName(top));
+		final AbstractCppMakefileGenerator makefileGen = new CppMakefileGenerator();
+		final String makefile = makefileGen.formatFilename(GeneralUtil.getName(top));
 
 		// Generate makefile for top capsule
-		gen.generate(Paths.get(baseFolder, makefile).toString(), sourceFiles, getMainName());
+		final File makefilePath = Paths.get(baseFolder, makefile).toFile();
+		writer.addFile(makefilePath, new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return makefileGen.generate(makefilePath.getPath(), files, mainName);
+			}
+		});
 
 		// Generate default makefile
-		new CppDefaultMakefileGenerator().generate(Paths.get(baseFolder, "Makefile").toString(), makefile);
+		final File defaultMakefilePath = Paths.get(baseFolder, "Makefile").toFile();
+		writer.addFile(defaultMakefilePath, new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return new CppDefaultMakefileGenerator().generate(defaultMakefilePath.getPath(), makefile);
+			}
+		});
 
 		// Also add CMake file
-		gen = new CppCMakeListsGenerator();
-		makefile = gen.formatFilename(GeneralUtil.getName(top));
+		final AbstractCppMakefileGenerator cmakeGen = new CppCMakeListsGenerator();
+		final File cmakePath = Paths.get(baseFolder, cmakeGen.formatFilename(GeneralUtil.getName(top))).toFile();
 
 		// Generate CMake for top capsule
-		gen.generate(Paths.get(baseFolder, makefile).toString(), sourceFiles, getMainName());
+		writer.addFile(cmakePath, new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return cmakeGen.generate(cmakePath.getPath(), files, mainName);
+			}
+		});
 
+		boolean ret = writer.write() && streamedSuccessfully;
+		filesWritten = writer.getFilesWritten() + streamedFilesWritten;
+		filesSkipped = writer.getFilesSkipped() + streamedFilesSkipped;
+		bytesWritten = writer.getBytesWritten() + streamedBytesWritten;
+
+		// Record what was generated, for incremental generation in later sessions
+		if (ret) {
+			getManifest().save();
+		}
 
 		return ret;
 	}
 
+	/**
+	 * Write the files of the element lists generated for the given model elements, in
+	 * {@link #setStreamingWrite(boolean) streaming mode}, and release their C++ elements.
+	 * 
+	 * <p>
+	 * This is called when all the generators writing to the C++ elements of the given model elements have
+	 * completed. The element lists of these model elements that are marked as writable are written as
+	 * {@link #write()} would, and removed from the outputs. Then all the C++ elements cached for these model
+	 * elements are discarded, so that the element lists can be garbage collected once the elements that
+	 * reference them are written as well. Generated code refers to C++ elements by name, so later requests for
+	 * these C++ elements create lightweight replacements which are only used as references: they are not
+	 * written again in this generation. The element lists are detached under the lock of this pattern, but
+	 * written after releasing it, so that concurrent generators do not wait for the disk.
+	 * 
+	 * @param elements
+	 *            - A {@link Collection} of model {@link NamedElement}s whose generators have completed.
+	 * @return {@code true} if successful, or if the streaming mode is disabled.
+	 */
+	public boolean flush(Collection<? extends NamedElement> elements) {
+		if (!streamingWrite || elements.isEmpty()) {
+			return true;
+		}
+
+		// The files are written outside the lock, so that the generators running on other threads are not
+		// blocked by the disk: the element lists are no longer reachable from this pattern once detached
+		List<ElementList> lists = detach(elements);
+		if (lists.isEmpty()) {
+			return true;
+		}
+		OutputWriter writer = new OutputWriter(outputFolder, 1);
+		writer.addElementLists(lists);
+		boolean ret = writer.write();
+		synchronized (this) {
+			streamedSuccessfully &= ret;
+			streamedFilesWritten += writer.getFilesWritten();
+			streamedFilesSkipped += writer.getFilesSkipped();
+			streamedBytesWritten += writer.getBytesWritten();
+		}
+		return ret;
+	}
+
+	/**
+	 * Remove the element lists generated for the given model elements from the outputs, and discard all the
+	 * C++ elements cached for these model elements.
+	 * 
+	 * @param elements
+	 *            - A {@link Collection} of model {@link NamedElement}s whose generators have completed.
+	 * @return The element lists removed from the outputs, to be written by the caller.
+	 */
+	private synchronized List<ElementList> detach(Collection<? extends NamedElement> elements) {
+		List<ElementList> lists = new ArrayList<>();
+		Iterator<Map.Entry<Key, ElementList>> iterator = outputs.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Key, ElementList> entry = iterator.next();
+			if (elements.contains(entry.getKey().element)) {
+				lists.add(entry.getValue());
+				streamed.add(entry.getKey());
+				iterator.remove();
+			}
+		}
+		discard(new HashSet<>(elements));
+		return lists;
+	}
+
+	/**
+	 * @return The number of files written by the last {@link #write()}.
+	 */
+	public int getFilesWritten() {
+		return filesWritten;
+	}
+
+	/**
+	 * @return The number of files left untouched by the last {@link #write()} because their content did not change.
+	 */
+	public int getFilesSkipped() {
+		return filesSkipped;
+	}
+
+	/**
+	 * @return The number of bytes written by the last {@link #write()}.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public int getWriteParallelism() {
+		return writeParallelism;
+	}
+
+	/**
+	 * @param writeParallelism
+	 *            - The number of threads used to write the generated files; {@code 1} means the files are
+	 *            written sequentially.
+	 */
+	public void setWriteParallelism(int writeParallelism) {
+		this.writeParallelism = Math.max(1, writeParallelism);
+	}
+
+	public boolean isStreamingWrite() {
+		return streamingWrite;
+	}
+
+	/**
+	 * Enable or disable the streaming write of the generated files. In streaming mode, the generator
+	 * {@link #flush(Collection) flushes} the element lists of each group of generators as soon as the group
+	 * completes, so that the C++ model of the whole generation is never in memory at once: the peak heap
+	 * depends on the largest groups instead of the size of the model. {@link #write()} then only writes the
+	 * remaining element lists and the makefiles.
+	 * 
+	 * @param streamingWrite
+	 *            - {@code true} to write element lists as soon as their generators complete.
+	 */
+	public void setStreamingWrite(boolean streamingWrite) {
+		this.streamingWrite = streamingWrite;
+	}
+
+	/**
+	 * @return The options changing the layout of the generated files, as recorded in the header of the
+	 *         {@link GenerationManifest}.
+	 */
+	public String getLayout() {
+		return "splitCapsuleSources=" + splitCapsuleSources + ";streamingWrite=" + streamingWrite;
+	}
+
+	public boolean isSplitCapsuleSources() {
+		return splitCapsuleSources;
+	}
+
+	/**
+	 * Enable or disable the split of the generated capsule sources. When split, the RTS descriptor of each
+	 * capsule (its {@code UMLRTCapsuleClass}, port role and sub-capsule tables, and {@code instantiate}
+	 * function) is generated in a separate {@code <capsule>_rts} file pair instead of the file pair of the
+	 * capsule class, so that large capsules are compiled as several translation units. The files are listed
+	 * in the generated makefiles. Changing the layout regenerates all the files (see {@link #getLayout()}).
+	 * 
+	 * @param splitCapsuleSources
+	 *            - {@code true} to generate the RTS descriptor of each capsule in its own source file.
+	 */
+	public void setSplitCapsuleSources(boolean splitCapsuleSources) {
+		this.splitCapsuleSources = splitCapsuleSources;
+	}
+
 	public String getMainName() {
 		return GeneralUtil.getName(top) + "Main";
 	}
@@ -989,6 +1493,54 @@ public class CppCodePattern {
 		elements.addDefnEndingText(implEnding);
 	}
 
+	/**
+	 * A C++ symbol read by a generator: the C++ element of a kind of {@link Output} for a model element, in the
+	 * context of a protocol or capsule for enumerators, or the C++ type of a model type.
+	 */
+	public static final class Symbol {
+
+		/** The {@link Output} kind, or {@code null} for a type. */
+		public final Output output;
+
+		/** The model {@link NamedElement}. */
+		public final NamedElement element;
+
+		/** The context model {@link NamedElement} of an enumerator, or {@code null}. */
+		public final NamedElement context;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param output
+		 *            - The {@link Output} kind, or {@code null} for a type.
+		 * @param element
+		 *            - The model {@link NamedElement}.
+		 * @param context
+		 *            - The context model {@link NamedElement} of an enumerator, or {@code null}.
+		 */
+		public Symbol(Output output, NamedElement element, NamedElement context) {
+			this.output = output;
+			this.element = element;
+			this.context = context;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Symbol)) {
+				return false;
+			}
+			Symbol other = (Symbol) obj;
+			return output == other.output
+					&& element.equals(other.element)
+					&& Objects.equals(context, other.context);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(output, element, context);
+		}
+	}
+
 	/**
 	 * Instances of this class are used as keys to the maps that store the generated C++ elements.
 	 */
@@ -7,21 +7,19 @@
  *******************************************************************************/
 package org.eclipse.papyrusrt.codegen.cpp
 
-import java.io.BufferedWriter
 import java.io.File
-import java.io.FileWriter
 
 class CppDefaultMakefileGenerator
 {
 
-    def generate( String path, String targetMakefile )
+    /**
+     * Generates the file, unless it already exists with the same content.
+     *
+     * @return {@code true} if the file was written.
+     */
+    def boolean generate( String path, String targetMakefile )
     {
-
-        val file = new File(path);
-        
-        val writer = new BufferedWriter( new FileWriter( file ) );
-        writer.write( doGenerate( targetMakefile ).toString )
-        writer.close
+        GeneratedFiles.update( new File(path), doGenerate( targetMakefile ).toString )
     }
 
     def private doGenerate( String targetMakefile ) {
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.papyrusrt.codegen.cpp.CppCodePattern.Output;
+import org.eclipse.papyrusrt.codegen.cpp.XTUMLRT2CppCodeGenerator.Kind;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * The C++ symbols read by each element generator the last time it ran, with their values at the time, so
+ * that a generator is regenerated only when a symbol it used changed.
+ *
+ * <p>
+ * A generator is identified by its {@link Kind} and the model element it generates. A symbol is identified
+ * by the model elements of its {@link Read}, and belongs to the element whose generators define it: the
+ * element itself, or the protocol or capsule of an enumerator. When the generators of an element run again,
+ * the values of its symbols read by other generators are compared with the recorded ones: only the readers
+ * of the symbols whose value changed have to run again, so that a change does not propagate through the
+ * elements whose symbols did not change.
+ *
+ * <p>
+ * This class is thread-safe.
+ */
+public class DependencyGraph {
+
+	/** The symbols read by each generator and their values, indexed by {@link Kind} and generated element. */
+	private final Map<Kind, Map<EObject, Map<Read, String>>> dependencies = new HashMap<>();
+
+	/** The generators that read a symbol of each element, as generated elements indexed by {@link Kind}. */
+	private final Map<EObject, SetMultimap<Kind, EObject>> dependents = new HashMap<>();
+
+	/**
+	 * Record the symbols read by a generator, replacing those of its previous run.
+	 *
+	 * @param kind
+	 *            - The {@link Kind} of the generator.
+	 * @param element
+	 *            - The element generated.
+	 * @param reads
+	 *            - The symbols it read, with their values.
+	 */
+	public synchronized void setDependencies(Kind kind, EObject element, Map<Read, String> reads) {
+		removeDependencies(kind, element);
+		if (reads.isEmpty()) {
+			return;
+		}
+		Map<EObject, Map<Read, String>> map = dependencies.get(kind);
+		if (map == null) {
+			map = new HashMap<>();
+			dependencies.put(kind, map);
+		}
+		map.put(element, reads);
+		for (Read read : reads.keySet()) {
+			SetMultimap<Kind, EObject> readers = dependents.get(read.getOwner());
+			if (readers == null) {
+				readers = HashMultimap.create();
+				dependents.put(read.getOwner(), readers);
+			}
+			readers.put(kind, element);
+		}
+	}
+
+	/**
+	 * @param kind
+	 *            - The {@link Kind} of a generator.
+	 * @param element
+	 *            - The element it generates.
+	 * @return The symbols read by the generator the last time it ran, with their values.
+	 */
+	public synchronized Map<Read, String> getDependencies(Kind kind, EObject element) {
+		Map<EObject, Map<Read, String>> map = dependencies.get(kind);
+		Map<Read, String> reads = map == null ? null : map.get(element);
+		return reads == null ? new HashMap<Read, String>() : new HashMap<>(reads);
+	}
+
+	/**
+	 * @param owners
+	 *            - The elements whose generators ran.
+	 * @return The generators that read a symbol of these elements, as generated elements indexed by
+	 *         {@link Kind}.
+	 */
+	public synchronized SetMultimap<Kind, EObject> getReaders(Collection<? extends EObject> owners) {
+		SetMultimap<Kind, EObject> result = HashMultimap.create();
+		for (EObject owner : owners) {
+			SetMultimap<Kind, EObject> readers = dependents.get(owner);
+			if (readers != null) {
+				result.putAll(readers);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Forget the dependencies of the generators of the elements of a resource.
+	 *
+	 * @param resource
+	 *            - A {@link Resource}.
+	 */
+	public synchronized void removeResource(Resource resource) {
+		for (Map<EObject, Map<Read, String>> map : dependencies.values()) {
+			Iterator<Map.Entry<EObject, Map<Read, String>>> iterator = map.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<EObject, Map<Read, String>> entry = iterator.next();
+				EObject element = entry.getKey();
+				if (element.eResource() == resource || element.eResource() == null) {
+					iterator.remove();
+					removeDependents(entry.getValue(), null, element);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forget all the dependencies.
+	 */
+	public synchronized void clear() {
+		dependencies.clear();
+		dependents.clear();
+	}
+
+	/**
+	 * @param kind
+	 *            - The {@link Kind} of a generator.
+	 * @param element
+	 *            - The element it generates.
+	 */
+	private void removeDependencies(Kind kind, EObject element) {
+		Map<EObject, Map<Read, String>> map = dependencies.get(kind);
+		Map<Read, String> reads = map == null ? null : map.remove(element);
+		if (reads != null) {
+			removeDependents(reads, kind, element);
+		}
+	}
+
+	/**
+	 * @param reads
+	 *            - The symbols read by a generator.
+	 * @param kind
+	 *            - The {@link Kind} of the generator, or {@code null} for all kinds.
+	 * @param element
+	 *            - The element it generates.
+	 */
+	private void removeDependents(Map<Read, String> reads, Kind kind, EObject element) {
+		for (Read read : reads.keySet()) {
+			SetMultimap<Kind, EObject> readers = dependents.get(read.getOwner());
+			if (readers == null) {
+				continue;
+			}
+			if (kind != null) {
+				readers.remove(kind, element);
+			} else {
+				readers.values().remove(element);
+			}
+			if (readers.isEmpty()) {
+				dependents.remove(read.getOwner());
+			}
+		}
+	}
+
+	/**
+	 * A C++ symbol read by a generator, identified by the model elements of a {@link CppCodePattern.Symbol}.
+	 */
+	public static final class Read {
+
+		/** The {@link Output} kind, or {@code null} for a type. */
+		public final Output output;
+
+		/** The model element. */
+		public final EObject element;
+
+		/** The context model element of an enumerator, or {@code null}. */
+		public final EObject context;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param output
+		 *            - The {@link Output} kind, or {@code null} for a type.
+		 * @param element
+		 *            - The model element.
+		 * @param context
+		 *            - The context model element of an enumerator, or {@code null}.
+		 */
+		public Read(Output output, EObject element, EObject context) {
+			this.output = output;
+			this.element = element;
+			this.context = context;
+		}
+
+		/**
+		 * @return The element whose generators define the symbol: the context of an enumerator, or the element.
+		 */
+		public EObject getOwner() {
+			return context != null ? context : element;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Read)) {
+				return false;
+			}
+			Read other = (Read) obj;
+			return output == other.output
+					&& element.equals(other.element)
+					&& Objects.equals(context, other.context);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(output, element, context);
+		}
+	}
+
+}
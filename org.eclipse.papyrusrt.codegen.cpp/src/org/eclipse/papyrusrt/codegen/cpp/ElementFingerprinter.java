@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.papyrusrt.xtumlrt.external.predefined.UMLRTProfileUtil;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.Classifier;
+import org.eclipse.uml2.uml.Connector;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.Port;
+import org.eclipse.uml2.uml.Property;
+import org.eclipse.uml2.uml.Type;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Computes fingerprints of UML model elements, used to detect whether an element changed since the last
+ * generation (see {@link GenerationManifest}).
+ *
+ * <p>
+ * The fingerprint of an element covers its attributes, its references, its stereotype applications, and
+ * those of all its contents. References are identified by the URI fragment and the name of their target,
+ * so renaming a referenced element changes the fingerprint of the referencing one. The fingerprint of a
+ * class also covers the fingerprints of its super-classes, and that of a capsule the protocols of its ports
+ * and the ports of the types of its parts with their protocols, since its generated code depends on them: the
+ * code of a capsule declares the port instances of its parts, and their far ends and indices.
+ *
+ * <p>
+ * Fingerprints are memoized, so an instance should only be used while the model does not change.
+ */
+public class ElementFingerprinter {
+
+	/** The hash function. */
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+	/** The hashes of the element subtrees computed so far. */
+	private final Map<EObject, HashCode> subtrees = new HashMap<>();
+
+	/** The fingerprints computed so far. */
+	private final Map<EObject, HashCode> fingerprints = new HashMap<>();
+
+	/**
+	 * @param element
+	 *            - A UML model element.
+	 * @return The fingerprint of the element.
+	 */
+	public String getFingerprint(EObject element) {
+		return fingerprint(element, new HashSet<>()).toString();
+	}
+
+	/**
+	 * @param root
+	 *            - A UML model element.
+	 * @return The hash of the element and all its contents, ignoring the elements it depends on.
+	 */
+	public HashCode getSubtreeHash(EObject root) {
+		HashCode result = subtrees.get(root);
+		if (result == null) {
+			Hasher hasher = HASH_FUNCTION.newHasher();
+			hashObject(hasher, root);
+			for (TreeIterator<EObject> iterator = root.eAllContents(); iterator.hasNext();) {
+				hashObject(hasher, iterator.next());
+			}
+			result = hasher.hash();
+			subtrees.put(root, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @param capsule
+	 *            - A capsule.
+	 * @return The hash of the ports, parts and connectors of the capsule, including the inherited ones: the
+	 *         structure that the code of the capsules containing it depends on, unlike its attributes,
+	 *         operations and behaviour.
+	 */
+	public HashCode getStructureHash(Class capsule) {
+		Hasher hasher = HASH_FUNCTION.newHasher();
+		for (Port port : UMLRTProfileUtil.getAllRTPorts(capsule)) {
+			hasher.putBytes(getSubtreeHash(port).asBytes());
+		}
+		for (Property attribute : capsule.getAllAttributes()) {
+			Type type = attribute.getType();
+			if (!(attribute instanceof Port) && type instanceof Class && UMLRTProfileUtil.isCapsule((Class) type)) {
+				hasher.putBytes(getSubtreeHash(attribute).asBytes());
+			}
+		}
+		hashConnectors(hasher, capsule);
+		for (Classifier general : capsule.allParents()) {
+			if (general instanceof Class) {
+				hashConnectors(hasher, (Class) general);
+			}
+		}
+		return hasher.hash();
+	}
+
+	/**
+	 * Add the connectors owned by a class to a hash.
+	 *
+	 * @param hasher
+	 *            - The {@link Hasher}.
+	 * @param cls
+	 *            - The {@link Class}.
+	 */
+	private void hashConnectors(Hasher hasher, Class cls) {
+		for (Connector connector : cls.getOwnedConnectors()) {
+			hasher.putBytes(getSubtreeHash(connector).asBytes());
+		}
+	}
+
+	/**
+	 * @param element
+	 *            - A UML model element.
+	 * @param visiting
+	 *            - The elements whose fingerprint is being computed, to guard against generalization cycles.
+	 * @return The fingerprint of the element.
+	 */
+	private HashCode fingerprint(EObject element, Set<EObject> visiting) {
+		HashCode result = fingerprints.get(element);
+		if (result != null) {
+			return result;
+		}
+		if (!visiting.add(element)) {
+			return getSubtreeHash(element);
+		}
+		Hasher hasher = HASH_FUNCTION.newHasher();
+		hasher.putBytes(getSubtreeHash(element).asBytes());
+		if (element instanceof Class) {
+			Class cls = (Class) element;
+			for (Classifier general : cls.getGenerals()) {
+				hasher.putBytes(fingerprint(general, visiting).asBytes());
+			}
+			if (UMLRTProfileUtil.isCapsule(cls)) {
+				for (Port port : UMLRTProfileUtil.getAllRTPorts(cls)) {
+					hashProtocol(hasher, port);
+				}
+				for (Property attribute : cls.getAllAttributes()) {
+					Type type = attribute.getType();
+					if (!(attribute instanceof Port) && type instanceof Class
+							&& UMLRTProfileUtil.isCapsule((Class) type)) {
+						for (Port port : UMLRTProfileUtil.getAllRTPorts((Class) type)) {
+							hasher.putBytes(getSubtreeHash(port).asBytes());
+							hashProtocol(hasher, port);
+						}
+					}
+				}
+			}
+		}
+		result = hasher.hash();
+		fingerprints.put(element, result);
+		return result;
+	}
+
+	/**
+	 * Add the protocol of a port, if any, to a hash.
+	 *
+	 * @param hasher
+	 *            - The {@link Hasher}.
+	 * @param port
+	 *            - The {@link Port}.
+	 */
+	private void hashProtocol(Hasher hasher, Port port) {
+		org.eclipse.uml2.uml.Package protocol = UMLRTProfileUtil.getProtocol(port);
+		if (protocol != null) {
+			hasher.putBytes(getSubtreeHash(protocol).asBytes());
+		}
+	}
+
+	/**
+	 * Add the non-containment features of an object, and its stereotype applications, to a hash.
+	 *
+	 * @param hasher
+	 *            - The {@link Hasher}.
+	 * @param object
+	 *            - The {@link EObject}.
+	 */
+	private static void hashObject(Hasher hasher, EObject object) {
+		EClass eClass = object.eClass();
+		hasher.putString(eClass.getName(), StandardCharsets.UTF_8);
+		for (EStructuralFeature feature : eClass.getEAllStructuralFeatures()) {
+			if (feature.isDerived() || feature.isTransient() || !object.eIsSet(feature)
+					|| (feature instanceof EReference && ((EReference) feature).isContainment())) {
+				continue;
+			}
+			hasher.putString(feature.getName(), StandardCharsets.UTF_8);
+			Object value = object.eGet(feature);
+			if (feature.isMany()) {
+				Iterator<?> iterator = ((Collection<?>) value).iterator();
+				while (iterator.hasNext()) {
+					hashValue(hasher, iterator.next());
+				}
+			} else {
+				hashValue(hasher, value);
+			}
+		}
+		if (object instanceof Element) {
+			for (EObject application : ((Element) object).getStereotypeApplications()) {
+				hashObject(hasher, application);
+			}
+		}
+	}
+
+	/**
+	 * Add the value of a feature to a hash.
+	 *
+	 * @param hasher
+	 *            - The {@link Hasher}.
+	 * @param value
+	 *            - The value.
+	 */
+	private static void hashValue(Hasher hasher, Object value) {
+		if (value instanceof EObject) {
+			EObject target = (EObject) value;
+			hasher.putString(String.valueOf(EcoreUtil.getURI(target).fragment()), StandardCharsets.UTF_8);
+			if (target instanceof NamedElement) {
+				hasher.putString(String.valueOf(((NamedElement) target).getName()), StandardCharsets.UTF_8);
+			}
+		} else {
+			hasher.putString(String.valueOf(value), StandardCharsets.UTF_8);
+		}
+		hasher.putByte((byte) 0);
+	}
+
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.papyrusrt.xtumlrt.external.ExternalPackageManager;
+import org.eclipse.papyrusrt.xtumlrt.external.ExternalPackageMetadata;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Remembers the last setup of the {@link ExternalPackageManager}, so that the external packages are not
+ * reset, loaded and registered again when a generation uses the same {@link ResourceSet} and packages as the
+ * previous one.
+ *
+ * <p>
+ * A setup is keyed by the resource set, whether generation runs stand-alone, and the version of the
+ * required packages, given by their {@link ExternalPackageMetadata} classes and the versions of the bundles
+ * defining them. It is reused as long as the resources it loaded are still loaded in the resource set.
+ *
+ * <p>
+ * The {@link ExternalPackageManager} is a singleton, so this cache is too.
+ */
+public final class ExternalPackageCache {
+
+	/** The shared instance. */
+	private static final ExternalPackageCache INSTANCE = new ExternalPackageCache();
+
+	/** The resource set of the last setup, or {@code null}. */
+	private WeakReference<ResourceSet> resourceSet;
+
+	/** Whether the last setup was stand-alone. */
+	private boolean standalone;
+
+	/** The version of the packages of the last setup, or {@code null}. */
+	private String version;
+
+	/** The resources loaded by the last setup. */
+	private List<Resource> loadedResources = new ArrayList<>();
+
+	/** The number of setups performed. */
+	private int setups;
+
+	/** The number of setups skipped because the last one could be reused. */
+	private int skipped;
+
+	/** The total time of the setups performed, in nanoseconds. */
+	private long setupNanos;
+
+	/** The time of the last setup performed, in nanoseconds. */
+	private long lastSetupNanos;
+
+	/** The estimated time saved by the setups skipped, in nanoseconds. */
+	private long savedNanos;
+
+	/**
+	 * Constructor.
+	 */
+	private ExternalPackageCache() {
+	}
+
+	/**
+	 * @return The shared {@link ExternalPackageCache}.
+	 */
+	public static ExternalPackageCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Set up the {@link ExternalPackageManager} for a resource set, unless the last setup was for the same
+	 * resource set, mode and packages and is still valid.
+	 *
+	 * @param manager
+	 *            - The {@link ExternalPackageManager}.
+	 * @param set
+	 *            - The {@link ResourceSet}.
+	 * @param isStandalone
+	 *            - Whether we are running in a stand-alone Java application.
+	 * @param packages
+	 *            - The {@link ExternalPackageMetadata} of the required packages.
+	 * @param forceReset
+	 *            - Whether to reset and set up the manager even if the last setup could be reused.
+	 * @return The {@link IStatus} of the setup, or {@code null} if it was skipped.
+	 */
+	public synchronized IStatus setup(ExternalPackageManager manager, ResourceSet set, boolean isStandalone,
+			ExternalPackageMetadata[] packages, boolean forceReset) {
+		String packagesVersion = getVersion(packages);
+		if (!forceReset && isValid(set, isStandalone, packagesVersion)) {
+			++skipped;
+			savedNanos += lastSetupNanos;
+			return null;
+		}
+
+		long start = System.nanoTime();
+		invalidate();
+		Set<Resource> before = set == null ? new HashSet<Resource>() : new HashSet<>(set.getResources());
+		manager.reset();
+		manager.setResourceSet(set);
+		manager.setStandalone(isStandalone);
+		for (ExternalPackageMetadata metadata : packages) {
+			manager.addRequiredPackage(metadata);
+		}
+		IStatus status = manager.setup();
+		lastSetupNanos = System.nanoTime() - start;
+		setupNanos += lastSetupNanos;
+		++setups;
+
+		if (set != null && (status == null || status.getSeverity() < IStatus.ERROR)) {
+			resourceSet = new WeakReference<>(set);
+			standalone = isStandalone;
+			version = packagesVersion;
+			for (Resource resource : set.getResources()) {
+				if (!before.contains(resource)) {
+					loadedResources.add(resource);
+				}
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Forget the last setup, so that the next one is performed.
+	 */
+	public synchronized void invalidate() {
+		resourceSet = null;
+		version = null;
+		loadedResources = new ArrayList<>();
+	}
+
+	/**
+	 * @param set
+	 *            - A {@link ResourceSet}.
+	 * @param isStandalone
+	 *            - Whether we are running in a stand-alone Java application.
+	 * @param packagesVersion
+	 *            - The version of the required packages.
+	 * @return {@code true} iff the last setup was for the same resource set, mode and packages, and the
+	 *         resources it loaded are still loaded in the resource set.
+	 */
+	private boolean isValid(ResourceSet set, boolean isStandalone, String packagesVersion) {
+		if (set == null || resourceSet == null || resourceSet.get() != set || standalone != isStandalone
+				|| !packagesVersion.equals(version)) {
+			return false;
+		}
+		for (Resource resource : loadedResources) {
+			if (resource.getResourceSet() != set || !resource.isLoaded()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param packages
+	 *            - The {@link ExternalPackageMetadata} of the required packages.
+	 * @return The version of the packages: their classes and the versions of the bundles defining them.
+	 */
+	private static String getVersion(ExternalPackageMetadata[] packages) {
+		StringBuilder packagesVersion = new StringBuilder();
+		for (ExternalPackageMetadata metadata : packages) {
+			packagesVersion.append(metadata.getClass().getName()).append('@');
+			Bundle bundle = FrameworkUtil.getBundle(metadata.getClass());
+			if (bundle != null) {
+				packagesVersion.append(bundle.getVersion());
+			}
+			packagesVersion.append(';');
+		}
+		return packagesVersion.toString();
+	}
+
+	/**
+	 * @return The number of setups performed.
+	 */
+	public synchronized int getSetupCount() {
+		return setups;
+	}
+
+	/**
+	 * @return The number of setups skipped because the last one could be reused.
+	 */
+	public synchronized int getSkippedCount() {
+		return skipped;
+	}
+
+	/**
+	 * @return The total time of the setups performed, in nanoseconds.
+	 */
+	public synchronized long getSetupNanos() {
+		return setupNanos;
+	}
+
+	/**
+	 * @return The time saved by the setups skipped, in nanoseconds, estimated from the time of the last setup
+	 *         performed before each of them.
+	 */
+	public synchronized long getSavedNanos() {
+		return savedNanos;
+	}
+
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.UnaryOperator;
+
+/**
+ * Utilities to update generated files only when their content changes, so that the modification time of
+ * unchanged files is preserved and build tools do not recompile what depends on them.
+ *
+ * <p>
+ * Files are first produced in a staging location in the same folder tree as their target, and then moved
+ * atomically over the target if their content differs, so that a build never sees a partially written file.
+ */
+public final class GeneratedFiles {
+
+	/** The prefix of the staging folders and files. */
+	private static final String STAGING_PREFIX = ".staging";
+
+	/** The size of the buffers used to compare files. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Constructor. Not used.
+	 */
+	private GeneratedFiles() {
+	}
+
+	/**
+	 * Create a staging folder in the given folder.
+	 *
+	 * @param folder
+	 *            - The folder where the generated files will be placed. It is created if it does not exist.
+	 * @return The {@link Path} of the new, empty, staging folder.
+	 * @throws IOException
+	 *             if the folder cannot be created.
+	 */
+	public static Path createStagingFolder(File folder) throws IOException {
+		Path parent = Files.createDirectories(folder.toPath());
+		return Files.createTempDirectory(parent, STAGING_PREFIX);
+	}
+
+	/**
+	 * Replace a target file by a staged file if their contents differ. The staged file is removed in any case.
+	 * The folder of the target file must exist.
+	 *
+	 * @param staged
+	 *            - The {@link Path} of the staged file.
+	 * @param target
+	 *            - The {@link Path} of the target file.
+	 * @return {@code true} if the target file was written, {@code false} if it already had the same content.
+	 * @throws IOException
+	 *             if the files cannot be read or the target cannot be replaced.
+	 */
+	public static boolean update(Path staged, Path target) throws IOException {
+		if (Files.isRegularFile(target) && sameContent(staged, target)) {
+			Files.delete(staged);
+			return false;
+		}
+		move(staged, target);
+		return true;
+	}
+
+	/**
+	 * @param first
+	 *            - The {@link Path} of a file.
+	 * @param second
+	 *            - The {@link Path} of another file.
+	 * @return {@code true} iff both files have the same content.
+	 * @throws IOException
+	 *             if one of the files cannot be read.
+	 */
+	public static boolean sameContent(Path first, Path second) throws IOException {
+		try (FileChannel in1 = FileChannel.open(first, StandardOpenOption.READ);
+				FileChannel in2 = FileChannel.open(second, StandardOpenOption.READ)) {
+			if (in1.size() != in2.size()) {
+				return false;
+			}
+			ByteBuffer buffer1 = ByteBuffer.allocate(BUFFER_SIZE);
+			ByteBuffer buffer2 = ByteBuffer.allocate(BUFFER_SIZE);
+			while (true) {
+				buffer1.clear();
+				buffer2.clear();
+				int read1 = readFully(in1, buffer1);
+				int read2 = readFully(in2, buffer2);
+				if (read1 != read2) {
+					return false;
+				}
+				if (read1 <= 0) {
+					return true;
+				}
+				buffer1.flip();
+				buffer2.flip();
+				if (!buffer1.equals(buffer2)) {
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fill a buffer from a channel, unless the end of the channel is reached.
+	 *
+	 * @param channel
+	 *            - The {@link FileChannel} to read.
+	 * @param buffer
+	 *            - The {@link ByteBuffer} to fill.
+	 * @return The number of bytes read, or {@code -1} at the end of the channel.
+	 * @throws IOException
+	 *             if the channel cannot be read.
+	 */
+	private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		int total = 0;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer);
+			if (read < 0) {
+				return total == 0 ? -1 : total;
+			}
+			total += read;
+		}
+		return total;
+	}
+
+	/**
+	 * Write a text file if its content differs from the given content.
+	 *
+	 * @param target
+	 *            - The {@link File} to write.
+	 * @param content
+	 *            - The new content of the file.
+	 * @param normalizer
+	 *            - A function applied to both the existing and the new content before they are compared, for
+	 *            example to ignore a time stamp.
+	 * @return {@code true} if the file was written, {@code false} if it already had the same content.
+	 * @throws IOException
+	 *             if the file cannot be read or written.
+	 */
+	public static boolean update(File target, String content, UnaryOperator<String> normalizer) throws IOException {
+		Path path = target.toPath();
+		if (Files.isRegularFile(path)) {
+			String existing = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+			if (normalizer.apply(existing).equals(normalizer.apply(content))) {
+				return false;
+			}
+		}
+		Path parent = path.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path staged = Files.createTempFile(parent, STAGING_PREFIX, null);
+		try {
+			Files.write(staged, content.getBytes(StandardCharsets.UTF_8));
+			move(staged, path);
+		} finally {
+			Files.deleteIfExists(staged);
+		}
+		return true;
+	}
+
+	/**
+	 * Write a text file if its content differs from the given content.
+	 *
+	 * @param target
+	 *            - The {@link File} to write.
+	 * @param content
+	 *            - The new content of the file.
+	 * @return {@code true} if the file was written, {@code false} if it already had the same content.
+	 * @throws IOException
+	 *             if the file cannot be read or written.
+	 */
+	public static boolean update(File target, String content) throws IOException {
+		return update(target, content, UnaryOperator.identity());
+	}
+
+	/**
+	 * Delete a folder and all its contents.
+	 *
+	 * @param folder
+	 *            - The {@link Path} of the folder.
+	 * @throws IOException
+	 *             if some file cannot be deleted.
+	 */
+	public static void deleteRecursively(Path folder) throws IOException {
+		if (!Files.exists(folder)) {
+			return;
+		}
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Move a file over another one, atomically if the file system supports it.
+	 *
+	 * @param source
+	 *            - The {@link Path} of the file to move.
+	 * @param target
+	 *            - The {@link Path} of the file to replace.
+	 * @throws IOException
+	 *             if the file cannot be moved.
+	 */
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+}
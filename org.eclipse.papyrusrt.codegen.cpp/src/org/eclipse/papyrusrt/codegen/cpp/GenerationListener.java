@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+/**
+ * A listener notified of the phases of code generation, as measured by a {@link GenerationProfiler}.
+ *
+ * <p>
+ * Listeners may be notified from several threads when generators run in parallel.
+ *
+ * @see AbstractUMLRT2CppCodeGenerator#addGenerationListener(GenerationListener)
+ */
+public interface GenerationListener {
+
+	/**
+	 * Notifies the completion of one execution of a phase.
+	 *
+	 * @param phase
+	 *            - The name of the phase (see the constants of {@link GenerationProfiler}).
+	 * @param nanos
+	 *            - The elapsed time, in nanoseconds.
+	 * @param allocatedBytes
+	 *            - The number of bytes allocated by the thread that executed the phase, or {@code -1} if the
+	 *            JVM does not support the measurement.
+	 */
+	void phaseCompleted(String phase, long nanos, long allocatedBytes);
+
+	/**
+	 * Notifies the completion of a generation.
+	 *
+	 * @param profile
+	 *            - The {@link GenerationProfile} with the statistics of all the phases of the generation.
+	 */
+	void generationCompleted(GenerationProfile profile);
+
+}
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.eclipse.papyrusrt.codegen.CodeGenPlugin;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * The generation manifest is a file stored in the output folder that records, for each element generator
+ * that completed successfully, the fingerprint of the model element it was run on and the content hash of
+ * each of the files it produced.
+ *
+ * <p>
+ * It allows the {@link ChangeTracker} to prune the generators of unchanged elements in a fresh JVM (after
+ * an IDE restart or in a stand-alone or headless build), where the in-memory record of already generated
+ * elements is empty. A generator is pruned only if the fingerprint of its element is the recorded one and
+ * all of its files are still on disk with their recorded content.
+ *
+ * <p>
+ * The header of the manifest records the {@link #FORMAT_VERSION format}, the version of the generator and the
+ * layout options the files were generated with. The fingerprints do not cover them, so a manifest whose
+ * header does not {@link #checkHeader(String, String) match} the current generation is discarded and all
+ * the elements are regenerated.
+ */
+public class GenerationManifest {
+
+	/** The name of the manifest file in the output folder. */
+	public static final String FILENAME = ".codegen.manifest";
+
+	/**
+	 * The version of the format of the manifest and of the generated files. Increment it when the generator
+	 * produces different files for unchanged elements without a new bundle version.
+	 *
+	 * <ul>
+	 * <li>1: initial version;
+	 * <li>2: the role classes and signal ids are the first members of the protocol namespaces, whichever
+	 * generator creates the namespace (see {@link CppCodePattern}).
+	 * </ul>
+	 */
+	public static final int FORMAT_VERSION = 2;
+
+	/** The key of the format version in the header. */
+	private static final String FORMAT_KEY = "header.format";
+
+	/** The key of the generator version in the header. */
+	private static final String GENERATOR_KEY = "header.generator";
+
+	/** The key of the layout options in the header. */
+	private static final String LAYOUT_KEY = "header.layout";
+
+	/** The prefix of the keys of element fingerprints. */
+	private static final String ELEMENT_PREFIX = "element.";
+
+	/** The prefix of the keys of the lists of files produced for an element. */
+	private static final String FILES_PREFIX = "files.";
+
+	/** The prefix of the keys of file content hashes. */
+	private static final String FILE_PREFIX = "file.";
+
+	/** The prefix of the keys of file sizes and modification times. */
+	private static final String STAMP_PREFIX = "stamp.";
+
+	/** The separator of the file paths in a list of files. */
+	private static final char SEPARATOR = '|';
+
+	/** The hash function used for file contents. */
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+	/** The output folder. */
+	private final File folder;
+
+	/** The manifest entries. */
+	private final Properties properties = new Properties();
+
+	/** The files produced during the current generation, whose hash must be recorded when saving. */
+	private final Set<String> pendingFiles = new LinkedHashSet<>();
+
+	/** Whether the entries differ from those in the manifest file. */
+	private boolean dirty;
+
+	/**
+	 * Constructor. Use {@link #load(File)} to create instances.
+	 *
+	 * @param folder
+	 *            - The output folder.
+	 */
+	private GenerationManifest(File folder) {
+		this.folder = folder;
+	}
+
+	/**
+	 * Load the manifest of an output folder. If there is no manifest file, or if it cannot be read, the
+	 * manifest is empty.
+	 *
+	 * @param folder
+	 *            - The output folder.
+	 * @return The {@link GenerationManifest}.
+	 */
+	public static GenerationManifest load(File folder) {
+		GenerationManifest manifest = new GenerationManifest(folder);
+		File file = new File(folder, FILENAME);
+		if (file.isFile()) {
+			try (InputStream in = new FileInputStream(file)) {
+				manifest.properties.load(in);
+			} catch (IOException | IllegalArgumentException e) {
+				CodeGenPlugin.getLogger().log(Level.WARNING, "Ignoring unreadable generation manifest " + file, e);
+				manifest.properties.clear();
+			}
+		}
+		return manifest;
+	}
+
+	public File getFolder() {
+		return folder;
+	}
+
+	/**
+	 * Check that the elements of this manifest were generated by the same generator with the same layout
+	 * options. If not, the manifest is {@link #clear() cleared} and its header set for the current
+	 * generation.
+	 *
+	 * @param generatorVersion
+	 *            - The version of the generator.
+	 * @param layout
+	 *            - The layout options of the generation.
+	 * @return {@code true} iff the header matched, {@code false} if all the elements have to be regenerated.
+	 */
+	public synchronized boolean checkHeader(String generatorVersion, String layout) {
+		String format = Integer.toString(FORMAT_VERSION);
+		if (format.equals(properties.getProperty(FORMAT_KEY))
+				&& generatorVersion.equals(properties.getProperty(GENERATOR_KEY))
+				&& layout.equals(properties.getProperty(LAYOUT_KEY))) {
+			return true;
+		}
+		clear();
+		properties.setProperty(FORMAT_KEY, format);
+		properties.setProperty(GENERATOR_KEY, generatorVersion);
+		properties.setProperty(LAYOUT_KEY, layout);
+		dirty = true;
+		return false;
+	}
+
+	/**
+	 * @param id
+	 *            - The id of an element generator.
+	 * @param fingerprint
+	 *            - The current fingerprint of the element.
+	 * @param snapshot
+	 *            - An {@link OutputSnapshot} of the output folder.
+	 * @return {@code true} iff the element was generated with the same fingerprint and all the files produced
+	 *         for it are on disk with their recorded content. The content of a file is only hashed if its size or
+	 *         modification time differ from the recorded ones.
+	 */
+	public synchronized boolean isUpToDate(String id, String fingerprint, OutputSnapshot snapshot) {
+		if (!fingerprint.equals(properties.getProperty(ELEMENT_PREFIX + id))) {
+			return false;
+		}
+		String files = properties.getProperty(FILES_PREFIX + id);
+		if (files == null) {
+			return false;
+		}
+		for (String path : Splitter.on(SEPARATOR).omitEmptyStrings().split(files)) {
+			BasicFileAttributes attributes = snapshot.getAttributes(path);
+			String expected = properties.getProperty(FILE_PREFIX + path);
+			if (attributes == null || expected == null) {
+				return false;
+			}
+			if (!stamp(attributes).equals(properties.getProperty(STAMP_PREFIX + path))
+					&& !expected.equals(hash(new File(folder, path)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Record that an element was successfully generated. The hashes of the files are computed when the
+	 * manifest is {@link #save() saved}, after they have been written.
+	 *
+	 * @param id
+	 *            - The id of the element generator.
+	 * @param fingerprint
+	 *            - The fingerprint of the element.
+	 * @param files
+	 *            - The paths, relative to the output folder, of the files produced for the element.
+	 */
+	public synchronized void put(String id, String fingerprint, Collection<String> files) {
+		properties.setProperty(ELEMENT_PREFIX + id, fingerprint);
+		properties.setProperty(FILES_PREFIX + id, Joiner.on(SEPARATOR).join(files));
+		pendingFiles.addAll(files);
+		dirty = true;
+	}
+
+	/**
+	 * Forget an element, so that it is regenerated unless it is {@link #put} again.
+	 *
+	 * @param id
+	 *            - The id of the element generator.
+	 */
+	public synchronized void remove(String id) {
+		if (properties.remove(ELEMENT_PREFIX + id) != null) {
+			dirty = true;
+		}
+		properties.remove(FILES_PREFIX + id);
+	}
+
+	/**
+	 * Forget all elements and the header.
+	 */
+	public synchronized void clear() {
+		if (!properties.isEmpty()) {
+			dirty = true;
+		}
+		properties.clear();
+		pendingFiles.clear();
+	}
+
+	/**
+	 * Record the hashes of the files produced during this generation and write the manifest file if it
+	 * changed. The file is replaced atomically where the file system supports it.
+	 *
+	 * @return {@code true} if successful.
+	 */
+	public synchronized boolean save() {
+		for (String path : pendingFiles) {
+			File file = new File(folder, path);
+			String hash = hash(file);
+			BasicFileAttributes attributes = null;
+			try {
+				attributes = hash == null ? null : Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+			} catch (IOException e) {
+				attributes = null;
+			}
+			if (attributes == null) {
+				properties.remove(FILE_PREFIX + path);
+				properties.remove(STAMP_PREFIX + path);
+			} else {
+				properties.setProperty(FILE_PREFIX + path, hash);
+				properties.setProperty(STAMP_PREFIX + path, stamp(attributes));
+			}
+		}
+		pendingFiles.clear();
+		if (!dirty) {
+			return true;
+		}
+
+		File file = new File(folder, FILENAME);
+		File tmp = new File(folder, FILENAME + ".tmp");
+		try {
+			try (OutputStream out = new FileOutputStream(tmp)) {
+				properties.store(out, "Papyrus-RT C++ code generation manifest. Do not edit.");
+			}
+			try {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			dirty = false;
+			return true;
+		} catch (IOException e) {
+			CodeGenPlugin.getLogger().log(Level.WARNING, "Failed to write generation manifest " + file, e);
+			tmp.delete();
+			return false;
+		}
+	}
+
+	/**
+	 * @param attributes
+	 *            - The {@link BasicFileAttributes} of a file.
+	 * @return A string made of the size and modification time of the file.
+	 */
+	private static String stamp(BasicFileAttributes attributes) {
+		return attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+	}
+
+	/**
+	 * @param file
+	 *            - A {@link File}.
+	 * @return The hash of the contents of the file, or {@code null} if it cannot be read.
+	 */
+	private static String hash(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			return com.google.common.io.Files.asByteSource(file).hash(HASH_FUNCTION).toString();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The statistics of the phases of one code generation, as collected by a {@link GenerationProfiler}.
+ *
+ * <p>
+ * A profile can be exported as JSON or CSV, for example to track the performance of the generator across
+ * versions of a model in a continuous integration build.
+ */
+public class GenerationProfile {
+
+	/** The time the generation started, in milliseconds since the epoch. */
+	private final long startTime;
+
+	/** The total elapsed time of the generation, in nanoseconds. */
+	private final long totalNanos;
+
+	/** The statistics of each phase, in the order the phases were first executed. */
+	private final List<PhaseStatistics> phases;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param startTime
+	 *            - The time the generation started, in milliseconds since the epoch.
+	 * @param totalNanos
+	 *            - The total elapsed time of the generation, in nanoseconds.
+	 * @param phases
+	 *            - The statistics of each phase.
+	 */
+	public GenerationProfile(long startTime, long totalNanos, List<PhaseStatistics> phases) {
+		this.startTime = startTime;
+		this.totalNanos = totalNanos;
+		this.phases = Collections.unmodifiableList(new ArrayList<>(phases));
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public List<PhaseStatistics> getPhases() {
+		return phases;
+	}
+
+	/**
+	 * @param name
+	 *            - The name of a phase.
+	 * @return The statistics of the phase, or {@code null} if it was not executed.
+	 */
+	public PhaseStatistics getPhase(String name) {
+		for (PhaseStatistics phase : phases) {
+			if (phase.getName().equals(name)) {
+				return phase;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The profile as a JSON object.
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"startTime\": ").append(startTime);
+		json.append(",\n  \"totalNanos\": ").append(totalNanos);
+		json.append(",\n  \"phases\": [");
+		String separator = "\n";
+		for (PhaseStatistics phase : phases) {
+			json.append(separator);
+			json.append("    {\"name\": \"").append(escape(phase.getName()));
+			json.append("\", \"count\": ").append(phase.getCount());
+			json.append(", \"nanos\": ").append(phase.getNanos());
+			json.append(", \"allocatedBytes\": ").append(phase.getAllocatedBytes());
+			json.append('}');
+			separator = ",\n";
+		}
+		json.append("\n  ]\n}\n");
+		return json.toString();
+	}
+
+	/**
+	 * @return The profile as CSV, with a header line and one line per phase.
+	 */
+	public String toCsv() {
+		StringBuilder csv = new StringBuilder("startTime,phase,count,nanos,allocatedBytes\n");
+		for (PhaseStatistics phase : phases) {
+			csv.append(startTime).append(',').append(phase.getName()).append(',').append(phase.getCount())
+					.append(',').append(phase.getNanos()).append(',').append(phase.getAllocatedBytes()).append('\n');
+		}
+		csv.append(startTime).append(",total,1,").append(totalNanos).append(",-1\n");
+		return csv.toString();
+	}
+
+	/**
+	 * Write the profile to a file, as CSV if the name of the file ends with {@code .csv} and as JSON otherwise.
+	 *
+	 * @param file
+	 *            - The {@link File}.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public void write(File file) throws IOException {
+		String content = file.getName().endsWith(".csv") ? toCsv() : toJson();
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			Files.createDirectories(parent.toPath());
+		}
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param string
+	 *            - A string.
+	 * @return The string escaped for a JSON string literal.
+	 */
+	private static String escape(String string) {
+		return string.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * The statistics of one phase: the number of times it was executed, the total elapsed time and the total
+	 * number of bytes allocated.
+	 */
+	public static class PhaseStatistics {
+
+		/** The name of the phase. */
+		private final String name;
+
+		/** The number of times the phase was executed. */
+		private final int count;
+
+		/** The total elapsed time, in nanoseconds. */
+		private final long nanos;
+
+		/** The total number of bytes allocated, or {@code -1} if not measured. */
+		private final long allocatedBytes;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param name
+		 *            - The name of the phase.
+		 * @param count
+		 *            - The number of times the phase was executed.
+		 * @param nanos
+		 *            - The total elapsed time, in nanoseconds.
+		 * @param allocatedBytes
+		 *            - The total number of bytes allocated, or {@code -1} if not measured.
+		 */
+		public PhaseStatistics(String name, int count, long nanos, long allocatedBytes) {
+			this.name = name;
+			this.count = count;
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+	}
+
+}
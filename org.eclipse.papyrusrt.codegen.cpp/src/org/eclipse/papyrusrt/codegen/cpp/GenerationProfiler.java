@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.eclipse.papyrusrt.codegen.CodeGenPlugin;
+import org.eclipse.papyrusrt.codegen.cpp.GenerationProfile.PhaseStatistics;
+
+/**
+ * Measures the phases of code generation: the elapsed time, in nanoseconds, and the number of bytes
+ * allocated by the thread executing each phase, where the JVM supports it.
+ *
+ * <p>
+ * A phase is measured by a {@link Timer} obtained from {@link #start(String)}. Measurements are accumulated
+ * per phase name, reported to the registered {@link GenerationListener}s, and summarized as a
+ * {@link GenerationProfile} at the end of the generation (see {@link #finish()}).
+ */
+public class GenerationProfiler {
+
+	/** Setup of the external packages, skipped when the previous one can be reused. */
+	public static final String EXTERNAL_PACKAGES = "externalPackages";
+
+	/** Validation of the UML model before its translation. */
+	public static final String PRE_VALIDATION = "preValidation";
+
+	/** Translation from UML to xtUML-RT. */
+	public static final String TRANSLATION = "translation";
+
+	/** Validation of the xtUML-RT model after the translation. */
+	public static final String POST_VALIDATION = "postValidation";
+
+	/** Preprocessing of the xtUML-RT model. */
+	public static final String PREPROCESS = "preprocess";
+
+	/** Collection of the element generators. */
+	public static final String COLLECTION = "collection";
+
+	/** Pruning of the generators of unchanged elements. */
+	public static final String PRUNE = "prune";
+
+	/** Prefix of the phases running the generators of a {@link XTUMLRT2CppCodeGenerator.Kind}. */
+	public static final String GENERATE_PREFIX = "generate.";
+
+	/** Consumption of the changes recorded by the change tracker. */
+	public static final String CONSUME_CHANGES = "consumeChanges";
+
+	/** Writing of the generated files. */
+	public static final String WRITE = "write";
+
+	/** Writing of the files of a group of generators as soon as it completes, in streaming mode. */
+	public static final String STREAM_WRITE = "streamWrite";
+
+	/** The method giving the number of bytes allocated by a thread, or {@code null} if not supported. */
+	private static final Method ALLOCATED_BYTES = getAllocatedBytesMethod();
+
+	/** The registered listeners. */
+	private final List<GenerationListener> listeners = new CopyOnWriteArrayList<>();
+
+	/** The statistics of each phase of the current generation, as arrays of count, nanos and allocated bytes. */
+	private final Map<String, long[]> phases = new LinkedHashMap<>();
+
+	/** The time the current generation started, in milliseconds since the epoch. */
+	private long startTime = System.currentTimeMillis();
+
+	/** The time the current generation started, in nanoseconds. */
+	private long startNanos = System.nanoTime();
+
+	/**
+	 * @param listener
+	 *            - A {@link GenerationListener} to notify.
+	 */
+	public void addListener(GenerationListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * @param listener
+	 *            - A {@link GenerationListener} to stop notifying.
+	 */
+	public void removeListener(GenerationListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Start a new generation, discarding the statistics collected so far.
+	 */
+	public synchronized void begin() {
+		phases.clear();
+		startTime = System.currentTimeMillis();
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Start measuring a phase in the current thread.
+	 *
+	 * @param phase
+	 *            - The name of the phase.
+	 * @return The {@link Timer} to {@link Timer#stop() stop} at the end of the phase.
+	 */
+	public Timer start(String phase) {
+		return new Timer(phase);
+	}
+
+	/**
+	 * Finish the current generation and notify the listeners.
+	 *
+	 * @return The {@link GenerationProfile} of the generation.
+	 */
+	public GenerationProfile finish() {
+		GenerationProfile profile;
+		synchronized (this) {
+			List<PhaseStatistics> statistics = new ArrayList<>(phases.size());
+			for (Map.Entry<String, long[]> entry : phases.entrySet()) {
+				long[] values = entry.getValue();
+				statistics.add(new PhaseStatistics(entry.getKey(), (int) values[0], values[1], values[2]));
+			}
+			profile = new GenerationProfile(startTime, System.nanoTime() - startNanos, statistics);
+		}
+		for (GenerationListener listener : listeners) {
+			listener.generationCompleted(profile);
+		}
+		return profile;
+	}
+
+	/**
+	 * Record one execution of a phase.
+	 *
+	 * @param phase
+	 *            - The name of the phase.
+	 * @param nanos
+	 *            - The elapsed time, in nanoseconds.
+	 * @param allocatedBytes
+	 *            - The number of bytes allocated, or {@code -1} if not measured.
+	 */
+	private void record(String phase, long nanos, long allocatedBytes) {
+		synchronized (this) {
+			long[] values = phases.get(phase);
+			if (values == null) {
+				values = new long[] { 0, 0, allocatedBytes < 0 ? -1 : 0 };
+				phases.put(phase, values);
+			}
+			values[0]++;
+			values[1] += nanos;
+			values[2] = values[2] < 0 || allocatedBytes < 0 ? -1 : values[2] + allocatedBytes;
+		}
+		for (GenerationListener listener : listeners) {
+			listener.phaseCompleted(phase, nanos, allocatedBytes);
+		}
+	}
+
+	/**
+	 * @return The number of bytes allocated so far by the current thread, or {@code -1} if not supported.
+	 */
+	private static long allocatedBytes() {
+		if (ALLOCATED_BYTES != null) {
+			try {
+				return (Long) ALLOCATED_BYTES.invoke(ManagementFactory.getThreadMXBean(), Thread.currentThread().getId());
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The {@code getThreadAllocatedBytes(long)} method of the HotSpot {@link ThreadMXBean}, enabled,
+	 *         or {@code null} if the JVM does not provide it.
+	 */
+	private static Method getAllocatedBytesMethod() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+			if (!type.isInstance(bean)) {
+				return null;
+			}
+			Method isSupported = type.getMethod("isThreadAllocatedMemorySupported");
+			if (!Boolean.TRUE.equals(isSupported.invoke(bean))) {
+				return null;
+			}
+			type.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(bean, true);
+			return type.getMethod("getThreadAllocatedBytes", long.class);
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			CodeGenPlugin.getLogger().log(Level.FINE, "Allocation counters are not available", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Measures one execution of a phase in the thread that started it.
+	 */
+	public final class Timer {
+
+		/** The name of the phase. */
+		private final String phase;
+
+		/** The start time, in nanoseconds. */
+		private final long start;
+
+		/** The number of bytes allocated by the thread when the phase started, or {@code -1}. */
+		private final long allocatedAtStart;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param phase
+		 *            - The name of the phase.
+		 */
+		private Timer(String phase) {
+			this.phase = phase;
+			this.allocatedAtStart = allocatedBytes();
+			this.start = System.nanoTime();
+		}
+
+		/**
+		 * Stop measuring the phase and record the measurement.
+		 *
+		 * @return The elapsed time, in milliseconds.
+		 */
+		public long stop() {
+			long nanos = System.nanoTime() - start;
+			long allocated = allocatedAtStart < 0 ? -1 : allocatedBytes() - allocatedAtStart;
+			record(phase, nanos, allocated);
+			return TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+	}
+
+}
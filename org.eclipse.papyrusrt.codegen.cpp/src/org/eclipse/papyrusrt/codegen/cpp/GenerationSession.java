@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.papyrusrt.codegen.config.CodeGenProvider;
+import org.eclipse.papyrusrt.xtumlrt.common.CommonElement;
+import org.eclipse.papyrusrt.xtumlrt.common.NamedElement;
+import org.eclipse.papyrusrt.xtumlrt.trans.from.uml.UML2xtumlrtModelTranslator;
+import org.eclipse.papyrusrt.xtumlrt.trans.from.uml.UML2xtumlrtTranslator;
+import org.eclipse.uml2.uml.Element;
+
+import com.google.inject.Injector;
+
+/**
+ * A generation session groups the components of the generation pipeline: the {@link UML2xtumlrtTranslator},
+ * the {@link CppCodePattern}, the {@link ChangeTracker} and the {@link XTUMLRT2CppCodeGenerator}.
+ *
+ * <p>
+ * A session can be kept alive between generations of the same model. The translator then keeps its maps
+ * between UML source elements and generated xtUML-RT elements, and the {@link CppCodePattern} keeps its
+ * cached C++ elements, so that a generation only rebuilds the elements reached by the changes recorded by
+ * the {@link ChangeTracker} (see {@link #invalidate(Collection)}).
+ *
+ * @see AbstractUMLRT2CppCodeGenerator#setReuseSession(boolean)
+ */
+public class GenerationSession {
+
+	/** Whether the source model is a UML model ({@code true}) or an XTUMLRT model ({@code false}). */
+	private final boolean sourceIsUML;
+
+	/** The translator from UML to XTUMLRT. */
+	private final UML2xtumlrtTranslator translator;
+
+	/** The Cpp code pattern factory. */
+	private final CppCodePattern cpp;
+
+	/** The change tracker for incremental generation. */
+	private final ChangeTracker changeTracker;
+
+	/** The translator from XTUMLRT to Cpp. */
+	private final XTUMLRT2CppCodeGenerator codegen;
+
+	/** The {@link ResourceSet} of the model generated in this session. */
+	private ResourceSet resourceSet;
+
+	/** The name of the top capsule of the model generated in this session. */
+	private String top;
+
+	/** The number of generations performed in this session. */
+	private int generations;
+
+	/** Whether this session can be used by subsequent generations. */
+	private boolean reusable = true;
+
+	/**
+	 * Constructor. Creates a fresh generation pipeline.
+	 *
+	 * @param sourceIsUML
+	 *            - Whether the source model is a UML model ({@code true}) or an XTUMLRT model ({@code false}).
+	 */
+	public GenerationSession(boolean sourceIsUML) {
+		this(sourceIsUML, new UML2xtumlrtModelTranslator());
+	}
+
+	/**
+	 * Constructor. Creates a fresh generation pipeline using the given translator, which may be shared with
+	 * other sessions generating other models.
+	 *
+	 * @param sourceIsUML
+	 *            - Whether the source model is a UML model ({@code true}) or an XTUMLRT model ({@code false}).
+	 * @param translator
+	 *            - The translator from UML to XTUMLRT.
+	 */
+	public GenerationSession(boolean sourceIsUML, UML2xtumlrtTranslator translator) {
+		Injector injector = CodeGenProvider.getDefault().getInjector();
+		this.sourceIsUML = sourceIsUML;
+		this.translator = translator;
+		this.cpp = injector.getInstance(CppCodePattern.class);
+		this.cpp.setTranslator(translator);
+		this.changeTracker = sourceIsUML ? new UMLChangeTracker(cpp) : new XTUMLRTChangeTracker(cpp);
+		this.codegen = new XTUMLRT2CppCodeGenerator(cpp, changeTracker);
+	}
+
+	/**
+	 * @return The translator from UML to XTUMLRT.
+	 */
+	public UML2xtumlrtTranslator getTranslator() {
+		return translator;
+	}
+
+	/**
+	 * @return The Cpp code pattern factory.
+	 */
+	public CppCodePattern getCppCodePattern() {
+		return cpp;
+	}
+
+	/**
+	 * @return The change tracker for incremental generation.
+	 */
+	public ChangeTracker getChangeTracker() {
+		return changeTracker;
+	}
+
+	/**
+	 * @return The translator from XTUMLRT to Cpp.
+	 */
+	public XTUMLRT2CppCodeGenerator getCodeGenerator() {
+		return codegen;
+	}
+
+	/**
+	 * @param elements
+	 *            - The {@link List} of {@link EObject} elements to generate.
+	 * @param topCapsule
+	 *            - The name of the top capsule.
+	 * @param uml
+	 *            - Whether the elements are UML elements.
+	 * @return {@code true} iff this session already generated the same model with the same top capsule and
+	 *         can therefore be used to generate the given elements incrementally.
+	 */
+	public boolean isReusableFor(List<EObject> elements, String topCapsule, boolean uml) {
+		if (!reusable || generations == 0 || uml != sourceIsUML || elements.isEmpty()
+				|| top == null || !top.equals(topCapsule)) {
+			return false;
+		}
+		Resource resource = elements.get(0).eResource();
+		return resource != null && resource.getResourceSet() == resourceSet;
+	}
+
+	/**
+	 * Start a new generation in this session. The per-generation state of the {@link CppCodePattern} is
+	 * cleared while its cached elements are kept.
+	 *
+	 * @param elements
+	 *            - The {@link List} of {@link EObject} elements to generate.
+	 * @param topCapsule
+	 *            - The name of the top capsule.
+	 */
+	public void begin(List<EObject> elements, String topCapsule) {
+		Resource resource = elements.isEmpty() ? null : elements.get(0).eResource();
+		resourceSet = resource == null ? null : resource.getResourceSet();
+		top = topCapsule;
+		cpp.beginGeneration();
+		codegen.setIncremental(generations > 0);
+		++generations;
+	}
+
+	/**
+	 * Discard the cached C++ elements of the given changed elements.
+	 *
+	 * <p>
+	 * This must be invoked before the changed elements are translated again, since the translation may
+	 * replace the xtUML-RT elements that were generated from them.
+	 *
+	 * @param changed
+	 *            - A {@link Collection} of changed source {@link EObject}s, as recorded by the {@link ChangeTracker}.
+	 */
+	public void invalidate(Collection<EObject> changed) {
+		if (changed == null || changed.isEmpty() || generations <= 1) {
+			return;
+		}
+		Set<NamedElement> stale = new LinkedHashSet<>();
+		for (EObject element : changed) {
+			if (element instanceof NamedElement) {
+				stale.add((NamedElement) element);
+			} else if (element instanceof Element) {
+				CommonElement generated = translator.getGenerated((Element) element);
+				if (generated instanceof NamedElement) {
+					stale.add((NamedElement) generated);
+				}
+			}
+		}
+		cpp.invalidate(stale);
+	}
+
+	/**
+	 * Prevent this session from being used by subsequent generations, for example when a generation failed
+	 * and the cached elements may be inconsistent.
+	 */
+	public void discard() {
+		reusable = false;
+	}
+
+}
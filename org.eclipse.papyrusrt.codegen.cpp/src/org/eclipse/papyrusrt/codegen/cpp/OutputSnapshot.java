@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.eclipse.papyrusrt.codegen.CodeGenPlugin;
+
+/**
+ * A snapshot of the files in an output folder, taken with a single traversal of the folder.
+ *
+ * <p>
+ * It replaces one file system query per generated file, which is slow on network file systems, by one
+ * lookup in memory. Paths are relative to the output folder and use {@code '/'} as separator.
+ */
+public final class OutputSnapshot {
+
+	/** The attributes of each file, indexed by relative path. */
+	private final Map<String, BasicFileAttributes> files;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param files
+	 *            - The attributes of each file, indexed by relative path.
+	 */
+	private OutputSnapshot(Map<String, BasicFileAttributes> files) {
+		this.files = files;
+	}
+
+	/**
+	 * Take a snapshot of an output folder. Hidden folders, such as staging folders, are not traversed.
+	 *
+	 * @param folder
+	 *            - The output folder.
+	 * @return The {@link OutputSnapshot}. It is empty if the folder does not exist or cannot be read.
+	 */
+	public static OutputSnapshot take(File folder) {
+		final Map<String, BasicFileAttributes> files = new HashMap<>();
+		final Path root = folder.toPath();
+		if (Files.isDirectory(root)) {
+			try {
+				Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+						Path name = dir.getFileName();
+						if (!dir.equals(root) && name != null && name.toString().startsWith(".")) {
+							return FileVisitResult.SKIP_SUBTREE;
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+						if (attrs.isRegularFile()) {
+							files.put(normalize(root.relativize(file).toString()), attrs);
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(Path file, IOException exc) {
+						return FileVisitResult.CONTINUE;
+					}
+				});
+			} catch (IOException e) {
+				CodeGenPlugin.getLogger().log(Level.WARNING, "Failed to list the output folder " + folder, e);
+				files.clear();
+			}
+		}
+		return new OutputSnapshot(files);
+	}
+
+	/**
+	 * @param path
+	 *            - A path relative to the output folder.
+	 * @return {@code true} iff the file existed when the snapshot was taken.
+	 */
+	public boolean exists(String path) {
+		return files.containsKey(normalize(path));
+	}
+
+	/**
+	 * @param path
+	 *            - A path relative to the output folder.
+	 * @return The attributes of the file when the snapshot was taken, or {@code null} if it did not exist.
+	 */
+	public BasicFileAttributes getAttributes(String path) {
+		return files.get(normalize(path));
+	}
+
+	/**
+	 * @param path
+	 *            - A relative path.
+	 * @return The path with {@code '/'} as separator and without leading separator.
+	 */
+	private static String normalize(String path) {
+		String normalized = path.replace('\\', '/');
+		while (normalized.startsWith("/")) {
+			normalized = normalized.substring(1);
+		}
+		return normalized;
+	}
+
+}
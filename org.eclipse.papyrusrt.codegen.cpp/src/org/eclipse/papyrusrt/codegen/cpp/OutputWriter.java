@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.eclipse.papyrusrt.codegen.lang.cpp.CppWriter;
+import org.eclipse.papyrusrt.codegen.lang.cpp.element.ElementList;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Writes generated C++ {@link ElementList}s, and other generated files, to an output folder.
+ *
+ * <p>
+ * The element lists are split into batches. Each batch is rendered into its own staging folder and the
+ * staged files whose content differs from the existing ones then replace them (see {@link GeneratedFiles}).
+ * With a parallelism greater than 1, the batches and the other files are written concurrently on a bounded
+ * pool of threads. The numbers of files written and left unchanged and the number of bytes written are
+ * accumulated over all batches.
+ */
+public class OutputWriter {
+
+	/** The number of batches per thread, to balance the load between threads. */
+	private static final int BATCHES_PER_THREAD = 4;
+
+	/** The output folder. */
+	private final File folder;
+
+	/** The number of threads used to write files. */
+	private final int parallelism;
+
+	/** The element lists to write. */
+	private final List<ElementList> elementLists = new ArrayList<>();
+
+	/** The other files to write, with the task that writes each of them and tells if it was written. */
+	private final Map<File, Callable<Boolean>> files = new LinkedHashMap<>();
+
+	/** The number of files written. */
+	private final AtomicInteger filesWritten = new AtomicInteger();
+
+	/** The number of files left unchanged. */
+	private final AtomicInteger filesSkipped = new AtomicInteger();
+
+	/** The number of bytes written. */
+	private final AtomicLong bytesWritten = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param folder
+	 *            - The output folder.
+	 * @param parallelism
+	 *            - The number of threads used to write files; {@code 1} means the files are written sequentially.
+	 */
+	public OutputWriter(File folder, int parallelism) {
+		this.folder = folder;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * @param lists
+	 *            - The {@link ElementList}s to write.
+	 */
+	public void addElementLists(Collection<ElementList> lists) {
+		elementLists.addAll(lists);
+	}
+
+	/**
+	 * @param file
+	 *            - A file to write.
+	 * @param task
+	 *            - The task that writes the file, and returns {@code true} if it was written and {@code false}
+	 *            if it was left unchanged.
+	 */
+	public void addFile(File file, Callable<Boolean> task) {
+		files.put(file, task);
+	}
+
+	/**
+	 * Write all the element lists and files.
+	 *
+	 * @return {@code true} if successful.
+	 */
+	public boolean write() {
+		Path staging;
+		try {
+			staging = GeneratedFiles.createStagingFolder(folder);
+		} catch (IOException e) {
+			System.err.println("Failure while creating a staging folder in '" + folder + "': " + e.getMessage());
+			return false;
+		}
+
+		List<Callable<Boolean>> tasks = new ArrayList<>();
+		for (final Map.Entry<File, Callable<Boolean>> entry : files.entrySet()) {
+			tasks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					if (entry.getValue().call()) {
+						filesWritten.incrementAndGet();
+						bytesWritten.addAndGet(entry.getKey().length());
+					} else {
+						filesSkipped.incrementAndGet();
+					}
+					return true;
+				}
+			});
+		}
+		int batchCount = parallelism == 1 ? 1 : parallelism * BATCHES_PER_THREAD;
+		int batchSize = Math.max(1, (elementLists.size() + batchCount - 1) / batchCount);
+		int index = 0;
+		for (final List<ElementList> batch : Lists.partition(elementLists, batchSize)) {
+			final Path batchFolder = staging.resolve(Integer.toString(index++));
+			tasks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					return writeBatch(batch, batchFolder);
+				}
+			});
+		}
+
+		boolean ret = true;
+		try {
+			if (parallelism == 1) {
+				for (Callable<Boolean> task : tasks) {
+					ret &= call(task);
+				}
+			} else {
+				ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+				try {
+					for (Future<Boolean> future : pool.invokeAll(tasks)) {
+						ret &= get(future);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					ret = false;
+				} finally {
+					pool.shutdown();
+				}
+			}
+		} finally {
+			try {
+				GeneratedFiles.deleteRecursively(staging);
+			} catch (IOException e) {
+				System.err.println("Failure while deleting '" + staging + "': " + e.getMessage());
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Render a batch of element lists into a staging folder and replace the files whose content changed.
+	 *
+	 * @param batch
+	 *            - The {@link ElementList}s.
+	 * @param batchFolder
+	 *            - The {@link Path} of the staging folder of the batch.
+	 * @return {@code true} if successful.
+	 * @throws IOException
+	 *             if a file cannot be read or replaced.
+	 */
+	private boolean writeBatch(List<ElementList> batch, Path batchFolder) throws IOException {
+		boolean ret = true;
+		Files.createDirectories(batchFolder);
+		for (ElementList output : batch) {
+			CppWriter out = CppWriter.create(batchFolder.toString(), output);
+			try {
+				if (!output.write(out)) {
+					ret = false;
+					System.err.println("Failure while writing '" + output.getName().getAbsolutePath() + "' to disk");
+				}
+			} finally {
+				out.close();
+			}
+		}
+
+		// Folders are created once per batch.
+		Path base = folder.toPath();
+		Set<Path> folders = new HashSet<>();
+		try (Stream<Path> paths = Files.walk(batchFolder)) {
+			for (Iterator<Path> iterator = paths.filter(Files::isRegularFile).iterator(); iterator.hasNext();) {
+				Path staged = iterator.next();
+				Path target = base.resolve(batchFolder.relativize(staged));
+				Path parent = target.getParent();
+				if (parent != null && folders.add(parent)) {
+					Files.createDirectories(parent);
+				}
+				long size = Files.size(staged);
+				if (GeneratedFiles.update(staged, target)) {
+					filesWritten.incrementAndGet();
+					bytesWritten.addAndGet(size);
+				} else {
+					filesSkipped.incrementAndGet();
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @param task
+	 *            - A task.
+	 * @return The result of the task, or {@code false} if it failed.
+	 */
+	private static boolean call(Callable<Boolean> task) {
+		try {
+			return task.call();
+		} catch (Exception e) {
+			System.err.println("Failure while writing generated files: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * @param future
+	 *            - The {@link Future} result of a task.
+	 * @return The result of the task, or {@code false} if it failed.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting.
+	 */
+	private static boolean get(Future<Boolean> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			System.err.println("Failure while writing generated files: " + e.getCause().getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * @return The number of files written.
+	 */
+	public int getFilesWritten() {
+		return filesWritten.get();
+	}
+
+	/**
+	 * @return The number of files left unchanged because their content did not change.
+	 */
+	public int getFilesSkipped() {
+		return filesSkipped.get();
+	}
+
+	/**
+	 * @return The number of bytes written.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.get();
+	}
+
+}
@@ -20,7 +20,6 @@ import org.eclipse.papyrusrt.codegen.lang.cpp.expr.ElementAccess;
 import org.eclipse.papyrusrt.codegen.lang.cpp.expr.ExpressionBlob;
 import org.eclipse.papyrusrt.codegen.lang.cpp.expr.IntegralLiteral;
 import org.eclipse.papyrusrt.codegen.lang.cpp.external.StandardLibrary;
-import org.eclipse.papyrusrt.xtumlrt.aexpr.uml.XTUMLRTBoundsEvaluator;
 import org.eclipse.papyrusrt.xtumlrt.common.Capsule;
 import org.eclipse.papyrusrt.xtumlrt.common.Entity;
 import org.eclipse.papyrusrt.xtumlrt.common.Enumeration;
@@ -59,6 +58,9 @@ public final class TypesUtil {
 		Type type = null;
 
 		if (modelType != null) {
+			if (modelType instanceof NamedElement) {
+				cpp.recordRead((NamedElement) modelType);
+			}
 			type = createType(cpp, modelType);
 		} else if (element == null) {
 			type = PrimitiveType.VOID;
@@ -338,7 +340,7 @@ public final class TypesUtil {
 		if (element instanceof org.eclipse.papyrusrt.xtumlrt.common.Operation) {
 			typedMultElement = ((org.eclipse.papyrusrt.xtumlrt.common.Operation) element).getReturnType();
 			try {
-				int bound = XTUMLRTBoundsEvaluator.getBound(typedMultElement);
+				int bound = BoundsEvaluator.getBound(typedMultElement);
 				if (bound > 1) {
 					newType = newType.ptr();
 				}
@@ -350,7 +352,7 @@ public final class TypesUtil {
 				|| element instanceof org.eclipse.papyrusrt.xtumlrt.common.Attribute) {
 			typedMultElement = (TypedMultiplicityElement) element;
 			try {
-				int bound = XTUMLRTBoundsEvaluator.getBound(typedMultElement);
+				int bound = BoundsEvaluator.getBound(typedMultElement);
 				if (bound > 1) {
 					newType = newType.arrayOf(new IntegralLiteral(bound));
 				}
@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -25,9 +26,12 @@ import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.papyrus.designer.languages.common.base.codesync.ChangeObject;
 import org.eclipse.papyrusrt.codegen.CodeGenPlugin;
+import org.eclipse.papyrusrt.codegen.cpp.CppCodePattern.Output;
+import org.eclipse.papyrusrt.codegen.cpp.DependencyGraph.Read;
 import org.eclipse.papyrusrt.codegen.cpp.XTUMLRT2CppCodeGenerator.GeneratorKey;
 import org.eclipse.papyrusrt.codegen.cpp.XTUMLRT2CppCodeGenerator.Kind;
 import org.eclipse.papyrusrt.codegen.lang.cpp.name.FileName;
+import org.eclipse.papyrusrt.xtumlrt.common.CommonElement;
 import org.eclipse.papyrusrt.xtumlrt.external.predefined.RTSModelLibraryUtils;
 import org.eclipse.papyrusrt.xtumlrt.external.predefined.UMLRTProfileUtil;
 import org.eclipse.papyrusrt.xtumlrt.trans.from.uml.UML2xtumlrtTranslator;
@@ -44,14 +48,33 @@ import org.eclipse.uml2.uml.StateMachine;
 import org.eclipse.uml2.uml.util.UMLSwitch;
 import org.eclipse.uml2.uml.util.UMLUtil;
 
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
 
 /**
  * An implementation of {@link ChangeTracker} that records changes in an xtUML-RT model transformed
  * from a UML2 model (+ UML-RT Profile) created with Papyrus-RT, during a Papyrus-RT session, and
  * accepts {@link ChangeObject}s from the Papyrus-RT editor.
  * 
+ * <p>
+ * Elements that are not known to be unchanged in the current session, for example after a restart or in a
+ * stand-alone generation, are pruned when their fingerprint and generated files match those recorded in
+ * the {@link GenerationManifest} of the output folder.
+ * 
+ * <p>
+ * The C++ symbols read by each generator are recorded in a {@link DependencyGraph} with their values, so
+ * that once the generators of the changed elements ran, a pruned generator is run again only if the value
+ * of a symbol it read changed (see {@link #getStaleDependents(Map, Collection)}). The hand-coded rules mapping
+ * a change to the elements to regenerate still apply to the elements whose generators did not run in this
+ * session.
+ * 
+ * <p>
+ * The record of generated and changed elements is shared by all instances, which may prune and generate
+ * concurrently when model folders are generated in parallel, so it is synchronized.
+ * 
  * @author epp
  */
 public class UMLChangeTracker implements ChangeTracker {
@@ -59,14 +82,27 @@ public class UMLChangeTracker implements ChangeTracker {
 	/** The common instance of this class. */
 	private static ChangeTracker ACTIVE_INSTANCE = null;
 
-	/** The collection of elements for which code has already been generated, indexed by {@link Resource} and {@link Kind}. */
-	private static Map<Resource, Multimap<Kind, EObject>> alreadyGenerated = new HashMap<>();
+	/** The collection of elements for which code has already been generated, indexed by {@link Resource} and {@link Kind}. Guarded by itself. */
+	private static final Map<Resource, Multimap<Kind, EObject>> alreadyGenerated = new HashMap<>();
+
+	/** The collection of elements that have changed since the last generation, indexed by {@link Resource} and {@link Kind}. Guarded by itself. */
+	private static final Map<Resource, Multimap<Kind, EObject>> changed = new HashMap<>();
+
+	/**
+	 * The changed elements whose C++ symbols may have changed, so that the symbols read by other generators
+	 * are checked once they are regenerated, indexed by {@link Resource}. Changes within a state machine only
+	 * affect the generators of its capsule and are not recorded here. Guarded by {@link #changed}.
+	 */
+	private static final Map<Resource, Set<EObject>> propagating = new HashMap<>();
+
+	/** A record of the last time an element was modified. Guarded by itself. */
+	private static final Map<Resource, Map<String, Long>> controllerTimestamps = new HashMap<>();
 
-	/** The collection of elements that have changed since the last generation, indexed by {@link Resource} and {@link Kind}. */
-	private static Map<Resource, Multimap<Kind, EObject>> changed = new HashMap<>();
+	/** The index of the capsules using each protocol, indexed by {@link Resource}. */
+	private static Map<Resource, UMLProtocolIndex> protocolIndexes = new HashMap<>();
 
-	/** A record of the last time an element was modified. */
-	private static Map<Resource, Map<String, Long>> controllerTimestamps = new HashMap<>();
+	/** The C++ symbols read by the generator of each UML element. */
+	private static final DependencyGraph DEPENDENCIES = new DependencyGraph();
 
 	/** Extension used in generated C++ files. */
 	private static final String CPP_EXTENSION = ".cc";
@@ -80,6 +116,12 @@ public class UMLChangeTracker implements ChangeTracker {
 	/** The {@link CppCodePattern}. */
 	private CppCodePattern cpp;
 
+	/** The entries to record in the {@link GenerationManifest} for the generators that are run, indexed by {@link Kind} and element. */
+	private final Table<Kind, EObject, ManifestEntry> pendingManifestEntries = HashBasedTable.create();
+
+	/** Whether the {@link GenerationManifest} must be ignored by the next prune, because all elements must be regenerated. */
+	private boolean ignoreManifest = false;
+
 	/**
 	 * 
 	 * Constructor.
@@ -107,6 +149,18 @@ public class UMLChangeTracker implements ChangeTracker {
 
 	@Override
 	public void prune(Map<GeneratorKey, AbstractElementGenerator> generators) {
+		GenerationManifest manifest = cpp.getManifest();
+		if (ignoreManifest) {
+			manifest.clear();
+			ignoreManifest = false;
+		}
+		// Files generated by another generator version or with another layout are all regenerated, even
+		// if their elements were already generated in this session.
+		boolean regenerateAll = !manifest.checkHeader(CppCodeGenPlugin.getVersion(), cpp.getLayout());
+		ElementFingerprinter fingerprinter = new ElementFingerprinter();
+		pendingManifestEntries.clear();
+		Map<File, OutputSnapshot> snapshots = new HashMap<>();
+
 		Iterator<Entry<GeneratorKey, AbstractElementGenerator>> iterator = generators
 				.entrySet().iterator();
 		while (iterator.hasNext()) {
@@ -114,81 +168,275 @@ public class UMLChangeTracker implements ChangeTracker {
 			GeneratorKey key = next.getKey();
 			EObject umlElement = translator.getSource((org.eclipse.papyrusrt.xtumlrt.common.NamedElement) key.object);
 			AbstractElementGenerator generator = next.getValue();
-			String outputPath = generator.cpp.getOutputFolder().getAbsolutePath();
-			boolean shouldRegenerate = false;
-			// If missing output file then we should always regenerate.
-			for (FileName f : generator.getGeneratedFilenames()) {
-				File output = new File(outputPath + File.separator + f.getAbsolutePath() + CPP_EXTENSION);
-				if (!output.exists()) {
-					shouldRegenerate = true;
-					break;
-				}
-				File header = new File(outputPath + File.separator + f.getIncludePath());
-				if (!header.exists()) {
+			OutputSnapshot snapshot = getSnapshot(snapshots, generator.cpp.getOutputFolder());
+			// The generators reading a symbol that changed are selected once the changed elements are
+			// regenerated: see getStaleDependents.
+			boolean shouldRegenerate = regenerateAll;
+			// If missing output file (including the main source file) then we should always regenerate.
+			List<String> files = getGeneratedFiles(key, generator);
+			for (String file : files) {
+				if (!snapshot.exists(file)) {
 					shouldRegenerate = true;
 					break;
 				}
 			}
-			// Check to see if main source file is missing
 			if (key.kind == Kind.Structural) {
-				File output = new File(outputPath + File.separator + generator.cpp.getMainName() + CPP_EXTENSION);
-				if (!output.exists()) {
-					shouldRegenerate = true;
-				}
-
 				File f = cpp.getControllerAllocations(GeneralUtil.getName(top));
 				if (f != null) {
 					long lastModified = f.lastModified();
-					Map<String, Long> map = controllerTimestamps.get(top.eResource());
-					if (map == null) {
-						map = new HashMap<>();
-						controllerTimestamps.put(top.eResource(), map);
-					} else {
-						Long timeStamp = map.get(GeneralUtil.getName(top));
-						if (timeStamp != null && timeStamp != lastModified) {
-							shouldRegenerate = true;
+					synchronized (controllerTimestamps) {
+						Map<String, Long> map = controllerTimestamps.get(top.eResource());
+						if (map == null) {
+							map = new HashMap<>();
+							controllerTimestamps.put(top.eResource(), map);
+						} else {
+							Long timeStamp = map.get(GeneralUtil.getName(top));
+							if (timeStamp != null && timeStamp != lastModified) {
+								shouldRegenerate = true;
+							}
 						}
+						map.put(GeneralUtil.getName(top), lastModified);
 					}
-					map.put(GeneralUtil.getName(top), lastModified);
 				}
 			}
 
-			if (shouldRegenerate) {
+			if (!shouldRegenerate && isUnchanged(key.kind, umlElement)) {
+				logPruning(umlElement);
+				iterator.remove();
 				continue;
 			}
 
-			if (alreadyGeneratedContains(key.kind, umlElement)
-					&& !changedContains(key.kind, umlElement)) {
-				if (key.kind == Kind.Capsule) {
-					boolean portWithChangedProtocol = false;
-					for (org.eclipse.uml2.uml.Port umlPort : UMLRTProfileUtil.getAllRTPorts((Class) umlElement)) {
-						org.eclipse.uml2.uml.Package protocol = UMLRTProfileUtil.getProtocol(umlPort);
-						if (changedContains(Kind.Protocol, protocol)) {
-							portWithChangedProtocol = true;
-							break;
-						}
-					}
+			// Not known to be unchanged in this session: compare with the manifest of the last generation.
+			EObject fingerprinted = getFingerprintedElement(key);
+			if (fingerprinted == null) {
+				continue;
+			}
+			String id = getManifestId(key.kind, fingerprinted);
+			String fingerprint = getFingerprint(key.kind, fingerprinted, fingerprinter);
+			if (!shouldRegenerate && manifest.isUpToDate(id, fingerprint, snapshot)) {
+				logPruning(umlElement != null ? umlElement : fingerprinted);
+				iterator.remove();
+			} else {
+				manifest.remove(id);
+				pendingManifestEntries.put(key.kind, key.object, new ManifestEntry(id, fingerprint, files));
+			}
+		}
+	}
 
-					if (!portWithChangedProtocol) {
-						CodeGenPlugin.getLogger()
-								.log(Level.INFO,
-										"Pruning "
-												+ ((NamedElement) umlElement)
-														.getQualifiedName()
-												+ " from generation.");
-						iterator.remove();
+	@Override
+	public Map<GeneratorKey, AbstractElementGenerator> getStaleDependents(Map<GeneratorKey, AbstractElementGenerator> pruned,
+			Collection<GeneratorKey> generated) {
+		Map<GeneratorKey, AbstractElementGenerator> stale = new LinkedHashMap<>();
+		// The elements whose symbols may have been changed by the generators that ran
+		Set<EObject> owners = new HashSet<>();
+		for (GeneratorKey key : generated) {
+			for (EObject object : new EObject[] { key.object, key.context }) {
+				if (object instanceof org.eclipse.papyrusrt.xtumlrt.common.NamedElement) {
+					EObject owner = translator.getSource((org.eclipse.papyrusrt.xtumlrt.common.NamedElement) object);
+					if (owner != null && !isBehaviourOnlyChange(owner)) {
+						owners.add(owner);
 					}
-				} else {
-					CodeGenPlugin.getLogger()
-							.log(Level.INFO,
-									"Pruning "
-											+ ((org.eclipse.uml2.uml.NamedElement) umlElement)
-													.getQualifiedName()
-											+ " from generation.");
+				}
+			}
+		}
+		if (owners.isEmpty()) {
+			return stale;
+		}
+
+		SetMultimap<Kind, EObject> readers = DEPENDENCIES.getReaders(owners);
+		ElementFingerprinter fingerprinter = new ElementFingerprinter();
+		Iterator<Entry<GeneratorKey, AbstractElementGenerator>> iterator = pruned.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<GeneratorKey, AbstractElementGenerator> next = iterator.next();
+			GeneratorKey key = next.getKey();
+			EObject umlElement = translator.getSource((org.eclipse.papyrusrt.xtumlrt.common.NamedElement) key.object);
+			if (!readers.containsEntry(key.kind, umlElement)) {
+				continue;
+			}
+			for (Map.Entry<Read, String> read : DEPENDENCIES.getDependencies(key.kind, umlElement).entrySet()) {
+				if (owners.contains(read.getKey().getOwner())
+						&& !read.getValue().equals(getCurrentValue(read.getKey(), fingerprinter))) {
+					stale.put(key, next.getValue());
 					iterator.remove();
+					EObject fingerprinted = getFingerprintedElement(key);
+					if (fingerprinted != null) {
+						String id = getManifestId(key.kind, fingerprinted);
+						cpp.getManifest().remove(id);
+						pendingManifestEntries.put(key.kind, key.object, new ManifestEntry(id,
+								getFingerprint(key.kind, fingerprinted, fingerprinter), getGeneratedFiles(key, next.getValue())));
+					}
+					break;
 				}
 			}
 		}
+		return stale;
+	}
+
+	/**
+	 * @param read
+	 *            - A symbol read by a generator the last time it ran.
+	 * @param fingerprinter
+	 *            - The {@link ElementFingerprinter}.
+	 * @return The value of the symbol in the current model, or {@code null} if its elements no longer exist.
+	 */
+	private String getCurrentValue(Read read, ElementFingerprinter fingerprinter) {
+		CommonElement element = read.element instanceof Element && read.element.eResource() != null
+				? translator.getGenerated((Element) read.element)
+				: null;
+		CommonElement context = read.context instanceof Element && read.context.eResource() != null
+				? translator.getGenerated((Element) read.context)
+				: null;
+		if (!(element instanceof org.eclipse.papyrusrt.xtumlrt.common.NamedElement)
+				|| (read.context != null && !(context instanceof org.eclipse.papyrusrt.xtumlrt.common.NamedElement))) {
+			return null;
+		}
+		return getSymbolValue(new CppCodePattern.Symbol(read.output, (org.eclipse.papyrusrt.xtumlrt.common.NamedElement) element,
+				(org.eclipse.papyrusrt.xtumlrt.common.NamedElement) context), read.element, fingerprinter);
+	}
+
+	/**
+	 * @param symbol
+	 *            - A {@link CppCodePattern.Symbol}.
+	 * @param source
+	 *            - The UML element of the symbol.
+	 * @param fingerprinter
+	 *            - The {@link ElementFingerprinter}.
+	 * @return The value of the symbol: its {@link CppCodePattern#getSymbolValue(CppCodePattern.Symbol) C++ names}
+	 *         and, for the class of a capsule, the {@link ElementFingerprinter#getStructureHash(Class) structure}
+	 *         that the code of the capsules containing it depends on.
+	 */
+	private String getSymbolValue(CppCodePattern.Symbol symbol, EObject source, ElementFingerprinter fingerprinter) {
+		String value = cpp.getSymbolValue(symbol);
+		if (symbol.output == Output.CapsuleClass && source instanceof Class) {
+			value += '#' + fingerprinter.getStructureHash((Class) source).toString();
+		}
+		return value;
+	}
+
+	/**
+	 * @param kind
+	 *            - A {@link Kind} of element generator.
+	 * @param fingerprinted
+	 *            - The UML element given by {@link #getFingerprintedElement(GeneratorKey)}.
+	 * @return The id of the generator in the {@link GenerationManifest}.
+	 */
+	private static String getManifestId(Kind kind, EObject fingerprinted) {
+		return kind.name() + ':' + EcoreUtil.getURI(fingerprinted).fragment();
+	}
+
+	/**
+	 * Obtain a snapshot of an output folder, so that the folder is listed once per prune instead of querying
+	 * the file system for each generated file.
+	 * 
+	 * @param snapshots
+	 *            - The snapshots taken so far, indexed by output folder.
+	 * @param folder
+	 *            - The output folder.
+	 * @return The {@link OutputSnapshot} of the folder.
+	 */
+	private static OutputSnapshot getSnapshot(Map<File, OutputSnapshot> snapshots, File folder) {
+		OutputSnapshot snapshot = snapshots.get(folder);
+		if (snapshot == null) {
+			snapshot = OutputSnapshot.take(folder);
+			snapshots.put(folder, snapshot);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @param kind
+	 *            - A {@link Kind} of element generator.
+	 * @param umlElement
+	 *            - The UML element of the generator.
+	 * @return {@code true} iff code for the element has already been generated in this session, and neither
+	 *         the element nor, for a capsule, the protocols of its ports changed since.
+	 */
+	private boolean isUnchanged(Kind kind, EObject umlElement) {
+		if (!alreadyGeneratedContains(kind, umlElement) || changedContains(kind, umlElement)) {
+			return false;
+		}
+		if (kind == Kind.Capsule) {
+			for (org.eclipse.uml2.uml.Port umlPort : UMLRTProfileUtil.getAllRTPorts((Class) umlElement)) {
+				org.eclipse.uml2.uml.Package protocol = UMLRTProfileUtil.getProtocol(umlPort);
+				if (changedContains(Kind.Protocol, protocol)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param umlElement
+	 *            - The UML element whose generator is pruned.
+	 */
+	private static void logPruning(EObject umlElement) {
+		CodeGenPlugin.getLogger()
+				.log(Level.INFO,
+						"Pruning "
+								+ ((NamedElement) umlElement)
+										.getQualifiedName()
+								+ " from generation.");
+	}
+
+	/**
+	 * @param key
+	 *            - The {@link GeneratorKey} of a generator.
+	 * @param generator
+	 *            - The {@link AbstractElementGenerator}.
+	 * @return The paths, relative to the output folder, of the files produced by the generator.
+	 */
+	private List<String> getGeneratedFiles(GeneratorKey key, AbstractElementGenerator generator) {
+		List<String> files = new ArrayList<>();
+		for (FileName f : generator.getGeneratedFilenames()) {
+			files.add(f.getAbsolutePath() + CPP_EXTENSION);
+			files.add(f.getIncludePath());
+		}
+		if (key.kind == Kind.Structural) {
+			files.add(generator.cpp.getMainName() + CPP_EXTENSION);
+		}
+		return files;
+	}
+
+	/**
+	 * @param key
+	 *            - The {@link GeneratorKey} of a generator.
+	 * @return The UML element whose fingerprint determines whether the generator must run: the element
+	 *         owning the C++ class produced by the generator (the capsule or class of a behaviour), or
+	 *         {@code null} if there is no such UML element.
+	 */
+	private EObject getFingerprintedElement(GeneratorKey key) {
+		EObject owner = key.context != null ? key.context : key.object;
+		if (owner instanceof org.eclipse.papyrusrt.xtumlrt.common.NamedElement) {
+			Element source = translator.getSource((org.eclipse.papyrusrt.xtumlrt.common.NamedElement) owner);
+			if (source instanceof NamedElement && source.eResource() != null) {
+				return source;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param kind
+	 *            - A {@link Kind} of element generator.
+	 * @param element
+	 *            - The UML element of the generator, as given by {@link #getFingerprintedElement(GeneratorKey)}.
+	 * @param fingerprinter
+	 *            - The {@link ElementFingerprinter}.
+	 * @return The fingerprint of the element. For the {@link Kind#Structural} generator, this covers the whole
+	 *         model and the controller allocations file, since the deployment depends on all capsules.
+	 */
+	private String getFingerprint(Kind kind, EObject element, ElementFingerprinter fingerprinter) {
+		if (kind != Kind.Structural) {
+			return fingerprinter.getFingerprint(element);
+		}
+		StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append(fingerprinter.getSubtreeHash(EcoreUtil.getRootContainer(element)));
+		File allocations = cpp.getControllerAllocations(GeneralUtil.getName(top));
+		if (allocations != null) {
+			fingerprint.append('/').append(allocations.lastModified()).append('/').append(allocations.length());
+		}
+		return fingerprint.toString();
 	}
 
 	@Override
@@ -210,9 +458,11 @@ public class UMLChangeTracker implements ChangeTracker {
 		if (object != null) {
 			Resource resource = object.eResource();
 			if (resource != null) {
-				Multimap<Kind, EObject> multimap = alreadyGenerated.get(resource);
-				if (multimap != null) {
-					return multimap.containsEntry(kind, object);
+				synchronized (alreadyGenerated) {
+					Multimap<Kind, EObject> multimap = alreadyGenerated.get(resource);
+					if (multimap != null) {
+						return multimap.containsEntry(kind, object);
+					}
 				}
 			}
 		}
@@ -225,14 +475,20 @@ public class UMLChangeTracker implements ChangeTracker {
 		if (source != null) {
 			Resource resource = source.eResource();
 			if (resource != null) {
-				Multimap<Kind, EObject> multimap = alreadyGenerated.get(resource);
-				if (multimap == null) {
-					multimap = HashMultimap.create();
-					alreadyGenerated.put(resource, multimap);
+				synchronized (alreadyGenerated) {
+					Multimap<Kind, EObject> multimap = alreadyGenerated.get(resource);
+					if (multimap == null) {
+						multimap = HashMultimap.create();
+						alreadyGenerated.put(resource, multimap);
+					}
+					multimap.put(kind, source);
 				}
-				multimap.put(kind, source);
 			}
 		}
+		ManifestEntry entry = pendingManifestEntries.remove(kind, object);
+		if (entry != null) {
+			cpp.getManifest().put(entry.id, entry.fingerprint, entry.files);
+		}
 	}
 
 	/**
@@ -246,29 +502,70 @@ public class UMLChangeTracker implements ChangeTracker {
 		if (object != null) {
 			Resource resource = object.eResource();
 			if (resource != null) {
-				Multimap<Kind, EObject> multimap = changed.get(resource);
-				if (multimap != null) {
-					return multimap.containsEntry(kind, object);
+				synchronized (changed) {
+					Multimap<Kind, EObject> multimap = changed.get(resource);
+					if (multimap != null) {
+						return multimap.containsEntry(kind, object);
+					}
 				}
 			}
 		}
 		return false;
 	}
 
+	@Override
+	public void addDependencies(Kind kind, org.eclipse.papyrusrt.xtumlrt.common.NamedElement object,
+			Collection<CppCodePattern.Symbol> reads) {
+		Element umlElement = translator.getSource(object);
+		if (umlElement == null) {
+			return;
+		}
+		ElementFingerprinter fingerprinter = new ElementFingerprinter();
+		Map<Read, String> umlReads = new HashMap<>();
+		for (CppCodePattern.Symbol symbol : reads) {
+			Element source = translator.getSource(symbol.element);
+			Element context = symbol.context == null ? null : translator.getSource(symbol.context);
+			if (source == null || (symbol.context != null && context == null)) {
+				continue;
+			}
+			Read read = new Read(symbol.output, source, context);
+			// The symbols of the element itself are regenerated with it.
+			if (read.getOwner() != umlElement) {
+				umlReads.put(read, getSymbolValue(symbol, source, fingerprinter));
+			}
+		}
+		DEPENDENCIES.setDependencies(kind, umlElement, umlReads);
+	}
+
 	@Override
 	public Collection<EObject> getAllChanged() {
 		Collection<EObject> all = new ArrayList<>();
-		if (changed != null) {
-			Collection<Multimap<Kind, EObject>> allMultiMaps = changed.values();
-			if (allMultiMaps != null) {
-				for (Multimap<Kind, EObject> map : allMultiMaps) {
-					all.addAll(map.values());
-				}
+		synchronized (changed) {
+			for (Multimap<Kind, EObject> map : changed.values()) {
+				all.addAll(map.values());
 			}
 		}
 		return all;
 	}
 
+	/**
+	 * @param object
+	 *            - A model element.
+	 * @return {@code true} iff the element changed since the last generation, but only within its state
+	 *         machine, so that its C++ symbols did not change.
+	 */
+	private static boolean isBehaviourOnlyChange(EObject object) {
+		Resource resource = object.eResource();
+		if (resource == null) {
+			return false;
+		}
+		synchronized (changed) {
+			Multimap<Kind, EObject> multimap = changed.get(resource);
+			Set<EObject> set = propagating.get(resource);
+			return multimap != null && multimap.containsValue(object) && (set == null || !set.contains(object));
+		}
+	}
+
 	/**
 	 * Removes the element from the collection of 'changed' elements.
 	 * 
@@ -281,9 +578,15 @@ public class UMLChangeTracker implements ChangeTracker {
 		if (object != null) {
 			Resource resource = object.eResource();
 			if (resource != null) {
-				Multimap<Kind, EObject> multimap = changed.get(resource);
-				if (multimap != null) {
-					multimap.remove(kind, object);
+				synchronized (changed) {
+					Multimap<Kind, EObject> multimap = changed.get(resource);
+					if (multimap != null) {
+						multimap.remove(kind, object);
+						Set<EObject> set = propagating.get(resource);
+						if (set != null && !multimap.containsValue(object)) {
+							set.remove(object);
+						}
+					}
 				}
 			}
 		}
@@ -315,25 +618,107 @@ public class UMLChangeTracker implements ChangeTracker {
 
 	@Override
 	public void closeResource(Resource resource) {
-		if (changed.remove(resource) != null) {
+		boolean removed;
+		synchronized (changed) {
+			removed = changed.remove(resource) != null;
+			propagating.remove(resource);
+		}
+		if (removed) {
 			CodeGenPlugin.getLogger().log(Level.INFO,
 					"Cleaning up changed map for resource: "
 							+ resource.getURI()
 									.toString());
 		}
 
-		if (alreadyGenerated.remove(resource) != null) {
+		synchronized (protocolIndexes) {
+			UMLProtocolIndex index = protocolIndexes.remove(resource);
+			if (index != null) {
+				resource.eAdapters().remove(index);
+			}
+		}
+
+		synchronized (alreadyGenerated) {
+			removed = alreadyGenerated.remove(resource) != null;
+		}
+		if (removed) {
 			CodeGenPlugin.getLogger().log(Level.INFO,
 					"Cleaning up already generated map for resource: "
 							+ resource.getURI()
 									.toString());
 		}
+
+		synchronized (controllerTimestamps) {
+			controllerTimestamps.remove(resource);
+		}
+
+		DEPENDENCIES.removeResource(resource);
 	}
 
 	@Override
 	public void resetAll() {
-		UMLChangeTracker.alreadyGenerated = new HashMap<>();
-		UMLChangeTracker.changed = new HashMap<>();
+		synchronized (alreadyGenerated) {
+			alreadyGenerated.clear();
+		}
+		synchronized (changed) {
+			changed.clear();
+			propagating.clear();
+		}
+		DEPENDENCIES.clear();
+		ignoreManifest = true;
+	}
+
+	/**
+	 * Obtain the index of the capsules using each protocol of the model of the given element. The index is
+	 * created on the first request for a model and then maintained until its resource is closed.
+	 * 
+	 * @param element
+	 *            - A UML element.
+	 * @return The {@link UMLProtocolIndex}.
+	 */
+	private static UMLProtocolIndex getProtocolIndex(Element element) {
+		Resource resource = element.eResource();
+		synchronized (protocolIndexes) {
+			UMLProtocolIndex index = protocolIndexes.get(resource);
+			if (index == null) {
+				index = new UMLProtocolIndex((Package) EcoreUtil.getRootContainer(element));
+				if (resource != null) {
+					resource.eAdapters().add(index);
+					protocolIndexes.put(resource, index);
+				}
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * An entry of the {@link GenerationManifest}, recorded once its generator succeeds.
+	 */
+	private static class ManifestEntry {
+
+		/** The id of the element generator. */
+		final String id;
+
+		/** The fingerprint of the element. */
+		final String fingerprint;
+
+		/** The files produced by the generator. */
+		final List<String> files;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param id
+		 *            - The id of the element generator.
+		 * @param fingerprint
+		 *            - The fingerprint of the element.
+		 * @param files
+		 *            - The files produced by the generator.
+		 */
+		ManifestEntry(String id, String fingerprint, List<String> files) {
+			this.id = id;
+			this.fingerprint = fingerprint;
+			this.files = files;
+		}
 	}
 
 	/**
@@ -344,6 +729,12 @@ public class UMLChangeTracker implements ChangeTracker {
 		/** A local reference to the collection of changed elements. */
 		final Map<Resource, Multimap<Kind, EObject>> changed;
 
+		/** The classes whose changes have already been created for this list of changes. */
+		private final Set<Class> changedClasses = new HashSet<>();
+
+		/** The classes whose behaviour changes have already been created for this list of changes. */
+		private final Set<Class> behaviourChangedClasses = new HashSet<>();
+
 		/**
 		 * Constructor.
 		 *
@@ -375,14 +766,8 @@ public class UMLChangeTracker implements ChangeTracker {
 				org.eclipse.papyrusrt.xtumlrt.common.CommonElement xtumlrtElement = translator.getGenerated(object);
 				if (xtumlrtElement instanceof NamedElement && !RTSModelLibraryUtils.isSystemElement(xtumlrtElement)) {
 					createChange(Kind.Protocol, object);
-					for (Element element : ((Package) EcoreUtil.getRootContainer(object)).getOwnedElements()) {
-						if (UMLRTProfileUtil.isCapsule(element)) {
-							for (org.eclipse.uml2.uml.Port umlPort : UMLRTProfileUtil.getAllRTPorts((org.eclipse.uml2.uml.Class) element)) {
-								if (UMLRTProfileUtil.getProtocol(umlPort) == object) {
-									doSwitch(element);
-								}
-							}
-						}
+					for (Class capsule : getProtocolIndex(object).getCapsules(object)) {
+						doSwitch(capsule);
 					}
 				}
 			}
@@ -409,7 +794,7 @@ public class UMLChangeTracker implements ChangeTracker {
 				// If the changes are made to statemachine only then we do not
 				// need to create structural generator to regenerate Controller.
 				// So create changes for its class and behaviour
-				createClassChange((org.eclipse.uml2.uml.Class) container);
+				createClassChange((org.eclipse.uml2.uml.Class) container, false);
 			}
 
 			// bug#477748: if changes are made to a opaque behaviour
@@ -418,9 +803,23 @@ public class UMLChangeTracker implements ChangeTracker {
 			return defaultCase(object);
 		}
 
+		@Override
+		public Boolean caseStateMachine(StateMachine object) {
+			// A change within a state machine, such as the effect or guard of a transition, only affects
+			// the class and behaviour of its capsule. Stop here rather than going on to the capsule, which
+			// would also regenerate the Controllers, and do not regenerate the generators reading the
+			// capsule: the behaviour does not change its C++ symbols.
+			EObject container = object.eContainer();
+			if (container instanceof org.eclipse.uml2.uml.Class) {
+				createClassChange((org.eclipse.uml2.uml.Class) container, true);
+				return Boolean.TRUE;
+			}
+			return caseBehavior(object);
+		}
+
 		@Override
 		public Boolean caseClass(org.eclipse.uml2.uml.Class object) {
-			createClassChange(object);
+			createClassChange(object, false);
 
 			// Regenerate Controllers.cc/hh if the changes are made to Capsule
 			if (UMLRTProfileUtil.isCapsule(object)) {
@@ -436,15 +835,26 @@ public class UMLChangeTracker implements ChangeTracker {
 		 * 
 		 * @param object
 		 *            - The {@link Class} element.
+		 * @param behaviourOnly
+		 *            - {@code true} if only the state machine of the class changed, so that only the generators
+		 *            of the class itself are affected.
 		 */
-		private void createClassChange(Class object) {
+		private void createClassChange(Class object, boolean behaviourOnly) {
+			// Many changes in the same state machine lead to the same class: look for its subclasses once.
+			if (behaviourOnly) {
+				if (changedClasses.contains(object) || !behaviourChangedClasses.add(object)) {
+					return;
+				}
+			} else if (!changedClasses.add(object)) {
+				return;
+			}
 
 			if (!UMLRTProfileUtil.isCapsule(object)) {
-				createChange(Kind.BasicClass, object);
+				createChange(Kind.BasicClass, object, !behaviourOnly);
 			} else {
 				// If the Class has been stereotyped with "Capsule" then the
 				// structural as well as state machine elements must be generated.
-				createChange(Kind.Capsule, object);
+				createChange(Kind.Capsule, object, !behaviourOnly);
 
 				Behavior behaviour = object.getClassifierBehavior();
 				if (behaviour == null) {
@@ -452,9 +862,9 @@ public class UMLChangeTracker implements ChangeTracker {
 				}
 
 				if (behaviour instanceof StateMachine) {
-					createChange(Kind.StateMachine, behaviour);
+					createChange(Kind.StateMachine, behaviour, !behaviourOnly);
 				} else {
-					createChange(Kind.EmptyStateMachine, object);
+					createChange(Kind.EmptyStateMachine, object, !behaviourOnly);
 				}
 			}
 			// bug#476606 : Regenerate subclasses
@@ -463,7 +873,7 @@ public class UMLChangeTracker implements ChangeTracker {
 				if (eo instanceof Generalization) {
 					Classifier specific = ((Generalization) eo).getSpecific();
 					if (specific != object && specific instanceof Class) {
-						createClassChange((Class) specific);
+						createClassChange((Class) specific, behaviourOnly);
 					}
 				}
 			}
@@ -478,15 +888,39 @@ public class UMLChangeTracker implements ChangeTracker {
 		 *            - The element.
 		 */
 		private void createChange(Kind kind, EObject object) {
+			createChange(kind, object, true);
+		}
+
+		/**
+		 * Adds an element to the collection of changed elements.
+		 * 
+		 * @param kind
+		 *            - The {@link Kind} of element generator.
+		 * @param object
+		 *            - The element.
+		 * @param propagate
+		 *            - Whether the generators that read the element are regenerated too.
+		 */
+		private void createChange(Kind kind, EObject object, boolean propagate) {
 			if (object != null) {
 				Resource resource = object.eResource();
 				if (resource != null) {
-					Multimap<Kind, EObject> multimap = changed.get(resource);
-					if (multimap == null) {
-						multimap = HashMultimap.create();
-						changed.put(resource, multimap);
+					synchronized (changed) {
+						Multimap<Kind, EObject> multimap = changed.get(resource);
+						if (multimap == null) {
+							multimap = HashMultimap.create();
+							changed.put(resource, multimap);
+						}
+						multimap.put(kind, object);
+						if (propagate) {
+							Set<EObject> set = propagating.get(resource);
+							if (set == null) {
+								set = new HashSet<>();
+								propagating.put(resource, set);
+							}
+							set.add(object);
+						}
 					}
-					multimap.put(kind, object);
 				}
 			}
 		}
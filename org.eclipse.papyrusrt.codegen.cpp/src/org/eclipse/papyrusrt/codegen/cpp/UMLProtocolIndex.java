@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.papyrusrt.xtumlrt.external.predefined.UMLRTProfileUtil;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.Classifier;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.Port;
+import org.eclipse.uml2.uml.util.UMLUtil;
+
+/**
+ * A model-wide index from UML-RT protocols to the capsules that have a port typed by them, including
+ * inherited ports.
+ *
+ * <p>
+ * The index is built on the first query and then kept up to date from the EMF notifications of the model:
+ * a change within a capsule (its ports, their types, its generalizations or the stereotype applications of
+ * these elements) marks the capsule as stale, and stale capsules and their sub-capsules are re-indexed on
+ * the next query.
+ */
+public class UMLProtocolIndex extends EContentAdapter {
+
+	/** The root package of the model. */
+	private final Package root;
+
+	/** The protocols used by each capsule. */
+	private final Map<Class, Set<Package>> protocolsByCapsule = new HashMap<>();
+
+	/** The capsules using each protocol. */
+	private final Map<Package, Set<Class>> capsulesByProtocol = new HashMap<>();
+
+	/** The capsules which inherit from each class. */
+	private final Map<Classifier, Set<Class>> specializations = new HashMap<>();
+
+	/** The classes from which each capsule inherits. */
+	private final Map<Class, Collection<Classifier>> ancestors = new HashMap<>();
+
+	/** The capsules that must be re-indexed. */
+	private final Set<Class> stale = new LinkedHashSet<>();
+
+	/** Whether the index has been built. */
+	private boolean built;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param root
+	 *            - The root {@link Package} of the model.
+	 */
+	public UMLProtocolIndex(Package root) {
+		this.root = root;
+	}
+
+	/**
+	 * @param protocol
+	 *            - A protocol container {@link Package}.
+	 * @return The capsules with a port, owned or inherited, typed by the protocol.
+	 */
+	public synchronized Collection<Class> getCapsules(Package protocol) {
+		refresh();
+		Set<Class> capsules = capsulesByProtocol.get(protocol);
+		return capsules == null ? Collections.<Class> emptyList() : new ArrayList<>(capsules);
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch()) {
+			return;
+		}
+		synchronized (this) {
+			if (!built) {
+				return;
+			}
+			markStale(notification.getNotifier());
+			markStale(notification.getNewValue());
+			markStale(notification.getOldValue());
+		}
+	}
+
+	/**
+	 * Mark the capsule affected by a changed object as stale.
+	 *
+	 * @param object
+	 *            - The notifier of a change, or a value added or removed.
+	 */
+	private void markStale(Object object) {
+		if (object instanceof Collection<?>) {
+			for (Object value : (Collection<?>) object) {
+				markStale(value);
+			}
+			return;
+		}
+		if (!(object instanceof EObject)) {
+			return;
+		}
+		EObject element = object instanceof Element ? null : UMLUtil.getBaseElement((EObject) object);
+		if (element == null) {
+			element = (EObject) object;
+		}
+		for (EObject e = element; e != null; e = e.eContainer()) {
+			if (e instanceof Class && (protocolsByCapsule.containsKey(e) || UMLRTProfileUtil.isCapsule((Class) e))) {
+				stale.add((Class) e);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Build the index, or re-index the stale capsules and their sub-capsules.
+	 */
+	private void refresh() {
+		if (!built) {
+			for (TreeIterator<EObject> iterator = root.eAllContents(); iterator.hasNext();) {
+				EObject element = iterator.next();
+				if (!(element instanceof Package)) {
+					if (element instanceof Class && UMLRTProfileUtil.isCapsule((Class) element)) {
+						add((Class) element);
+					}
+					iterator.prune();
+				}
+			}
+			built = true;
+			stale.clear();
+			return;
+		}
+		if (stale.isEmpty()) {
+			return;
+		}
+		Set<Class> update = new LinkedHashSet<>();
+		Deque<Class> queue = new ArrayDeque<>(stale);
+		while (!queue.isEmpty()) {
+			Class capsule = queue.pop();
+			if (update.add(capsule)) {
+				Set<Class> subclasses = specializations.get(capsule);
+				if (subclasses != null) {
+					queue.addAll(subclasses);
+				}
+			}
+		}
+		for (Class capsule : update) {
+			remove(capsule);
+		}
+		for (Class capsule : update) {
+			if (capsule.eResource() != null && UMLRTProfileUtil.isCapsule(capsule)) {
+				add(capsule);
+			}
+		}
+		stale.clear();
+	}
+
+	/**
+	 * Index a capsule.
+	 *
+	 * @param capsule
+	 *            - The capsule.
+	 */
+	private void add(Class capsule) {
+		Set<Package> protocols = new LinkedHashSet<>();
+		for (Port port : UMLRTProfileUtil.getAllRTPorts(capsule)) {
+			Package protocol = UMLRTProfileUtil.getProtocol(port);
+			if (protocol != null && protocols.add(protocol)) {
+				get(capsulesByProtocol, protocol).add(capsule);
+			}
+		}
+		protocolsByCapsule.put(capsule, protocols);
+		Collection<Classifier> generals = new ArrayList<>(capsule.allParents());
+		for (Classifier general : generals) {
+			get(specializations, general).add(capsule);
+		}
+		ancestors.put(capsule, generals);
+	}
+
+	/**
+	 * Remove a capsule from the index.
+	 *
+	 * @param capsule
+	 *            - The capsule.
+	 */
+	private void remove(Class capsule) {
+		Set<Package> protocols = protocolsByCapsule.remove(capsule);
+		if (protocols != null) {
+			for (Package protocol : protocols) {
+				capsulesByProtocol.get(protocol).remove(capsule);
+			}
+		}
+		Collection<Classifier> generals = ancestors.remove(capsule);
+		if (generals != null) {
+			for (Classifier general : generals) {
+				Set<Class> subclasses = specializations.get(general);
+				subclasses.remove(capsule);
+				if (subclasses.isEmpty()) {
+					specializations.remove(general);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param map
+	 *            - A {@link Map} from keys to sets of capsules.
+	 * @param key
+	 *            - A key.
+	 * @param <K>
+	 *            - The type of the keys.
+	 * @return The set of capsules of the key, created if needed.
+	 */
+	private static <K> Set<Class> get(Map<K, Set<Class>> map, K key) {
+		Set<Class> set = map.get(key);
+		if (set == null) {
+			set = new LinkedHashSet<>();
+			map.put(key, set);
+		}
+		return set;
+	}
+
+}
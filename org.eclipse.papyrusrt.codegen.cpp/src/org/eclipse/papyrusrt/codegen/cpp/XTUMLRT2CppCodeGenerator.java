@@ -7,11 +7,18 @@
  *******************************************************************************/
 package org.eclipse.papyrusrt.codegen.cpp;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
@@ -35,6 +42,7 @@ import org.eclipse.papyrusrt.xtumlrt.common.Package;
 import org.eclipse.papyrusrt.xtumlrt.common.Parameter;
 import org.eclipse.papyrusrt.xtumlrt.common.Port;
 import org.eclipse.papyrusrt.xtumlrt.common.Protocol;
+import org.eclipse.papyrusrt.xtumlrt.common.RedefinableElement;
 import org.eclipse.papyrusrt.xtumlrt.common.Signal;
 import org.eclipse.papyrusrt.xtumlrt.common.StructuredType;
 import org.eclipse.papyrusrt.xtumlrt.common.TypeDefinition;
@@ -63,6 +71,12 @@ import org.eclipse.papyrusrt.xtumlrt.util.XTUMLRTExtensions;
  */
 public class XTUMLRT2CppCodeGenerator {
 
+	/**
+	 * System property giving the number of threads used to run element generators. Values greater than 1
+	 * enable parallel generation.
+	 */
+	public static final String PARALLELISM_PROPERTY = CppCodeGenPlugin.ID + ".parallelism";
+
 	/** The {@link CppCodePattern}. */
 	private final CppCodePattern cpp;
 
@@ -72,6 +86,15 @@ public class XTUMLRT2CppCodeGenerator {
 	/** The {@link ChangeTracker} used to support incremental generation. */
 	private ChangeTracker changeTracker;
 
+	/** Whether the {@link CppCodePattern} still holds the C++ elements of a previous generation. */
+	private boolean incremental = false;
+
+	/** The number of threads used to run element generators; {@code 1} means sequential generation. */
+	private int parallelism = Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, 1));
+
+	/** The {@link GenerationProfiler} measuring the phases of generation. */
+	private GenerationProfiler profiler = new GenerationProfiler();
+
 	/**
 	 * This enum defines the types of generators supported. Each generator corresponds to a
 	 * particular kind of model element.
@@ -130,6 +153,44 @@ public class XTUMLRT2CppCodeGenerator {
 		return this.changeTracker;
 	}
 
+	/**
+	 * Tell the generator whether the {@link CppCodePattern} holds the C++ elements of a previous generation,
+	 * as is the case when a {@link GenerationSession} is reused. In that case the cached C++ elements of every
+	 * element to be regenerated are discarded before its generators run.
+	 * 
+	 * @param incremental
+	 *            - {@code true} if the {@link CppCodePattern} is reused from a previous generation.
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Set the number of threads used to run element generators.
+	 * 
+	 * @param parallelism
+	 *            - The number of threads. Values smaller than 2 select sequential generation.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public GenerationProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * @param profiler
+	 *            - The {@link GenerationProfiler} measuring the phases of generation.
+	 */
+	public void setProfiler(GenerationProfiler profiler) {
+		this.profiler = profiler;
+	}
+
 	/**
 	 * Tell the generator to use the given capsule as the top capsule.
 	 * 
@@ -149,7 +210,7 @@ public class XTUMLRT2CppCodeGenerator {
 	 * @return An {@link IStatus} with the result.
 	 */
 	public IStatus generate(List<EObject> inputElements) {
-		long start = System.currentTimeMillis();
+		GenerationProfiler.Timer timer = profiler.start(GenerationProfiler.COLLECTION);
 		MultiStatus status = new MultiStatus(CodeGenPlugin.ID, IStatus.OK, "UML-RT Code Generation", null);
 
 		Map<GeneratorKey, AbstractElementGenerator> generators = new LinkedHashMap<>();
@@ -162,7 +223,7 @@ public class XTUMLRT2CppCodeGenerator {
 				status.add(CodeGenPlugin.error("Error while examining model changes"));
 			}
 		}
-		status.add(CodeGenPlugin.info("Examined model changes " + (System.currentTimeMillis() - start) + "ms"));
+		status.add(CodeGenPlugin.info("Examined model changes " + timer.stop() + "ms"));
 
 		Set<FileName> srcFileNames = new LinkedHashSet<>();
 		for (AbstractElementGenerator gen : generators.values()) {
@@ -170,32 +231,358 @@ public class XTUMLRT2CppCodeGenerator {
 		}
 		cpp.setFilenames(srcFileNames);
 
-		start = System.currentTimeMillis();
+		Map<GeneratorKey, AbstractElementGenerator> collected = new LinkedHashMap<>(generators);
+		timer = profiler.start(GenerationProfiler.PRUNE);
 		changeTracker.prune(generators);
-		status.add(CodeGenPlugin.info("Prune unchanged elements " + (System.currentTimeMillis() - start) + "ms"));
+		restoreSiblings(collected, generators);
+		status.add(CodeGenPlugin.info("Prune unchanged elements " + timer.stop() + "ms"));
+
+		// Run the generators, then the pruned generators that read a C++ symbol whose value was changed by
+		// the generators that ran, until there are none left.
+		Map<GeneratorKey, AbstractElementGenerator> pruned = new LinkedHashMap<>(collected);
+		pruned.keySet().removeAll(generators.keySet());
+		Map<GeneratorKey, AbstractElementGenerator> all = new LinkedHashMap<>();
+		Map<GeneratorKey, AbstractElementGenerator> round = generators;
+		while (!round.isEmpty()) {
+			generate(round, status);
+			all.putAll(round);
+			round = changeTracker.getStaleDependents(pruned, round.keySet());
+			if (!round.isEmpty()) {
+				restoreSiblings(collected, round);
+				pruned.keySet().removeAll(round.keySet());
+				status.add(CodeGenPlugin.info("Regenerating " + round.size() + " elements reading changed symbols"));
+			}
+		}
+
+		timer = profiler.start(GenerationProfiler.CONSUME_CHANGES);
+		changeTracker.consumeChanges(all);
+		status.add(CodeGenPlugin
+				.info("Consume changes to elements " + timer.stop() + "ms"));
+
+		return status;
+	}
+
+	/**
+	 * Run the given generators, in parallel or streaming mode if enabled.
+	 * 
+	 * @param generators
+	 *            - The {@link Map} from {@link GeneratorKey}s to {@link AbstractElementGenerator}s to run.
+	 * @param status
+	 *            - The {@link MultiStatus} where results are reported.
+	 */
+	private void generate(Map<GeneratorKey, AbstractElementGenerator> generators, MultiStatus status) {
+		if (parallelism > 1 && generators.size() > 1) {
+			generateInParallel(generators, status);
+		} else if (cpp.isStreamingWrite()) {
+			generateStreaming(generators, status);
+		} else {
+			for (Map.Entry<GeneratorKey, AbstractElementGenerator> entry : generators.entrySet()) {
+				report(entry.getKey(), entry.getValue(), runGenerator(entry.getKey(), entry.getValue()), status);
+			}
+		}
+	}
 
+	/**
+	 * Put back the pruned generators that contribute to the C++ class of an element being regenerated.
+	 * 
+	 * <p>
+	 * Several generators may contribute to the same C++ class (e.g. a capsule and its state machine). Since
+	 * the class is rebuilt from scratch, every pruned generator that contributes to the class of an element
+	 * being regenerated is put back into the collection of generators, in its original position. If the
+	 * {@link CppCodePattern} still holds the C++ elements of a previous generation, those of the elements
+	 * being regenerated are discarded.
+	 * 
+	 * @param collected
+	 *            - The {@link Map} of all the collected generators, before pruning.
+	 * @param generators
+	 *            - The {@link Map} of generators that survived pruning. It is updated in place.
+	 */
+	private void restoreSiblings(Map<GeneratorKey, AbstractElementGenerator> collected, Map<GeneratorKey, AbstractElementGenerator> generators) {
+		Set<NamedElement> owners = new LinkedHashSet<>();
 		for (GeneratorKey key : generators.keySet()) {
-			AbstractElementGenerator generator = generators.get(key);
-			try {
-				start = System.currentTimeMillis();
-				if (generator.generate()) {
-					status.add(CodeGenPlugin
-							.info(generator.getLabel() + ' ' + (System.currentTimeMillis() - start) + "ms"));
-					changeTracker.addAlreadyGenerated(key.kind, (NamedElement) key.object);
-				} else {
-					status.add(CodeGenPlugin.error("Error while generating " + generator.getLabel()));
+			if (key.kind == Kind.Structural) {
+				if (incremental) {
+					cpp.invalidate(CppCodePattern.Output.Deployment, (NamedElement) key.object);
 				}
-			} catch (Exception e) {
-				status.add(CodeGenPlugin.error(e));
+			} else {
+				owners.add(getOwner(key));
 			}
 		}
 
-		start = System.currentTimeMillis();
-		changeTracker.consumeChanges(generators);
-		status.add(CodeGenPlugin
-				.info("Consume changes to elements " + (System.currentTimeMillis() - start) + "ms"));
+		Map<GeneratorKey, AbstractElementGenerator> restored = new LinkedHashMap<>();
+		for (Map.Entry<GeneratorKey, AbstractElementGenerator> entry : collected.entrySet()) {
+			GeneratorKey key = entry.getKey();
+			if (generators.containsKey(key) || (key.kind != Kind.Structural && owners.contains(getOwner(key)))) {
+				restored.put(key, entry.getValue());
+			}
+		}
+		generators.clear();
+		generators.putAll(restored);
 
-		return status;
+		if (incremental) {
+			cpp.invalidate(owners);
+		}
+	}
+
+	/**
+	 * @param key
+	 *            - The {@link GeneratorKey} of a generator.
+	 * @return The element that owns the C++ class produced by the generator: the context of the generator
+	 *         if there is one (e.g. the entity of a behaviour), or the generated element otherwise.
+	 */
+	private static NamedElement getOwner(GeneratorKey key) {
+		return (NamedElement) (key.context != null ? key.context : key.object);
+	}
+
+	/**
+	 * Run the given generators on a fork-join pool.
+	 * 
+	 * <p>
+	 * Generators are partitioned into groups that write to the same C++ elements: a generator is placed in the
+	 * group of the element that owns the class it generates (the entity for behaviours), and every element of a
+	 * redefinition hierarchy is placed in the group of the root of the hierarchy. The groups run concurrently,
+	 * while the generators within a group run sequentially in their original order, so the generated model
+	 * does not depend on thread scheduling. Results are reported in the original order of the generators.
+	 * 
+	 * <p>
+	 * Generators of different groups only share C++ elements through the synchronized factory methods of the
+	 * {@link CppCodePattern}, which creates the members of a protocol shared with the capsules using it
+	 * (its role classes and signal ids) together with the protocol namespace. Bounds are evaluated through
+	 * the {@link BoundsEvaluator}, which serializes access to the shared evaluator.
+	 * 
+	 * @param generators
+	 *            - The {@link Map} from {@link GeneratorKey}s to {@link AbstractElementGenerator}s to run.
+	 * @param status
+	 *            - The {@link MultiStatus} where results are reported.
+	 */
+	private void generateInParallel(Map<GeneratorKey, AbstractElementGenerator> generators, MultiStatus status) {
+		long start = System.currentTimeMillis();
+		final List<GeneratorKey> keys = new ArrayList<>(generators.keySet());
+		final GeneratorResult[] results = new GeneratorResult[keys.size()];
+		final Map<EObject, List<Integer>> groups = getGenerationGroups(keys);
+		final Set<NamedElement> failedFlushes = Collections.synchronizedSet(new LinkedHashSet<NamedElement>());
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+			for (final List<Integer> members : groups.values()) {
+				tasks.add(pool.submit(new Runnable() {
+					@Override
+					public void run() {
+						for (int i : members) {
+							results[i] = runGenerator(keys.get(i), generators.get(keys.get(i)));
+						}
+						flush(keys, members, failedFlushes);
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		for (int i = 0; i < keys.size(); ++i) {
+			GeneratorKey key = keys.get(i);
+			report(key, generators.get(key), results[i], status);
+		}
+		reportFailedFlushes(failedFlushes, status);
+		status.add(CodeGenPlugin.info("Generated " + groups.size() + " element groups on " + parallelism + " threads "
+				+ (System.currentTimeMillis() - start) + "ms"));
+	}
+
+	/**
+	 * Run the given generators sequentially, in their original order, and {@link CppCodePattern#flush(Collection)
+	 * flush} the C++ elements of each group of generators (see {@link #getGenerationGroup(GeneratorKey)}) as
+	 * soon as its last generator completes.
+	 * 
+	 * @param generators
+	 *            - The {@link Map} from {@link GeneratorKey}s to {@link AbstractElementGenerator}s to run.
+	 * @param status
+	 *            - The {@link MultiStatus} where results are reported.
+	 */
+	private void generateStreaming(Map<GeneratorKey, AbstractElementGenerator> generators, MultiStatus status) {
+		List<GeneratorKey> keys = new ArrayList<>(generators.keySet());
+		Map<Integer, List<Integer>> lastMembers = new HashMap<>();
+		for (List<Integer> members : getGenerationGroups(keys).values()) {
+			lastMembers.put(members.get(members.size() - 1), members);
+		}
+
+		Set<NamedElement> failedFlushes = new LinkedHashSet<>();
+		for (int i = 0; i < keys.size(); ++i) {
+			GeneratorKey key = keys.get(i);
+			AbstractElementGenerator generator = generators.get(key);
+			report(key, generator, runGenerator(key, generator), status);
+			List<Integer> members = lastMembers.get(i);
+			if (members != null) {
+				flush(keys, members, failedFlushes);
+			}
+		}
+		reportFailedFlushes(failedFlushes, status);
+	}
+
+	/**
+	 * Flush the C++ elements of a group of generators that completed, in streaming mode.
+	 * 
+	 * @param keys
+	 *            - The {@link GeneratorKey}s of all the generators.
+	 * @param members
+	 *            - The positions in {@code keys} of the generators of the group.
+	 * @param failedFlushes
+	 *            - The {@link Set} where the elements are added if the flush fails.
+	 */
+	private void flush(List<GeneratorKey> keys, List<Integer> members, Set<NamedElement> failedFlushes) {
+		if (!cpp.isStreamingWrite()) {
+			return;
+		}
+		Set<NamedElement> owners = new LinkedHashSet<>();
+		for (int i : members) {
+			owners.add(getOwner(keys.get(i)));
+		}
+		GenerationProfiler.Timer timer = profiler.start(GenerationProfiler.STREAM_WRITE);
+		boolean flushed = cpp.flush(owners);
+		timer.stop();
+		if (!flushed) {
+			failedFlushes.addAll(owners);
+		}
+	}
+
+	/**
+	 * @param failedFlushes
+	 *            - The elements whose files could not be written in streaming mode.
+	 * @param status
+	 *            - The {@link MultiStatus} where the failures are reported.
+	 */
+	private static void reportFailedFlushes(Set<NamedElement> failedFlushes, MultiStatus status) {
+		for (NamedElement element : failedFlushes) {
+			status.add(CodeGenPlugin.error("Failed to write the generated files of " + element.getName()));
+		}
+	}
+
+	/**
+	 * Partition generators into the groups given by {@link #getGenerationGroup(GeneratorKey)}.
+	 * 
+	 * @param keys
+	 *            - The {@link GeneratorKey}s of the generators, in their original order.
+	 * @return A {@link Map} from each group to the positions of its generators in {@code keys}, in order.
+	 */
+	private static Map<EObject, List<Integer>> getGenerationGroups(List<GeneratorKey> keys) {
+		Map<EObject, List<Integer>> groups = new LinkedHashMap<>();
+		for (int i = 0; i < keys.size(); ++i) {
+			EObject group = getGenerationGroup(keys.get(i));
+			List<Integer> members = groups.get(group);
+			if (members == null) {
+				members = new ArrayList<>();
+				groups.put(group, members);
+			}
+			members.add(i);
+		}
+		return groups;
+	}
+
+	/**
+	 * Determine the group of a generator for parallel generation.
+	 * 
+	 * @param key
+	 *            - The {@link GeneratorKey} of the generator.
+	 * @return The element whose generators must run sequentially with the given generator.
+	 */
+	private static EObject getGenerationGroup(GeneratorKey key) {
+		EObject owner = getOwner(key);
+		if (owner instanceof Behaviour && owner.eContainer() instanceof Entity) {
+			owner = owner.eContainer();
+		}
+		Set<EObject> visited = new HashSet<>();
+		while (owner instanceof RedefinableElement
+				&& ((RedefinableElement) owner).getRedefines() != null
+				&& visited.add(owner)) {
+			owner = ((RedefinableElement) owner).getRedefines();
+		}
+		return owner;
+	}
+
+	/**
+	 * Run a single generator. Its execution is measured as a phase of the profiler named after its kind, and
+	 * the C++ symbols it reads through the {@link CppCodePattern} are recorded.
+	 * 
+	 * @param key
+	 *            - The {@link GeneratorKey} of the generator.
+	 * @param generator
+	 *            - An {@link AbstractElementGenerator}.
+	 * @return The {@link GeneratorResult}.
+	 */
+	private GeneratorResult runGenerator(GeneratorKey key, AbstractElementGenerator generator) {
+		GenerationProfiler.Timer timer = profiler.start(GenerationProfiler.GENERATE_PREFIX + key.kind.name());
+		cpp.beginRecordingReads();
+		try {
+			boolean success = generator.generate();
+			return new GeneratorResult(success, timer.stop(), null, cpp.endRecordingReads());
+		} catch (Exception e) {
+			return new GeneratorResult(false, timer.stop(), e, cpp.endRecordingReads());
+		}
+	}
+
+	/**
+	 * Report the result of a generator and record the element as generated, with the C++ symbols it read,
+	 * if successful.
+	 * 
+	 * @param key
+	 *            - The {@link GeneratorKey} of the generator.
+	 * @param generator
+	 *            - The {@link AbstractElementGenerator}.
+	 * @param result
+	 *            - The {@link GeneratorResult} of running the generator.
+	 * @param status
+	 *            - The {@link MultiStatus} where the result is reported.
+	 */
+	private void report(GeneratorKey key, AbstractElementGenerator generator, GeneratorResult result, MultiStatus status) {
+		if (result.exception != null) {
+			status.add(CodeGenPlugin.error(result.exception));
+		} else if (result.success) {
+			status.add(CodeGenPlugin.info(generator.getLabel() + ' ' + result.elapsed + "ms"));
+			changeTracker.addDependencies(key.kind, (NamedElement) key.object, result.reads);
+			changeTracker.addAlreadyGenerated(key.kind, (NamedElement) key.object);
+		} else {
+			status.add(CodeGenPlugin.error("Error while generating " + generator.getLabel()));
+		}
+	}
+
+	/**
+	 * The outcome of running a single element generator.
+	 */
+	private static class GeneratorResult {
+
+		/** Whether the generator succeeded. */
+		public final boolean success;
+
+		/** The time taken by the generator, in milliseconds. */
+		public final long elapsed;
+
+		/** The exception thrown by the generator, if any. */
+		public final Exception exception;
+
+		/** The C++ symbols read by the generator. */
+		public final Set<CppCodePattern.Symbol> reads;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param success
+		 *            - Whether the generator succeeded.
+		 * @param elapsed
+		 *            - The time taken by the generator, in milliseconds.
+		 * @param exception
+		 *            - The exception thrown by the generator, if any.
+		 * @param reads
+		 *            - The C++ symbols read by the generator.
+		 */
+		GeneratorResult(boolean success, long elapsed, Exception exception, Set<CppCodePattern.Symbol> reads) {
+			this.success = success;
+			this.elapsed = elapsed;
+			this.exception = exception;
+			this.reads = reads;
+		}
 	}
 
 	/**
@@ -298,6 +685,9 @@ public class XTUMLRT2CppCodeGenerator {
 		/** The map from (kind, element, context) triples to element generators. */
 		public final Map<GeneratorKey, AbstractElementGenerator> generators;
 
+		/** The capsules of each model indexed by the types of their ports, built on demand. */
+		private final Map<BaseContainer, Map<EObject, Set<Capsule>>> protocolIndexes = new HashMap<>();
+
 		/**
 		 * Constructor.
 		 *
@@ -338,6 +728,39 @@ public class XTUMLRT2CppCodeGenerator {
 			return true;
 		}
 
+		/**
+		 * Obtain the capsules with a port typed by the given protocol. The capsules of a model are indexed by
+		 * protocol on the first request, so the model is scanned once per generation rather than once per
+		 * protocol.
+		 * 
+		 * @param root
+		 *            - The root {@link BaseContainer} of the model.
+		 * @param protocol
+		 *            - A {@link Protocol}.
+		 * @return The capsules with a port, owned or inherited, typed by the protocol.
+		 */
+		private Collection<Capsule> getCapsules(BaseContainer root, Protocol protocol) {
+			Map<EObject, Set<Capsule>> index = protocolIndexes.get(root);
+			if (index == null) {
+				index = new HashMap<>();
+				for (Capsule capsule : XTUMLRTExtensions.getAllCapsules(root)) {
+					for (Port port : XTUMLRTExtensions.getAllRTPorts(capsule)) {
+						if (port.getType() != null) {
+							Set<Capsule> capsules = index.get(port.getType());
+							if (capsules == null) {
+								capsules = new LinkedHashSet<>();
+								index.put(port.getType(), capsules);
+							}
+							capsules.add(capsule);
+						}
+					}
+				}
+				protocolIndexes.put(root, index);
+			}
+			Set<Capsule> capsules = index.get(protocol);
+			return capsules == null ? Collections.<Capsule> emptySet() : capsules;
+		}
+
 		/**
 		 * Assign an empty state machine to the given {@link Entity}.
 		 * 
@@ -444,12 +867,8 @@ public class XTUMLRT2CppCodeGenerator {
 				if (root == null) {
 					return true;
 				}
-				for (Capsule capsule : XTUMLRTExtensions.getAllCapsules(root)) {
-					for (Port port : XTUMLRTExtensions.getAllRTPorts(capsule)) {
-						if (port.getType() == protocol) {
-							doSwitch(capsule);
-						}
-					}
+				for (Capsule capsule : getCapsules(root, protocol)) {
+					doSwitch(capsule);
 				}
 			}
 			return true;
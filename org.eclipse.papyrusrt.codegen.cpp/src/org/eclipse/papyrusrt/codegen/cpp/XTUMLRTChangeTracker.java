@@ -8,6 +8,7 @@
 package org.eclipse.papyrusrt.codegen.cpp;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -71,6 +72,17 @@ public class XTUMLRTChangeTracker implements ChangeTracker {
 		// TODO Auto-generated method stub
 	}
 
+	@Override
+	public void addDependencies(Kind kind, NamedElement object, Collection<CppCodePattern.Symbol> reads) {
+		// TODO Auto-generated method stub
+	}
+
+	@Override
+	public Map<GeneratorKey, AbstractElementGenerator> getStaleDependents(Map<GeneratorKey, AbstractElementGenerator> pruned,
+			Collection<GeneratorKey> generated) {
+		return Collections.emptyMap();
+	}
+
 	@Override
 	public Collection<EObject> getAllChanged() {
 		// TODO Auto-generated method stub
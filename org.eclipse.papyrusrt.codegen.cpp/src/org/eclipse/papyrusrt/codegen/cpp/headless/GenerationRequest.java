@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.headless;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * A request to the {@link GeneratorDaemon}, read from a single-line JSON object such as
+ * {@code {"id": "1", "model": "/models/Ping.uml", "top": "Top", "output": "/out/Ping"}}.
+ *
+ * <p>
+ * The members are:
+ * <ul>
+ * <li>{@code command}: {@code "generate"} (the default) or {@code "shutdown"} to stop the daemon;
+ * <li>{@code id}: an optional identifier echoed in the response;
+ * <li>{@code model}: the path or URI of the UML-RT model;
+ * <li>{@code top}: the name of the top capsule (default: {@code "Top"});
+ * <li>{@code output}: the output folder (default: a {@code <model>_CDTProject/src} folder next to the model);
+ * <li>{@code regenerate}: {@code true} to regenerate all the files instead of the changed ones.
+ * </ul>
+ */
+public class GenerationRequest {
+
+	/** The command generating a model. */
+	public static final String GENERATE = "generate";
+
+	/** The command stopping the daemon. */
+	public static final String SHUTDOWN = "shutdown";
+
+	/** The default name of the top capsule. */
+	public static final String DEFAULT_TOP = "Top";
+
+	/** The command. */
+	private final String command;
+
+	/** The identifier of the request, or {@code null}. */
+	private final String id;
+
+	/** The path or URI of the model, or {@code null}. */
+	private final String model;
+
+	/** The name of the top capsule. */
+	private final String top;
+
+	/** The output folder, or {@code null} for the default one. */
+	private final String output;
+
+	/** Whether all the files are regenerated. */
+	private final boolean regenerate;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param command
+	 *            - The command, {@link #GENERATE} or {@link #SHUTDOWN}.
+	 * @param id
+	 *            - The identifier of the request, or {@code null}.
+	 * @param model
+	 *            - The path or URI of the model, or {@code null}.
+	 * @param top
+	 *            - The name of the top capsule, or {@code null} for {@link #DEFAULT_TOP}.
+	 * @param output
+	 *            - The output folder, or {@code null} for the default one.
+	 * @param regenerate
+	 *            - Whether all the files are regenerated.
+	 */
+	public GenerationRequest(String command, String id, String model, String top, String output, boolean regenerate) {
+		this.command = command == null ? GENERATE : command;
+		this.id = id;
+		this.model = model;
+		this.top = top == null ? DEFAULT_TOP : top;
+		this.output = output;
+		this.regenerate = regenerate;
+	}
+
+	/**
+	 * @param line
+	 *            - A JSON object.
+	 * @return The {@link GenerationRequest}.
+	 * @throws IllegalArgumentException
+	 *             if the line is not a valid request.
+	 */
+	public static GenerationRequest parse(String line) {
+		Map<String, Object> members = Json.parseObject(line);
+		String command = getString(members, "command");
+		if (command != null && !GENERATE.equals(command) && !SHUTDOWN.equals(command)) {
+			throw new IllegalArgumentException("Unknown command " + command);
+		}
+		Object regenerate = members.get("regenerate");
+		if (regenerate != null && !(regenerate instanceof Boolean)) {
+			throw new IllegalArgumentException("Expected a boolean for regenerate");
+		}
+		GenerationRequest request = new GenerationRequest(command, getString(members, "id"), getString(members, "model"),
+				getString(members, "top"), getString(members, "output"), Boolean.TRUE.equals(regenerate));
+		if (GENERATE.equals(request.command) && request.model == null) {
+			throw new IllegalArgumentException("Missing model");
+		}
+		return request;
+	}
+
+	/**
+	 * @param members
+	 *            - The members of a JSON object.
+	 * @param name
+	 *            - The name of a member.
+	 * @return The string value of the member, or {@code null} if absent.
+	 * @throws IllegalArgumentException
+	 *             if the value is not a string or a number.
+	 */
+	private static String getString(Map<String, Object> members, String name) {
+		Object value = members.get(name);
+		if (value == null || value instanceof String) {
+			return (String) value;
+		}
+		if (value instanceof Number) {
+			double number = ((Number) value).doubleValue();
+			return number == Math.rint(number) ? Long.toString((long) number) : value.toString();
+		}
+		throw new IllegalArgumentException("Expected a string for " + name);
+	}
+
+	/**
+	 * @return The command, {@link #GENERATE} or {@link #SHUTDOWN}.
+	 */
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * @return The identifier of the request, or {@code null}.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return The path or URI of the model, or {@code null}.
+	 */
+	public String getModel() {
+		return model;
+	}
+
+	/**
+	 * @return The name of the top capsule.
+	 */
+	public String getTop() {
+		return top;
+	}
+
+	/**
+	 * @return The output folder, or {@code null} for the default one.
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	/**
+	 * @param modelFile
+	 *            - The model file.
+	 * @return The output folder of the request, or the default one for the model.
+	 */
+	public File getOutputFolder(File modelFile) {
+		if (output != null) {
+			return new File(output).getAbsoluteFile();
+		}
+		String name = modelFile.getName();
+		int dot = name.lastIndexOf('.');
+		if (dot > 0) {
+			name = name.substring(0, dot);
+		}
+		return new File(new File(modelFile.getAbsoluteFile().getParentFile(), name + "_CDTProject"), "src");
+	}
+
+	/**
+	 * @return {@code true} iff all the files are regenerated.
+	 */
+	public boolean isRegenerate() {
+		return regenerate;
+	}
+
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.headless;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * Headless application generating C++ code from UML-RT models without the Papyrus UI.
+ *
+ * <p>
+ * Run as {@code eclipse -application org.eclipse.papyrusrt.codegen.cpp.generate [options]}, with the options:
+ * <ul>
+ * <li>{@code -model file.uml}, {@code -top name}, {@code -output folder}, {@code -regenerate true}: generate
+ * a single model and exit, with code 1 if the generation failed. The {@link IStatus} of the generation is
+ * printed as JSON;
+ * <li>{@code -port n}: without {@code -model}, run a {@link GeneratorDaemon} serving the connections to the
+ * given port of the loopback interface, one at a time, until a {@code shutdown} request. Port 0 selects a
+ * free port, which is printed on the standard error;
+ * <li>{@code -maxModels n}: the maximum number of models the daemon keeps loaded;
+ * <li>{@code -outputRoot folder}: the folder that has to contain the output folder of every request (see
+ * {@link GeneratorDaemon#setOutputRoot(File)}). With {@code -port}, it defaults to the working directory.
+ * </ul>
+ * Without {@code -model} and {@code -port}, the daemon serves the requests read from the standard input, and
+ * writes the responses to the standard output. See {@link GenerationRequest} for the format of the requests.
+ *
+ * <p>
+ * The port of the loopback interface is not authenticated: any local user can connect to it and have the
+ * daemon, with the rights of its process, read models and write generated files. With {@code -port}, the
+ * output folders are therefore restricted to the {@code -outputRoot}, and the daemon should not be run on a
+ * host shared with untrusted users.
+ */
+public class GeneratorApplication implements IApplication {
+
+	/** The exit code when a generation failed. */
+	public static final Integer EXIT_ERROR = Integer.valueOf(1);
+
+	/** The daemon serving the requests. */
+	private final GeneratorDaemon daemon = new GeneratorDaemon();
+
+	/** The server socket of the daemon, or {@code null}. */
+	private volatile ServerSocket serverSocket;
+
+	@Override
+	public Object start(IApplicationContext context) throws Exception {
+		Map<String, String> options = parse((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS));
+		String maxModels = options.get("maxModels");
+		if (maxModels != null) {
+			daemon.setMaxModels(Integer.parseInt(maxModels));
+		}
+		String outputRoot = options.get("outputRoot");
+		if (outputRoot != null) {
+			daemon.setOutputRoot(new File(outputRoot));
+		} else if (options.containsKey("port") && !options.containsKey("model")) {
+			// Any local user can connect to the port: do not let them write anywhere
+			daemon.setOutputRoot(new File(System.getProperty("user.dir")));
+		}
+		try {
+			if (options.containsKey("model")) {
+				return generate(options);
+			}
+			if (options.containsKey("port")) {
+				serve(Integer.parseInt(options.get("port")));
+			} else {
+				serveStandardInput();
+			}
+			return IApplication.EXIT_OK;
+		} finally {
+			daemon.dispose();
+		}
+	}
+
+	@Override
+	public void stop() {
+		ServerSocket socket = serverSocket;
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// The daemon stops anyway
+			}
+		}
+	}
+
+	/**
+	 * Generate a single model.
+	 *
+	 * @param options
+	 *            - The options.
+	 * @return The exit code.
+	 */
+	private Object generate(Map<String, String> options) {
+		long start = System.currentTimeMillis();
+		GenerationRequest request = new GenerationRequest(GenerationRequest.GENERATE, null, options.get("model"),
+				options.get("top"), options.get("output"), Boolean.parseBoolean(options.get("regenerate")));
+		IStatus status = daemon.handle(request);
+		System.out.println(GeneratorDaemon.toJson(null, status, System.currentTimeMillis() - start));
+		return status.getSeverity() >= IStatus.ERROR ? EXIT_ERROR : IApplication.EXIT_OK;
+	}
+
+	/**
+	 * Serve the requests read from the standard input. Anything else printed on the standard output while
+	 * generating is redirected to the standard error, so that the standard output only holds responses.
+	 *
+	 * @throws IOException
+	 *             if the requests cannot be read or the responses written.
+	 */
+	private void serveStandardInput() throws IOException {
+		PrintStream stdout = System.out;
+		System.setOut(System.err);
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+			Writer out = new OutputStreamWriter(stdout, StandardCharsets.UTF_8);
+			daemon.serve(in, out);
+		} finally {
+			System.setOut(stdout);
+		}
+	}
+
+	/**
+	 * Serve the connections to a port of the loopback interface until a shutdown request or {@link #stop()}.
+	 * Any local user can connect, so the output folders should be restricted (see
+	 * {@link GeneratorDaemon#setOutputRoot(File)}).
+	 *
+	 * @param port
+	 *            - The port, or 0 for a free port.
+	 * @throws IOException
+	 *             if the socket cannot be opened.
+	 */
+	private void serve(int port) throws IOException {
+		try (ServerSocket socket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+			serverSocket = socket;
+			System.err.println("Papyrus-RT code generator listening on port " + socket.getLocalPort()
+					+ (daemon.getOutputRoot() == null ? "" : ", writing into " + daemon.getOutputRoot()));
+			boolean shutdown = false;
+			while (!shutdown) {
+				try (Socket connection = socket.accept()) {
+					BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+					Writer out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8);
+					shutdown = daemon.serve(in, out);
+				} catch (SocketException e) {
+					if (socket.isClosed()) {
+						break;
+					}
+					System.err.println("Connection closed: " + e.getMessage());
+				}
+			}
+		} finally {
+			serverSocket = null;
+		}
+	}
+
+	/**
+	 * @param args
+	 *            - The application arguments, of the form {@code -key value}.
+	 * @return The options, indexed by key without the leading {@code '-'}.
+	 */
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; args != null && i + 1 < args.length; ++i) {
+			if (args[i].startsWith("-")) {
+				options.put(args[i].substring(1), args[++i]);
+			}
+		}
+		return options;
+	}
+
+}
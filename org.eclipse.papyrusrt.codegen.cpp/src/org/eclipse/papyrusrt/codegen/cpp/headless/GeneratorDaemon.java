@@ -0,0 +1,339 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.headless;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.papyrusrt.codegen.CodeGenPlugin;
+import org.eclipse.papyrusrt.codegen.cpp.CppCodeGenPlugin;
+
+/**
+ * Serves {@link GenerationRequest}s in a long-running process, so that successive generations do not pay for
+ * the start-up of the platform and for loading the models again.
+ *
+ * <p>
+ * The {@link ResourceSet} of each model and its {@link HeadlessCodeGenerator} are kept between requests for
+ * the same model and output folder, so that the generation session (the translation to xtUML-RT and the C++
+ * model of the elements that did not change) is reused. When a file of a kept resource set changes on disk,
+ * the model is loaded again in a new resource set, with a new generation session: the elements that did not
+ * change are then only skipped when the generation manifest shows their files are up to date. At most
+ * {@link #setMaxModels(int) a number} of models are kept, the least recently used being unloaded first.
+ *
+ * <p>
+ * Requests and responses are single lines of JSON. The response to a request is an object with the members
+ * {@code id} (echoing the request), {@code status} (the {@link IStatus} of the generation, with its children)
+ * and {@code elapsedMillis}. A request that fails, whatever the reason, gets an error status; the daemon
+ * goes on serving the next requests.
+ *
+ * <p>
+ * The daemon reads any model and writes into any output folder its process can access. When the requests
+ * come from a less trusted source than the process itself, such as the other users of a host, the output
+ * folders should be restricted with {@link #setOutputRoot(File)}.
+ */
+public class GeneratorDaemon {
+
+	/** The system property giving the default maximum number of models kept loaded. */
+	public static final String MAX_MODELS_PROPERTY = CppCodeGenPlugin.ID + ".daemon.maxModels";
+
+	/** The models kept loaded, by model URI and output folder, from the least to the most recently used. */
+	private final Map<String, WarmModel> models = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** The maximum number of models kept loaded. */
+	private int maxModels = Math.max(1, Integer.getInteger(MAX_MODELS_PROPERTY, 8));
+
+	/** The folder containing all the output folders, or {@code null} if they are not restricted. */
+	private File outputRoot;
+
+	/**
+	 * @return The maximum number of models kept loaded.
+	 */
+	public synchronized int getMaxModels() {
+		return maxModels;
+	}
+
+	/**
+	 * @param maxModels
+	 *            - The maximum number of models kept loaded between requests. Defaults to the
+	 *            {@link #MAX_MODELS_PROPERTY} system property, or 8.
+	 */
+	public synchronized void setMaxModels(int maxModels) {
+		this.maxModels = Math.max(1, maxModels);
+		evict();
+	}
+
+	/**
+	 * @return The folder containing all the output folders, or {@code null} if they are not restricted.
+	 */
+	public synchronized File getOutputRoot() {
+		return outputRoot;
+	}
+
+	/**
+	 * @param outputRoot
+	 *            - The folder that has to contain the output folder of every request, or {@code null} to accept
+	 *            any output folder. Requests for another output folder are rejected with an error status.
+	 * @throws IOException
+	 *             if the canonical path of the folder cannot be determined.
+	 */
+	public synchronized void setOutputRoot(File outputRoot) throws IOException {
+		this.outputRoot = outputRoot == null ? null : outputRoot.getCanonicalFile();
+	}
+
+	/**
+	 * Serve the requests read from a stream, one per line, until its end or a {@link GenerationRequest#SHUTDOWN
+	 * shutdown} request.
+	 *
+	 * @param in
+	 *            - The {@link BufferedReader} of the requests.
+	 * @param out
+	 *            - The {@link Writer} where the responses are written, one per line.
+	 * @return {@code true} iff a shutdown was requested.
+	 * @throws IOException
+	 *             if the requests cannot be read or the responses written.
+	 */
+	public boolean serve(BufferedReader in, Writer out) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			long start = System.currentTimeMillis();
+			GenerationRequest request = null;
+			IStatus status;
+			try {
+				request = GenerationRequest.parse(line);
+				status = handle(request);
+			} catch (IllegalArgumentException e) {
+				status = CodeGenPlugin.error("Invalid request: " + e.getMessage());
+			} catch (RuntimeException e) {
+				status = CodeGenPlugin.error("Request failed: " + e, e);
+			}
+			out.write(toJson(request == null ? null : request.getId(), status, System.currentTimeMillis() - start));
+			out.write('\n');
+			out.flush();
+			if (request != null && GenerationRequest.SHUTDOWN.equals(request.getCommand())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param request
+	 *            - A {@link GenerationRequest}.
+	 * @return The {@link IStatus} of the generation.
+	 */
+	public synchronized IStatus handle(GenerationRequest request) {
+		if (GenerationRequest.SHUTDOWN.equals(request.getCommand())) {
+			dispose();
+			return new Status(IStatus.OK, CodeGenPlugin.ID, "Shutting down");
+		}
+
+		URI uri = getModelURI(request.getModel());
+		if (!uri.isFile() && request.getOutput() == null) {
+			return CodeGenPlugin.error("An output folder is required for " + uri);
+		}
+		File outputFolder = request.getOutputFolder(uri.isFile() ? new File(uri.toFileString()) : null);
+		if (!isUnderOutputRoot(outputFolder)) {
+			return CodeGenPlugin.error("The output folder " + outputFolder + " is not in " + outputRoot);
+		}
+		String key = uri + "\n" + outputFolder;
+
+		WarmModel model = models.get(key);
+		if (model != null && model.isStale()) {
+			models.remove(key);
+			model.unload();
+			model = null;
+		}
+		if (model == null) {
+			try {
+				model = new WarmModel(uri, outputFolder);
+			} catch (RuntimeException e) {
+				return CodeGenPlugin.error("Unable to load the model " + uri, e);
+			}
+			models.put(key, model);
+			evict();
+		}
+		return model.generate(request.getTop(), request.isRegenerate());
+	}
+
+	/**
+	 * Unload all the models kept loaded.
+	 */
+	public synchronized void dispose() {
+		for (WarmModel model : models.values()) {
+			model.unload();
+		}
+		models.clear();
+	}
+
+	/**
+	 * @param outputFolder
+	 *            - An output folder.
+	 * @return {@code true} iff output folders are not restricted, or the folder is in the {@link #outputRoot}.
+	 */
+	private boolean isUnderOutputRoot(File outputFolder) {
+		if (outputRoot == null) {
+			return true;
+		}
+		try {
+			// Canonical paths, so that neither '..' nor a symbolic link leads out of the root
+			return outputFolder.getCanonicalFile().toPath().startsWith(outputRoot.toPath());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Unload the least recently used models beyond the {@link #maxModels maximum}.
+	 */
+	private void evict() {
+		while (models.size() > maxModels) {
+			String eldest = models.keySet().iterator().next();
+			models.remove(eldest).unload();
+		}
+	}
+
+	/**
+	 * @param model
+	 *            - A path or URI.
+	 * @return The URI of the model.
+	 */
+	private static URI getModelURI(String model) {
+		File file = new File(model);
+		if (file.exists()) {
+			return URI.createFileURI(file.getAbsolutePath());
+		}
+		URI uri = URI.createURI(model);
+		return uri.isRelative() ? URI.createFileURI(file.getAbsolutePath()) : uri;
+	}
+
+	/**
+	 * @param id
+	 *            - The identifier of the request, or {@code null}.
+	 * @param status
+	 *            - The {@link IStatus} of the request.
+	 * @param elapsedMillis
+	 *            - The time taken by the request.
+	 * @return The response, as a single line of JSON.
+	 */
+	static String toJson(String id, IStatus status, long elapsedMillis) {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"id\": ");
+		Json.appendString(json, id);
+		json.append(", \"status\": ");
+		Json.appendStatus(json, status);
+		json.append(", \"elapsedMillis\": ").append(elapsedMillis);
+		return json.append('}').toString();
+	}
+
+	/**
+	 * A model kept loaded with its code generator.
+	 */
+	private static class WarmModel {
+
+		/** The URI of the model. */
+		private final URI uri;
+
+		/** The {@link ResourceSet} of the model, its libraries and external packages. */
+		private final ResourceSet resourceSet = new ResourceSetImpl();
+
+		/** The code generator, whose session is reused between generations. */
+		private final HeadlessCodeGenerator generator;
+
+		/** The modification time of the file of each loaded resource, after the last generation. */
+		private final Map<URI, Long> timestamps = new HashMap<>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param uri
+		 *            - The URI of the model, which is loaded.
+		 * @param outputFolder
+		 *            - The output folder.
+		 */
+		WarmModel(URI uri, File outputFolder) {
+			this.uri = uri;
+			resourceSet.getResource(uri, true);
+			generator = new HeadlessCodeGenerator(outputFolder);
+		}
+
+		/**
+		 * @param top
+		 *            - The name of the top capsule.
+		 * @param regenerate
+		 *            - Whether all the files are regenerated.
+		 * @return The {@link IStatus} of the generation.
+		 */
+		IStatus generate(String top, boolean regenerate) {
+			Resource resource = resourceSet.getResource(uri, true);
+			if (resource.getContents().isEmpty()) {
+				return CodeGenPlugin.error("The model " + uri + " is empty");
+			}
+			List<EObject> elements = Collections.singletonList(resource.getContents().get(0));
+			generator.setRegenerate(regenerate);
+			IStatus status = generator.generate(elements, top, true);
+			recordTimestamps();
+			return status;
+		}
+
+		/**
+		 * Record the modification time of the file of each loaded resource.
+		 */
+		private void recordTimestamps() {
+			timestamps.clear();
+			for (Resource resource : new ArrayList<>(resourceSet.getResources())) {
+				URI resourceURI = resource.getURI();
+				if (resourceURI != null && resourceURI.isFile()) {
+					timestamps.put(resourceURI, new File(resourceURI.toFileString()).lastModified());
+				}
+			}
+		}
+
+		/**
+		 * @return {@code true} iff the file of a loaded resource changed since the last generation.
+		 */
+		boolean isStale() {
+			for (Map.Entry<URI, Long> entry : timestamps.entrySet()) {
+				if (new File(entry.getKey().toFileString()).lastModified() != entry.getValue()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Unload the resources of the model, after the change tracking of the generator forgets them.
+		 */
+		void unload() {
+			List<Resource> resources = new ArrayList<>(resourceSet.getResources());
+			generator.closeResources(resources);
+			for (Resource resource : resources) {
+				resource.unload();
+			}
+			resourceSet.getResources().clear();
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.headless;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.papyrusrt.codegen.cpp.AbstractUMLRT2CppCodeGenerator;
+import org.eclipse.papyrusrt.codegen.cpp.XTUMLRT2CppCodeGenerator;
+
+/**
+ * A code generator for headless generation, generating into a given folder instead of a CDT project.
+ * Its generation session is reused between generations of the same model.
+ */
+public class HeadlessCodeGenerator extends AbstractUMLRT2CppCodeGenerator {
+
+	/** The output folder. */
+	private final File outputFolder;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param outputFolder
+	 *            - The output folder.
+	 */
+	public HeadlessCodeGenerator(File outputFolder) {
+		this.outputFolder = outputFolder;
+		setStandalone(false);
+		setReuseSession(true);
+	}
+
+	/**
+	 * @return The output folder.
+	 */
+	public File getOutputFolder() {
+		return outputFolder;
+	}
+
+	/**
+	 * Forget the given resources, before they are unloaded, and discard the generation session.
+	 *
+	 * @param resources
+	 *            - The {@link Resource}s to be unloaded.
+	 */
+	public void closeResources(Collection<Resource> resources) {
+		for (Resource resource : resources) {
+			resetResource(resource);
+		}
+	}
+
+	@Override
+	protected File getModelFolder(EObject context) {
+		URI uri = context.eResource() == null ? null : context.eResource().getURI();
+		if (uri != null && uri.isFile()) {
+			return new File(uri.toFileString()).getAbsoluteFile().getParentFile();
+		}
+		return outputFolder;
+	}
+
+	@Override
+	protected File getOutputFolder(EObject context, XTUMLRT2CppCodeGenerator codeGen) {
+		return outputFolder;
+	}
+
+}
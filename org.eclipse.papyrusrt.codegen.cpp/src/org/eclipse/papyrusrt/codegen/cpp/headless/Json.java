@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.cpp.headless;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * The JSON encoding of the requests and responses of the {@link GeneratorDaemon}. Requests are flat objects
+ * whose members are strings, numbers, booleans or {@code null}.
+ */
+final class Json {
+
+	/** The names of the severities of an {@link IStatus}, indexed by the position of their bit. */
+	private static final String[] SEVERITIES = { "INFO", "WARNING", "ERROR", "CANCEL" };
+
+	/** The text to parse. */
+	private final String text;
+
+	/** The position of the next character to parse. */
+	private int position;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param text
+	 *            - The text to parse.
+	 */
+	private Json(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * @param text
+	 *            - A flat JSON object.
+	 * @return The members of the object, in order.
+	 * @throws IllegalArgumentException
+	 *             if the text is not a flat JSON object.
+	 */
+	static Map<String, Object> parseObject(String text) {
+		Json parser = new Json(text);
+		Map<String, Object> members = new LinkedHashMap<>();
+		parser.expect('{');
+		if (!parser.consume('}')) {
+			do {
+				String name = parser.parseString();
+				parser.expect(':');
+				members.put(name, parser.parseValue());
+			} while (parser.consume(','));
+			parser.expect('}');
+		}
+		parser.skipWhitespace();
+		if (parser.position < text.length()) {
+			throw parser.error("Unexpected text after the object");
+		}
+		return members;
+	}
+
+	/**
+	 * @return The string, number, boolean or {@code null} value at the current position.
+	 */
+	private Object parseValue() {
+		skipWhitespace();
+		if (position < text.length() && text.charAt(position) == '"') {
+			return parseString();
+		}
+		int start = position;
+		while (position < text.length() && "{}[]:,\" \t\r\n".indexOf(text.charAt(position)) < 0) {
+			++position;
+		}
+		String literal = text.substring(start, position);
+		switch (literal) {
+		case "true":
+			return Boolean.TRUE;
+		case "false":
+			return Boolean.FALSE;
+		case "null":
+			return null;
+		default:
+			try {
+				return Double.valueOf(literal);
+			} catch (NumberFormatException e) {
+				throw error("Unexpected value '" + literal + "'");
+			}
+		}
+	}
+
+	/**
+	 * @return The string literal at the current position, unescaped.
+	 */
+	private String parseString() {
+		expect('"');
+		StringBuilder string = new StringBuilder();
+		while (position < text.length()) {
+			char c = text.charAt(position++);
+			if (c == '"') {
+				return string.toString();
+			}
+			if (c != '\\') {
+				string.append(c);
+				continue;
+			}
+			if (position >= text.length()) {
+				break;
+			}
+			char escaped = text.charAt(position++);
+			switch (escaped) {
+			case 'b':
+				string.append('\b');
+				break;
+			case 'f':
+				string.append('\f');
+				break;
+			case 'n':
+				string.append('\n');
+				break;
+			case 'r':
+				string.append('\r');
+				break;
+			case 't':
+				string.append('\t');
+				break;
+			case 'u':
+				if (position + 4 > text.length()) {
+					throw error("Invalid unicode escape");
+				}
+				try {
+					string.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+				} catch (NumberFormatException e) {
+					throw error("Invalid unicode escape");
+				}
+				position += 4;
+				break;
+			default:
+				string.append(escaped);
+				break;
+			}
+		}
+		throw error("Unterminated string");
+	}
+
+	/**
+	 * @param c
+	 *            - The expected character, after optional whitespace.
+	 */
+	private void expect(char c) {
+		if (!consume(c)) {
+			throw error("Expected '" + c + "'");
+		}
+	}
+
+	/**
+	 * @param c
+	 *            - A character.
+	 * @return {@code true} iff the next character after optional whitespace is {@code c}, which is consumed.
+	 */
+	private boolean consume(char c) {
+		skipWhitespace();
+		if (position < text.length() && text.charAt(position) == c) {
+			++position;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Skip whitespace.
+	 */
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			++position;
+		}
+	}
+
+	/**
+	 * @param message
+	 *            - The description of the error.
+	 * @return An {@link IllegalArgumentException} locating the error.
+	 */
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + position + " of the request");
+	}
+
+	/**
+	 * @param json
+	 *            - The {@link StringBuilder} where to append the string literal.
+	 * @param string
+	 *            - A string, or {@code null}.
+	 * @return The {@link StringBuilder}.
+	 */
+	static StringBuilder appendString(StringBuilder json, String string) {
+		if (string == null) {
+			return json.append("null");
+		}
+		json.append('"');
+		for (int i = 0; i < string.length(); ++i) {
+			char c = string.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < ' ') {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+				break;
+			}
+		}
+		return json.append('"');
+	}
+
+	/**
+	 * Append an {@link IStatus} and its children as a JSON object with the members {@code severity},
+	 * {@code message}, {@code plugin}, {@code code}, {@code exception} (if any) and {@code children} (if any).
+	 *
+	 * @param json
+	 *            - The {@link StringBuilder} where to append the status.
+	 * @param status
+	 *            - An {@link IStatus}.
+	 * @return The {@link StringBuilder}.
+	 */
+	static StringBuilder appendStatus(StringBuilder json, IStatus status) {
+		json.append("{\"severity\": ");
+		appendString(json, getSeverity(status.getSeverity()));
+		json.append(", \"message\": ");
+		appendString(json, status.getMessage());
+		json.append(", \"plugin\": ");
+		appendString(json, status.getPlugin());
+		json.append(", \"code\": ").append(status.getCode());
+		Throwable exception = status.getException();
+		if (exception != null) {
+			json.append(", \"exception\": ");
+			appendString(json, exception.toString());
+		}
+		IStatus[] children = status.getChildren();
+		if (children.length > 0) {
+			json.append(", \"children\": [");
+			for (int i = 0; i < children.length; ++i) {
+				if (i > 0) {
+					json.append(", ");
+				}
+				appendStatus(json, children[i]);
+			}
+			json.append(']');
+		}
+		return json.append('}');
+	}
+
+	/**
+	 * @param severity
+	 *            - The severity of an {@link IStatus}.
+	 * @return The name of its highest bit, or {@code "OK"}.
+	 */
+	private static String getSeverity(int severity) {
+		for (int i = SEVERITIES.length - 1; i >= 0; --i) {
+			if ((severity & (1 << i)) != 0) {
+				return SEVERITIES[i];
+			}
+		}
+		return "OK";
+	}
+
+}
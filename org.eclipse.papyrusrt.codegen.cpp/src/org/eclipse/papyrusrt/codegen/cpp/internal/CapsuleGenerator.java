@@ -8,15 +8,17 @@
 package org.eclipse.papyrusrt.codegen.cpp.internal;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import org.eclipse.papyrusrt.codegen.cpp.BoundsEvaluator;
 import org.eclipse.papyrusrt.codegen.cpp.CppCodePattern;
 import org.eclipse.papyrusrt.codegen.cpp.CppCodePattern.Output;
 import org.eclipse.papyrusrt.codegen.cpp.rts.UMLRTRuntime;
-import org.eclipse.papyrusrt.codegen.instance.model.CapsuleInstance;
 import org.eclipse.papyrusrt.codegen.instance.model.ICapsuleInstance;
 import org.eclipse.papyrusrt.codegen.instance.model.IPortInstance;
 import org.eclipse.papyrusrt.codegen.instance.model.IPortInstance.IFarEnd;
+import org.eclipse.papyrusrt.codegen.instance.model.InstanceModels;
 import org.eclipse.papyrusrt.codegen.lang.cpp.Expression;
 import org.eclipse.papyrusrt.codegen.lang.cpp.Type;
 import org.eclipse.papyrusrt.codegen.lang.cpp.element.Constructor;
@@ -46,11 +48,11 @@ import org.eclipse.papyrusrt.codegen.lang.cpp.expr.MemberFunctionCall;
 import org.eclipse.papyrusrt.codegen.lang.cpp.expr.NewExpr;
 import org.eclipse.papyrusrt.codegen.lang.cpp.expr.StringLiteral;
 import org.eclipse.papyrusrt.codegen.lang.cpp.external.StandardLibrary;
+import org.eclipse.papyrusrt.codegen.lang.cpp.name.FileName;
 import org.eclipse.papyrusrt.codegen.lang.cpp.stmt.CodeBlock;
 import org.eclipse.papyrusrt.codegen.lang.cpp.stmt.ConditionalStatement;
 import org.eclipse.papyrusrt.codegen.lang.cpp.stmt.SwitchClause;
 import org.eclipse.papyrusrt.codegen.lang.cpp.stmt.SwitchStatement;
-import org.eclipse.papyrusrt.xtumlrt.aexpr.uml.XTUMLRTBoundsEvaluator;
 import org.eclipse.papyrusrt.xtumlrt.common.Attribute;
 import org.eclipse.papyrusrt.xtumlrt.common.Capsule;
 import org.eclipse.papyrusrt.xtumlrt.common.CapsuleKind;
@@ -99,6 +101,15 @@ public class CapsuleGenerator extends BasicClassGenerator {
 		return super.getLabel() + ' ' + capsule.getName();
 	}
 
+	@Override
+	public List<FileName> getGeneratedFilenames() {
+		List<FileName> result = super.getGeneratedFilenames();
+		if (cpp.isSplitCapsuleSources()) {
+			result.add(cpp.getElementList(CppCodePattern.Output.UMLRTCapsuleClass, capsule).getName());
+		}
+		return result;
+	}
+
 	@Override
 	public boolean generate() {
 		CppClass cls = cpp.getWritableCppClass(CppCodePattern.Output.CapsuleClass, capsule);
@@ -149,8 +160,8 @@ public class CapsuleGenerator extends BasicClassGenerator {
 		ctor.addBaseInitializer(baseCtorCall);
 
 		// Connect all ports using a shallowly connected capsule instance.
-		CapsuleInstance instance = new CapsuleInstance(capsule);
-		instance.connect(null, true);
+		ICapsuleInstance instance = InstanceModels.createConnectedInstance(capsule, true,
+				InstanceModels.getDefaultCompactThreshold());
 
 		// If the Capsule generation has been successful then add on the operations and attributes
 		// in the base generator.
@@ -199,12 +210,12 @@ public class CapsuleGenerator extends BasicClassGenerator {
 	 * @param capsuleClass
 	 *            - The {@link CppClass} for the capsule.
 	 * @param instance
-	 *            - The {@link CapsuleInstance} of the capsule.
+	 *            - The {@link ICapsuleInstance} of the capsule.
 	 * @param ctor
 	 *            - The {@link Constructor} of the class.
 	 * @return {@code true} if successful.
 	 */
-	protected boolean generateParts(CppClass capsuleClass, CapsuleInstance instance, Constructor ctor) {
+	protected boolean generateParts(CppClass capsuleClass, ICapsuleInstance instance, Constructor ctor) {
 		CppEnumOrderedInitializer subCapsuleInit = new CppEnumOrderedInitializer(
 				cpp.getIdEnum(CppCodePattern.Output.PartId, capsule),
 				UMLRTRuntime.UMLRTCapsuleRole.getType().arrayOf(null));
@@ -219,9 +230,9 @@ public class CapsuleGenerator extends BasicClassGenerator {
 							UMLRTRuntime.UMLRTCapsulePart.getType(),
 							new StringLiteral(part.getName()),
 							new AddressOfExpr(new ElementAccess(cpp.getVariable(CppCodePattern.Output.UMLRTCapsuleClass, part.getType()))),
-							new IntegralLiteral(XTUMLRTBoundsEvaluator.getLowerBound(part)),
-							new IntegralLiteral(XTUMLRTBoundsEvaluator.getUpperBound(part)),
-							new BooleanLiteral(!isPlugin && XTUMLRTBoundsEvaluator.getUpperBound(part) > XTUMLRTBoundsEvaluator.getLowerBound(part)),
+							new IntegralLiteral(BoundsEvaluator.getLowerBound(part)),
+							new IntegralLiteral(BoundsEvaluator.getUpperBound(part)),
+							new BooleanLiteral(!isPlugin && BoundsEvaluator.getUpperBound(part) > BoundsEvaluator.getLowerBound(part)),
 							new BooleanLiteral(isPlugin)));
 
 			MemberField field = new MemberField(
@@ -489,10 +500,10 @@ public class CapsuleGenerator extends BasicClassGenerator {
 	 * The instantiate function creates a new instance of the user's capsule.
 	 * 
 	 * @param instance
-	 *            - The {@link CapsuleInstance}.
+	 *            - The {@link ICapsuleInstance}.
 	 * @return The {@link Function}.
 	 */
-	protected Function generateInstantiate(CapsuleInstance instance) {
+	protected Function generateInstantiate(ICapsuleInstance instance) {
 		ElementList elementList = cpp.getElementList(CppCodePattern.Output.UMLRTCapsuleClass, capsule);
 
 		Parameter slot = new Parameter(UMLRTRuntime.UMLRTSlot.getType().ptr(), "slot");
@@ -661,10 +672,10 @@ public class CapsuleGenerator extends BasicClassGenerator {
 	 * @param cls
 	 *            - The {@link CppClass} where the function will be added.
 	 * @param instance
-	 *            - The {@link CapsuleInstance}.
+	 *            - The {@link ICapsuleInstance}.
 	 * @return {@code true} iff successful.
 	 */
-	protected boolean generateBindPortFunction(CppClass cls, CapsuleInstance instance) {
+	protected boolean generateBindPortFunction(CppClass cls, ICapsuleInstance instance) {
 		MemberFunction func = new MemberFunction(PrimitiveType.VOID, "bindPort");
 		func.setVirtual();
 		cls.addMember(CppClass.Visibility.PUBLIC, func);
@@ -806,10 +817,10 @@ public class CapsuleGenerator extends BasicClassGenerator {
 	 * @param cls
 	 *            - The {@link CppClass} where the function will be added.
 	 * @param instance
-	 *            - The {@link CapsuleInstance}.
+	 *            - The {@link ICapsuleInstance}.
 	 * @return {@code true} iff successful.
 	 */
-	protected boolean generateUnbindPortFunction(CppClass cls, CapsuleInstance instance) {
+	protected boolean generateUnbindPortFunction(CppClass cls, ICapsuleInstance instance) {
 		MemberFunction func = new MemberFunction(PrimitiveType.VOID, "unbindPort");
 		func.setVirtual();
 		cls.addMember(CppClass.Visibility.PUBLIC, func);
@@ -942,10 +953,10 @@ public class CapsuleGenerator extends BasicClassGenerator {
 	 * @param cls
 	 *            - The generated {@link CppClass} where the functions will be added.
 	 * @param instance
-	 *            - The {@link CapsuleInstance}.
+	 *            - The {@link ICapsuleInstance}.
 	 * @return {@code true} iff successful.
 	 */
-	protected boolean generateRTSFunctions(CppClass cls, CapsuleInstance instance) {
+	protected boolean generateRTSFunctions(CppClass cls, ICapsuleInstance instance) {
 		return generateBindPortFunction(cls, instance)
 				&& generateUnbindPortFunction(cls, instance);
 	}
@@ -956,10 +967,10 @@ public class CapsuleGenerator extends BasicClassGenerator {
 	 * @param subCapsules
 	 *            - The "roles" array {@link Variable} of type UMLRTCapsuleRole that contains the information of the capsule's parts.
 	 * @param instance
-	 *            - The {@link CapsuleInstance}.
+	 *            - The {@link ICapsuleInstance}.
 	 * @return The {@link Variable} of type UMLRTCapsuleClass to export.
 	 */
-	protected Variable generateUMLRTCapsuleClass(Variable subCapsules, CapsuleInstance instance) {
+	protected Variable generateUMLRTCapsuleClass(Variable subCapsules, ICapsuleInstance instance) {
 		CppEnumOrderedInitializer border_init = null;
 		CppEnumOrderedInitializer internal_init = null;
 		for (Port port : XTUMLRTExtensions.getAllRTPorts(capsule)) {
@@ -7,10 +7,10 @@
  *******************************************************************************/
 package org.eclipse.papyrusrt.codegen.cpp.internal;
 
+import org.eclipse.papyrusrt.codegen.cpp.BoundsEvaluator;
 import org.eclipse.papyrusrt.codegen.lang.cpp.Expression;
 import org.eclipse.papyrusrt.codegen.lang.cpp.expr.ExpressionBlob;
 import org.eclipse.papyrusrt.codegen.lang.cpp.expr.IntegralLiteral;
-import org.eclipse.papyrusrt.xtumlrt.aexpr.uml.XTUMLRTBoundsEvaluator;
 import org.eclipse.papyrusrt.xtumlrt.common.MultiplicityElement;
 import org.eclipse.papyrusrt.xtumlrt.common.NamedElement;
 
@@ -43,7 +43,7 @@ public final class GeneratorUtils {
 	 * @return An {@link Expression} representing the bound, i.e. replication of the given element.
 	 */
 	public static <T extends MultiplicityElement & NamedElement> Expression generateBoundExpression(T element) {
-		return new ExpressionBlob(XTUMLRTBoundsEvaluator.getBoundString(element));
+		return new ExpressionBlob(BoundsEvaluator.getBoundString(element));
 	}
 
 	/**
@@ -451,7 +451,8 @@ public class ProtocolGenerator extends AbstractElementGenerator {
 	/**
 	 * Creates a payload descriptor C++ variable for a given model Signal,
 	 * containing information about the number of parameters and their field
-	 * descriptors.
+	 * descriptors. The payload size of a signal with parameters is registered
+	 * with the RTS, so the signal element pool has a size class for it.
 	 * 
 	 * @param elements
 	 *            The C++ ElementList (compilation unit) where the protocol is
@@ -491,6 +492,14 @@ public class ProtocolGenerator extends AbstractElementGenerator {
 							new ElementAccess(fields)));
 			elements.insertElement(payload, cppProtocol);
 
+			// Give the payload size a size class in the RTS payload slabs.
+			if (signalParamCount > 0) {
+				Variable payloadSize = new Variable(LinkageSpec.STATIC, PrimitiveType.BOOL.const_(),
+						"payloadSize_" + signal.getName(),
+						UMLRTRuntime.UMLRTSignalElementPool.addPayloadSize(new AddressOfExpr(new ElementAccess(payload))));
+				elements.insertElement(payloadSize, cppProtocol);
+			}
+
 			payloadVariables.put(signal, payload);
 		}
 
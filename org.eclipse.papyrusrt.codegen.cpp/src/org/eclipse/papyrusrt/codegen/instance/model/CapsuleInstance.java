@@ -15,8 +15,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.eclipse.papyrusrt.codegen.cpp.BoundsEvaluator;
 import org.eclipse.papyrusrt.codegen.cpp.ConnectorReporter;
-import org.eclipse.papyrusrt.xtumlrt.aexpr.uml.XTUMLRTBoundsEvaluator;
 import org.eclipse.papyrusrt.xtumlrt.common.Capsule;
 import org.eclipse.papyrusrt.xtumlrt.common.CapsuleKind;
 import org.eclipse.papyrusrt.xtumlrt.common.CapsulePart;
@@ -32,6 +32,11 @@ import org.eclipse.papyrusrt.xtumlrt.util.XTUMLRTUtil;
 /**
  * An implementation of {@link ICapsuleInstance}, representing instances of {@link Capsule} model elements
  * at generation time.
+ * 
+ * <p>
+ * Contained capsule instances and port instances are created lazily, when first traversed. Generating a single
+ * capsule connects its instance shallowly (see {@link #connect(ConnectorReporter, boolean)}) and therefore only
+ * creates the instances one level below it, instead of those of its whole containment subtree.
  */
 public class CapsuleInstance implements ICapsuleInstance {
 
@@ -50,11 +55,17 @@ public class CapsuleInstance implements ICapsuleInstance {
 	/** {@code true} iff this capsule instance is dynamic, i.e. if it is in an optional or plugin part. */
 	private final boolean dynamic;
 
-	/** A {@link Map} from {@link CapsulePart}s to the {@link List} of capsule instances contained by this instance. */
-	private final Map<CapsulePart, List<CapsuleInstance>> contained = new TreeMap<>(new CapsulePartComparator());
+	/**
+	 * A {@link Map} from {@link CapsulePart}s to the {@link List} of capsule instances contained by this instance,
+	 * or {@code null} until they are first needed (see {@link #contained()}).
+	 */
+	private Map<CapsulePart, List<CapsuleInstance>> contained;
 
-	/** A {@link Map} from {@link Port}s in this instance's {@link Capsule} to {@link PortInstance}s. */
-	private final Map<Port, PortInstance> ports = new LinkedHashMap<>();
+	/**
+	 * A {@link Map} from {@link Port}s in this instance's {@link Capsule} to {@link PortInstance}s, or {@code null}
+	 * until they are first needed (see {@link #ports()}).
+	 */
+	private Map<Port, PortInstance> ports;
 
 	/**
 	 * Create the top-level capsule instance.
@@ -68,9 +79,6 @@ public class CapsuleInstance implements ICapsuleInstance {
 		this.container = null;
 		this.index = null;
 		this.dynamic = false;
-
-		constructPortInstances();
-		constructCapsuleInstances();
 	}
 
 	/**
@@ -91,9 +99,6 @@ public class CapsuleInstance implements ICapsuleInstance {
 		this.container = container;
 		this.index = index;
 		this.dynamic = dynamic;
-
-		constructPortInstances();
-		constructCapsuleInstances();
 	}
 
 	@Override
@@ -123,37 +128,65 @@ public class CapsuleInstance implements ICapsuleInstance {
 
 	@Override
 	public List<? extends ICapsuleInstance> getContained(CapsulePart part) {
-		return contained.get(part);
+		return contained().get(part);
 	}
 
 	@Override
 	public List<IPortInstance> getPorts() {
-		return new ArrayList<>(ports.values());
+		return new ArrayList<>(ports().values());
 	}
 
 	@Override
 	public IPortInstance getPort(Port port) {
-		return ports.get(port);
+		return ports().get(port);
+	}
+
+	/**
+	 * @return The {@link Map} from {@link Port}s to {@link PortInstance}s, created on first use.
+	 */
+	private Map<Port, PortInstance> ports() {
+		if (ports == null) {
+			ports = constructPortInstances();
+		}
+		return ports;
+	}
+
+	/**
+	 * @return The {@link Map} from {@link CapsulePart}s to contained capsule instances, created on first use.
+	 *         The port instances and contained instances of the contained instances are not created.
+	 */
+	private Map<CapsulePart, List<CapsuleInstance>> contained() {
+		if (contained == null) {
+			contained = constructCapsuleInstances();
+		}
+		return contained;
 	}
 
 	/**
 	 * Creates {@link PortInstance}s for each {@link Port} element in this instance's {@link Capsule}.
+	 * 
+	 * @return A {@link Map} from {@link Port}s to their {@link PortInstance}s.
 	 */
-	private void constructPortInstances() {
+	private Map<Port, PortInstance> constructPortInstances() {
+		Map<Port, PortInstance> portInstances = new LinkedHashMap<>();
 		for (Port port : XTUMLRTExtensions.getAllRTPorts(type)) {
-			ports.put(port, new PortInstance(this, port));
+			portInstances.put(port, new PortInstance(this, port));
 		}
+		return portInstances;
 	}
 
 	/**
 	 * Creates {@link CapsuleInstance}s for each {@link CapsulePart} element in this instance's {@link Capsule}.
+	 * 
+	 * @return A {@link Map} from {@link CapsulePart}s to the {@link List} of their capsule instances.
 	 */
-	private void constructCapsuleInstances() {
+	private Map<CapsulePart, List<CapsuleInstance>> constructCapsuleInstances() {
+		Map<CapsulePart, List<CapsuleInstance>> capsuleInstances = new TreeMap<>(new CapsulePartComparator());
 		for (CapsulePart part : XTUMLRTExtensions.getAllCapsuleParts(type)) {
 			List<CapsuleInstance> instances = new ArrayList<>();
 
-			int lower = XTUMLRTBoundsEvaluator.getLowerBound(part);
-			int upper = XTUMLRTBoundsEvaluator.getUpperBound(part);
+			int lower = BoundsEvaluator.getLowerBound(part);
+			int upper = BoundsEvaluator.getUpperBound(part);
 			final CapsuleKind kind = part.getKind();
 			// Bug 515855: if this capsule instance is already dynamic (it is in an optional or plugin part)
 			// then all its children must be dynamic as well.
@@ -173,8 +206,9 @@ public class CapsuleInstance implements ICapsuleInstance {
 				}
 			}
 
-			contained.put(part, instances);
+			capsuleInstances.put(part, instances);
 		}
+		return capsuleInstances;
 	}
 
 	/**
@@ -194,7 +228,7 @@ public class CapsuleInstance implements ICapsuleInstance {
 
 		// Now connect all of the contained capsules.
 		if (!shallow) {
-			for (List<CapsuleInstance> capsuleInstances : contained.values()) {
+			for (List<CapsuleInstance> capsuleInstances : contained().values()) {
 				for (CapsuleInstance capsuleInstance : capsuleInstances) {
 					if (!capsuleInstance.isDynamic()) {
 						capsuleInstance.connect(connReporter == null ? null : connReporter.createInner(capsuleInstance), false);
@@ -210,7 +244,7 @@ public class CapsuleInstance implements ICapsuleInstance {
 	 * @return An {@link Iterable} to the capsule instances in the given part.
 	 */
 	private Iterable<CapsuleInstance> getInstancesFor(CapsulePart part) {
-		Iterable<CapsuleInstance> instances = contained.get(part);
+		Iterable<CapsuleInstance> instances = contained().get(part);
 		return instances == null ? java.util.Collections.singletonList(this) : instances;
 	}
 
@@ -284,10 +318,10 @@ public class CapsuleInstance implements ICapsuleInstance {
 		boolean isRelay1 = false;
 
 		if (!dynamic && cb.primary.part == part && XTUMLRTUtil.isBorderPort(cb.primary.port)) {
-			isRelay0 = ports.containsKey(cb.primary.port);
+			isRelay0 = ports().containsKey(cb.primary.port);
 		}
 		if (!dynamic && cb.secondary.part == part && XTUMLRTUtil.isBorderPort(cb.secondary.port)) {
-			isRelay1 = ports.containsKey(cb.secondary.port);
+			isRelay1 = ports().containsKey(cb.secondary.port);
 		}
 
 		int perPrimaryRole = cb.secondary.numPortInstances / cb.primary.numParts;
@@ -329,7 +363,7 @@ public class CapsuleInstance implements ICapsuleInstance {
 	 * @return A {@link PortInstance.FarEnd}.
 	 */
 	private PortInstance.FarEnd createFarEnd(Port modelPort, boolean isRelay) {
-		PortInstance portInstance = ports.get(modelPort);
+		PortInstance portInstance = ports().get(modelPort);
 		if (portInstance == null) {
 			return null;
 		}
@@ -397,7 +431,7 @@ public class CapsuleInstance implements ICapsuleInstance {
 	@Override
 	public List<ICapsuleInstance> getContained() {
 		List<ICapsuleInstance> list = new ArrayList<>();
-		for (List<CapsuleInstance> capsules : contained.values()) {
+		for (List<CapsuleInstance> capsules : contained().values()) {
 			list.addAll(capsules);
 		}
 		return list;
@@ -416,7 +450,7 @@ public class CapsuleInstance implements ICapsuleInstance {
 	 * 
 	 * @see Bug 475980
 	 */
-	private static class CapsulePartComparator implements Comparator<CapsulePart> {
+	static class CapsulePartComparator implements Comparator<CapsulePart> {
 
 		/** Constructor. */
 		CapsulePartComparator() {
@@ -477,8 +511,8 @@ public class CapsuleInstance implements ICapsuleInstance {
 
 			this.part = p == null ? containingPart : p;
 			this.port = connectorEnd.getRole();
-			this.numParts = part == null ? 1 : XTUMLRTBoundsEvaluator.getUpperBound(part);
-			this.numPortInstances = numParts * XTUMLRTBoundsEvaluator.getUpperBound(port);
+			this.numParts = part == null ? 1 : BoundsEvaluator.getUpperBound(part);
+			this.numPortInstances = numParts * BoundsEvaluator.getUpperBound(port);
 		}
 
 		@Override
@@ -0,0 +1,1088 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.instance.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.papyrusrt.codegen.cpp.BoundsEvaluator;
+import org.eclipse.papyrusrt.codegen.cpp.ConnectorReporter;
+import org.eclipse.papyrusrt.xtumlrt.common.Capsule;
+import org.eclipse.papyrusrt.xtumlrt.common.CapsuleKind;
+import org.eclipse.papyrusrt.xtumlrt.common.CapsulePart;
+import org.eclipse.papyrusrt.xtumlrt.common.Connector;
+import org.eclipse.papyrusrt.xtumlrt.common.ConnectorEnd;
+import org.eclipse.papyrusrt.xtumlrt.common.Port;
+import org.eclipse.papyrusrt.xtumlrt.util.XTUMLRTExtensions;
+import org.eclipse.papyrusrt.xtumlrt.util.XTUMLRTUtil;
+
+/**
+ * A compact instance model, storing the capsule instances, port instances and far ends of a topology in flat
+ * {@code int} arrays instead of one object per element, for large replicated structures.
+ *
+ * <p>
+ * Capsule instances and port instances are numbered in creation order. For each capsule instance, the arrays
+ * hold its type, container, part and index, and the number of its first contained instance and first port
+ * instance. The instances contained by an instance are contiguous, sorted by part name then index, and its
+ * port instances are contiguous, in the order of the ports of its capsule. For each port instance, the arrays
+ * hold its number of unconnected far ends and the first of its far-end slots, one per possible far end. Each
+ * slot holds the (port instance, index) pair of a connected far end, the capsule instance of the far end being
+ * that of its port instance. Relay and dynamic flags are kept in {@link BitSet}s. The part bounds, ports and
+ * connectors of each {@link Capsule} are evaluated once, whatever its number of instances.
+ *
+ * <p>
+ * As with {@link CapsuleInstance}, contained instances and port instances are created when first traversed,
+ * and {@link #connect(ConnectorReporter, boolean)} creates the same far ends and relays. The
+ * {@link ICapsuleInstance}, {@link IPortInstance} and {@link IPortInstance.IFarEnd} returned by the model are
+ * lightweight views of the arrays, created on demand and equal when they denote the same element.
+ */
+public class CompactInstanceModel {
+
+	/** The value of an absent container, part, index or block. */
+	private static final int NONE = -1;
+
+	/** The value of an absent far end. */
+	private static final long NO_FAR_END = -1L;
+
+	/** The initial capacity of the arrays. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The information of each capsule type, indexed by type number. */
+	private final List<TypeInfo> types = new ArrayList<>();
+
+	/** The number of each capsule type. */
+	private final Map<Capsule, Integer> typeNumbers = new HashMap<>();
+
+	/** The number of capsule instances. */
+	private int instanceCount;
+
+	/** The type number of each capsule instance. */
+	private int[] instanceType = new int[INITIAL_CAPACITY];
+
+	/** The container of each capsule instance, or {@link #NONE} for the top instance. */
+	private int[] instanceContainer = new int[INITIAL_CAPACITY];
+
+	/** The part of each capsule instance, in the parts of its container's type, or {@link #NONE}. */
+	private int[] instancePart = new int[INITIAL_CAPACITY];
+
+	/** The index of each capsule instance in its replicated part, or {@link #NONE}. */
+	private int[] instanceIndex = new int[INITIAL_CAPACITY];
+
+	/** The first instance contained by each capsule instance, or {@link #NONE} until they are created. */
+	private int[] instanceContained = new int[INITIAL_CAPACITY];
+
+	/** The first port instance of each capsule instance, or {@link #NONE} until they are created. */
+	private int[] instancePorts = new int[INITIAL_CAPACITY];
+
+	/** The dynamic capsule instances, i.e. those in an optional or plugin part. */
+	private final BitSet dynamicInstances = new BitSet();
+
+	/** The number of port instances. */
+	private int portCount;
+
+	/** The capsule instance of each port instance. */
+	private int[] portContainer = new int[INITIAL_CAPACITY];
+
+	/** The number of far ends that can still be created for each port instance. */
+	private int[] portUnconnected = new int[INITIAL_CAPACITY];
+
+	/** The first far-end slot of each port instance. */
+	private int[] portFarEnds = new int[INITIAL_CAPACITY];
+
+	/** The number of connected far ends of each port instance. */
+	private int[] portFarEndCount = new int[INITIAL_CAPACITY];
+
+	/** The relay port instances. */
+	private final BitSet relayPorts = new BitSet();
+
+	/** The number of far-end slots. */
+	private int farEndCount;
+
+	/** The port instance of the far end in each slot. */
+	private int[] farEndPort = new int[INITIAL_CAPACITY];
+
+	/** The index of the far end in each slot. */
+	private int[] farEndIndex = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Create the model of the top-level capsule instance.
+	 *
+	 * @param top
+	 *            - The {@link Capsule} type to use as top capsule.
+	 */
+	public CompactInstanceModel(Capsule top) {
+		newInstance(NONE, NONE, NONE, false, getTypeNumber(top));
+	}
+
+	/**
+	 * @return The top-level capsule instance.
+	 */
+	public ICapsuleInstance getTop() {
+		return new CapsuleView(0);
+	}
+
+	/**
+	 * @return The number of capsule instances created so far.
+	 */
+	public int getInstanceCount() {
+		return instanceCount;
+	}
+
+	/**
+	 * @return The number of port instances created so far.
+	 */
+	public int getPortInstanceCount() {
+		return portCount;
+	}
+
+	/**
+	 * Create connections between the contained capsule instances of the top-level instance according to the
+	 * {@link Capsule}'s structure, as {@link CapsuleInstance#connect(ConnectorReporter, boolean)} does.
+	 *
+	 * @param connReporter
+	 *            - A {@link ConnectorReporter}, or {@code null}.
+	 * @param shallow
+	 *            - {@code true} if it should create only the connections for the top-level instance,
+	 *            but not recursively create connections of the contained instances.
+	 */
+	public void connect(ConnectorReporter connReporter, boolean shallow) {
+		connect(0, connReporter, shallow);
+	}
+
+	/**
+	 * @param instance
+	 *            - An {@link ICapsuleInstance}.
+	 * @return The {@link CompactInstanceModel} of the instance, or {@code null} if it is not from a compact model.
+	 */
+	static CompactInstanceModel getModel(ICapsuleInstance instance) {
+		return instance instanceof CapsuleView ? ((CapsuleView) instance).getModel() : null;
+	}
+
+	/**
+	 * Estimate the number of capsule instances of a topology from the upper bounds of the parts, to decide
+	 * whether it should use a compact model.
+	 *
+	 * @param top
+	 *            - The {@link Capsule} type of the top capsule.
+	 * @param shallow
+	 *            - {@code true} to count only the top instance and the instances directly contained by it.
+	 * @return The number of capsule instances, or {@link Long#MAX_VALUE} if it is larger or unbounded.
+	 */
+	public static long estimateInstanceCount(Capsule top, boolean shallow) {
+		if (shallow) {
+			long count = 1;
+			for (CapsulePart part : XTUMLRTExtensions.getAllCapsuleParts(top)) {
+				count = saturatedAdd(count, getPartInstanceCount(BoundsEvaluator.getUpperBound(part)));
+			}
+			return count;
+		}
+		return estimateInstanceCount(top, new HashMap<Capsule, Long>(), new HashSet<Capsule>());
+	}
+
+	/**
+	 * @param capsule
+	 *            - A {@link Capsule}.
+	 * @param counts
+	 *            - The number of instances in the topology of each capsule already visited.
+	 * @param visiting
+	 *            - The capsules whose topology is being counted, to detect recursive structures.
+	 * @return The number of instances in the topology of the capsule.
+	 */
+	private static long estimateInstanceCount(Capsule capsule, Map<Capsule, Long> counts, Set<Capsule> visiting) {
+		Long known = counts.get(capsule);
+		if (known != null) {
+			return known.longValue();
+		}
+		if (capsule == null) {
+			return 1;
+		}
+		if (!visiting.add(capsule)) {
+			return Long.MAX_VALUE;
+		}
+		long count = 1;
+		for (CapsulePart part : XTUMLRTExtensions.getAllCapsuleParts(capsule)) {
+			int instances = getPartInstanceCount(BoundsEvaluator.getUpperBound(part));
+			if (instances > 0) {
+				long sub = estimateInstanceCount(part.getType(), counts, visiting);
+				count = saturatedAdd(count, sub > Long.MAX_VALUE / instances ? Long.MAX_VALUE : sub * instances);
+			}
+		}
+		visiting.remove(capsule);
+		counts.put(capsule, count);
+		return count;
+	}
+
+	/**
+	 * @param a
+	 *            - A non-negative number.
+	 * @param b
+	 *            - A non-negative number.
+	 * @return The sum, or {@link Long#MAX_VALUE} if it overflows.
+	 */
+	private static long saturatedAdd(long a, long b) {
+		return a > Long.MAX_VALUE - b ? Long.MAX_VALUE : a + b;
+	}
+
+	/**
+	 * @param upper
+	 *            - The upper bound of a part.
+	 * @return The number of capsule instances in the part.
+	 */
+	private static int getPartInstanceCount(int upper) {
+		return upper == 1 ? 1 : Math.max(0, upper);
+	}
+
+	/**
+	 * @param capsule
+	 *            - A {@link Capsule}.
+	 * @return The number of the capsule type, whose {@link TypeInfo} is created on first use.
+	 */
+	private int getTypeNumber(Capsule capsule) {
+		Integer number = typeNumbers.get(capsule);
+		if (number == null) {
+			number = types.size();
+			types.add(new TypeInfo(capsule));
+			typeNumbers.put(capsule, number);
+		}
+		return number;
+	}
+
+	/**
+	 * @param instance
+	 *            - A capsule instance.
+	 * @return The {@link TypeInfo} of the instance.
+	 */
+	private TypeInfo getTypeInfo(int instance) {
+		return types.get(instanceType[instance]);
+	}
+
+	/**
+	 * @param instance
+	 *            - A capsule instance.
+	 * @return The {@link CapsulePart} of the instance, or {@code null} for the top instance.
+	 */
+	private CapsulePart getPart(int instance) {
+		int part = instancePart[instance];
+		return part == NONE ? null : getTypeInfo(instanceContainer[instance]).parts[part];
+	}
+
+	/**
+	 * @param port
+	 *            - A port instance.
+	 * @return The {@link Port} of the port instance.
+	 */
+	private Port getPort(int port) {
+		int container = portContainer[port];
+		return getTypeInfo(container).ports[port - instancePorts[container]];
+	}
+
+	/**
+	 * @param port
+	 *            - A port instance.
+	 * @return The upper bound of the {@link Port} of the port instance, the number of its far-end slots.
+	 */
+	private int getPortBound(int port) {
+		int container = portContainer[port];
+		return getTypeInfo(container).portBounds[port - instancePorts[container]];
+	}
+
+	/**
+	 * Add a capsule instance.
+	 *
+	 * @param container
+	 *            - The containing capsule instance.
+	 * @param part
+	 *            - The part of the instance in the parts of the container's type.
+	 * @param index
+	 *            - The index of the instance in its part.
+	 * @param dynamic
+	 *            - Whether the instance occupies an optional or plugin part.
+	 * @param type
+	 *            - The type number of the instance.
+	 * @return The new capsule instance.
+	 */
+	private int newInstance(int container, int part, int index, boolean dynamic, int type) {
+		if (instanceCount == instanceType.length) {
+			int capacity = instanceCount * 2;
+			instanceType = Arrays.copyOf(instanceType, capacity);
+			instanceContainer = Arrays.copyOf(instanceContainer, capacity);
+			instancePart = Arrays.copyOf(instancePart, capacity);
+			instanceIndex = Arrays.copyOf(instanceIndex, capacity);
+			instanceContained = Arrays.copyOf(instanceContained, capacity);
+			instancePorts = Arrays.copyOf(instancePorts, capacity);
+		}
+		int instance = instanceCount++;
+		instanceType[instance] = type;
+		instanceContainer[instance] = container;
+		instancePart[instance] = part;
+		instanceIndex[instance] = index;
+		instanceContained[instance] = NONE;
+		instancePorts[instance] = NONE;
+		if (dynamic) {
+			dynamicInstances.set(instance);
+		}
+		return instance;
+	}
+
+	/**
+	 * Add a port instance and its far-end slots.
+	 *
+	 * @param container
+	 *            - The capsule instance of the port instance.
+	 * @param bound
+	 *            - The upper bound of the port.
+	 */
+	private void newPort(int container, int bound) {
+		if (portCount == portContainer.length) {
+			int capacity = portCount * 2;
+			portContainer = Arrays.copyOf(portContainer, capacity);
+			portUnconnected = Arrays.copyOf(portUnconnected, capacity);
+			portFarEnds = Arrays.copyOf(portFarEnds, capacity);
+			portFarEndCount = Arrays.copyOf(portFarEndCount, capacity);
+		}
+		int slots = Math.max(0, bound);
+		if (farEndCount + slots > farEndPort.length) {
+			int capacity = Math.max(farEndPort.length * 2, farEndCount + slots);
+			farEndPort = Arrays.copyOf(farEndPort, capacity);
+			farEndIndex = Arrays.copyOf(farEndIndex, capacity);
+		}
+		int port = portCount++;
+		portContainer[port] = container;
+		portUnconnected[port] = bound;
+		portFarEnds[port] = farEndCount;
+		portFarEndCount[port] = 0;
+		farEndCount += slots;
+	}
+
+	/**
+	 * @param instance
+	 *            - A capsule instance.
+	 * @return The first instance contained by the capsule instance, after creating them on first use.
+	 *         The port instances and contained instances of the contained instances are not created.
+	 */
+	private int contained(int instance) {
+		if (instanceContained[instance] == NONE) {
+			TypeInfo info = getTypeInfo(instance);
+			boolean dynamic = dynamicInstances.get(instance);
+			int first = instanceCount;
+			for (int p = 0; p < info.parts.length; ++p) {
+				CapsulePart part = info.parts[p];
+				int lower = info.partLowers[p];
+				int upper = info.partUppers[p];
+				CapsuleKind kind = part.getKind();
+				int type = getTypeNumber(part.getType());
+				// Bug 515855: the children of a dynamic capsule instance are dynamic as well.
+				boolean dynamicSubcapsuleInstance = lower <= 0
+						|| dynamic
+						|| kind == CapsuleKind.OPTIONAL
+						|| kind == CapsuleKind.PLUGIN;
+				if (upper == 1) {
+					newInstance(instance, p, NONE, dynamicSubcapsuleInstance, type);
+				} else {
+					for (int i = 0; i < upper; ++i) {
+						if (i == lower) {
+							dynamicSubcapsuleInstance = true;
+						}
+						newInstance(instance, p, i, dynamicSubcapsuleInstance, type);
+					}
+				}
+			}
+			instanceContained[instance] = first;
+		}
+		return instanceContained[instance];
+	}
+
+	/**
+	 * @param instance
+	 *            - A capsule instance.
+	 * @return The first port instance of the capsule instance, after creating them on first use.
+	 */
+	private int ports(int instance) {
+		if (instancePorts[instance] == NONE) {
+			TypeInfo info = getTypeInfo(instance);
+			int first = portCount;
+			for (int bound : info.portBounds) {
+				newPort(instance, bound);
+			}
+			instancePorts[instance] = first;
+		}
+		return instancePorts[instance];
+	}
+
+	/**
+	 * @param instance
+	 *            - A capsule instance.
+	 * @param port
+	 *            - A {@link Port}.
+	 * @return The port instance of the {@link Port} in the capsule instance, or {@link #NONE} if its capsule
+	 *         does not have the port.
+	 */
+	private int findPort(int instance, Port port) {
+		Integer number = getTypeInfo(instance).portNumbers.get(port);
+		return number == null ? NONE : ports(instance) + number;
+	}
+
+	/**
+	 * @param instance
+	 *            - A capsule instance.
+	 * @param part
+	 *            - A {@link CapsulePart}.
+	 * @return The first and the number of capsule instances in the part of the capsule instance, or the capsule
+	 *         instance itself if its type has no such part.
+	 */
+	private int[] getInstancesFor(int instance, CapsulePart part) {
+		TypeInfo info = getTypeInfo(instance);
+		Integer p = info.partNumbers.get(part);
+		if (p == null) {
+			return new int[] { instance, 1 };
+		}
+		return new int[] { contained(instance) + info.partOffsets[p], info.partCounts[p] };
+	}
+
+	/**
+	 * @param port
+	 *            - A port instance.
+	 * @param index
+	 *            - An index.
+	 * @return The far end of the port instance at the index.
+	 */
+	private static long farEnd(int port, int index) {
+		return ((long) port << 32) | (index & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @param farEnd
+	 *            - A far end.
+	 * @return The port instance of the far end.
+	 */
+	private static int farEndPort(long farEnd) {
+		return (int) (farEnd >>> 32);
+	}
+
+	/**
+	 * @param farEnd
+	 *            - A far end.
+	 * @return The index of the far end.
+	 */
+	private static int farEndIndex(long farEnd) {
+		return (int) farEnd;
+	}
+
+	/**
+	 * Connect a far end to a port instance.
+	 *
+	 * @param port
+	 *            - A port instance.
+	 * @param farEnd
+	 *            - The far end, owned by another port instance.
+	 */
+	private void addFarEnd(int port, long farEnd) {
+		int count = portFarEndCount[port];
+		if (count >= getPortBound(port)) {
+			throw new RuntimeException("out of far-end slots for " + new PortView(port));
+		}
+		int slot = portFarEnds[port] + count;
+		farEndPort[slot] = farEndPort(farEnd);
+		farEndIndex[slot] = farEndIndex(farEnd);
+		portFarEndCount[port] = count + 1;
+	}
+
+	/**
+	 * Disconnect a far end from a port instance.
+	 *
+	 * @param port
+	 *            - A port instance.
+	 * @param position
+	 *            - The position of the far end in the connected far ends of the port instance.
+	 */
+	private void removeFarEnd(int port, int position) {
+		int first = portFarEnds[port];
+		int count = portFarEndCount[port];
+		System.arraycopy(farEndPort, first + position + 1, farEndPort, first + position, count - position - 1);
+		System.arraycopy(farEndIndex, first + position + 1, farEndIndex, first + position, count - position - 1);
+		portFarEndCount[port] = count - 1;
+	}
+
+	/**
+	 * @param port
+	 *            - A port instance.
+	 * @return A new far end of the port instance, or {@link #NO_FAR_END} if all of them have been created.
+	 */
+	private long createFarEnd(int port) {
+		if (portUnconnected[port] <= 0) {
+			return NO_FAR_END;
+		}
+
+		--portUnconnected[port];
+		return farEnd(port, portFarEndCount[port]);
+	}
+
+	/**
+	 * Mark a port instance as a relay and disconnect it, as {@link PortInstance#convertToRelay()} does.
+	 *
+	 * @param port
+	 *            - A port instance.
+	 * @return The current far end.
+	 */
+	private long convertToRelay(int port) {
+		relayPorts.set(port);
+
+		if (portFarEndCount[port] == 0) {
+			if (portUnconnected[port] <= 0) {
+				throw new RuntimeException("out of port instances, cannot create relay port for " + getPort(port).getName());
+			}
+			return createFarEnd(port);
+		}
+
+		int slot = portFarEnds[port];
+		long far = farEnd(farEndPort[slot], farEndIndex[slot]);
+		removeFarEnd(port, 0);
+
+		// Disconnect the far end's owner from this port.
+		int owner = farEndPort(far);
+		int first = portFarEnds[owner];
+		for (int i = 0; i < portFarEndCount[owner]; ++i) {
+			if (farEndPort[first + i] == port) {
+				removeFarEnd(owner, i);
+				break;
+			}
+		}
+		return far;
+	}
+
+	/**
+	 * Create a far end for the given {@link Port} model element, as {@link CapsuleInstance} does.
+	 *
+	 * @param instance
+	 *            - A capsule instance.
+	 * @param modelPort
+	 *            - A {@link Port}.
+	 * @param isRelay
+	 *            - Whether the port is a relay port.
+	 * @return A far end, or {@link #NO_FAR_END}.
+	 */
+	private long createFarEnd(int instance, Port modelPort, boolean isRelay) {
+		int port = findPort(instance, modelPort);
+		if (port == NONE) {
+			return NO_FAR_END;
+		}
+
+		// A top-level port cannot be a relay for a port outside the capsule (see Bug 489055).
+		long far = NO_FAR_END;
+		if (isRelay && instancePart[instance] != NONE) {
+			far = convertToRelay(port);
+		}
+		return far == NO_FAR_END ? createFarEnd(port) : far;
+	}
+
+	/**
+	 * Create connections between the contained capsule instances according to the {@link Capsule}'s structure.
+	 *
+	 * @param instance
+	 *            - A capsule instance.
+	 * @param connReporter
+	 *            - A {@link ConnectorReporter}, or {@code null}.
+	 * @param shallow
+	 *            - {@code true} if it should not recursively create connections of the contained instances.
+	 */
+	private void connect(int instance, ConnectorReporter connReporter, boolean shallow) {
+		TypeInfo info = getTypeInfo(instance);
+		for (Connector connector : info.connectors) {
+			connect(instance, connReporter, connector);
+		}
+
+		if (!shallow) {
+			int first = contained(instance);
+			for (int sub = first; sub < first + info.containedCount; ++sub) {
+				if (!dynamicInstances.get(sub)) {
+					connect(sub, connReporter == null ? null : connReporter.createInner(new CapsuleView(sub)), false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create the connections corresponding to the given {@code connector} in a capsule instance, as
+	 * {@link CapsuleInstance} does.
+	 *
+	 * @param instance
+	 *            - A capsule instance.
+	 * @param connReporter
+	 *            - A {@link ConnectorReporter}, or {@code null}.
+	 * @param connector
+	 *            - A {@link Connector} element in the model.
+	 */
+	private void connect(int instance, ConnectorReporter connReporter, Connector connector) {
+		ConnectorEnd[] ends = connector.getEnds().toArray(new ConnectorEnd[2]);
+		if (ends.length != 2) {
+			return;
+		}
+
+		CapsulePart part = getPart(instance);
+		CapsuleInstance.End end0 = new CapsuleInstance.End(part, ends[0]);
+		CapsuleInstance.End end1 = new CapsuleInstance.End(part, ends[1]);
+		// The end with the most actual port instances is the primary side.
+		CapsuleInstance.End primary = end0.numPortInstances >= end1.numPortInstances ? end0 : end1;
+		CapsuleInstance.End secondary = primary == end0 ? end1 : end0;
+
+		boolean dynamic = dynamicInstances.get(instance);
+		Map<Port, Integer> portNumbers = getTypeInfo(instance).portNumbers;
+		boolean isRelay0 = !dynamic && primary.part == part && XTUMLRTUtil.isBorderPort(primary.port)
+				&& portNumbers.containsKey(primary.port);
+		boolean isRelay1 = !dynamic && secondary.part == part && XTUMLRTUtil.isBorderPort(secondary.port)
+				&& portNumbers.containsKey(secondary.port);
+
+		int perPrimaryRole = secondary.numPortInstances / primary.numParts;
+		int[] primaryInstances = getInstancesFor(instance, primary.part);
+		int[] secondaryInstances = getInstancesFor(instance, secondary.part);
+		int secondaryPosition = 0;
+		for (int p = 0; p < primaryInstances[1]; ++p) {
+			int cap0 = primaryInstances[0] + p;
+			for (int i = 0; secondaryPosition < secondaryInstances[1] && i < perPrimaryRole; ++i) {
+				long farEnd0 = createFarEnd(cap0, primary.port, isRelay0);
+				long farEnd1 = createFarEnd(secondaryInstances[0] + secondaryPosition, secondary.port, isRelay1);
+
+				// If all far ends have been consumed, then advance to the next the secondary capsule instance.
+				if (farEnd1 == NO_FAR_END) {
+					if (++secondaryPosition >= secondaryInstances[1]) {
+						throw new RuntimeException("not enough secondary capsule instances to connect " + primary.toString() + " and " + secondary.toString() + " with " + connector.getName());
+					}
+					farEnd1 = createFarEnd(secondaryInstances[0] + secondaryPosition, secondary.port, isRelay1);
+				}
+				if (farEnd0 == NO_FAR_END || farEnd1 == NO_FAR_END) {
+					throw new RuntimeException("not enough port instances to connect " + primary.toString() + " and " + secondary.toString() + " with " + connector.getName());
+				}
+
+				addFarEnd(farEndPort(farEnd0), farEnd1);
+				addFarEnd(farEndPort(farEnd1), farEnd0);
+
+				if (connReporter != null) {
+					connReporter.record(connector, new FarEndView(farEnd0), new FarEndView(farEnd1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param instance
+	 *            - A capsule instance.
+	 * @param sep
+	 *            - A {@code char} to use as separator.
+	 * @return The qualified name of the capsule instance, as {@link CapsuleInstance#getQualifiedName(char)}.
+	 */
+	private String getQualifiedName(int instance, char sep) {
+		CapsulePart part = getPart(instance);
+		String base = part != null ? part.getName() : getTypeInfo(instance).capsule.getName();
+		int container = instanceContainer[instance];
+		if (container != NONE) {
+			base = getQualifiedName(container, sep) + sep + base;
+		}
+		int index = instanceIndex[instance];
+		if (index == NONE) {
+			return base;
+		}
+
+		switch (sep) {
+		case '.':
+			return base + '[' + index + ']';
+		case '_':
+		default:
+			return base + sep + index;
+		}
+	}
+
+	/**
+	 * The information of a {@link Capsule} type shared by all its instances.
+	 */
+	private static final class TypeInfo {
+
+		/** The {@link Capsule}. */
+		final Capsule capsule;
+
+		/** The parts of the capsule, sorted by name. */
+		final CapsulePart[] parts;
+
+		/** The number of each part, compared by name. */
+		final Map<CapsulePart, Integer> partNumbers = new TreeMap<>(new CapsuleInstance.CapsulePartComparator());
+
+		/** The lower bound of each part. */
+		final int[] partLowers;
+
+		/** The upper bound of each part. */
+		final int[] partUppers;
+
+		/** The number of capsule instances in each part. */
+		final int[] partCounts;
+
+		/** The position of the first instance of each part in the contained instances. */
+		final int[] partOffsets;
+
+		/** The number of contained instances. */
+		final int containedCount;
+
+		/** The RT ports of the capsule. */
+		final Port[] ports;
+
+		/** The number of each port. */
+		final Map<Port, Integer> portNumbers = new LinkedHashMap<>();
+
+		/** The upper bound of each port. */
+		final int[] portBounds;
+
+		/** The connectors of the capsule. */
+		final List<Connector> connectors = new ArrayList<>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param capsule
+		 *            - A {@link Capsule}.
+		 */
+		TypeInfo(Capsule capsule) {
+			this.capsule = capsule;
+
+			Map<CapsulePart, CapsulePart> sortedParts = new TreeMap<>(new CapsuleInstance.CapsulePartComparator());
+			if (capsule != null) {
+				for (CapsulePart part : XTUMLRTExtensions.getAllCapsuleParts(capsule)) {
+					sortedParts.put(part, part);
+				}
+				for (Port port : XTUMLRTExtensions.getAllRTPorts(capsule)) {
+					if (!portNumbers.containsKey(port)) {
+						portNumbers.put(port, portNumbers.size());
+					}
+				}
+				for (Connector connector : XTUMLRTExtensions.getAllConnectors(capsule)) {
+					connectors.add(connector);
+				}
+			}
+
+			parts = sortedParts.values().toArray(new CapsulePart[sortedParts.size()]);
+			partLowers = new int[parts.length];
+			partUppers = new int[parts.length];
+			partCounts = new int[parts.length];
+			partOffsets = new int[parts.length];
+			int offset = 0;
+			for (int p = 0; p < parts.length; ++p) {
+				partNumbers.put(parts[p], p);
+				partLowers[p] = BoundsEvaluator.getLowerBound(parts[p]);
+				partUppers[p] = BoundsEvaluator.getUpperBound(parts[p]);
+				partCounts[p] = getPartInstanceCount(partUppers[p]);
+				partOffsets[p] = offset;
+				offset += partCounts[p];
+			}
+			containedCount = offset;
+
+			ports = portNumbers.keySet().toArray(new Port[portNumbers.size()]);
+			portBounds = new int[ports.length];
+			for (int p = 0; p < ports.length; ++p) {
+				portBounds[p] = BoundsEvaluator.getUpperBound(ports[p]);
+			}
+		}
+	}
+
+	/**
+	 * A view of a capsule instance of the model.
+	 */
+	private final class CapsuleView implements ICapsuleInstance {
+
+		/** The capsule instance. */
+		private final int instance;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param instance
+		 *            - The capsule instance.
+		 */
+		CapsuleView(int instance) {
+			this.instance = instance;
+		}
+
+		/**
+		 * @return The {@link CompactInstanceModel} of this instance.
+		 */
+		CompactInstanceModel getModel() {
+			return CompactInstanceModel.this;
+		}
+
+		@Override
+		public Capsule getType() {
+			return getTypeInfo(instance).capsule;
+		}
+
+		@Override
+		public CapsulePart getCapsulePart() {
+			return getPart(instance);
+		}
+
+		@Override
+		public ICapsuleInstance getContainer() {
+			int container = instanceContainer[instance];
+			return container == NONE ? null : new CapsuleView(container);
+		}
+
+		@Override
+		public int getIndex() {
+			int index = instanceIndex[instance];
+			return index == NONE ? 0 : index;
+		}
+
+		@Override
+		public String getQualifiedName(char sep) {
+			return CompactInstanceModel.this.getQualifiedName(instance, sep);
+		}
+
+		@Override
+		public List<IPortInstance> getPorts() {
+			int first = ports(instance);
+			int count = getTypeInfo(instance).ports.length;
+			List<IPortInstance> list = new ArrayList<>(count);
+			for (int port = first; port < first + count; ++port) {
+				list.add(new PortView(port));
+			}
+			return list;
+		}
+
+		@Override
+		public IPortInstance getPort(Port port) {
+			int portInstance = findPort(instance, port);
+			return portInstance == NONE ? null : new PortView(portInstance);
+		}
+
+		@Override
+		public boolean isDynamic() {
+			return dynamicInstances.get(instance);
+		}
+
+		@Override
+		public List<ICapsuleInstance> getContained() {
+			return new CapsuleViewList(contained(instance), getTypeInfo(instance).containedCount);
+		}
+
+		@Override
+		public List<? extends ICapsuleInstance> getContained(CapsulePart part) {
+			TypeInfo info = getTypeInfo(instance);
+			Integer p = info.partNumbers.get(part);
+			return p == null ? null : new CapsuleViewList(contained(instance) + info.partOffsets[p], info.partCounts[p]);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CapsuleView && ((CapsuleView) obj).getModel() == getModel() && ((CapsuleView) obj).instance == instance;
+		}
+
+		@Override
+		public int hashCode() {
+			return instance;
+		}
+
+		@Override
+		public String toString() {
+			return getQualifiedName('.');
+		}
+	}
+
+	/**
+	 * A {@link List} of the views of consecutive capsule instances.
+	 */
+	private final class CapsuleViewList extends AbstractList<ICapsuleInstance> {
+
+		/** The first capsule instance. */
+		private final int first;
+
+		/** The number of capsule instances. */
+		private final int count;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param first
+		 *            - The first capsule instance.
+		 * @param count
+		 *            - The number of capsule instances.
+		 */
+		CapsuleViewList(int first, int count) {
+			this.first = first;
+			this.count = count;
+		}
+
+		@Override
+		public ICapsuleInstance get(int index) {
+			if (index < 0 || index >= count) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+			}
+			return new CapsuleView(first + index);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
+	/**
+	 * A view of a port instance of the model.
+	 */
+	private final class PortView implements IPortInstance {
+
+		/** The port instance. */
+		private final int port;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param port
+		 *            - The port instance.
+		 */
+		PortView(int port) {
+			this.port = port;
+		}
+
+		/**
+		 * @return The {@link CompactInstanceModel} of this port instance.
+		 */
+		CompactInstanceModel getModel() {
+			return CompactInstanceModel.this;
+		}
+
+		@Override
+		public ICapsuleInstance getContainer() {
+			return new CapsuleView(portContainer[port]);
+		}
+
+		@Override
+		public Port getType() {
+			return getPort(port);
+		}
+
+		@Override
+		public Iterable<? extends IFarEnd> getFarEnds() {
+			return new AbstractList<IFarEnd>() {
+				@Override
+				public IFarEnd get(int index) {
+					if (index < 0 || index >= size()) {
+						throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+					}
+					int slot = portFarEnds[port] + index;
+					return new FarEndView(farEnd(farEndPort[slot], farEndIndex[slot]));
+				}
+
+				@Override
+				public int size() {
+					return portFarEndCount[port];
+				}
+			};
+		}
+
+		@Override
+		public String getName() {
+			return getType().getName();
+		}
+
+		@Override
+		public boolean isRelay() {
+			return relayPorts.get(port);
+		}
+
+		@Override
+		public boolean isTopLevelPort() {
+			return instancePart[portContainer[port]] == NONE;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof PortView && ((PortView) obj).getModel() == getModel() && ((PortView) obj).port == port;
+		}
+
+		@Override
+		public int hashCode() {
+			return port;
+		}
+
+		@Override
+		public String toString() {
+			return getContainer().toString() + '#' + getName();
+		}
+	}
+
+	/**
+	 * A view of a far end of the model.
+	 */
+	private final class FarEndView implements IPortInstance.IFarEnd {
+
+		/** The far end. */
+		private final long farEnd;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param farEnd
+		 *            - The far end.
+		 */
+		FarEndView(long farEnd) {
+			this.farEnd = farEnd;
+		}
+
+		/**
+		 * @return The {@link CompactInstanceModel} of this far end.
+		 */
+		CompactInstanceModel getModel() {
+			return CompactInstanceModel.this;
+		}
+
+		@Override
+		public int getIndex() {
+			return farEndIndex(farEnd);
+		}
+
+		@Override
+		public ICapsuleInstance getContainer() {
+			return new CapsuleView(portContainer[farEndPort(farEnd)]);
+		}
+
+		@Override
+		public Port getType() {
+			return getPort(farEndPort(farEnd));
+		}
+
+		@Override
+		public IPortInstance getOwner() {
+			return new PortView(farEndPort(farEnd));
+		}
+
+		@Override
+		public void connectWith(IPortInstance.IFarEnd other) {
+			addFarEnd(farEndPort(farEnd), ((FarEndView) other).farEnd);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof FarEndView && ((FarEndView) obj).getModel() == getModel() && ((FarEndView) obj).farEnd == farEnd;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(farEnd);
+		}
+
+		@Override
+		public String toString() {
+			return getOwner().toString() + ".far[" + getIndex() + ']';
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.papyrusrt.codegen.instance.model;
+
+import org.eclipse.papyrusrt.codegen.cpp.ConnectorReporter;
+import org.eclipse.papyrusrt.codegen.cpp.CppCodeGenPlugin;
+import org.eclipse.papyrusrt.xtumlrt.common.Capsule;
+
+/**
+ * Creates the instance model of a topology, selecting the implementation from its size: a
+ * {@link CompactInstanceModel} when the estimated number of capsule instances reaches a threshold, and
+ * {@link CapsuleInstance}s otherwise.
+ */
+public final class InstanceModels {
+
+	/**
+	 * The system property giving the default number of capsule instances from which topologies use a
+	 * {@link CompactInstanceModel}. Compact models are not used unless it is set.
+	 */
+	public static final String COMPACT_THRESHOLD_PROPERTY = CppCodeGenPlugin.ID + ".compactInstanceThreshold";
+
+	/**
+	 * Constructor.
+	 */
+	private InstanceModels() {
+	}
+
+	/**
+	 * @return The number of capsule instances from which topologies use a {@link CompactInstanceModel}, given
+	 *         by the {@link #COMPACT_THRESHOLD_PROPERTY}, or {@link Integer#MAX_VALUE} if it is not set.
+	 */
+	public static int getDefaultCompactThreshold() {
+		return Math.max(1, Integer.getInteger(COMPACT_THRESHOLD_PROPERTY, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Create the top-level capsule instance of a topology.
+	 *
+	 * @param top
+	 *            - The {@link Capsule} type to use as top capsule.
+	 * @param shallow
+	 *            - Whether the instance will be connected shallowly, in which case only the instances directly
+	 *            contained by the top-level instance are counted.
+	 * @param compactThreshold
+	 *            - The number of capsule instances from which a {@link CompactInstanceModel} is used.
+	 * @return The top-level {@link ICapsuleInstance}.
+	 */
+	public static ICapsuleInstance createTopInstance(Capsule top, boolean shallow, int compactThreshold) {
+		if (CompactInstanceModel.estimateInstanceCount(top, shallow) >= compactThreshold) {
+			return new CompactInstanceModel(top).getTop();
+		}
+		return new CapsuleInstance(top);
+	}
+
+	/**
+	 * Create connections between the contained capsule instances of a top-level instance, whatever its
+	 * implementation.
+	 *
+	 * @param top
+	 *            - A top-level {@link ICapsuleInstance} created by {@link #createTopInstance(Capsule, boolean, int)}.
+	 * @param connReporter
+	 *            - A {@link ConnectorReporter}, or {@code null}.
+	 * @param shallow
+	 *            - {@code true} if it should create only the connections for the top-level instance,
+	 *            but not recursively create connections of the contained instances.
+	 */
+	public static void connect(ICapsuleInstance top, ConnectorReporter connReporter, boolean shallow) {
+		CompactInstanceModel model = CompactInstanceModel.getModel(top);
+		if (model != null) {
+			model.connect(connReporter, shallow);
+		} else if (top instanceof CapsuleInstance) {
+			((CapsuleInstance) top).connect(connReporter, shallow);
+		} else {
+			throw new IllegalArgumentException("unsupported capsule instance " + top);
+		}
+	}
+
+	/**
+	 * Create the top-level capsule instance of a topology and its connections.
+	 *
+	 * @param top
+	 *            - The {@link Capsule} type to use as top capsule.
+	 * @param shallow
+	 *            - {@code true} if it should create only the connections for the top-level instance.
+	 * @param compactThreshold
+	 *            - The number of capsule instances from which a {@link CompactInstanceModel} is used.
+	 * @return The connected top-level {@link ICapsuleInstance}.
+	 */
+	public static ICapsuleInstance createConnectedInstance(Capsule top, boolean shallow, int compactThreshold) {
+		ICapsuleInstance instance = createTopInstance(top, shallow, compactThreshold);
+		connect(instance, null, shallow);
+		return instance;
+	}
+
+}
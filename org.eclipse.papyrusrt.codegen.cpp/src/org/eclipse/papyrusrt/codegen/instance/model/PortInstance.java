@@ -10,7 +10,7 @@ package org.eclipse.papyrusrt.codegen.instance.model;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.eclipse.papyrusrt.xtumlrt.aexpr.uml.XTUMLRTBoundsEvaluator;
+import org.eclipse.papyrusrt.codegen.cpp.BoundsEvaluator;
 import org.eclipse.papyrusrt.xtumlrt.common.Port;
 
 /**
@@ -44,7 +44,7 @@ public class PortInstance implements IPortInstance {
 	public PortInstance(ICapsuleInstance container, Port type) {
 		this.container = container;
 		this.type = type;
-		this.unconnectedFarEnds = XTUMLRTBoundsEvaluator.getUpperBound(type);
+		this.unconnectedFarEnds = BoundsEvaluator.getUpperBound(type);
 		this.farEnds = new ArrayList<>(unconnectedFarEnds);
 	}
 
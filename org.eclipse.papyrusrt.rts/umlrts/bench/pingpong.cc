@@ -0,0 +1,231 @@
+// pingpong.cc
+
+/*******************************************************************************
+* Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+
+// Multi-controller ping-pong throughput benchmark.
+//
+// Each pair has a 'ping' capsule and a 'pong' capsule, each on its own controller, with their
+// single border ports connected. The ping capsule sends 'ping', the pong capsule replies with 'pong',
+// for a given number of rounds. All pairs run concurrently, so the message throughput shows how well
+// signal delivery scales with the number of controllers.
+//
+// Usage: pingpong [<pairs> [<rounds>]]
+
+#include "umlrtcapsule.hh"
+#include "umlrtcapsuleclass.hh"
+#include "umlrtcommsport.hh"
+#include "umlrtcommsportfarend.hh"
+#include "umlrtcommsportrole.hh"
+#include "umlrtcontroller.hh"
+#include "umlrtmessage.hh"
+#include "umlrtmessagepool.hh"
+#include "umlrtoutsignal.hh"
+#include "umlrtsignalelementpool.hh"
+#include "umlrtslot.hh"
+#include "umlrttimerpool.hh"
+#include "umlrttimespec.hh"
+#include <new>
+#include <stdio.h>
+#include <stdlib.h>
+
+namespace
+{
+    enum { SIGNAL_PING = 1, SIGNAL_PONG };
+
+    const UMLRTCommsPortRole portRoles[] =
+    {
+        {
+            0, // id
+            "PingPong", // protocol
+            "peer", // name
+            NULL, // registrationOverride
+            1, // numFarEnd
+            false, // automatic
+            false, // conjugated
+            false, // locked
+            false, // notification
+            false, // sap
+            false, // spp
+            true // wired
+        }
+    };
+
+    const UMLRTCapsuleClass pingPongClass =
+    {
+        "PingPong",
+        NULL, // super
+        NULL, // instantiate
+        0, // numSubcapsuleRoles
+        NULL, // subcapsuleRoles
+        1, // numPortRolesBorder
+        portRoles,
+        0, // numPortRolesInternal
+        NULL // portRolesInternal
+    };
+
+    long rounds = 100000;
+
+    // Number of pairs still running. The last one to finish exits all the controllers.
+    int running = 0;
+
+    class PingPong : public UMLRTCapsule
+    {
+    public:
+        PingPong ( UMLRTSlot * slot, const UMLRTCommsPort * * borderPorts_, bool isPing_ )
+            : UMLRTCapsule(NULL, &pingPongClass, slot, borderPorts_, NULL, true), isPing(isPing_), count(0)
+        {
+        }
+
+        virtual void initialize ( const UMLRTMessage & msg )
+        {
+            if (isPing)
+            {
+                send(SIGNAL_PING);
+            }
+        }
+
+        virtual void inject ( const UMLRTMessage & msg )
+        {
+            if (!isPing)
+            {
+                send(SIGNAL_PONG);
+            }
+            else if (++count < rounds)
+            {
+                send(SIGNAL_PING);
+            }
+            else if (__sync_sub_and_fetch(&running, 1) == 0)
+            {
+                context()->exitAllControllers(NULL);
+            }
+        }
+
+    private:
+        void send ( int id )
+        {
+            UMLRTOutSignal signal;
+            signal.initialize(id == SIGNAL_PING ? "ping" : "pong", id, borderPorts[0]);
+            if (!signal.send())
+            {
+                context()->perror("%s: send failed", name());
+                context()->abortAllControllers();
+            }
+        }
+
+        bool isPing;
+        long count;
+    };
+
+    void printPoolStats ( const char * name, UMLRTPool * pool )
+    {
+        UMLRTPoolStats stats;
+        pool->getStats(stats);
+
+        printf("pingpong: %s pool: size %lu, free %lu, in use %lu, high-water %lu, cross-thread frees %lu\n",
+                name, (unsigned long)stats.size, (unsigned long)stats.free, (unsigned long)stats.inUse,
+                (unsigned long)stats.highWater, (unsigned long)stats.crossThreadFrees);
+    }
+
+    char * makeName ( const char * prefix, int index )
+    {
+        char * name = (char *)malloc(32);
+        snprintf(name, 32, "%s%d", prefix, index);
+        return name;
+    }
+}
+
+int main ( int argc, char * argv[] )
+{
+    int pairs = (argc > 1) ? atoi(argv[1]) : 4;
+    if (argc > 2)
+    {
+        rounds = atol(argv[2]);
+    }
+    if ((pairs <= 0) || (rounds <= 0))
+    {
+        fprintf(stderr, "usage: %s [<pairs> [<rounds>]]\n", argv[0]);
+        return EXIT_FAILURE;
+    }
+    UMLRTController::initializePools(new UMLRTSignalElementPool(), new UMLRTMessagePool(), new UMLRTTimerPool());
+
+    size_t numSlots = 2 * pairs;
+    UMLRTSlot * slots = (UMLRTSlot *)malloc(numSlots * sizeof(UMLRTSlot));
+    UMLRTCommsPort * ports = (UMLRTCommsPort *)calloc(numSlots, sizeof(UMLRTCommsPort));
+    UMLRTCommsPortFarEnd * farEnds = (UMLRTCommsPortFarEnd *)calloc(numSlots, sizeof(UMLRTCommsPortFarEnd));
+    UMLRTController * * controllers = new UMLRTController * [numSlots];
+
+    for (size_t i = 0; i < numSlots; ++i)
+    {
+        controllers[i] = new UMLRTController(makeName("Controller", i), numSlots, slots);
+
+        UMLRTSlot slot =
+        {
+            makeName((i % 2) ? "pong" : "ping", i / 2), // name
+            0, // capsuleIndex
+            &pingPongClass, // capsuleClass
+            NULL, // containerClass
+            0, // roleIndex
+            NULL, // capsule
+            controllers[i], // controller
+            0, // numParts
+            NULL, // parts
+            1, // numPorts
+            &ports[i], // ports
+            NULL, // slotToBorderMap
+            true, // generated
+            false // condemned
+        };
+        new (&slots[i]) UMLRTSlot(slot);
+
+        // Each port is connected to the port of the other capsule of the pair.
+        farEnds[i].farEndIndex = 0;
+        farEnds[i].port = &ports[i ^ 1];
+
+        ports[i].containerClass = &pingPongClass;
+        ports[i].roleIndex = 0;
+        ports[i].slot = &slots[i];
+        ports[i].numFarEnd = 1;
+        ports[i].farEnds = &farEnds[i];
+        ports[i].border = true;
+        ports[i].generated = true;
+        ports[i].wired = true;
+    }
+    for (size_t i = 0; i < numSlots; ++i)
+    {
+        const UMLRTCommsPort * * borderPorts = new const UMLRTCommsPort * [1];
+        borderPorts[0] = &ports[i];
+        slots[i].capsule = new PingPong(&slots[i], borderPorts, !(i % 2));
+    }
+    running = pairs;
+
+    UMLRTTimespec start, end;
+    UMLRTTimespec::getclock(start);
+
+    for (size_t i = 0; i < numSlots; ++i)
+    {
+        controllers[i]->spawn();
+    }
+    for (size_t i = 0; i < numSlots; ++i)
+    {
+        controllers[i]->join();
+    }
+    UMLRTTimespec::getclock(end);
+
+    UMLRTTimespec elapsed = end - start;
+    double seconds = elapsed.tv_sec + (double)elapsed.tv_nsec / UMLRTTimespec::ONE_BILLION;
+    double messages = 2.0 * pairs * rounds;
+
+    printf("pingpong: %d pairs (%lu controllers), %ld rounds: %.0f messages in %.3f s, %.0f messages/s\n",
+            pairs, (unsigned long)numSlots, rounds, messages, seconds, messages / seconds);
+
+    printPoolStats("message", UMLRTController::getMessagePool());
+    printPoolStats("signal element", UMLRTController::getSignalElementPool());
+
+    return running ? EXIT_FAILURE : EXIT_SUCCESS;
+}
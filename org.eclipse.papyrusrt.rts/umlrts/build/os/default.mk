@@ -38,6 +38,7 @@ CC_OBJS=\
     $(BUILDROOT)/$(CONFIG)/umlrt/umlrtobjectclass$(OBJ_EXT) \
     $(BUILDROOT)/$(CONFIG)/umlrt/umlrtoutsignal$(OBJ_EXT) \
     $(BUILDROOT)/$(CONFIG)/umlrt/umlrtpool$(OBJ_EXT) \
+    $(BUILDROOT)/$(CONFIG)/umlrt/umlrtpoolcache$(OBJ_EXT) \
     $(BUILDROOT)/$(CONFIG)/umlrt/umlrtprioritymessagequeue$(OBJ_EXT) \
     $(BUILDROOT)/$(CONFIG)/umlrt/umlrtprotocol$(OBJ_EXT) \
     $(BUILDROOT)/$(CONFIG)/umlrt/umlrtqueue$(OBJ_EXT) \
@@ -35,6 +35,7 @@ set(SRCS
   ${UMLRTS_ROOT}/umlrt/umlrtobjectclass.cc
   ${UMLRTS_ROOT}/umlrt/umlrtoutsignal.cc
   ${UMLRTS_ROOT}/umlrt/umlrtpool.cc
+  ${UMLRTS_ROOT}/umlrt/umlrtpoolcache.cc
   ${UMLRTS_ROOT}/umlrt/umlrtprioritymessagequeue.cc
   ${UMLRTS_ROOT}/umlrt/umlrtprotocol.cc
   ${UMLRTS_ROOT}/umlrt/umlrtqueue.cc
@@ -12,6 +12,7 @@ set(SRCS
   ${UMLRTS_ROOT}/os/${OS_FILES_SDIR}/osbasicthread.cc
   ${UMLRTS_ROOT}/os/${OS_FILES_SDIR}/osmutex.cc
   ${UMLRTS_ROOT}/os/${OS_FILES_SDIR}/osnotify.cc
+  ${UMLRTS_ROOT}/os/${OS_FILES_SDIR}/osnotifywait.cc
   ${UMLRTS_ROOT}/os/${OS_FILES_SDIR}/ossemaphore.cc
   ${UMLRTS_ROOT}/os/${OS_FILES_SDIR}/ostime.cc
   ${UMLRTS_ROOT}/os/${OS_FILES_SDIR}/ostimespec.cc
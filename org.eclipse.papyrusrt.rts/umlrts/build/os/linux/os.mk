@@ -16,6 +16,7 @@ CC_OBJS+= \
    $(BUILDROOT)/$(CONFIG)/os/$(TARGETOS)/osbasicthread$(OBJ_EXT) \
    $(BUILDROOT)/$(CONFIG)/os/$(TARGETOS)/osmutex$(OBJ_EXT) \
    $(BUILDROOT)/$(CONFIG)/os/$(TARGETOS)/osnotify$(OBJ_EXT) \
+   $(BUILDROOT)/$(CONFIG)/os/$(TARGETOS)/osnotifywait$(OBJ_EXT) \
    $(BUILDROOT)/$(CONFIG)/os/$(TARGETOS)/ossemaphore$(OBJ_EXT) \
    $(BUILDROOT)/$(CONFIG)/os/$(TARGETOS)/ostime$(OBJ_EXT) \
    $(BUILDROOT)/$(CONFIG)/os/$(TARGETOS)/ostimespec$(OBJ_EXT)
@@ -19,9 +19,12 @@
 #include "umlrtprioritymessagequeue.hh"
 #include "umlrttimerqueue.hh"
 #include "umlrtcontrollercommand.hh"
+#include "umlrtmutex.hh"
+#include "umlrtpoolcache.hh"
 
 struct UMLRTCommsPort;
 class UMLRTMessagePool;
+class UMLRTNotifyWait;
 class UMLRTSignal;
 class UMLRTSignalElementPool;
 struct UMLRTTimer;
@@ -129,7 +132,7 @@ public:
 
     UMLRTController ( const char * name_, size_t numSlot, UMLRTSlot slots_[] );
     UMLRTController ( const char * name_ );
-    virtual ~UMLRTController ( ) { }
+    virtual ~UMLRTController ( );
 
     // Abort the controller (or all controllers). This release always aborts all.
     void abort ( ) { enqueueAbortAllControllers(); }
@@ -197,6 +200,11 @@ public:
    // Get the system-wide timer pool.
     static UMLRTTimerPool * getTimerPool ( );
 
+    // Get the running controller's cache of the message pool or the signal element pool.
+    // Returns NULL if the caller is not running on a controller thread.
+    static UMLRTPoolCache * getMessagePoolCache ( );
+    static UMLRTPoolCache * getSignalElementPoolCache ( );
+
     // Initialize the free signal, message and timer pools.
     static void initializePools ( UMLRTSignalElementPool * signalElementPool_, UMLRTMessagePool * messagePool_, UMLRTTimerPool * timerPool_ );
 
@@ -226,6 +234,18 @@ public:
     // Return the string associated with the last error code.
     const char * strerror ( ) const;
 
+    // Take this controller's delivery lock. Held by signal delivery from this controller's thread.
+    void takeDeliveryLock ( );
+
+    // Give back this controller's delivery lock.
+    void giveDeliveryLock ( );
+
+    // Take the delivery locks of all controllers. Done with the global RTS lock held, before a structural change.
+    static void takeAllDeliveryLocks ( );
+
+    // Give back the delivery locks of all controllers.
+    static void giveAllDeliveryLocks ( );
+
 private:
 
     // Used to match controller commands that should be deallocated from message queues during DEPORT/DESTROY.
@@ -254,7 +274,7 @@ private:
 
     const char * const name_;
 
-    // Messages from other threads.
+    // Messages from other threads. Other threads post to it without locking.
     UMLRTPriorityMessageQueue    incomingQueue;
 
     // Messages destined for contained capsules. This thread is the only
@@ -264,6 +284,9 @@ private:
     // Queue of running timers. Starts out empty.
     UMLRTTimerQueue timerQueue;
 
+    // Waits on the notifications of the incomingQueue and the timerQueue. Created by the first wait.
+    UMLRTNotifyWait * waitPtr;
+
     // Queue of deferred messages.
     UMLRTMessageQueue deferredMessages;
 
@@ -282,6 +305,10 @@ private:
     // The application-wide free timer pool.
     static UMLRTTimerPool * timerPool;
 
+    // This controller's caches of the message pool and the signal element pool. Used only by this thread.
+    UMLRTPoolCache messagePoolCache;
+    UMLRTPoolCache signalElementPoolCache;
+
     bool _exit; // Normal exit.
     void * exitValue; // Defined by user on normal exit. Set to EXIT_FAILURE on abort.
     bool _abort; // Abnormal exit.
@@ -289,6 +316,24 @@ private:
     // Last error - set by a failed RTS API which returns an error-indication back to the user.
     Error lastError;
 
+    // Signal delivery from this controller's thread holds this lock instead of the global RTS lock.
+    // Structural changes hold the delivery locks of all controllers, so a delivery sees ports and slots
+    // that are not being modified, while deliveries from different controllers do not contend.
+    UMLRTMutex deliveryLock;
+
+    // The list of all controllers, for taking all the delivery locks.
+    static UMLRTController * deliveryLockList;
+    UMLRTController * nextDeliveryLock;
+
+    // Guards the list of all controllers. Held while all the delivery locks are taken.
+    static UMLRTMutex & getDeliveryLockListMutex ( );
+
+    // Add this controller to the list of all controllers.
+    void addDeliveryLock ( );
+
+    // Remove this controller from the list of all controllers.
+    void removeDeliveryLock ( );
+
     // Output the capsule nesting.
     void debugOutputSlotContainment ( const UMLRTSlot * slot, size_t nesting );
 
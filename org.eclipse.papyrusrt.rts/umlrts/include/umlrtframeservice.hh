@@ -101,9 +101,14 @@ public:
     static void requestControllerDestroy ( UMLRTSlot * slotToDestroy, bool isTopSlot, bool lockAcuired );
 
     // For locking the RTS - performed outside frame service in context of signal send.
+    // Taken to modify ports and slots. Stops signal delivery on every controller.
     static void rtsLock ( );
     static void rtsUnlock ( );
 
+    // Taken to read ports and slots only. Excludes rtsLock() but not signal delivery.
+    static void rtsReadLock ( );
+    static void rtsReadUnlock ( );
+
     // Send rtBound/rtUnbound to port.
     static void sendBoundUnbound( const UMLRTCommsPort * * ports, int portId, int localIndex, bool isBind );
 
@@ -209,8 +214,10 @@ private:
     // Send rtBound/rtUnbound for local port.
     static void sendBoundUnboundForPortList ( const UMLRTCommsPort * * ports, size_t numPorts, bool isBind );
 
-    // A global lock is used when modifying ports and accessing port far-ends for message delivery.
-    // More efficient locking can be used in a future version.
+    // A global lock is used when accessing ports and slots. rtsLock() also takes the delivery lock of every
+    // controller, so signal delivery, which only takes the delivery lock of the sending controller, does
+    // not see ports and slots being modified. Queries that only read them take rtsReadLock(), which leaves
+    // signal delivery running.
     static UMLRTMutex rtsGlobalLock;
 
     // Interface object for capsule instances to interact with the RTS.
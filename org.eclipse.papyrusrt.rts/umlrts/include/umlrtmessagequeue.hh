@@ -12,19 +12,58 @@
 #define UMLRTMESSAGEQUEUE_HH
 
 #include "umlrtqueue.hh"
+#include "umlrtqueueelement.hh"
 
 // UMLRTMessageQueue - a message queue.
 
 // One of these exists per msg-priority for delivery of messages to capsules.
 
-// One of these exists for the controller 'incoming queue' - messages
+// One of these exists per msg-priority for the controller 'incoming queue' - messages
 // received from other threads.
 
+// Messages from other threads are added with 'post', which does not lock: producers link
+// the message onto an intrusive multi-producer/single-consumer list (Vyukov-style), so they
+// never block each other or the consumer. The consumer (the owning controller) collects the
+// posted messages onto the queue itself before each of the other operations, so 'dequeue',
+// 'dequeueAll', 'remove', 'walk', 'count' and 'isEmpty' work as for any queue. Only the
+// consumer may call these on a queue that messages are posted to.
+
 class UMLRTMessageQueue : public UMLRTQueue
 {
 public:
     // Constructed empty.
     UMLRTMessageQueue();
+
+    // Add element on the tail of the queue from any thread, without locking.
+    // Returns true if no posted element was pending.
+    bool post ( const UMLRTQueueElement * element ) const;
+
+    // Consumer operations - see UMLRTQueue. These first collect the posted elements.
+    const UMLRTQueueElement * dequeue ( );
+    const UMLRTQueueElement * dequeueAll ( const UMLRTQueueElement * * last, size_t * count_p );
+    bool isEmpty ( ) const;
+    size_t count ( ) const;
+    int remove ( match_compare_t compare, match_notify_t notify, void * userData, bool one = false );
+    int walk ( walk_callback_t callback, void * userData ) const;
+
+private:
+    // Append the posted elements to the queue. Consumer only.
+    void collect ( ) const;
+
+    // Unlink the oldest posted element. Returns NULL if none, or if the next one is still being posted.
+    const UMLRTQueueElement * take ( ) const;
+
+    // Link an element onto the posted list.
+    const UMLRTQueueElement * link ( const UMLRTQueueElement * element ) const;
+
+    // Oldest posted element (or 'stub'). Only accessed by the consumer.
+    mutable const UMLRTQueueElement * postHead;
+
+    // Newest posted element (or 'stub'). Exchanged by producers.
+    mutable const UMLRTQueueElement * volatile postTail;
+
+    // Placeholder kept on the posted list when it is empty, so producers only ever update 'postTail'.
+    mutable UMLRTQueueElement stub;
 };
 
 
@@ -16,10 +16,24 @@
 
 struct UMLRTQueueElement;
 
+// UMLRTPoolStats - the counters of a pool.
+
+struct UMLRTPoolStats
+{
+    size_t size; // Elements created by the pool.
+    size_t free; // Elements free in the pool itself. Excludes elements free in a pool cache.
+    size_t inUse; // Elements out of the pool - allocated, or free in a pool cache.
+    size_t highWater; // Highest 'inUse'.
+    size_t crossThreadFrees; // Elements freed by a thread other than the one that allocated them.
+};
+
 // UMLRTPool - base type for resource pools of elements typed by UMLRTQueueElement.
 
 // Basic operations are put() and get(). The implementation is a LIFO queue.
 
+// Controllers get and put elements in batches through a UMLRTPoolCache of their own
+// (see UMLRTPoolCache), so the pool mutex is taken once per batch.
+
 class UMLRTPool
 {
 public:
@@ -32,12 +46,33 @@ public:
     // Add element to the pool.
     void put(const UMLRTQueueElement * element);
 
+    // Get 'count' elements from the pool, linked through 'next'. Returns the first and sets '*last'.
+    const UMLRTQueueElement * getBatch(size_t count, const UMLRTQueueElement * * last);
+
+    // Add 'count' elements linked through 'next' from 'first' to 'last' to the pool.
+    // 'crossThreadFrees' is the number of cross-thread frees the caller counted since its last putBatch().
+    void putBatch(const UMLRTQueueElement * first, const UMLRTQueueElement * last, size_t count, size_t crossThreadFrees);
+
+    // Get the pool counters. Cross-thread frees counted by a pool cache are included once it returns elements.
+    void getStats(UMLRTPoolStats & stats);
+
 protected:
     const UMLRTQueueElement * head;
     const size_t increment;  // the size to grow the pool if needed
     int qid; // For debug. Give elements a qid for easier tracking.
     UMLRTMutex mutex;
 
+    // Elements created and elements on the 'head' list.
+    size_t size;
+    size_t freeCount;
+
+private:
+    size_t highWater;
+    size_t crossThreadFrees;
+
+    // Get an element with the mutex held. Grows the pool if it is empty.
+    const UMLRTQueueElement * take();
+
 private:
     virtual void grow() = 0;
 };
@@ -0,0 +1,74 @@
+// umlrtpoolcache.hh
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#ifndef UMLRTPOOLCACHE_HH
+#define UMLRTPOOLCACHE_HH
+
+#include <stddef.h>
+
+class UMLRTPool;
+struct UMLRTQueueElement;
+
+// UMLRTPoolCache - a thread's cache of free elements of a UMLRTPool.
+
+// Each controller has a cache per pool, used only by the controller's thread, so it needs no locking.
+// The cache holds up to two 'magazines' of free elements - the one elements are taken from and put to
+// and the previous one. A magazine is got from and returned to the pool as a batch, so the pool mutex
+// is only taken when both magazines are empty (get) or full (put).
+
+// Elements sent to another controller are freed to the cache of the receiver, which returns them to
+// the pool in batches for the sender's cache to get.
+
+class UMLRTPoolCache
+{
+public:
+    // A magazine holds 'magazineSize' elements.
+    UMLRTPoolCache(size_t magazineSize);
+
+    // Get an element from the cache, getting a magazine from 'pool' if the cache is empty.
+    const UMLRTQueueElement * get(UMLRTPool * pool);
+
+    // Add an element to the cache, returning a magazine to 'pool' if the cache is full.
+    void put(UMLRTPool * pool, const UMLRTQueueElement * element);
+
+    // Return all the cached elements to 'pool'.
+    void flush(UMLRTPool * pool);
+
+    // The number of free elements in the cache.
+    size_t count() const { return loaded.count + previous.count; }
+
+private:
+    UMLRTPoolCache();
+
+    struct Magazine
+    {
+        const UMLRTQueueElement * first;
+        const UMLRTQueueElement * last;
+        size_t count;
+    };
+
+    // Return a magazine to 'pool' and empty it.
+    void putMagazine(UMLRTPool * pool, Magazine & magazine);
+
+    void swapMagazines();
+
+    const size_t magazineSize;
+
+    // The magazine in use.
+    Magazine loaded;
+
+    // Full or empty.
+    Magazine previous;
+
+    // Elements freed here that were allocated from another cache (or from the pool), not yet reported to the pool.
+    size_t crossThreadFrees;
+};
+
+#endif // UMLRTPOOLCACHE_HH
@@ -30,7 +30,9 @@ class UMLRTPriorityMessageQueue
 {
 public:
 
-    UMLRTPriorityMessageQueue ( const char * owner );
+    // A multi-producer queue is enqueued to by any thread without locking, and dequeued from only by its owner.
+    // Only a multi-producer queue notifies its owner of new messages.
+    UMLRTPriorityMessageQueue ( const char * owner, bool multiProducer = false );
 
     virtual ~UMLRTPriorityMessageQueue ( );
 
@@ -64,6 +66,10 @@ public:
     // Purge queue of elements that match the criteria.
     void remove ( UMLRTQueue::match_compare_t callback, UMLRTQueue::match_notify_t notify, void * userData );
 
+    // Called by the owner before it checks the queue prior to waiting on getNotifyFd().
+    // Only a message enqueued after this is notified (see UMLRTNotify).
+    void prepareWait();
+
     // return umlrtnotify fd[READ]
     int getNotifyFd();
 
@@ -76,10 +82,16 @@ private:
     // Owner - for debugging.
     const char * const owner;
 
+    // Messages are posted to the queues without locking (see UMLRTMessageQueue).
+    const bool multiProducer;
+
     // One message queue per priority.
     UMLRTMessageQueue queue[PRIORITY_MAXPLUS1];
 
+    // NULL unless multi-producer.
     UMLRTNotify * notifyPtr;
+
+    UMLRTNotify * getNotify ( );
 };
 
 #endif // UMLRTPRIORITYMESSAGEQUEUE_HH
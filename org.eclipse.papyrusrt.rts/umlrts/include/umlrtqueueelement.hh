@@ -11,13 +11,18 @@
 #ifndef UMLRTQUEUEELEMENT_HH
 #define UMLRTQUEUEELEMENT_HH
 
+class UMLRTPoolCache;
+
 // UMLRTQueueElement - base type for elements added to queues.
 
 struct UMLRTQueueElement
 {
-    UMLRTQueueElement ( ) : next(0), qid(-1) { }
+    UMLRTQueueElement ( ) : next(0), qid(-1), cache(0) { }
     mutable const UMLRTQueueElement * next;
     mutable int qid;
+
+    // The pool cache the element was last allocated from, or NULL. For pool statistics.
+    mutable const UMLRTPoolCache * cache;
 };
 
 #endif // UMLRTQUEUEELEMENT_HH
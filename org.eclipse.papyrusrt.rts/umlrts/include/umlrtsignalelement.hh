@@ -26,9 +26,9 @@ struct UMLRTCommsPort;
 // (is never deallocated.)
 
 // If the application requires more space than the default size, a temporary
-// payload buffer is allocated from the heap. In this case, when the signal
-// is 'freed', the temporary buffer is returned to the heap and the default
-// payload buffer is restored.
+// payload buffer is allocated from the signal element pool (see UMLRTSignalElementPool).
+// In this case, when the signal is 'freed', the temporary buffer is returned to the
+// pool and the default payload buffer is restored.
 
 class UMLRTSignalElement : public UMLRTQueueElement
 {
@@ -112,7 +112,7 @@ private:
 
     // User-data is serialized into payload buffer.
     // This buffer may be temporarily replaced with a larger buffer obtained
-    // from the heap.
+    // from the signal element pool.
     uint8_t * payload;
 
     UMLRTPriority priority;
@@ -125,6 +125,9 @@ private:
     // pool.
     bool nonDefaultPayload;
 
+    // The signal element pool size class of a non-default payload, or -1 if it is from the heap.
+    int payloadSizeClass;
+
     // Set true when the signal is allocated (obtained) from the free-pool.
     // Set false when the signal is returned to the free-pool.
     // Used for sanity checks to detect access to uninitialized data.
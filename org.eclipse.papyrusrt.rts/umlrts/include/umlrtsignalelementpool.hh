@@ -14,12 +14,19 @@
 #include "umlrtpool.hh"
 #include "umlrtsignalelement.hh"
 #include "umlrtuserconfig.hh"
+#include <stdint.h>
+
+struct UMLRTObject;
 
 // UMLRTSignalElementPool is a pool of free signal elements.
 
 // The initial version has a single application-wide free-pool used by all
 // threads for all messages.
 
+// The pool also holds the payload buffers larger than the default payload size. These are allocated
+// in power-of-two size classes, each with its own free-list, carved out of slabs of at least
+// USER_CONFIG_SIGNAL_PAYLOAD_SLAB_SIZE bytes. Buffers are never returned to the heap.
+
 class UMLRTSignalElementPool: public UMLRTPool
 {
 public:
@@ -28,8 +35,41 @@ public:
 
     UMLRTSignalElementPool(size_t incrementSize = USER_CONFIG_SIGNAL_ELEMENT_POOL_INCR);
 
+    // Register the payload of a signal of the application, so its size has a size class.
+    // Called by generated protocol code during static initialization. Always returns true.
+    static bool addPayloadSize(const UMLRTObject * payload);
+
+    // Get a payload buffer for 'size' bytes, larger than the default payload size.
+    // Sets '*bufferSize' to the size of the buffer and '*sizeClass' to its size class (-1 if from the heap).
+    uint8_t * allocatePayload(size_t size, size_t * bufferSize, int * sizeClass);
+
+    // Free a buffer obtained from allocatePayload(), with the size class it returned.
+    void freePayload(uint8_t * payload, int sizeClass);
+
 private:
     virtual void grow();
+
+    // Size class 'i' holds buffers of (USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE << (i + 1)) bytes.
+    enum { PAYLOAD_SIZE_CLASSES = 16 };
+
+    struct PayloadSizeClass
+    {
+        UMLRTMutex mutex;
+
+        // Free buffers, linked through their first word.
+        void * free;
+    };
+
+    PayloadSizeClass payloadSizeClasses[PAYLOAD_SIZE_CLASSES];
+
+    // The largest payload size registered with addPayloadSize().
+    static size_t maxRegisteredPayloadSize;
+
+    // Return the size class of a buffer of at least 'size' bytes, or -1 if it is allocated from the heap.
+    static int getPayloadSizeClass(size_t size);
+
+    // Add a slab of buffers to the free-list of a size class. Mutex held.
+    void growPayloadSizeClass(int sizeClass);
 };
 
 #endif // UMLRTSIGNALPOOL_HH
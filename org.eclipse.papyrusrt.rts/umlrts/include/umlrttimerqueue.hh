@@ -44,6 +44,10 @@ public:
     // return umlrtnotify fd[READ]
     int getNotifyFd ( );
 
+    // Called by the owner before it checks the queue prior to waiting on getNotifyFd().
+    // Only a change to the head of the queue after this is notified (see UMLRTNotify).
+    void prepareWait ( );
+
     // Lock all time-sensitive operations during time adjustments.
     static void timeAdjustLock ( );
     static void timeAdjustUnlock ( );
@@ -25,6 +25,14 @@
 
 #define USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE     1024
 
+// Larger payloads are allocated from power-of-two size classes of the signal element pool, up to this
+// size or the largest payload registered by the generated code, whichever is larger. Payloads above
+// that are allocated from the heap.
+#define USER_CONFIG_SIGNAL_PAYLOAD_SLAB_MAX_SIZE    16384
+
+// minimum number of bytes allocated at a time for payloads of a size class
+#define USER_CONFIG_SIGNAL_PAYLOAD_SLAB_SIZE        65536
+
 // Pool sizes
 #define USER_CONFIG_MESSAGE_POOL_SIZE               1024
 #define USER_CONFIG_SIGNAL_ELEMENT_POOL_SIZE        1024
@@ -35,4 +43,8 @@
 #define USER_CONFIG_SIGNAL_ELEMENT_POOL_INCR        50
 #define USER_CONFIG_TIMER_POOL_INCR                 50
 
+// number of elements moved between a pool and a controller's cache of the pool at a time
+#define USER_CONFIG_MESSAGE_POOL_CACHE_SIZE         32
+#define USER_CONFIG_SIGNAL_ELEMENT_POOL_CACHE_SIZE  32
+
 #endif // UMLRTUSERCONFIG_H
@@ -0,0 +1,34 @@
+// osatomic.hh
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#ifndef OSATOMIC_HH
+#define OSATOMIC_HH
+
+// Atomic operations. Each one is a full memory barrier.
+// Only the gcc '__sync' builtins are used - the '__atomic' ones need gcc 4.7.
+
+// Compare-and-swap: if '*ptr' is 'oldval', set it to 'newval' and return true.
+inline bool osAtomicCompareAndSwap ( volatile long * ptr, long oldval, long newval )
+{
+    return __sync_bool_compare_and_swap(ptr, oldval, newval);
+}
+
+inline bool osAtomicCompareAndSwapPtr ( void * volatile * ptr, void * oldval, void * newval )
+{
+    return __sync_bool_compare_and_swap(ptr, oldval, newval);
+}
+
+// Full memory barrier.
+inline void osMemoryBarrier ( )
+{
+    __sync_synchronize();
+}
+
+#endif // OSATOMIC_HH
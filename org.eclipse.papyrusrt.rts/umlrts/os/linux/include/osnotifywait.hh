@@ -0,0 +1,44 @@
+// osnotifywait.hh
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#ifndef OSNOTIFYWAIT_HH
+#define OSNOTIFYWAIT_HH
+
+class UMLRTTimespec;
+
+// UMLRTNotifyWait - a thread's wait on notification file descriptors (see UMLRTNotify) with an
+// optional timeout. The Linux implementation waits with epoll and times out with a timerfd, so
+// the descriptors are registered once rather than on every wait.
+
+class UMLRTNotifyWait
+{
+public:
+
+    // Wait on two notification file descriptors.
+    UMLRTNotifyWait( int notifyFd1, int notifyFd2 );
+    ~UMLRTNotifyWait();
+
+    // Wait until a notification descriptor is set or the (relative) timeout expires.
+    // Waits forever if 'timeout' is NULL. Reads every notification descriptor that is set,
+    // so a notification sent after the caller stopped waiting wakes at most one wait.
+    void wait( const UMLRTTimespec * timeout );
+
+private:
+
+    int epollFd;
+
+    // Expires at the timeout of the current wait.
+    int timerFd;
+
+    // True if the timerFd was set and has not expired.
+    bool timerSet;
+};
+
+#endif // OSNOTIFYWAIT_HH
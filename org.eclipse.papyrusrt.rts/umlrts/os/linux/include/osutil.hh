@@ -13,4 +13,7 @@
 
 #include <string.h>
 
+// Storage class of a variable with a separate instance per thread.
+#define OS_THREAD_LOCAL __thread
+
 #endif // OSUTIL_HH
@@ -1,4 +1,4 @@
-// osprioritymessagequeue.cc
+// osnotify.cc
 
 /*******************************************************************************
  * Copyright (c) 2015 Zeligsoft (2009) Limited  and others.
@@ -9,115 +9,64 @@
  *******************************************************************************/
 
 #include <unistd.h>
-#include <fcntl.h>
-#include <sys/ioctl.h>
-#ifndef FIONREAD			// cygwin support
-#include <sys/socket.h>
-#endif
+#include <errno.h>
+#include <stdint.h>
+#include <sys/eventfd.h>
 #include "basedebug.hh"
 #include "basedebugtype.hh"
 #include "basefatal.hh"
+#include "osatomic.hh"
 #include "osnotify.hh"
 
-/* Constants 0 and 1 for READ and WRITE */
-enum PIPES
+// See osnotify.hh for documentation.
+UMLRTNotify::UMLRTNotify() : waiting(0)
 {
-    READ, WRITE
-};
-
-// See umlrtnotify.hh for documentation.
-UMLRTNotify::UMLRTNotify()
-{
-    // Appenders write the pipe. Controllers 'wait' on a select() on the pipe with
-    // a timeout associated with any running timer. A write on the pipe wakes the controller.
-    if (pipe(notifyFd) < 0)
-    {
-        FATAL_ERRNO("pipe");
-    }
-    // Bytes available in the pipe wake up the controller as 'notify'. The controller
-    // has to be able to clean out the pipe (read) without blocking.
-    int flags = fcntl(notifyFd[READ], F_GETFL, 0);
-    if (flags < 0)
+    // Appenders add to the eventfd counter. Controllers 'wait' on an epoll set containing
+    // the eventfd, which reads the counter back to zero without blocking (see UMLRTNotifyWait).
+    if ((notifyFd = eventfd(0, EFD_NONBLOCK)) < 0)
     {
-        FATAL_ERRNO("fcntl F_GETFL");
-    }
-    if (fcntl(notifyFd[READ], F_SETFL, flags | O_NONBLOCK) < 0)
-    {
-        FATAL_ERRNO("fcntl F_SETFL");
+        FATAL_ERRNO("eventfd");
     }
 }
 
 UMLRTNotify::~UMLRTNotify()
 {
-    close(notifyFd[READ]);
-    close(notifyFd[WRITE]);
+    close(notifyFd);
 }
 
 void UMLRTNotify::sendNotification()
 {
-    int bytes_ready;
+    // The element queued must be visible to the consumer before 'waiting' is checked. The consumer
+    // sets 'waiting' before it checks the queue, so one of us sees the other.
+    osMemoryBarrier();
 
-    if (ioctl(notifyFd[READ], FIONREAD, &bytes_ready) < 0)
+    // Only the producer that clears 'waiting' signals the consumer.
+    if (waiting && osAtomicCompareAndSwap(&waiting, 1, 0))
     {
-        FATAL_ERRNO("ioctl");
-    }
-    if (!bytes_ready)
-    {
-        // Write a byte to the notification-pipe as a notification of a pending message.
-        uint8_t notifyByte = 0;
+        uint64_t one = 1;
 
-        if (write(notifyFd[WRITE], &notifyByte, 1) < 0)
+        if (write(notifyFd, &one, sizeof(one)) < 0)
         {
             FATAL_ERRNO("write");
         }
     }
 }
 
+void UMLRTNotify::prepareWait()
+{
+    // Full barrier - 'waiting' is visible before the consumer checks the queue.
+    osAtomicCompareAndSwap(&waiting, 0, 1);
+}
+
 void UMLRTNotify::clearNotifyFd()
 {
-    uint8_t ignore;
-    int bytes;
-    if ((bytes = read(notifyFd[READ], &ignore, 1)) < 0)
-    {
-        FATAL_ERRNO("initial read - synchronization mechanism implies a byte is waiting");
-    }
-    else if (!bytes)
-    {
-        // Indicates synchronization logic error. Should always get at least one byte.
-        FATAL("Should never find pipe empty when clearing a notification.");
-    }
-    // Clear out the notification-pipe.
-    // Can shrink this after notify is debugged.
-    bool done = false;
-    while (!done)
-    {
-        int bytes = read(notifyFd[READ], &ignore, 1);
-        if (bytes < 0)
-        {
-            if (errno != EAGAIN)
-            {
-                FATAL_ERRNO("read");
-            }
-            else
-            {
-                done = true;
-            }
-        }
-        if (bytes > 0)
-        {
-            // BDEBUG(0, "read returned bytes(%d)\n", bytes);
-        }
-        else
-        {
-            done = true;
-        }
-    }
+    // A notification written after the wait read the eventfd is left in the counter. It wakes the
+    // next wait once, which reads it, so the counter is not cleared here.
+    osAtomicCompareAndSwap(&waiting, 1, 0);
 }
 
-// See umlrtnotify.cc for documentation.
+// See osnotify.hh for documentation.
 int UMLRTNotify::getNotifyFd()
 {
-    return notifyFd[0];
+    return notifyFd;
 }
-
-
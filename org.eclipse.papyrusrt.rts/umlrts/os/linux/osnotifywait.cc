@@ -0,0 +1,121 @@
+// osnotifywait.cc
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#include <unistd.h>
+#include <errno.h>
+#include <stdint.h>
+#include <string.h>
+#include <sys/epoll.h>
+#include <sys/timerfd.h>
+#include "basedebug.hh"
+#include "basefatal.hh"
+#include "osnotifywait.hh"
+#include "umlrttimespec.hh"
+
+// See osnotifywait.hh for documentation.
+
+static void epollAdd ( int epollFd, int fd )
+{
+    struct epoll_event event;
+
+    memset(&event, 0, sizeof(event));
+    event.events = EPOLLIN;
+    event.data.fd = fd;
+
+    if (epoll_ctl(epollFd, EPOLL_CTL_ADD, fd, &event) < 0)
+    {
+        FATAL_ERRNO("epoll_ctl");
+    }
+}
+
+UMLRTNotifyWait::UMLRTNotifyWait( int notifyFd1, int notifyFd2 ) : timerSet(false)
+{
+    if ((epollFd = epoll_create(3)) < 0)
+    {
+        FATAL_ERRNO("epoll_create");
+    }
+    if ((timerFd = timerfd_create(CLOCK_MONOTONIC, TFD_NONBLOCK)) < 0)
+    {
+        FATAL_ERRNO("timerfd_create");
+    }
+    epollAdd(epollFd, notifyFd1);
+    epollAdd(epollFd, notifyFd2);
+    epollAdd(epollFd, timerFd);
+}
+
+UMLRTNotifyWait::~UMLRTNotifyWait()
+{
+    close(timerFd);
+    close(epollFd);
+}
+
+void UMLRTNotifyWait::wait( const UMLRTTimespec * timeout )
+{
+    struct itimerspec timerspec;
+
+    memset(&timerspec, 0, sizeof(timerspec));
+
+    if (timeout != NULL)
+    {
+        // Will be non-zero - a zero timer value would disarm the timer.
+        timerspec.it_value.tv_sec = timeout->tv_sec;
+        timerspec.it_value.tv_nsec = timeout->tv_nsec;
+    }
+    // An unexpired timer from an earlier wait has to be disarmed, else it wakes this one.
+    if ((timeout != NULL) || timerSet)
+    {
+        if (timerfd_settime(timerFd, 0, &timerspec, NULL) < 0)
+        {
+            FATAL_ERRNO("timerfd_settime");
+        }
+        timerSet = (timeout != NULL);
+    }
+    struct epoll_event events[3];
+    int count;
+
+    BDEBUG(BD_CONTROLLER, "epoll_wait timeout[%d,%d]\n",
+            timeout ? timeout->tv_sec : -1,
+            timeout ? timeout->tv_nsec : -1);
+
+    if ((count = epoll_wait(epollFd, events, 3, -1)) < 0)
+    {
+        if (errno != EINTR)
+        {
+            FATAL_ERRNO("epoll_wait");
+        }
+        count = 0;
+    }
+    for (int i = 0; i < count; ++i)
+    {
+        if (events[i].data.fd == timerFd)
+        {
+            // Clear the expiry.
+            uint64_t expirations;
+
+            if ((read(timerFd, &expirations, sizeof(expirations)) < 0) && (errno != EAGAIN))
+            {
+                FATAL_ERRNO("read");
+            }
+            timerSet = false;
+        }
+        else
+        {
+            // Read the notification counter back to zero. Every readable eventfd is read, even
+            // if its notification was written after the consumer stopped waiting - a level-triggered
+            // epoll_wait returns at once while the counter is set.
+            uint64_t notifications;
+
+            if ((read(events[i].data.fd, &notifications, sizeof(notifications)) < 0) && (errno != EAGAIN))
+            {
+                FATAL_ERRNO("read");
+            }
+        }
+    }
+}
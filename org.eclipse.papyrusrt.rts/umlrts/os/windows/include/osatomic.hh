@@ -0,0 +1,35 @@
+// osatomic.hh
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#ifndef OSATOMIC_HH
+#define OSATOMIC_HH
+
+#include <winsock2.h>  // Includes windows.h. Must precede any windows.h include.
+
+// Atomic operations. Each one is a full memory barrier.
+
+// Compare-and-swap: if '*ptr' is 'oldval', set it to 'newval' and return true.
+inline bool osAtomicCompareAndSwap ( volatile long * ptr, long oldval, long newval )
+{
+    return InterlockedCompareExchange(ptr, newval, oldval) == oldval;
+}
+
+inline bool osAtomicCompareAndSwapPtr ( void * volatile * ptr, void * oldval, void * newval )
+{
+    return InterlockedCompareExchangePointer(ptr, newval, oldval) == oldval;
+}
+
+// Full memory barrier.
+inline void osMemoryBarrier ( )
+{
+    MemoryBarrier();
+}
+
+#endif // OSATOMIC_HH
@@ -20,14 +20,19 @@ public:
     UMLRTNotify();
     ~UMLRTNotify();
 
-    // Calling this causes the notification mechanism to be 'set'. Threads waiting
-    // for notification on this queue will receive notification.
+    // Calling this causes the notification mechanism to be 'set' if the consumer is waiting
+    // (see prepareWait()). A consumer that is awake is not signalled - it checks for work
+    // before it waits again. Only the first notification after prepareWait() is sent.
     void sendNotification();
 
+    // Called by the consumer before its last check for work prior to waiting on getNotifyFd().
+    void prepareWait();
+
     // Return the notification file descriptor used to indicate a command is queued for execution.
     int getNotifyFd();
 
-    // Clear notifications of pending commands.
+    // Called by the consumer when it is awake again (or did not wait after all).
+    // Stops further notifications. The wait reads the ones already sent (see UMLRTNotifyWait).
     void clearNotifyFd();
 
 private:
@@ -35,8 +40,11 @@ private:
     // Notification-socket. Those waiting for an element to be queued can wait on
     // select() on the 'getNotifyFd()' socket.
     // Threads enqueuing messages write a byte to the socket to notify waiting threads.
-    // Clearing the notifications involves reading until the socket is empty.
+    // The wait clears the notifications by reading until the socket is empty.
     SOCKET m_socket;
 
+    // Non-zero from prepareWait() until the first notification or clearNotifyFd().
+    volatile long waiting;
+
 };
 #endif // OSNOTIFY_HH
@@ -0,0 +1,38 @@
+// osnotifywait.hh
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#ifndef OSNOTIFYWAIT_HH
+#define OSNOTIFYWAIT_HH
+
+class UMLRTTimespec;
+
+// UMLRTNotifyWait - a thread's wait on notification sockets (see UMLRTNotify) with an
+// optional timeout. The Windows implementation waits with select.
+
+class UMLRTNotifyWait
+{
+public:
+
+    // Wait on two notification sockets.
+    UMLRTNotifyWait( int notifyFd1, int notifyFd2 );
+    ~UMLRTNotifyWait();
+
+    // Wait until a notification socket is set or the (relative) timeout expires.
+    // Waits forever if 'timeout' is NULL. Reads every notification socket that is set,
+    // so a notification sent after the caller stopped waiting wakes at most one wait.
+    void wait( const UMLRTTimespec * timeout );
+
+private:
+
+    int notifyFd1;
+    int notifyFd2;
+};
+
+#endif // OSNOTIFYWAIT_HH
@@ -17,4 +17,7 @@
 #define strcasecmp _stricmp
 #define strncasecmp _strnicmp
 
+// Storage class of a variable with a separate instance per thread.
+#define OS_THREAD_LOCAL __declspec(thread)
+
 #endif // OSUTIL_HH
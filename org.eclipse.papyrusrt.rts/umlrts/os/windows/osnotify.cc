@@ -13,13 +13,14 @@
 #include "basedebug.hh"
 #include "basedebugtype.hh"
 #include "basefatal.hh"
+#include "osatomic.hh"
 #include "osnotify.hh"
 
 #define BUFLEN 256  // Max length of buffer
 #define PORT 0      // a random unoccupied port will be chosen
 
 // See umlrtnotify.hh for documentation.
-UMLRTNotify::UMLRTNotify()
+UMLRTNotify::UMLRTNotify() : waiting(0)
 {
     // Declare and initialize variables
     WSADATA wsaData =
@@ -40,8 +41,8 @@ UMLRTNotify::UMLRTNotify()
         FATAL("socket function failed with error = %d\n", WSAGetLastError());
     }
 
-    // Bytes available on the socket wake up the controller as 'notify'. The controller
-    // has to be able to clean out the socket buffer without blocking.
+    // Bytes available on the socket wake up the controller as 'notify'. The wait has to be
+    // able to clean out the socket buffer without blocking (see UMLRTNotifyWait).
     u_long iMode = 1; // iMode != 0, non - blocking mode is enabled.
     iResult = ioctlsocket(m_socket, FIONBIO, &iMode);
     if (iResult != NO_ERROR)
@@ -76,6 +77,15 @@ UMLRTNotify::~UMLRTNotify()
 
 void UMLRTNotify::sendNotification()
 {
+    // The element queued must be visible to the consumer before 'waiting' is checked. The consumer
+    // sets 'waiting' before it checks the queue, so one of us sees the other.
+    osMemoryBarrier();
+
+    // Only the producer that clears 'waiting' signals the consumer.
+    if (!waiting || !osAtomicCompareAndSwap(&waiting, 1, 0))
+    {
+        return;
+    }
     int iResult = 0;
     DWORD dwBytesWritten = 0;
     u_long bytes_ready;
@@ -105,42 +115,17 @@ void UMLRTNotify::sendNotification()
     }
 }
 
-void UMLRTNotify::clearNotifyFd()
+void UMLRTNotify::prepareWait()
 {
-    int iResult = 0;
-    char recvBuf;
-    u_long bytes_ready = 0;
-
-    iResult = ioctlsocket(m_socket, FIONREAD, &bytes_ready);
-    if (iResult != NO_ERROR)
-    {
-        FATAL("ioctlsocket failed with error: %ld\n", iResult);
-    }
-    // Indicates synchronization logic error. Should always get at least one byte.
-    if (!bytes_ready)
-    {
-        FATAL_ERRNO("initial read - synchronization mechanism implies a byte is waiting");
-    }
+    // Full barrier - 'waiting' is visible before the consumer checks the queue.
+    osAtomicCompareAndSwap(&waiting, 0, 1);
+}
 
-    // Clear out the notification-socket.
-    bool done = false;
-    while (!done)
-    {
-        iResult = recvfrom(m_socket, &recvBuf, 1, 0, NULL, NULL);
-        if (iResult == SOCKET_ERROR)
-        {
-            int err = WSAGetLastError();
-            if (err = WSAEWOULDBLOCK)
-            {
-                // WSAEWOULDBLOCK occurs when no more data on the socket
-                done = true;
-            }
-            else
-            {
-                FATAL("recvfrom failed with error %d\n", err);
-            }
-        }
-    }
+void UMLRTNotify::clearNotifyFd()
+{
+    // A notification written after the wait read the socket is left in the socket. It wakes the
+    // next wait once, which reads it, so the socket is not cleared here.
+    osAtomicCompareAndSwap(&waiting, 1, 0);
 }
 
 // See umlrtnotify.cc for documentation.
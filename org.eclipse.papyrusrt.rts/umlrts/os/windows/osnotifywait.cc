@@ -0,0 +1,79 @@
+// osnotifywait.cc
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#include "osselect.hh"
+#include "basedebug.hh"
+#include "basefatal.hh"
+#include "osnotifywait.hh"
+#include "umlrttimespec.hh"
+
+// See osnotifywait.hh for documentation.
+
+static void drain ( int notifyFd )
+{
+    // Read the socket until it is empty - it is non-blocking (see UMLRTNotify).
+    char recvBuf;
+
+    while (recvfrom(notifyFd, &recvBuf, 1, 0, NULL, NULL) != SOCKET_ERROR)
+    {
+    }
+    int err = WSAGetLastError();
+
+    if (err != WSAEWOULDBLOCK)
+    {
+        FATAL("recvfrom failed with error %d\n", err);
+    }
+}
+
+UMLRTNotifyWait::UMLRTNotifyWait( int notifyFd1_, int notifyFd2_ ) : notifyFd1(notifyFd1_), notifyFd2(notifyFd2_)
+{
+}
+
+UMLRTNotifyWait::~UMLRTNotifyWait()
+{
+}
+
+void UMLRTNotifyWait::wait( const UMLRTTimespec * timeout )
+{
+    struct timeval timeval;
+    struct timeval * selectTimeval = NULL;
+
+    if (timeout != NULL)
+    {
+        timeval.tv_sec = timeout->tv_sec;
+        timeval.tv_usec = timeout->tv_nsec / 1000;
+        selectTimeval = &timeval;
+    }
+    fd_set fds;
+
+    FD_ZERO(&fds);
+    FD_SET(notifyFd1, &fds);
+    FD_SET(notifyFd2, &fds);
+
+    BDEBUG(BD_CONTROLLER, "select timeout[%d,%d]\n",
+            selectTimeval ? selectTimeval->tv_sec : -1,
+            selectTimeval ? selectTimeval->tv_usec : -1);
+
+    // The first argument is ignored by Windows.
+    if (select(0, &fds, NULL, NULL, selectTimeval) == SOCKET_ERROR)
+    {
+        FATAL("select failed with error %d", WSAGetLastError());
+    }
+    // Every readable socket is read, even if its notification was written after the consumer
+    // stopped waiting - select returns at once while the socket holds data.
+    if (FD_ISSET(notifyFd1, &fds))
+    {
+        drain(notifyFd1);
+    }
+    if (FD_ISSET(notifyFd2, &fds))
+    {
+        drain(notifyFd2);
+    }
+}
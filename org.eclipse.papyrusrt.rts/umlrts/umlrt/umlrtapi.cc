@@ -23,15 +23,17 @@
 namespace umlrt
 {
     // Allocate a signal from the system-pool.
+    // A controller allocates from its own cache of the pool (see UMLRTPoolCache).
     UMLRTSignalElement * SignalElementGetFromPool()
     {
         UMLRTSignalElementPool * pool = UMLRTController::getSignalElementPool();
+        UMLRTPoolCache * cache = UMLRTController::getSignalElementPoolCache();
 
         if (!pool)
         {
             FATAL("no signal pool defined (get)");
         }
-        UMLRTSignalElement * element = (UMLRTSignalElement *)pool->get();
+        UMLRTSignalElement * element = (UMLRTSignalElement *)((cache != NULL) ? cache->get(pool) : pool->get());
         if (element == NULL)
         {
             FATAL("could not allocate signal from pool");
@@ -47,6 +49,7 @@ namespace umlrt
     void SignalElementPutToPool( UMLRTSignalElement * element )
     {
         UMLRTSignalElementPool * pool = UMLRTController::getSignalElementPool();
+        UMLRTPoolCache * cache = UMLRTController::getSignalElementPoolCache();
 
         if (!pool)
         {
@@ -56,20 +59,28 @@ namespace umlrt
 
         element->setAllocated(false);
 
-        return pool->put(element);
+        if (cache != NULL)
+        {
+            cache->put(pool, element);
+        }
+        else
+        {
+            pool->put(element);
+        }
     }
 
     // Allocate a message from the system-pool.
     UMLRTMessage * MessageGetFromPool()
     {
         UMLRTMessagePool * pool = UMLRTController::getMessagePool();
+        UMLRTPoolCache * cache = UMLRTController::getMessagePoolCache();
         UMLRTMessage * msg;
 
         if (!pool)
         {
             FATAL("no message pool defined (get)");
         }
-        if ((msg = (UMLRTMessage *)pool->get()) != NULL)
+        if ((msg = (UMLRTMessage *)((cache != NULL) ? cache->get(pool) : pool->get())) != NULL)
         {
             if (msg->allocated)
             {
@@ -84,6 +95,7 @@ namespace umlrt
     void MessagePutToPool( UMLRTMessage * message )
     {
         UMLRTMessagePool * pool = UMLRTController::getMessagePool();
+        UMLRTPoolCache * cache = UMLRTController::getMessagePoolCache();
 
         UMLRTSignal invalid;
 
@@ -108,7 +120,14 @@ namespace umlrt
         }
         message->allocated = false;
 
-        pool->put(message);
+        if (cache != NULL)
+        {
+            cache->put(pool, message);
+        }
+        else
+        {
+            pool->put(message);
+        }
     }
 
     // Allocate a timer from the system-pool.
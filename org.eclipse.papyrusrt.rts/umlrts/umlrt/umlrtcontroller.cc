@@ -24,16 +24,20 @@
 #include "umlrtcommsportrole.hh"
 #include "umlrtcontrollercommand.hh"
 #include "umlrtframeservice.hh"
+#include "umlrtmessagepool.hh"
 #include "umlrtobjectclass.hh"
 #include "umlrtpriority.hh"
 #include "umlrtprotocol.hh"
 #include "umlrtsignal.hh"
+#include "umlrtsignalelementpool.hh"
 #include "umlrttimer.hh"
 #include "umlrttimespec.hh"
 #include "umlrtqueue.hh"
+#include "umlrtuserconfig.hh"
 #include <stdlib.h>
 #include <stdio.h>
-#include "osselect.hh"
+#include "osnotifywait.hh"
+#include "osutil.hh"
 #include <string.h>
 #include <stdarg.h>
 #include <new>
@@ -47,22 +51,51 @@
 // The application-wide free timer pool.
 /*static*/ UMLRTTimerPool * UMLRTController::timerPool  = NULL;
 
+// The list of all controllers, for taking all the delivery locks.
+/*static*/ UMLRTController * UMLRTController::deliveryLockList = NULL;
+
+// The controller running on this thread, if any.
+static OS_THREAD_LOCAL UMLRTController * currentController = NULL;
+
 // Error codes to string
 static const char * errorToString[] = UMLRTCONTROLLER_ERROR_CODE_TO_STRING;
 
 
 UMLRTController::UMLRTController (const char * name__, size_t numSlots_, UMLRTSlot slots_[] )
-    : UMLRTBasicThread(name__), name_(name__), incomingQueue(name__), capsuleQueue(name__), numSlots(numSlots_), slots(slots_), _exit(false), exitValue(0), _abort(false), lastError(E_OK)
+    : UMLRTBasicThread(name__), name_(name__), incomingQueue(name__, true/*multiProducer*/), capsuleQueue(name__), waitPtr(NULL), numSlots(numSlots_), slots(slots_),
+      messagePoolCache(USER_CONFIG_MESSAGE_POOL_CACHE_SIZE), signalElementPoolCache(USER_CONFIG_SIGNAL_ELEMENT_POOL_CACHE_SIZE), _exit(false), exitValue(0), _abort(false), lastError(E_OK), nextDeliveryLock(NULL)
 {
     // Register the controller with the capsule-to-controller map.
     UMLRTCapsuleToControllerMap::addController(name__, this);
+
+    addDeliveryLock();
 }
 
 UMLRTController::UMLRTController ( const char * name__ )
-    : UMLRTBasicThread(name__), name_(name__), incomingQueue(name__), capsuleQueue(name__), numSlots(0), slots(NULL), _exit(false), exitValue(0), _abort(false), lastError(E_OK)
+    : UMLRTBasicThread(name__), name_(name__), incomingQueue(name__, true/*multiProducer*/), capsuleQueue(name__), waitPtr(NULL), numSlots(0), slots(NULL),
+      messagePoolCache(USER_CONFIG_MESSAGE_POOL_CACHE_SIZE), signalElementPoolCache(USER_CONFIG_SIGNAL_ELEMENT_POOL_CACHE_SIZE), _exit(false), exitValue(0), _abort(false), lastError(E_OK), nextDeliveryLock(NULL)
 {
     // Register the controller with the capsule-to-controller map.
     UMLRTCapsuleToControllerMap::addController(name__, this);
+
+    addDeliveryLock();
+}
+
+UMLRTController::~UMLRTController ( )
+{
+    removeDeliveryLock();
+
+    delete waitPtr;
+}
+
+void UMLRTController::addDeliveryLock ( )
+{
+    UMLRTMutex & listMutex = getDeliveryLockListMutex();
+
+    listMutex.take();
+    nextDeliveryLock = deliveryLockList;
+    deliveryLockList = this;
+    listMutex.give();
 }
 
 bool UMLRTController::cancelTimer ( const UMLRTTimerId id )
@@ -168,7 +201,7 @@ void UMLRTController::deallocateSlotResources ( UMLRTSlot * slot, UMLRTCapsule *
 // Deliver a signal to the destination port.
 bool UMLRTController::deliver ( const UMLRTCommsPort * destPort, const UMLRTSignal &signal, size_t srcPortIndex )
 {
-    // Assumes global RTS lock acquired.
+    // Assumes global RTS lock or the sending controller's delivery lock acquired.
 
     UMLRTMessage * msg = umlrt::MessageGetFromPool();
     bool ok = false;
@@ -482,6 +515,15 @@ void * UMLRTController::join ( )
     return UMLRTBasicThread::join();
 }
 
+// Get the mutex guarding the list of all controllers.
+/*static*/ UMLRTMutex & UMLRTController::getDeliveryLockListMutex ( )
+{
+    // Controllers may be constructed during static initialization - create the mutex on first use.
+    static UMLRTMutex listMutex;
+
+    return listMutex;
+}
+
 // Get the system-wide signal pool.
 /*static*/ UMLRTSignalElementPool * UMLRTController::getSignalElementPool ( )
 {
@@ -500,6 +542,32 @@ void * UMLRTController::join ( )
     return timerPool;
 }
 
+// See umlrtcontroller.hh.
+/*static*/ UMLRTPoolCache * UMLRTController::getMessagePoolCache ( )
+{
+    return (currentController != NULL) ? &currentController->messagePoolCache : NULL;
+}
+
+// See umlrtcontroller.hh.
+/*static*/ UMLRTPoolCache * UMLRTController::getSignalElementPoolCache ( )
+{
+    return (currentController != NULL) ? &currentController->signalElementPoolCache : NULL;
+}
+
+/*static*/ void UMLRTController::giveAllDeliveryLocks ( )
+{
+    for (UMLRTController * controller = deliveryLockList; controller != NULL; controller = controller->nextDeliveryLock)
+    {
+        controller->giveDeliveryLock();
+    }
+    getDeliveryLockListMutex().give();
+}
+
+void UMLRTController::giveDeliveryLock ( )
+{
+    deliveryLock.give();
+}
+
 bool UMLRTController::isMyThread ( )
 {
     return UMLRTBasicThread::isMyThread();
@@ -515,6 +583,23 @@ void UMLRTController::perror ( const char * fmt, ... ) const
     va_end(ap);
 }
 
+void UMLRTController::removeDeliveryLock ( )
+{
+    UMLRTMutex & listMutex = getDeliveryLockListMutex();
+
+    listMutex.take();
+    UMLRTController * * link = &deliveryLockList;
+    while (*link != NULL && *link != this)
+    {
+        link = &(*link)->nextDeliveryLock;
+    }
+    if (*link != NULL)
+    {
+        *link = nextDeliveryLock;
+    }
+    listMutex.give();
+}
+
 // Deliver a signal to the destination port.
 void UMLRTController::recall ( UMLRTMessage * msg, bool front )
 {
@@ -526,6 +611,8 @@ void * UMLRTController::run ( void * args )
 {
     printf("Controller \"%s\" running.\n", name());
 
+    currentController = this;
+
     if (slots == NULL)
     {
         numSlots = UMLRTCapsuleToControllerMap::getDefaultSlotList( &slots );
@@ -638,6 +725,17 @@ void * UMLRTController::run ( void * args )
         // When aborting (versus exit) we output the messages.
         debugOutputMessages();
     }
+    // Return the cached free elements for use by the other controllers.
+    if (messagePool != NULL)
+    {
+        messagePoolCache.flush(messagePool);
+    }
+    if (signalElementPool != NULL)
+    {
+        signalElementPoolCache.flush(signalElementPool);
+    }
+    currentController = NULL;
+
     return(exitValue);
 }
 
@@ -658,6 +756,28 @@ void UMLRTController::spawn ( )
     start(NULL);
 }
 
+/*static*/ void UMLRTController::takeAllDeliveryLocks ( )
+{
+    // Assumes global RTS lock acquired, which orders the writers. The list mutex is held until the delivery
+    // locks are given back, so controllers are not added or removed in between.
+    getDeliveryLockListMutex().take();
+
+    for (UMLRTController * controller = deliveryLockList; controller != NULL; controller = controller->nextDeliveryLock)
+    {
+        // A delivery holds the lock only while it enqueues a message.
+        if (!controller->deliveryLock.take(60000))
+        {
+            FATAL("Failed to acquire the delivery lock of controller %s after waiting a full minute.", controller->name());
+        }
+    }
+}
+
+void UMLRTController::takeDeliveryLock ( )
+{
+    // Uncontended unless a structural change is in progress.
+    deliveryLock.take();
+}
+
 // See umlrtcontroller.hh.
 const char * UMLRTController::strerror ( ) const
 {
@@ -686,20 +806,23 @@ void UMLRTController::startTimer ( const UMLRTTimer * timer )
 // Wait on an external message or a timeout.
 void UMLRTController::wait ( )
 {
-    // Linux-specific implementation for the time-being.
+    // Producers only notify a waiting controller, so this must precede the checks for work below.
+    // A message or timer queued after the checks is notified and ends the wait.
+    incomingQueue.prepareWait();
+    timerQueue.prepareWait();
 
-    // If there is a timer running, this holds the remaining time as the timeout of the select.
-    struct timeval remainTimeval;
+    // If there is a timer running, this holds the remaining time as the timeout of the wait.
+    UMLRTTimespec remainTimespec;
 
     // We default to 'wait forever', unless a timer is running.
-    struct timeval * selectTimeval = NULL;
+    const UMLRTTimespec * timeout = NULL;
 
     bool wait = true; // Set this false if a timer is due or an incoming message appeared.
 
     // Get the time remaining on the first timer in the queue (if one exists).
     if (!timerQueue.isEmpty())
     {
-        UMLRTTimespec remainTimespec = timerQueue.timeRemaining();
+        remainTimespec = timerQueue.timeRemaining();
 
         if (remainTimespec.isZeroOrNegative())
         {
@@ -710,14 +833,11 @@ void UMLRTController::wait ( )
         else
         {
             // A timer is waiting but is not yet due. Set up the timeout. Will be non-zero.
-            remainTimeval.tv_sec = remainTimespec.tv_sec;
-            remainTimeval.tv_usec = remainTimespec.tv_nsec / 1000;
-
             char tmbuf[UMLRTTimespec::TIMESPEC_TOSTRING_SZ];
             BDEBUG(BD_TIMER, "%s: timer is not due - remain(%s)\n", name(), remainTimespec.toStringRelative(tmbuf, sizeof(tmbuf)));
 
-            // Select will not wait forever.
-            selectTimeval = &remainTimeval;
+            // Will not wait forever.
+            timeout = &remainTimespec;
         }
     }
     if (!incomingQueue.isEmpty())
@@ -727,60 +847,19 @@ void UMLRTController::wait ( )
     }
     if (wait)
     {
-        // selectTimeval remains NULL if no timers are running. In that case, select will wait
-        // forever until a message is delivered or a new timer is added to the timer-queue.
-
-        // Get the queue notification file descriptors.
-        int msgNotifyFd = incomingQueue.getNotifyFd();
-        int timerFd = timerQueue.getNotifyFd();
-
-        fd_set fds;
-
-        FD_ZERO(&fds);
-        FD_SET(msgNotifyFd, &fds);
-        FD_SET(timerFd, &fds);
-
-        // select wants to know the highest-numbered fd + 1.
-        int nfds = msgNotifyFd + 1;
-        if (timerFd > msgNotifyFd)
-        {
-            nfds = timerFd + 1;
-        }
-
-        // TODO - Bug 238 - DEBUG - remove this later.
-        if (!selectTimeval)
+        // timeout remains NULL if no timers are running. In that case, we wait forever
+        // until a message is delivered or a new timer is added to the timer-queue.
+        if (waitPtr == NULL)
         {
-            // DEBUG - the intent is to wait forever until notification, since no timer is pending.
-            // However, we wake the process up every 10 seconds during debugging.
-            // No harm in doing that - the controller returns here if it finds nothing to do.
-            remainTimeval.tv_sec = 10;
-            remainTimeval.tv_usec = 0;
-            selectTimeval = &remainTimeval;
+            waitPtr = new UMLRTNotifyWait(incomingQueue.getNotifyFd(), timerQueue.getNotifyFd());
         }
-        // end DEBUG - remove this later
+        BDEBUG(BD_CONTROLLER, "%s: wait\n", name());
 
-        BDEBUG(BD_CONTROLLER, "%s: call select msgfd(%d) timeout[%d,%d]\n",
-                name(),
-                msgNotifyFd,
-                selectTimeval ? selectTimeval->tv_sec : -1,
-                selectTimeval ? selectTimeval->tv_usec : -1);
-
-
-        if ((select(nfds, &fds, NULL, NULL, selectTimeval)) < 0)
-        {
-            FATAL_ERRNO("select");
-        }
-        if (FD_ISSET(msgNotifyFd, &fds))
-        {
-            // Clear message notify-pending.
-            incomingQueue.clearNotifyFd();
-        }
-        if (FD_ISSET(timerFd, &fds))
-        {
-            // Clear message notify-pending.
-            timerQueue.clearNotifyFd();
-        }
+        waitPtr->wait(timeout);
     }
+    // Clear any notification sent since prepareWait(), whether we waited or not.
+    incomingQueue.clearNotifyFd();
+    timerQueue.clearNotifyFd();
 }
 
 /*static*/ void UMLRTController::debugOutputModelPortDeferQueueWalk ( const UMLRTMessage * msg, void *userData )
@@ -1064,7 +1143,7 @@ void UMLRTController::debugOutputSlotContainment ( const UMLRTSlot * slot, size_
 void UMLRTController::debugOutputModel ( const char * userMsg )
 {
     // Acquire global RTS lock for this.
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     char timebuf[UMLRTTimespec::TIMESPEC_TOSTRING_SZ];
     UMLRTTimespec tm;
@@ -1100,7 +1179,7 @@ void UMLRTController::debugOutputModel ( const char * userMsg )
         BDEBUG(BD_MODEL, "Slot list:\n");
         debugOutputSlots(slot);
     }
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 }
 
 void UMLRTController::debugOutputMessage ( UMLRTMessage * msg )
@@ -1115,7 +1194,7 @@ void UMLRTController::debugOutputMessage ( UMLRTMessage * msg )
 void UMLRTController::debugOutputMessages ( )
 {
     // Any queued messages are deallocated here.
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     BDEBUG(BD_MODEL, "Messages queued for Controller %s:\n", name());
     // Queue messages associated with all timed-out timers.
@@ -1137,5 +1216,5 @@ void UMLRTController::debugOutputMessages ( )
     {
         BDEBUG(BD_MODEL, "    (none)\n");
     }
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 }
@@ -1657,7 +1657,7 @@ void UMLRTFrameService::controllerDeportUnbind ( UMLRTSlot * slot, const UMLRTCo
 /*static*/ const UMLRTCapsuleId UMLRTFrameService::incarnationAt ( const UMLRTCommsPort * srcPort, const UMLRTCapsulePart * part, int index )
 {
     UMLRTCapsuleId id(NULL);
-    rtsLock();
+    rtsReadLock();
     if (index == -1)
     {
         index = 0;
@@ -1674,7 +1674,7 @@ void UMLRTFrameService::controllerDeportUnbind ( UMLRTSlot * slot, const UMLRTCo
     {
         id = UMLRTCapsuleId(part->slots[index]->capsule);
     }
-    rtsUnlock();
+    rtsReadUnlock();
     return id;
 }
 
@@ -1851,6 +1851,23 @@ void UMLRTFrameService::controllerDeportUnbind ( UMLRTSlot * slot, const UMLRTCo
 }
 
 /*static*/ void UMLRTFrameService::rtsLock ( )
+{
+    rtsReadLock();
+
+    // Exclude signal deliveries, which only take the delivery lock of the sending controller.
+    UMLRTController::takeAllDeliveryLocks();
+
+    BDEBUG(BD_LOCK,"rtsLock delivery locks acquired\n");
+}
+
+/*static*/ void UMLRTFrameService::rtsUnlock ( )
+{
+    UMLRTController::giveAllDeliveryLocks();
+
+    rtsReadUnlock();
+}
+
+/*static*/ void UMLRTFrameService::rtsReadLock ( )
 {
     BDEBUG(BD_LOCK,"rtsLock attempt\n");
 
@@ -1862,7 +1879,7 @@ void UMLRTFrameService::controllerDeportUnbind ( UMLRTSlot * slot, const UMLRTCo
     BDEBUG(BD_LOCK,"rtsLock acquired\n");
 }
 
-/*static*/ void UMLRTFrameService::rtsUnlock ( )
+/*static*/ void UMLRTFrameService::rtsReadUnlock ( )
 {
     BDEBUG(BD_LOCK,"rtsUnlock\n");
 
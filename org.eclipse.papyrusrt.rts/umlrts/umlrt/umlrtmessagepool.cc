@@ -26,6 +26,7 @@ UMLRTMessagePool::UMLRTMessagePool(UMLRTMessage messages[], size_t arraySize, si
             messages[i - 1].qid = qid++;
         }
         head = &messages[0];
+        size = freeCount = arraySize;
     }
 }
 
@@ -8,9 +8,165 @@
 * http://www.eclipse.org/legal/epl-v10.html
 *******************************************************************************/
 
+#include <stdlib.h>
+#include "osatomic.hh"
+#include "umlrtguard.hh"
 #include "umlrtmessagequeue.hh"
 
 // See umlrtmessagequeue.hh for documentation.
 
-UMLRTMessageQueue::UMLRTMessageQueue() { }
+// The 'next' link of a posted element is written by a producer while the consumer may be reading it.
+static inline const UMLRTQueueElement * loadNext ( const UMLRTQueueElement * element )
+{
+    return *(const UMLRTQueueElement * const volatile *)&element->next;
+}
 
+static inline void storeNext ( const UMLRTQueueElement * element, const UMLRTQueueElement * next )
+{
+    *(const UMLRTQueueElement * volatile *)&element->next = next;
+}
+
+UMLRTMessageQueue::UMLRTMessageQueue() : postHead(&stub), postTail(&stub) { }
+
+bool UMLRTMessageQueue::post ( const UMLRTQueueElement * element ) const
+{
+    return link(element) == &stub;
+}
+
+const UMLRTQueueElement * UMLRTMessageQueue::link ( const UMLRTQueueElement * element ) const
+{
+    storeNext(element, NULL);
+
+    // Swap in the new tail. The compare-and-swap is a full barrier, so the element contents are
+    // visible before it is reachable.
+    const UMLRTQueueElement * prev;
+    do
+    {
+        prev = postTail;
+    } while (!osAtomicCompareAndSwapPtr((void * volatile *)&postTail, (void *)prev, (void *)element));
+
+    // Until this is done, the consumer sees the list end at 'prev'.
+    storeNext(prev, element);
+
+    return prev;
+}
+
+const UMLRTQueueElement * UMLRTMessageQueue::take ( ) const
+{
+    const UMLRTQueueElement * first = postHead;
+    const UMLRTQueueElement * next = loadNext(first);
+
+    if (first == &stub)
+    {
+        if (next == NULL)
+        {
+            // Nothing posted.
+            return NULL;
+        }
+        // Skip the stub.
+        postHead = first = next;
+        next = loadNext(next);
+    }
+    if (next != NULL)
+    {
+        postHead = next;
+        return first;
+    }
+    if (first != postTail)
+    {
+        // A producer has swapped in a new tail but not yet linked it after 'first'.
+        return NULL;
+    }
+    // 'first' is the last element - put the stub back behind it so 'first' can be unlinked.
+    link(&stub);
+
+    next = loadNext(first);
+    if (next != NULL)
+    {
+        postHead = next;
+        return first;
+    }
+    // Another producer got in before the stub and has not yet linked its element.
+    return NULL;
+}
+
+void UMLRTMessageQueue::collect ( ) const
+{
+    const UMLRTQueueElement * first = NULL;
+    const UMLRTQueueElement * last = NULL;
+    const UMLRTQueueElement * element;
+    size_t collected = 0;
+
+    while ((element = take()) != NULL)
+    {
+        element->next = NULL;
+        if (first == NULL)
+        {
+            first = element;
+        }
+        else
+        {
+            last->next = element;
+        }
+        last = element;
+        ++collected;
+    }
+    if (first != NULL)
+    {
+        UMLRTGuard g( mutex );
+
+        if (head == NULL)
+        {
+            head = first;
+        }
+        else
+        {
+            tail->next = first;
+        }
+        tail = last;
+        _count += collected;
+    }
+}
+
+const UMLRTQueueElement * UMLRTMessageQueue::dequeue ( )
+{
+    collect();
+
+    return UMLRTQueue::dequeue();
+}
+
+const UMLRTQueueElement * UMLRTMessageQueue::dequeueAll ( const UMLRTQueueElement * * last, size_t * count_p )
+{
+    collect();
+
+    return UMLRTQueue::dequeueAll(last, count_p);
+}
+
+bool UMLRTMessageQueue::isEmpty ( ) const
+{
+    collect();
+
+    // Not empty while a producer is still linking a posted element.
+    return UMLRTQueue::isEmpty() && (postHead == &stub) && (postTail == &stub);
+}
+
+size_t UMLRTMessageQueue::count ( ) const
+{
+    collect();
+
+    return UMLRTQueue::count();
+}
+
+int UMLRTMessageQueue::remove ( match_compare_t compare, match_notify_t notify, void * userData, bool one )
+{
+    collect();
+
+    return UMLRTQueue::remove(compare, notify, userData, one);
+}
+
+int UMLRTMessageQueue::walk ( walk_callback_t callback, void * userData ) const
+{
+    collect();
+
+    return UMLRTQueue::walk(callback, userData);
+}
@@ -170,8 +170,10 @@ bool UMLRTOutSignal::signalDeliver ( const UMLRTCommsPort * srcPort, size_t port
             (destPort == NULL) ? "(no dest capsule - dest port NULL)" :
                     (destPort->slot->capsule == NULL) ? "(no destination capsule - not instantiated)" : destPort->slot->capsule->getName(),
             (destPort == NULL) ? "(dest port NULL)" : destPort->getName());
-    // Lock the RTS
-    UMLRTFrameService::rtsLock();
+    // Deliveries from different controllers do not contend - structural changes take every controller's
+    // delivery lock along with the global RTS lock.
+    UMLRTController * srcController = srcPort->slot->controller;
+    srcController->takeDeliveryLock();
 
     if (srcPort->slot->condemned)
     {
@@ -206,8 +208,7 @@ bool UMLRTOutSignal::signalDeliver ( const UMLRTCommsPort * srcPort, size_t port
         ok = destPort->slot->controller->deliver( destPort, *this, portIndex );
         // Error code set by 'deliver' if an error occurred.
     }
-    // Unlock the RTS
-    UMLRTFrameService::rtsUnlock();
+    srcController->giveDeliveryLock();
 
     return ok;
 }
@@ -20,7 +20,7 @@
 
 // Create an empty queue.
 UMLRTPool::UMLRTPool(size_t incrementSize) :
-        head(0), increment(incrementSize), qid(0)
+        head(0), increment(incrementSize), qid(0), size(0), freeCount(0), highWater(0), crossThreadFrees(0)
 {
 }
 
@@ -30,16 +30,30 @@ UMLRTPool::~UMLRTPool()
 
 // Remove the first element on the pool.
 // Grow the list if it is empty
-const UMLRTQueueElement * UMLRTPool::get()
+const UMLRTQueueElement * UMLRTPool::take()
 {
-    UMLRTGuard g(mutex);
-
     if (head == NULL)
     {
         grow();
+        size += increment;
+        freeCount += increment;
     }
     const UMLRTQueueElement * element = head;
     head = element->next;
+    --freeCount;
+    if ((size - freeCount) > highWater)
+    {
+        highWater = size - freeCount;
+    }
+    return element;
+}
+
+const UMLRTQueueElement * UMLRTPool::get()
+{
+    UMLRTGuard g(mutex);
+
+    const UMLRTQueueElement * element = take();
+    element->cache = NULL;
     return element;
 }
 
@@ -49,7 +63,66 @@ void UMLRTPool::put(const UMLRTQueueElement * element)
     UMLRTGuard g(mutex);
     if (element)
     {
+        if (element->cache != NULL)
+        {
+            // Allocated by a controller, freed by another thread.
+            ++crossThreadFrees;
+        }
         element->next = head;
         head = element;
+        ++freeCount;
     }
 }
+
+const UMLRTQueueElement * UMLRTPool::getBatch(size_t count, const UMLRTQueueElement * * last)
+{
+    UMLRTGuard g(mutex);
+
+    const UMLRTQueueElement * first = NULL;
+    const UMLRTQueueElement * element = NULL;
+
+    for (size_t i = 0; i < count; ++i)
+    {
+        const UMLRTQueueElement * next = take();
+
+        if (first == NULL)
+        {
+            first = next;
+        }
+        else
+        {
+            element->next = next;
+        }
+        element = next;
+    }
+    if (element != NULL)
+    {
+        element->next = NULL;
+    }
+    *last = element;
+    return first;
+}
+
+void UMLRTPool::putBatch(const UMLRTQueueElement * first, const UMLRTQueueElement * last, size_t count, size_t crossThreadFrees_)
+{
+    UMLRTGuard g(mutex);
+
+    if (first != NULL)
+    {
+        last->next = head;
+        head = first;
+        freeCount += count;
+    }
+    crossThreadFrees += crossThreadFrees_;
+}
+
+void UMLRTPool::getStats(UMLRTPoolStats & stats)
+{
+    UMLRTGuard g(mutex);
+
+    stats.size = size;
+    stats.free = freeCount;
+    stats.inUse = size - freeCount;
+    stats.highWater = highWater;
+    stats.crossThreadFrees = crossThreadFrees;
+}
@@ -0,0 +1,94 @@
+// umlrtpoolcache.cc
+
+/*******************************************************************************
+ * Copyright (c) 2017 Zeligsoft (2009) Limited  and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+#include <stdlib.h>
+#include "umlrtpool.hh"
+#include "umlrtpoolcache.hh"
+#include "umlrtqueueelement.hh"
+
+// See umlrtpoolcache.hh for documentation.
+
+UMLRTPoolCache::UMLRTPoolCache(size_t magazineSize_) :
+        magazineSize(magazineSize_ ? magazineSize_ : 1), crossThreadFrees(0)
+{
+    loaded.first = loaded.last = NULL;
+    loaded.count = 0;
+    previous = loaded;
+}
+
+const UMLRTQueueElement * UMLRTPoolCache::get(UMLRTPool * pool)
+{
+    if (loaded.count == 0)
+    {
+        if (previous.count == 0)
+        {
+            loaded.first = pool->getBatch(magazineSize, &loaded.last);
+            loaded.count = magazineSize;
+        }
+        else
+        {
+            swapMagazines();
+        }
+    }
+    const UMLRTQueueElement * element = loaded.first;
+    loaded.first = element->next;
+    --loaded.count;
+
+    element->cache = this;
+    return element;
+}
+
+void UMLRTPoolCache::put(UMLRTPool * pool, const UMLRTQueueElement * element)
+{
+    if (element == NULL)
+    {
+        return;
+    }
+    if (element->cache != this)
+    {
+        ++crossThreadFrees;
+    }
+    if (loaded.count == magazineSize)
+    {
+        if (previous.count != 0)
+        {
+            putMagazine(pool, previous);
+        }
+        swapMagazines();
+    }
+    element->next = loaded.first;
+    loaded.first = element;
+    if (loaded.count++ == 0)
+    {
+        loaded.last = element;
+    }
+}
+
+void UMLRTPoolCache::flush(UMLRTPool * pool)
+{
+    putMagazine(pool, loaded);
+    putMagazine(pool, previous);
+}
+
+void UMLRTPoolCache::putMagazine(UMLRTPool * pool, Magazine & magazine)
+{
+    pool->putBatch(magazine.count ? magazine.first : NULL, magazine.last, magazine.count, crossThreadFrees);
+    crossThreadFrees = 0;
+
+    magazine.first = magazine.last = NULL;
+    magazine.count = 0;
+}
+
+void UMLRTPoolCache::swapMagazines()
+{
+    Magazine magazine = loaded;
+    loaded = previous;
+    previous = magazine;
+}
@@ -23,9 +23,12 @@
 
 // See umlrtprioritymessagequeue.hh for documentation.
 
-UMLRTPriorityMessageQueue::UMLRTPriorityMessageQueue ( const char * owner_ ) : owner(owner_)
+UMLRTPriorityMessageQueue::UMLRTPriorityMessageQueue ( const char * owner_, bool multiProducer_ ) : owner(owner_), multiProducer(multiProducer_), notifyPtr(NULL)
 {
-    notifyPtr = new UMLRTNotify();
+    if (multiProducer)
+    {
+        notifyPtr = new UMLRTNotify();
+    }
 }
 
 UMLRTPriorityMessageQueue::~UMLRTPriorityMessageQueue ( )
@@ -159,9 +162,20 @@ void UMLRTPriorityMessageQueue::enqueue ( UMLRTMessage * msg, bool front )
             msg->getSignalName(),
             msg->signal.getPayloadSize());
 
-    queue[priority].enqueue(msg, front);
-
-    notifyPtr->sendNotification();
+    if (!multiProducer)
+    {
+        queue[priority].enqueue(msg, front);
+    }
+    else if (front)
+    {
+        queue[priority].enqueue(msg, front);
+        notifyPtr->sendNotification();
+    }
+    else if (queue[priority].post(msg))
+    {
+        // The owner only has to be woken for the first message posted since it last emptied the queue.
+        notifyPtr->sendNotification();
+    }
 }
 
 // See umlrtprioritymessagequeue.hh for documentation.
@@ -199,14 +213,29 @@ void UMLRTPriorityMessageQueue::remove ( UMLRTQueue::match_compare_t callback, U
     }
 }
 
+UMLRTNotify * UMLRTPriorityMessageQueue::getNotify ( )
+{
+    if (notifyPtr == NULL)
+    {
+        FATAL("%s: queue is not multi-producer and has no notification", owner);
+    }
+    return notifyPtr;
+}
+
+// See umlrtprioritymessagequeue.hh for documentation.
+void UMLRTPriorityMessageQueue::prepareWait ( )
+{
+    getNotify()->prepareWait();
+}
+
 // return priorityMessageQueue notifyfd[READ]
 int UMLRTPriorityMessageQueue::getNotifyFd ( )
 {
-    return notifyPtr->getNotifyFd();
+    return getNotify()->getNotifyFd();
 }
 
 // Clear notifications of pending commands.
 void UMLRTPriorityMessageQueue::clearNotifyFd ( )
 {
-    notifyPtr->clearNotifyFd();
+    getNotify()->clearNotifyFd();
 }
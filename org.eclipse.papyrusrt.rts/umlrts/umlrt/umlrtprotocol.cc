@@ -261,11 +261,11 @@ const char * UMLRTProtocol::getRegisteredName() const
 
 /*static*/ bool UMLRTProtocol::isRegistered( const UMLRTCommsPort * port )
 {
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     bool registered = (getPortToNameMap()->getObject(port) != NULL);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return registered;
 }
@@ -279,13 +279,13 @@ bool UMLRTProtocol::isBoundAt( int index ) const
 {
     bool bound = false;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     if ((index >= 0) && (index < (int)srcPort->numFarEnd))
     {
         bound = (srcPort->farEnds[index].port != NULL);
     }
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return bound;
 }
@@ -294,7 +294,7 @@ int UMLRTProtocol::indexTo( const UMLRTCapsule * capsule ) const
 {
     int index = -1;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     for (size_t i = 0; (i < srcPort->numFarEnd) && (index == -1); ++i)
     {
@@ -306,7 +306,7 @@ int UMLRTProtocol::indexTo( const UMLRTCapsule * capsule ) const
             }
         }
     }
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return index;
 }
@@ -315,13 +315,13 @@ bool UMLRTProtocol::isIndexTo( int index, const UMLRTCapsule * capsule ) const
 {
     bool isIndex = false;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     if ((index >= 0) && (index <= (int)srcPort->numFarEnd))
     {
         isIndex = (srcPort->farEnds[index].port->slot->capsule == capsule);
     }
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return isIndex;
 }
@@ -330,11 +330,11 @@ int UMLRTProtocol::purge()
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->purge();
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -343,11 +343,11 @@ int UMLRTProtocol::purgeAt( int index )
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->purge(index);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -356,11 +356,11 @@ int UMLRTProtocol::recall()
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->recall(-1/*index*/, false/*front*/, true/*one*/);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -369,11 +369,11 @@ int UMLRTProtocol::recallAll()
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->recall(-1/*index*/, false/*front*/, false/*one*/);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -382,11 +382,11 @@ int UMLRTProtocol::recallAllAt( int index, bool front )
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->recall(index, front, false/*one*/);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -395,11 +395,11 @@ int UMLRTProtocol::recallAllFront()
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->recall(-1/*index*/, true/*front*/, false/*one*/);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -408,11 +408,11 @@ int UMLRTProtocol::recallAt( int index, bool front )
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->recall(index, front, true/*one*/);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -421,11 +421,11 @@ int UMLRTProtocol::recallFront()
 {
     int count;
 
-    UMLRTFrameService::rtsLock();
+    UMLRTFrameService::rtsReadLock();
 
     count = srcPort->recall(-1/*index*/, true/*front*/, true/*one*/);
 
-    UMLRTFrameService::rtsUnlock();
+    UMLRTFrameService::rtsReadUnlock();
 
     return count;
 }
@@ -15,9 +15,11 @@
 #include "umlrtapi.hh"
 #include "umlrtslot.hh"
 #include "umlrtcommsportrole.hh"
+#include "umlrtcontroller.hh"
 #include "umlrtguard.hh"
 #include "umlrtobjectclass.hh"
 #include "umlrtsignalelement.hh"
+#include "umlrtsignalelementpool.hh"
 #include "umlrtuserconfig.hh"
 
 // TODO debugging - to be removed.
@@ -27,7 +29,7 @@ extern uint8_t * globalDst;
 // See umlrtsignalelement.hh for documentation.
 
 UMLRTSignalElement::UMLRTSignalElement ( ) : id(0), srcPort(0), name(0), defaultPayload(0), payload(0), priority(PRIORITY_NORMAL), appPayloadSize(0),
-            maxPayloadSize(USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE), nonDefaultPayload(false), allocated(false), refCount(0), object(NULL), desc(NULL)
+            maxPayloadSize(USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE), nonDefaultPayload(false), payloadSizeClass(-1), allocated(false), refCount(0), object(NULL), desc(NULL)
 {
     // DEFAULT PAYLOAD SIZE IS A CONSTANT HERE, BUT HAS TO BE OBTAINED AT RUN-TIME.
     if (!(defaultPayload = payload = (uint8_t*)malloc(USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE)))
@@ -56,10 +58,12 @@ UMLRTSignalElement::UMLRTSignalElement ( ) : id(0), srcPort(0), name(0), default
     if (element->nonDefaultPayload)
     {
         // Return non-default payload.
-        free(element->payload);
+        UMLRTController::getSignalElementPool()->freePayload(element->payload, element->payloadSizeClass);
 
         // Restore default payload.
         element->payload = element->defaultPayload;
+        element->nonDefaultPayload = false;
+        element->payloadSizeClass = -1;
         element->maxPayloadSize = USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE;
         element->appPayloadSize = 0; // Should be unused while deallocated.
     }
@@ -258,12 +262,14 @@ void UMLRTSignalElement::initialize ( const char * name_, Id id_, size_t payload
     // GENERATED USER-CONFIGURATION PARAMETERS, IF THE VALUES FROM umlrtapi.hh ARE NOT USED.
     if (payloadSize_ > USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE)
     {
-        if (!(payload = (uint8_t *)malloc(payloadSize_)))
+        UMLRTSignalElementPool * pool = UMLRTController::getSignalElementPool();
+
+        if (pool == NULL)
         {
-            FATAL("(%p) qid[%d] non-default payload malloc(%d)", this, qid, payloadSize_ );
+            FATAL("(%p) qid[%d] no signal pool defined (non-default payload)", this, qid);
         }
+        payload = pool->allocatePayload(payloadSize_, &maxPayloadSize, &payloadSizeClass);
         nonDefaultPayload = true;
-        maxPayloadSize = payloadSize_;
     }
     appPayloadSize = payloadSize_;
 
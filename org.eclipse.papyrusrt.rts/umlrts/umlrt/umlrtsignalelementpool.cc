@@ -12,12 +12,19 @@
 #include <stdlib.h>
 #include "basefatal.hh"
 #include "umlrtguard.hh"
+#include "umlrtobjectclass.hh"
 #include "umlrtsignalelementpool.hh"
 
+/*static*/ size_t UMLRTSignalElementPool::maxRegisteredPayloadSize = 0;
+
 UMLRTSignalElementPool::UMLRTSignalElementPool(UMLRTSignalElement signalElements[],
         size_t arraySize, size_t incrementSize) :
         UMLRTPool(incrementSize)
 {
+    for (int i = 0; i < PAYLOAD_SIZE_CLASSES; ++i)
+    {
+        payloadSizeClasses[i].free = NULL;
+    }
     UMLRTGuard g(mutex);
 
     if (arraySize && signalElements != NULL)
@@ -28,13 +35,17 @@ UMLRTSignalElementPool::UMLRTSignalElementPool(UMLRTSignalElement signalElements
             signalElements[i - 1].qid = qid++;
         }
         head = &signalElements[0];
+        size = freeCount = arraySize;
     }
 }
 
 UMLRTSignalElementPool::UMLRTSignalElementPool(size_t incrementSize) :
         UMLRTPool(incrementSize)
 {
-
+    for (int i = 0; i < PAYLOAD_SIZE_CLASSES; ++i)
+    {
+        payloadSizeClasses[i].free = NULL;
+    }
 }
 
 void UMLRTSignalElementPool::grow()
@@ -49,3 +60,107 @@ void UMLRTSignalElementPool::grow()
     head = &newElements[0];
 }
 
+/*static*/ bool UMLRTSignalElementPool::addPayloadSize(const UMLRTObject * payload)
+{
+    if (payload->sizeOf > maxRegisteredPayloadSize)
+    {
+        maxRegisteredPayloadSize = payload->sizeOf;
+    }
+    return true;
+}
+
+/*static*/ int UMLRTSignalElementPool::getPayloadSizeClass(size_t size)
+{
+    size_t maxSize = USER_CONFIG_SIGNAL_PAYLOAD_SLAB_MAX_SIZE;
+
+    if (maxRegisteredPayloadSize > maxSize)
+    {
+        maxSize = maxRegisteredPayloadSize;
+    }
+    if (size > maxSize)
+    {
+        return -1;
+    }
+    size_t bufferSize = (size_t)USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE << 1;
+    int sizeClass = 0;
+
+    while ((bufferSize < size) && (sizeClass < PAYLOAD_SIZE_CLASSES))
+    {
+        bufferSize <<= 1;
+        ++sizeClass;
+    }
+    return (sizeClass < PAYLOAD_SIZE_CLASSES) ? sizeClass : -1;
+}
+
+uint8_t * UMLRTSignalElementPool::allocatePayload(size_t size, size_t * bufferSize, int * sizeClass)
+{
+    uint8_t * payload;
+
+    // The size class is returned to the caller, so freePayload() does not depend on the
+    // registered payload sizes, which may grow after the buffer was allocated.
+    if ((*sizeClass = getPayloadSizeClass(size)) < 0)
+    {
+        if (!(payload = (uint8_t *)malloc(size)))
+        {
+            FATAL("non-default payload malloc(%d)", size);
+        }
+        *bufferSize = size;
+    }
+    else
+    {
+        PayloadSizeClass & payloadSizeClass = payloadSizeClasses[*sizeClass];
+        UMLRTGuard g(payloadSizeClass.mutex);
+
+        if (payloadSizeClass.free == NULL)
+        {
+            growPayloadSizeClass(*sizeClass);
+        }
+        payload = (uint8_t *)payloadSizeClass.free;
+        payloadSizeClass.free = *(void * *)payload;
+
+        *bufferSize = (size_t)USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE << (*sizeClass + 1);
+    }
+    return payload;
+}
+
+void UMLRTSignalElementPool::freePayload(uint8_t * payload, int sizeClass)
+{
+    if (sizeClass < 0)
+    {
+        free(payload);
+    }
+    else if (sizeClass >= PAYLOAD_SIZE_CLASSES)
+    {
+        FATAL("free payload(%p) with bad size class(%d)", payload, sizeClass);
+    }
+    else
+    {
+        PayloadSizeClass & payloadSizeClass = payloadSizeClasses[sizeClass];
+        UMLRTGuard g(payloadSizeClass.mutex);
+
+        *(void * *)payload = payloadSizeClass.free;
+        payloadSizeClass.free = payload;
+    }
+}
+
+void UMLRTSignalElementPool::growPayloadSizeClass(int sizeClass)
+{
+    size_t bufferSize = (size_t)USER_CONFIG_SIGNAL_DEFAULT_PAYLOAD_SIZE << (sizeClass + 1);
+    size_t count = USER_CONFIG_SIGNAL_PAYLOAD_SLAB_SIZE / bufferSize;
+
+    if (count == 0)
+    {
+        count = 1;
+    }
+    uint8_t * slab = (uint8_t *)malloc(count * bufferSize);
+
+    if (slab == NULL)
+    {
+        FATAL("payload slab malloc(%d)", count * bufferSize);
+    }
+    for (size_t i = 0; i < count; ++i)
+    {
+        *(void * *)(slab + i * bufferSize) = payloadSizeClasses[sizeClass].free;
+        payloadSizeClasses[sizeClass].free = slab + i * bufferSize;
+    }
+}
@@ -27,6 +27,7 @@ UMLRTTimerPool::UMLRTTimerPool(UMLRTTimer timerElements[], size_t arraySize, siz
             timerElements[i - 1].qid = qid++;
         }
         head = &timerElements[0];
+        size = freeCount = arraySize;
     }
 }
 
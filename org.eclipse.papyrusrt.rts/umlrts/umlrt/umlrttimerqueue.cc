@@ -269,6 +269,12 @@ bool UMLRTTimerQueue::cancel ( UMLRTTimerId id )
     return ok;
 }
 
+// See umlrttimerqueue.hh for documentation.
+void UMLRTTimerQueue::prepareWait ( )
+{
+    notifyPtr->prepareWait();
+}
+
 int UMLRTTimerQueue::getNotifyFd ( )
 {
     return notifyPtr->getNotifyFd();